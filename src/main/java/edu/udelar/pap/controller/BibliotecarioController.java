@@ -4,6 +4,8 @@ import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -15,6 +17,7 @@ import javax.swing.JPasswordField;
 import javax.swing.JTextField;
 
 import edu.udelar.pap.domain.Bibliotecario;
+import edu.udelar.pap.exception.ServicioSaturadoException;
 import edu.udelar.pap.service.BibliotecarioService;
 import edu.udelar.pap.util.DatabaseUtil;
 import edu.udelar.pap.util.InterfaceUtil;
@@ -26,6 +29,8 @@ import edu.udelar.pap.util.ValidacionesUtil;
  */
 public class BibliotecarioController {
     
+    private static final Logger logger = Logger.getLogger(BibliotecarioController.class.getName());
+    
     private final BibliotecarioService bibliotecarioService;
     
     public BibliotecarioController() {
@@ -300,6 +305,20 @@ public class BibliotecarioController {
         return bibliotecarioService.obtenerTodosLosBibliotecarios();
     }
     
+    /**
+     * Obtiene el ID del primer bibliotecario (el de menor ID), o null si no hay ninguno
+     */
+    public Long obtenerPrimerBibliotecarioId() {
+        return bibliotecarioService.obtenerPrimerBibliotecarioId();
+    }
+    
+    /**
+     * Obtiene una página de bibliotecarios (paginación por cursor)
+     */
+    public edu.udelar.pap.service.Pagina<Bibliotecario> obtenerPaginaBibliotecarios(String orden, String cursor, Integer limite) {
+        return bibliotecarioService.obtenerPaginaBibliotecarios(orden, cursor, limite);
+    }
+    
     /**
      * Obtiene un bibliotecario por ID
      */
@@ -327,36 +346,31 @@ public class BibliotecarioController {
      */
     public Long crearBibliotecarioWeb(String nombre, String apellido, String email, String numeroEmpleado, String password) {
         try {
-            System.out.println("🔍 BibliotecarioController.crearBibliotecarioWeb - Parámetros recibidos:");
-            System.out.println("  - nombre: '" + nombre + "'");
-            System.out.println("  - apellido: '" + apellido + "'");
-            System.out.println("  - email: '" + email + "'");
-            System.out.println("  - numeroEmpleado: '" + numeroEmpleado + "'");
-            System.out.println("  - password: " + (password != null ? "[PRESENTE]" : "[NULL]"));
+            logger.log(Level.FINE, "crearBibliotecarioWeb: email={0}, numeroEmpleado={1}", new Object[] {email, numeroEmpleado});
             
             // Validaciones básicas
             if (nombre == null || nombre.trim().isEmpty()) {
-                System.out.println("❌ Validación fallida: nombre vacío");
+                logger.fine("Validación fallida: nombre vacío");
                 return -1L;
             }
             
             if (apellido == null || apellido.trim().isEmpty()) {
-                System.out.println("❌ Validación fallida: apellido vacío");
+                logger.fine("Validación fallida: apellido vacío");
                 return -1L;
             }
             
             if (email == null || email.trim().isEmpty()) {
-                System.out.println("❌ Validación fallida: email vacío");
+                logger.fine("Validación fallida: email vacío");
                 return -1L;
             }
             
             if (numeroEmpleado == null || numeroEmpleado.trim().isEmpty()) {
-                System.out.println("❌ Validación fallida: numeroEmpleado vacío");
+                logger.fine("Validación fallida: numeroEmpleado vacío");
                 return -1L;
             }
             
             if (password == null || password.trim().isEmpty()) {
-                System.out.println("❌ Validación fallida: password vacío");
+                logger.fine("Validación fallida: password vacío");
                 return -1L;
             }
             
@@ -367,18 +381,20 @@ public class BibliotecarioController {
             bibliotecario.setNumeroEmpleado(numeroEmpleado.trim());
             bibliotecario.setPlainPassword(password); // Esto hashea automáticamente
             
-            System.out.println("💾 Guardando bibliotecario en la base de datos...");
+            logger.fine("Guardando bibliotecario en la base de datos...");
             
             // Guardar usando el servicio
             bibliotecarioService.guardarBibliotecario(bibliotecario);
             
-            System.out.println("✅ Bibliotecario creado con ID: " + bibliotecario.getId());
+            logger.fine(() -> "Bibliotecario creado con ID: " + bibliotecario.getId());
             
             return bibliotecario.getId();
             
+        } catch (ServicioSaturadoException ex) {
+            // Pool de BCrypt lleno: el handler HTTP responde 503 con Retry-After
+            throw ex;
         } catch (Exception ex) {
-            System.err.println("❌ Excepción en crearBibliotecarioWeb: " + ex.getMessage());
-            ex.printStackTrace();
+            logger.log(Level.SEVERE, "Excepción en crearBibliotecarioWeb", ex);
             return -1L;
         }
     }
@@ -442,35 +458,26 @@ public class BibliotecarioController {
      */
     public Long autenticarBibliotecario(String email, String password) {
         try {
-            System.out.println("🔍 DEBUG BibliotecarioController.autenticarBibliotecario");
-            System.out.println("   Email recibido: '" + email + "'");
-            System.out.println("   Password recibido: '" + password + "'");
+            logger.log(Level.FINE, "Autenticando bibliotecario: {0}", email);
             
-            List<Bibliotecario> bibliotecarios = bibliotecarioService.obtenerTodosLosBibliotecarios();
-            System.out.println("   Total bibliotecarios en BD: " + bibliotecarios.size());
+            // Búsqueda indexada por email normalizado (AutenticacionService)
+            edu.udelar.pap.domain.Usuario usuario = new edu.udelar.pap.service.AutenticacionService().buscarUsuarioPorEmail(email);
             
-            for (Bibliotecario bibliotecario : bibliotecarios) {
-                System.out.println("   Comparando con: '" + bibliotecario.getEmail() + "'");
-                
-                if (bibliotecario.getEmail().equalsIgnoreCase(email.trim())) {
-                    System.out.println("   ✓ Usuario encontrado!");
-                    System.out.println("   Password en BD: " + bibliotecario.getPassword().substring(0, Math.min(20, bibliotecario.getPassword().length())) + "...");
-                    System.out.println("   ¿Empieza con $2a$? " + bibliotecario.getPassword().startsWith("$2a$"));
-                    
-                    if (bibliotecario.verificarPassword(password)) {
-                        System.out.println("   ✅ Password verificado correctamente!");
-                        return bibliotecario.getId();
-                    } else {
-                        System.out.println("   ❌ Password NO coincide");
-                        return -1L; // Password incorrecto
-                    }
+            if (usuario instanceof Bibliotecario bibliotecario) {
+                if (bibliotecario.verificarPassword(password)) {
+                    return bibliotecario.getId();
+                } else {
+                    logger.log(Level.FINE, "Credenciales inválidas para {0}", email);
+                    return -1L; // Password incorrecto
                 }
             }
-            System.out.println("   ❌ Usuario no encontrado");
+            logger.log(Level.FINE, "Bibliotecario no encontrado: {0}", email);
             return -1L; // Usuario no encontrado
+        } catch (ServicioSaturadoException ex) {
+            // Pool de BCrypt lleno: el handler HTTP responde 503 con Retry-After
+            throw ex;
         } catch (Exception ex) {
-            System.err.println("   ❌ ERROR en autenticación: " + ex.getMessage());
-            ex.printStackTrace();
+            logger.log(Level.SEVERE, "Error en autenticación", ex);
             return -1L;
         }
     }
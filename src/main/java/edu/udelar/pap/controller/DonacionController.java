@@ -27,6 +27,8 @@ import javax.swing.table.DefaultTableModel;
 import edu.udelar.pap.domain.ArticuloEspecial;
 import edu.udelar.pap.domain.Libro;
 import edu.udelar.pap.service.DonacionService;
+import edu.udelar.pap.service.ImportacionService;
+import edu.udelar.pap.util.FilasImportacion;
 import edu.udelar.pap.ui.DateTextField;
 import edu.udelar.pap.util.DatabaseUtil;
 import edu.udelar.pap.util.InterfaceUtil;
@@ -39,9 +41,11 @@ import edu.udelar.pap.util.ValidacionesUtil;
 public class DonacionController {
     
     private final DonacionService donacionService;
+    private final ImportacionService importacionService;
     
     public DonacionController() {
         this.donacionService = new DonacionService();
+        this.importacionService = new ImportacionService();
     }
     
     /**
@@ -1056,4 +1060,37 @@ public class DonacionController {
     public List<Object> obtenerDonacionesPorRangoFechas(LocalDate fechaInicio, LocalDate fechaFin) {
         return donacionService.obtenerDonacionesPorRangoFechas(fechaInicio, fechaFin);
     }
+    
+    /**
+     * Obtiene una página de donaciones, libros y artículos (paginación por cursor)
+     */
+    public edu.udelar.pap.service.Pagina<edu.udelar.pap.domain.DonacionMaterial> obtenerPaginaDonaciones(String orden, String cursor, Integer limite) {
+        return donacionService.obtenerPaginaDonaciones(orden, cursor, limite);
+    }
+    
+    /**
+     * Recorre en streaming las donaciones de un rango de fechas (para la aplicación web)
+     * El Stream debe cerrarse al terminar de leerlo
+     * @param fechaInicio Fecha de inicio del rango
+     * @param fechaFin Fecha de fin del rango
+     * @return Stream de donaciones, más recientes primero
+     */
+    public java.util.stream.Stream<edu.udelar.pap.domain.DonacionMaterial> streamDonacionesPorRangoFechas(LocalDate fechaInicio, LocalDate fechaFin) {
+        return donacionService.streamDonacionesPorRangoFechas(fechaInicio, fechaFin);
+    }
+    
+    /**
+     * Importa libros o artículos especiales en forma masiva desde un archivo CSV o JSON lines
+     * @param tipo LIBROS o ARTICULOS
+     * @param filas Filas del archivo
+     * @param intervaloCommit Filas por transacción (null = valor por defecto)
+     * @return Resultado con conteos y errores por fila
+     */
+    public ImportacionService.ResultadoImportacion importarDonaciones(ImportacionService.TipoImportacion tipo,
+                                                                     FilasImportacion filas, Integer intervaloCommit) throws java.io.IOException {
+        if (tipo != ImportacionService.TipoImportacion.LIBROS && tipo != ImportacionService.TipoImportacion.ARTICULOS) {
+            throw new IllegalArgumentException("Las donaciones se importan como libros o articulos");
+        }
+        return importacionService.importar(tipo, filas, intervaloCommit);
+    }
 }
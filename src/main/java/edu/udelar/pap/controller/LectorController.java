@@ -4,6 +4,8 @@ import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -22,11 +24,14 @@ import javax.swing.table.DefaultTableModel;
 import edu.udelar.pap.domain.EstadoLector;
 import edu.udelar.pap.domain.Lector;
 import edu.udelar.pap.domain.Zona;
+import edu.udelar.pap.exception.ServicioSaturadoException;
+import edu.udelar.pap.service.ImportacionService;
 import edu.udelar.pap.service.LectorService;
 import edu.udelar.pap.ui.DateTextField;
 import edu.udelar.pap.ui.LectorUIUtil;
 import edu.udelar.pap.util.ControllerUtil;
 import edu.udelar.pap.util.DatabaseUtil;
+import edu.udelar.pap.util.FilasImportacion;
 import edu.udelar.pap.util.InterfaceUtil;
 import edu.udelar.pap.util.ValidacionesUtil;
 
@@ -37,10 +42,14 @@ import edu.udelar.pap.util.ValidacionesUtil;
  */
 public class LectorController {
     
+    private static final Logger logger = Logger.getLogger(LectorController.class.getName());
+    
     private final LectorService lectorService;
+    private final ImportacionService importacionService;
     
     public LectorController() {
         this.lectorService = new LectorService();
+        this.importacionService = new ImportacionService();
     }
     
     // ==================== INTERFACES PRINCIPALES ====================
@@ -500,6 +509,30 @@ public class LectorController {
         return lectorService.obtenerTodosLosLectores();
     }
     
+    /**
+     * Obtiene una página de lectores (paginación por cursor)
+     */
+    public edu.udelar.pap.service.Pagina<Lector> obtenerPaginaLectores(String orden, String cursor, Integer limite) {
+        return lectorService.obtenerPaginaLectores(orden, cursor, limite);
+    }
+    
+    /**
+     * Recorre todos los lectores en streaming (el Stream debe cerrarse al terminar)
+     */
+    public java.util.stream.Stream<Lector> streamTodosLectores() {
+        return lectorService.streamTodosLosLectores();
+    }
+    
+    /**
+     * Importa lectores en forma masiva desde un archivo CSV o JSON lines
+     * @param filas Filas del archivo
+     * @param intervaloCommit Filas por transacción (null = valor por defecto)
+     * @return Resultado con conteos y errores por fila
+     */
+    public ImportacionService.ResultadoImportacion importarLectores(FilasImportacion filas, Integer intervaloCommit) throws java.io.IOException {
+        return importacionService.importar(ImportacionService.TipoImportacion.LECTORES, filas, intervaloCommit);
+    }
+    
     /**
      * Obtiene un lector por ID
      */
@@ -569,7 +602,7 @@ public class LectorController {
             
             return bibliotecarioReferencia;
         } catch (Exception e) {
-            System.err.println("Error al obtener bibliotecario de referencia: " + e.getMessage());
+            logger.warning(() -> "Error al obtener bibliotecario de referencia: " + e.getMessage());
             return null;
         }
     }
@@ -590,43 +623,36 @@ public class LectorController {
     public Long crearLectorWeb(String nombre, String apellido, String email, String fechaNacimiento, 
                               String direccion, String zona, String password) {
         try {
-            System.out.println("🔍 LectorController.crearLectorWeb - Parámetros recibidos:");
-            System.out.println("  - nombre: '" + nombre + "'");
-            System.out.println("  - apellido: '" + apellido + "'");
-            System.out.println("  - email: '" + email + "'");
-            System.out.println("  - fechaNacimiento: '" + fechaNacimiento + "'");
-            System.out.println("  - direccion: '" + direccion + "'");
-            System.out.println("  - zona: '" + zona + "'");
-            System.out.println("  - password: " + (password != null ? "[PRESENTE]" : "[NULL]"));
+            logger.log(Level.FINE, "crearLectorWeb: email={0}, zona={1}", new Object[] {email, zona});
             
             // Validaciones básicas
             if (nombre == null || nombre.trim().isEmpty()) {
-                System.out.println("❌ Validación fallida: nombre vacío");
+                logger.fine("Validación fallida: nombre vacío");
                 return -1L;
             }
             
             if (apellido == null || apellido.trim().isEmpty()) {
-                System.out.println("❌ Validación fallida: apellido vacío");
+                logger.fine("Validación fallida: apellido vacío");
                 return -1L;
             }
             
             if (email == null || email.trim().isEmpty()) {
-                System.out.println("❌ Validación fallida: email vacío");
+                logger.fine("Validación fallida: email vacío");
                 return -1L;
             }
             
             if (direccion == null || direccion.trim().isEmpty()) {
-                System.out.println("❌ Validación fallida: direccion vacía");
+                logger.fine("Validación fallida: direccion vacía");
                 return -1L;
             }
             
             if (zona == null || zona.trim().isEmpty()) {
-                System.out.println("❌ Validación fallida: zona vacía");
+                logger.fine("Validación fallida: zona vacía");
                 return -1L;
             }
             
             if (password == null || password.trim().isEmpty()) {
-                System.out.println("❌ Validación fallida: password vacío");
+                logger.fine("Validación fallida: password vacío");
                 return -1L;
             }
             
@@ -634,9 +660,9 @@ public class LectorController {
             Zona zonaEnum;
             try {
                 zonaEnum = Zona.valueOf(zona.toUpperCase());
-                System.out.println("✅ Zona válida: " + zonaEnum);
+                logger.fine(() -> "Zona válida: " + zonaEnum);
             } catch (IllegalArgumentException e) {
-                System.out.println("❌ Zona inválida: " + zona);
+                logger.fine(() -> "Zona inválida: " + zona);
                 return -1L;
             }
             
@@ -650,18 +676,20 @@ public class LectorController {
             lector.setEstado(EstadoLector.ACTIVO);
             lector.setPlainPassword(password); // Esto hashea automáticamente
             
-            System.out.println("💾 Guardando lector en la base de datos...");
+            logger.fine("Guardando lector en la base de datos...");
             
             // Guardar usando el servicio
             lectorService.guardarLector(lector);
             
-            System.out.println("✅ Lector creado con ID: " + lector.getId());
+            logger.fine(() -> "Lector creado con ID: " + lector.getId());
             
             return lector.getId();
             
+        } catch (ServicioSaturadoException ex) {
+            // Pool de BCrypt lleno: el handler HTTP responde 503 con Retry-After
+            throw ex;
         } catch (Exception ex) {
-            System.err.println("❌ Excepción en crearLectorWeb: " + ex.getMessage());
-            ex.printStackTrace();
+            logger.log(Level.SEVERE, "Excepción en crearLectorWeb", ex);
             return -1L;
         }
     }
@@ -719,35 +747,26 @@ public class LectorController {
      */
     public Long autenticarLector(String email, String password) {
         try {
-            System.out.println("🔍 DEBUG LectorController.autenticarLector");
-            System.out.println("   Email recibido: '" + email + "'");
-            System.out.println("   Password recibido: '" + password + "'");
+            logger.log(Level.FINE, "Autenticando lector: {0}", email);
             
-            List<Lector> lectores = lectorService.obtenerTodosLosLectores();
-            System.out.println("   Total lectores en BD: " + lectores.size());
+            // Búsqueda indexada por email normalizado (AutenticacionService)
+            edu.udelar.pap.domain.Usuario usuario = new edu.udelar.pap.service.AutenticacionService().buscarUsuarioPorEmail(email);
             
-            for (Lector lector : lectores) {
-                System.out.println("   Comparando con: '" + lector.getEmail() + "'");
-                
-                if (lector.getEmail().equalsIgnoreCase(email.trim())) {
-                    System.out.println("   ✓ Usuario encontrado!");
-                    System.out.println("   Password en BD: " + lector.getPassword().substring(0, Math.min(20, lector.getPassword().length())) + "...");
-                    System.out.println("   ¿Empieza con $2a$? " + lector.getPassword().startsWith("$2a$"));
-                    
-                    if (lector.verificarPassword(password)) {
-                        System.out.println("   ✅ Password verificado correctamente!");
-                        return lector.getId();
-                    } else {
-                        System.out.println("   ❌ Password NO coincide");
-                        return -1L; // Password incorrecto
-                    }
+            if (usuario instanceof Lector lector) {
+                if (lector.verificarPassword(password)) {
+                    return lector.getId();
+                } else {
+                    logger.log(Level.FINE, "Credenciales inválidas para {0}", email);
+                    return -1L; // Password incorrecto
                 }
             }
-            System.out.println("   ❌ Usuario no encontrado");
+            logger.log(Level.FINE, "Lector no encontrado: {0}", email);
             return -1L; // Usuario no encontrado
+        } catch (ServicioSaturadoException ex) {
+            // Pool de BCrypt lleno: el handler HTTP responde 503 con Retry-After
+            throw ex;
         } catch (Exception ex) {
-            System.err.println("   ❌ ERROR en autenticación: " + ex.getMessage());
-            ex.printStackTrace();
+            logger.log(Level.SEVERE, "Error en autenticación", ex);
             return -1L;
         }
     }
@@ -794,6 +813,7 @@ public class LectorController {
      * @param lectorId ID del lector
      * @param nuevoEstado Nuevo estado (ACTIVO o SUSPENDIDO)
      * @return true si se cambió exitosamente, false en caso contrario
+     * @throws edu.udelar.pap.exception.ConflictoConcurrenciaException Si el conflicto de versión persiste tras los reintentos
      */
     public boolean cambiarEstadoLector(Long lectorId, String nuevoEstado) {
         try {
@@ -805,6 +825,8 @@ public class LectorController {
             }
             
             return lectorService.cambiarEstadoLector(lectorId, estado);
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException ex) {
+            throw ex;
         } catch (Exception ex) {
             return false;
         }
@@ -815,6 +837,7 @@ public class LectorController {
      * @param lectorId ID del lector
      * @param nuevaZona Nueva zona
      * @return true si se cambió exitosamente, false en caso contrario
+     * @throws edu.udelar.pap.exception.ConflictoConcurrenciaException Si el conflicto de versión persiste tras los reintentos
      */
     public boolean cambiarZonaLector(Long lectorId, String nuevaZona) {
         try {
@@ -826,6 +849,8 @@ public class LectorController {
             }
             
             return lectorService.cambiarZonaLector(lectorId, zona);
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException ex) {
+            throw ex;
         } catch (Exception ex) {
             return false;
         }
@@ -5,17 +5,21 @@ import edu.udelar.pap.service.PrestamoService;
 import edu.udelar.pap.service.LectorService;
 import edu.udelar.pap.service.BibliotecarioService;
 import edu.udelar.pap.service.DonacionService;
+import edu.udelar.pap.service.ImportacionService;
 import edu.udelar.pap.ui.PrestamoUIUtil;
 import edu.udelar.pap.ui.MaterialComboBoxItem;
 import edu.udelar.pap.ui.DateTextField;
 import edu.udelar.pap.util.InterfaceUtil;
 import edu.udelar.pap.util.ValidacionesUtil;
 import edu.udelar.pap.util.DatabaseUtil;
+import edu.udelar.pap.util.FilasImportacion;
 
 import javax.swing.*;
 import java.awt.*;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Controlador ultra-refactorizado para la gestión de préstamos
@@ -23,10 +27,13 @@ import java.util.List;
  */
 public class PrestamoControllerUltraRefactored {
     
+    private static final Logger logger = Logger.getLogger(PrestamoControllerUltraRefactored.class.getName());
+    
     private final PrestamoService prestamoService;
     private final LectorService lectorService;
     private final BibliotecarioService bibliotecarioService;
     private final DonacionService donacionService;
+    private final ImportacionService importacionService;
     
     // ==================== CONSTANTES PARA COLUMNAS ====================
     private static final String[] COLUMNAS_PRESTAMOS_BASICAS = {"ID", "Lector", "Material", "Fecha Solicitud", "Fecha Devolución", "Estado", "Bibliotecario"};
@@ -46,6 +53,7 @@ public class PrestamoControllerUltraRefactored {
         this.lectorService = new LectorService();
         this.bibliotecarioService = new BibliotecarioService();
         this.donacionService = new DonacionService();
+        this.importacionService = new ImportacionService();
     }
     
     public PrestamoControllerUltraRefactored(ControllerFactory controllerFactory) {
@@ -53,6 +61,7 @@ public class PrestamoControllerUltraRefactored {
         this.lectorService = new LectorService();
         this.bibliotecarioService = new BibliotecarioService();
         this.donacionService = new DonacionService();
+        this.importacionService = new ImportacionService();
     }
     
     // ==================== MÉTODOS PÚBLICOS PRINCIPALES ====================
@@ -1798,13 +1807,13 @@ public class PrestamoControllerUltraRefactored {
     public Long crearPrestamoWeb(Long lectorId, Long bibliotecarioId, Long materialId, 
                                 String fechaDevolucion, String estado) throws IllegalStateException {
         try {
-            System.out.println("🔍 crearPrestamoWeb llamado con: lectorId=" + lectorId + ", materialId=" + materialId);
+            logger.fine(() -> "crearPrestamoWeb llamado con: lectorId=" + lectorId + ", materialId=" + materialId);
             
             // Validaciones básicas
             if (lectorId == null || bibliotecarioId == null || materialId == null ||
                 fechaDevolucion == null || fechaDevolucion.trim().isEmpty() ||
                 estado == null || estado.trim().isEmpty()) {
-                System.out.println("❌ Parámetros inválidos");
+                logger.fine("Parámetros inválidos");
                 throw new IllegalStateException("Todos los parámetros son obligatorios");
             }
             
@@ -1812,7 +1821,7 @@ public class PrestamoControllerUltraRefactored {
             LocalDate fechaDev;
             try {
                 fechaDev = ValidacionesUtil.validarFechaFutura(fechaDevolucion);
-                System.out.println("✅ Fecha validada: " + fechaDev);
+                logger.fine(() -> "Fecha validada: " + fechaDev);
             } catch (Exception e) {
                 throw new IllegalStateException("Fecha inválida. Use el formato DD/MM/AAAA");
             }
@@ -1822,62 +1831,24 @@ public class PrestamoControllerUltraRefactored {
             try {
                 estadoEnum = EstadoPrestamo.valueOf(estado.toUpperCase());
             } catch (IllegalArgumentException e) {
-                System.out.println("❌ Estado inválido: " + estado);
+                logger.fine(() -> "Estado inválido: " + estado);
                 throw new IllegalStateException("Estado de préstamo inválido: " + estado);
             }
             
-            // Obtener entidades desde la base de datos
-            Lector lector = lectorService.obtenerLectorPorId(lectorId);
-            if (lector == null) {
-                System.out.println("❌ Lector no encontrado con ID: " + lectorId);
-                throw new IllegalStateException("Lector no encontrado con ID: " + lectorId);
-            }
-            System.out.println("✅ Lector encontrado: " + lector.getNombre());
-            
-            Bibliotecario bibliotecario = bibliotecarioService.obtenerBibliotecarioPorId(bibliotecarioId);
-            if (bibliotecario == null) {
-                System.out.println("❌ Bibliotecario no encontrado con ID: " + bibliotecarioId);
-                throw new IllegalStateException("Bibliotecario no encontrado con ID: " + bibliotecarioId);
-            }
-            System.out.println("✅ Bibliotecario encontrado: " + bibliotecario.getNombre());
-            
-            // Obtener material (puede ser Libro o ArticuloEspecial)
-            DonacionMaterial material = donacionService.obtenerLibroPorId(materialId);
-            if (material == null) {
-                // Si no es un libro, intentar como artículo especial
-                material = donacionService.obtenerArticuloEspecialPorId(materialId);
-            }
-            
-            if (material == null) {
-                System.out.println("❌ Material no encontrado con ID: " + materialId);
-                throw new IllegalStateException("Material no encontrado con ID: " + materialId);
-            }
-            System.out.println("✅ Material encontrado: " + material.toString());
-            
-            // Crear préstamo con todas las entidades vinculadas
-            Prestamo prestamo = new Prestamo();
-            prestamo.setLector(lector);
-            prestamo.setBibliotecario(bibliotecario);
-            prestamo.setMaterial(material);
-            prestamo.setFechaSolicitud(LocalDate.now());
-            prestamo.setFechaEstimadaDevolucion(fechaDev);
-            prestamo.setEstado(estadoEnum);
-            
-            System.out.println("💾 Guardando préstamo con estado: " + estadoEnum);
-            // Guardar usando el servicio (aquí se valida el estado del lector)
-            prestamoService.guardarPrestamo(prestamo);
+            logger.fine(() -> "Guardando préstamo con estado: " + estadoEnum);
+            // Una sola transacción: el servicio lee el lector (y valida su estado y su límite),
+            // el bibliotecario y el material por ID e inserta el préstamo
+            Long id = prestamoService.crearPrestamo(lectorId, bibliotecarioId, materialId, fechaDev, estadoEnum);
             
-            System.out.println("✅ Préstamo creado con ID: " + prestamo.getId());
-            System.out.println("✅ Estado del préstamo después de guardar: " + prestamo.getEstado());
-            return prestamo.getId();
+            logger.fine(() -> "Préstamo creado con ID: " + id + ", estado: " + estadoEnum);
+            return id;
             
         } catch (IllegalStateException ex) {
             // Propagar excepciones de validación de negocio
-            System.err.println("❌ Error de validación al crear préstamo: " + ex.getMessage());
+            logger.fine(() -> "Error de validación al crear préstamo: " + ex.getMessage());
             throw ex;
         } catch (Exception ex) {
-            System.err.println("❌ Error inesperado al crear préstamo: " + ex.getMessage());
-            ex.printStackTrace();
+            logger.log(Level.SEVERE, "Error inesperado al crear préstamo", ex);
             throw new IllegalStateException("Error al crear el préstamo: " + ex.getMessage());
         }
     }
@@ -1894,8 +1865,19 @@ public class PrestamoControllerUltraRefactored {
      */
     public boolean actualizarPrestamoWeb(Long prestamoId, Long lectorId, Long bibliotecarioId, 
                                         Long materialId, String fechaDevolucion, String estado) throws IllegalStateException {
+        return actualizarPrestamoWeb(prestamoId, lectorId, bibliotecarioId, materialId, fechaDevolucion, estado, null);
+    }
+    
+    /**
+     * Igual que actualizarPrestamoWeb, sobre la versión del préstamo que vio el cliente
+     * @param versionEsperada Versión devuelta por obtenerPrestamoDetallado (null para no comprobarla)
+     * @throws edu.udelar.pap.exception.ConflictoConcurrenciaException Si otro usuario modificó el préstamo
+     */
+    public boolean actualizarPrestamoWeb(Long prestamoId, Long lectorId, Long bibliotecarioId, 
+                                        Long materialId, String fechaDevolucion, String estado,
+                                        Long versionEsperada) throws IllegalStateException {
         try {
-            System.out.println("🔍 actualizarPrestamoWeb llamado - prestamoId: " + prestamoId);
+            logger.fine(() -> "actualizarPrestamoWeb llamado - prestamoId: " + prestamoId);
             
             // Obtener entidades si se proporcionaron IDs
             Lector nuevoLector = null;
@@ -1904,7 +1886,7 @@ public class PrestamoControllerUltraRefactored {
                 if (nuevoLector == null) {
                     throw new IllegalStateException("Lector no encontrado con ID: " + lectorId);
                 }
-                System.out.println("✅ Nuevo lector: " + nuevoLector.getNombre());
+                logger.log(Level.FINE, "Nuevo lector: {0}", nuevoLector.getNombre());
             }
             
             Bibliotecario nuevoBibliotecario = null;
@@ -1913,7 +1895,7 @@ public class PrestamoControllerUltraRefactored {
                 if (nuevoBibliotecario == null) {
                     throw new IllegalStateException("Bibliotecario no encontrado con ID: " + bibliotecarioId);
                 }
-                System.out.println("✅ Nuevo bibliotecario: " + nuevoBibliotecario.getNombre());
+                logger.log(Level.FINE, "Nuevo bibliotecario: {0}", nuevoBibliotecario.getNombre());
             }
             
             DonacionMaterial nuevoMaterial = null;
@@ -1925,14 +1907,14 @@ public class PrestamoControllerUltraRefactored {
                 if (nuevoMaterial == null) {
                     throw new IllegalStateException("Material no encontrado con ID: " + materialId);
                 }
-                System.out.println("✅ Nuevo material encontrado");
+                logger.fine("Nuevo material encontrado");
             }
             
             LocalDate nuevaFecha = null;
             if (fechaDevolucion != null && !fechaDevolucion.trim().isEmpty()) {
                 try {
                     nuevaFecha = ValidacionesUtil.validarFechaFutura(fechaDevolucion);
-                    System.out.println("✅ Nueva fecha validada: " + nuevaFecha);
+                    logger.log(Level.FINE, "Nueva fecha validada: {0}", nuevaFecha);
                 } catch (Exception e) {
                     throw new IllegalStateException("Fecha inválida. Use el formato DD/MM/YYYY");
                 }
@@ -1942,7 +1924,7 @@ public class PrestamoControllerUltraRefactored {
             if (estado != null && !estado.trim().isEmpty()) {
                 try {
                     nuevoEstado = EstadoPrestamo.valueOf(estado.toUpperCase());
-                    System.out.println("✅ Nuevo estado: " + nuevoEstado);
+                    logger.log(Level.FINE, "Nuevo estado: {0}", nuevoEstado);
                 } catch (IllegalArgumentException e) {
                     throw new IllegalStateException("Estado de préstamo inválido: " + estado);
                 }
@@ -1950,23 +1932,25 @@ public class PrestamoControllerUltraRefactored {
             
             // Actualizar el préstamo
             boolean resultado = prestamoService.actualizarPrestamoCompleto(
-                prestamoId, nuevoLector, nuevoBibliotecario, nuevoMaterial, nuevaFecha, nuevoEstado
+                prestamoId, nuevoLector, nuevoBibliotecario, nuevoMaterial, nuevaFecha, nuevoEstado, versionEsperada
             );
             
             if (resultado) {
-                System.out.println("✅ Préstamo actualizado exitosamente - ID: " + prestamoId);
+                logger.fine(() -> "Préstamo actualizado exitosamente - ID: " + prestamoId);
             } else {
-                System.out.println("❌ No se pudo actualizar el préstamo - ID: " + prestamoId);
+                logger.fine(() -> "No se pudo actualizar el préstamo - ID: " + prestamoId);
             }
             
             return resultado;
             
         } catch (IllegalStateException ex) {
-            System.err.println("❌ Error de validación al actualizar préstamo: " + ex.getMessage());
+            logger.fine(() -> "Error de validación al actualizar préstamo: " + ex.getMessage());
+            throw ex;
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException ex) {
+            logger.fine(() -> "Conflicto de versión al actualizar préstamo: " + ex.getMessage());
             throw ex;
         } catch (Exception ex) {
-            System.err.println("❌ Error inesperado al actualizar préstamo: " + ex.getMessage());
-            ex.printStackTrace();
+            logger.log(Level.SEVERE, "Error inesperado al actualizar préstamo", ex);
             throw new IllegalStateException("Error al actualizar el préstamo: " + ex.getMessage());
         }
     }
@@ -1977,8 +1961,7 @@ public class PrestamoControllerUltraRefactored {
      */
     public int obtenerCantidadPrestamos() {
         try {
-            List<Prestamo> prestamos = prestamoService.obtenerTodosLosPrestamos();
-            return prestamos.size();
+            return (int) prestamoService.contarPrestamos();
         } catch (Exception ex) {
             return 0;
         }
@@ -1998,15 +1981,8 @@ public class PrestamoControllerUltraRefactored {
                 return 0;
             }
             
-            // Obtener TODOS los préstamos, no solo activos
-            List<Prestamo> prestamos = prestamoService.obtenerTodosLosPrestamos();
-            int contador = 0;
-            for (Prestamo prestamo : prestamos) {
-                if (prestamo.getEstado() == estadoEnum) {
-                    contador++;
-                }
-            }
-            return contador;
+            // Contar sobre TODOS los préstamos, no solo activos
+            return (int) prestamoService.contarPrestamosPorEstado(estadoEnum);
         } catch (Exception ex) {
             return 0;
         }
@@ -2019,16 +1995,7 @@ public class PrestamoControllerUltraRefactored {
      */
     public int obtenerCantidadPrestamosPorLector(Long lectorId) {
         try {
-            // Obtener lector por ID (requiere acceso al servicio de lectores)
-            // Por simplicidad, asumimos que el lector existe
-            List<Prestamo> prestamos = prestamoService.obtenerTodosLosPrestamosActivos();
-            int contador = 0;
-            for (Prestamo prestamo : prestamos) {
-                if (prestamo.getLector().getId().equals(lectorId)) {
-                    contador++;
-                }
-            }
-            return contador;
+            return (int) prestamoService.contarPrestamosActivosPorLectorId(lectorId);
         } catch (Exception ex) {
             return 0;
         }
@@ -2053,7 +2020,7 @@ public class PrestamoControllerUltraRefactored {
             }
             return prestamosPorLector;
         } catch (Exception ex) {
-            ex.printStackTrace();
+            logger.log(Level.SEVERE, "Error en obtenerPrestamosPorLector", ex);
             return new java.util.ArrayList<>();
         }
     }
@@ -2075,7 +2042,7 @@ public class PrestamoControllerUltraRefactored {
             }
             return prestamosPorBibliotecario;
         } catch (Exception ex) {
-            System.err.println("Error al obtener préstamos por bibliotecario: " + ex.getMessage());
+            logger.warning(() -> "Error al obtener préstamos por bibliotecario: " + ex.getMessage());
             return new java.util.ArrayList<>();
         }
     }
@@ -2089,7 +2056,7 @@ public class PrestamoControllerUltraRefactored {
         try {
             return prestamoService.obtenerPrestamosPorZona(zona);
         } catch (Exception ex) {
-            System.err.println("Error al obtener préstamos por zona: " + ex.getMessage());
+            logger.warning(() -> "Error al obtener préstamos por zona: " + ex.getMessage());
             return new java.util.ArrayList<>();
         }
     }
@@ -2102,7 +2069,7 @@ public class PrestamoControllerUltraRefactored {
         try {
             return prestamoService.obtenerMaterialesConPrestamosPendientes();
         } catch (Exception ex) {
-            System.err.println("Error al obtener materiales pendientes: " + ex.getMessage());
+            logger.warning(() -> "Error al obtener materiales pendientes: " + ex.getMessage());
             return new java.util.ArrayList<>();
         }
     }
@@ -2115,17 +2082,66 @@ public class PrestamoControllerUltraRefactored {
         try {
             return prestamoService.obtenerTodosLosPrestamos();
         } catch (Exception ex) {
-            System.err.println("Error al obtener todos los préstamos: " + ex.getMessage());
-            ex.printStackTrace();
+            logger.log(Level.SEVERE, "Error al obtener todos los préstamos", ex);
             return new java.util.ArrayList<>();
         }
     }
     
+    /**
+     * Obtiene una página de préstamos (paginación por cursor)
+     * @param orden Clave de orden (fechaSolicitud, fechaDevolucion o id)
+     * @param cursor Cursor de la página anterior, o null para la primera
+     * @param limite Tamaño de página
+     */
+    public edu.udelar.pap.service.Pagina<Prestamo> obtenerPaginaPrestamos(String orden, String cursor, Integer limite) {
+        return prestamoService.obtenerPaginaPrestamos(orden, cursor, limite);
+    }
+    
+    /**
+     * Recorre TODOS los préstamos del sistema en streaming, sin cargarlos en memoria
+     * El Stream debe cerrarse al terminar de leerlo
+     * @return Stream de préstamos, más recientes primero
+     */
+    public java.util.stream.Stream<Prestamo> streamTodosPrestamos() {
+        return prestamoService.streamTodosLosPrestamos();
+    }
+    
+    /**
+     * Recorre el resumen de TODOS los préstamos (solo los datos del listado) en streaming
+     * El Stream debe cerrarse al terminar de leerlo
+     * @return Stream de resúmenes, más recientes primero
+     */
+    public java.util.stream.Stream<PrestamoService.ResumenPrestamo> streamResumenPrestamos() {
+        return prestamoService.streamResumenPrestamos();
+    }
+    
+    /**
+     * Obtiene una página del resumen de préstamos (paginación por cursor)
+     */
+    public edu.udelar.pap.service.Pagina<PrestamoService.ResumenPrestamo> obtenerPaginaResumenPrestamos(String orden, String cursor, Integer limite) {
+        return prestamoService.obtenerPaginaResumenPrestamos(orden, cursor, limite);
+    }
+    
+    /**
+     * Resumen de TODOS los préstamos de un lector, filtrado en la consulta
+     */
+    public List<PrestamoService.ResumenPrestamo> obtenerResumenPrestamosPorLector(Long lectorId) {
+        return prestamoService.obtenerResumenPrestamosPorLector(lectorId);
+    }
+    
+    /**
+     * Resumen de TODOS los préstamos gestionados por un bibliotecario, filtrado en la consulta
+     */
+    public List<PrestamoService.ResumenPrestamo> obtenerResumenPrestamosPorBibliotecario(Long bibliotecarioId) {
+        return prestamoService.obtenerResumenPrestamosPorBibliotecario(bibliotecarioId);
+    }
+    
     /**
      * Cambia el estado de un préstamo
      * @param prestamoId ID del préstamo
      * @param nuevoEstado Nuevo estado (PENDIENTE, EN_CURSO, DEVUELTO)
      * @return true si se cambió exitosamente, false en caso contrario
+     * @throws edu.udelar.pap.exception.ConflictoConcurrenciaException Si el conflicto de versión persiste tras los reintentos
      */
     public boolean cambiarEstadoPrestamo(Long prestamoId, String nuevoEstado) {
         try {
@@ -2136,13 +2152,9 @@ public class PrestamoControllerUltraRefactored {
                 return false;
             }
             
-            Prestamo prestamo = prestamoService.obtenerPrestamoPorId(prestamoId);
-            if (prestamo != null) {
-                prestamo.setEstado(estado);
-                prestamoService.actualizarPrestamo(prestamo);
-                return true;
-            }
-            return false;
+            return prestamoService.cambiarEstadoPrestamo(prestamoId, estado);
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException ex) {
+            throw ex;
         } catch (Exception ex) {
             return false;
         }
@@ -2156,6 +2168,8 @@ public class PrestamoControllerUltraRefactored {
     public boolean aprobarPrestamo(Long prestamoId) {
         try {
             return prestamoService.aprobarPrestamo(prestamoId);
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException ex) {
+            throw ex;
         } catch (Exception ex) {
             return false;
         }
@@ -2169,6 +2183,8 @@ public class PrestamoControllerUltraRefactored {
     public boolean cancelarPrestamo(Long prestamoId) {
         try {
             return prestamoService.cancelarPrestamoPendiente(prestamoId);
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException ex) {
+            throw ex;
         } catch (Exception ex) {
             return false;
         }
@@ -2214,11 +2230,7 @@ public class PrestamoControllerUltraRefactored {
      */
     public boolean prestamoVencido(Long prestamoId) {
         try {
-            Prestamo prestamo = prestamoService.obtenerPrestamoPorId(prestamoId);
-            if (prestamo != null) {
-                return prestamo.getFechaEstimadaDevolucion().isBefore(LocalDate.now());
-            }
-            return false;
+            return prestamoService.prestamoEstaVencido(prestamoId);
         } catch (Exception ex) {
             return false;
         }
@@ -2230,17 +2242,87 @@ public class PrestamoControllerUltraRefactored {
      */
     public int obtenerCantidadPrestamosVencidos() {
         try {
-            List<Prestamo> prestamos = prestamoService.obtenerTodosLosPrestamosActivos();
-            int contador = 0;
-            LocalDate fechaActual = LocalDate.now();
-            for (Prestamo prestamo : prestamos) {
-                if (prestamo.getFechaEstimadaDevolucion().isBefore(fechaActual)) {
-                    contador++;
-                }
-            }
-            return contador;
+            return (int) prestamoService.contarPrestamosVencidos();
         } catch (Exception ex) {
             return 0;
         }
     }
+    
+    /**
+     * Obtiene la cantidad de préstamos vencidos de un lector
+     * @param lectorId ID del lector
+     * @return Cantidad de préstamos vencidos del lector
+     */
+    public int obtenerCantidadPrestamosVencidosPorLector(Long lectorId) {
+        try {
+            return (int) prestamoService.contarPrestamosVencidosPorLector(lectorId);
+        } catch (Exception ex) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Obtiene los préstamos vencidos, los más atrasados primero
+     * @param limite Cantidad máxima (null = todos)
+     * @return Préstamos vencidos con lector, bibliotecario y material
+     */
+    public List<Prestamo> obtenerPrestamosVencidos(Integer limite) {
+        return prestamoService.obtenerPrestamosVencidos(limite);
+    }
+    
+    /**
+     * Obtiene los préstamos vencidos de un lector, los más atrasados primero
+     * @param lectorId ID del lector
+     * @return Préstamos vencidos con lector, bibliotecario y material
+     */
+    public List<Prestamo> obtenerPrestamosVencidosPorLector(Long lectorId) {
+        return prestamoService.obtenerPrestamosVencidosPorLector(lectorId);
+    }
+    
+    /**
+     * Obtiene total, vencidos, en curso y pendientes en una sola consulta
+     * @return Estadísticas agregadas de préstamos
+     */
+    public PrestamoService.EstadisticasPrestamos obtenerEstadisticasPrestamos() {
+        return prestamoService.obtenerEstadisticasPrestamos();
+    }
+    
+    /**
+     * Obtiene la cantidad de préstamos por zona y estado en una sola consulta
+     * @param desde Fecha de solicitud mínima (null = sin límite)
+     * @param hasta Fecha de solicitud máxima (null = sin límite)
+     * @return Una fila por zona
+     */
+    public List<PrestamoService.ReporteZona> obtenerReportePorZona(LocalDate desde, LocalDate hasta) {
+        return prestamoService.obtenerReportePorZona(desde, hasta);
+    }
+    
+    /**
+     * Obtiene los materiales con más préstamos pendientes y en curso
+     * @param limite Cantidad máxima (null = todos)
+     * @return Materiales de mayor a menor demanda
+     */
+    public List<PrestamoService.MaterialDemandado> obtenerMaterialesMasDemandados(Integer limite) {
+        return prestamoService.obtenerMaterialesMasDemandados(limite);
+    }
+    
+    /**
+     * Aprueba, devuelve o cancela una lista de préstamos en una sola transacción
+     * @param operacion Operación a aplicar
+     * @param prestamoIds IDs de los préstamos
+     * @return Un resultado por ID, en el orden recibido
+     */
+    public List<PrestamoService.ResultadoOperacion> aplicarOperacionMasiva(PrestamoService.OperacionMasiva operacion, List<Long> prestamoIds) {
+        return prestamoService.aplicarOperacionMasiva(operacion, prestamoIds);
+    }
+    
+    /**
+     * Importa préstamos en forma masiva desde un archivo CSV o JSON lines
+     * @param filas Filas del archivo
+     * @param intervaloCommit Filas por transacción (null = valor por defecto)
+     * @return Resultado con conteos y errores por fila
+     */
+    public ImportacionService.ResultadoImportacion importarPrestamos(FilasImportacion filas, Integer intervaloCommit) throws java.io.IOException {
+        return importacionService.importar(ImportacionService.TipoImportacion.PRESTAMOS, filas, intervaloCommit);
+    }
 }
@@ -9,9 +9,12 @@ import jakarta.persistence.InheritanceType;
 import jakarta.persistence.Table;
 import java.time.LocalDate;
 import jakarta.persistence.Column;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "donaciones_material")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalogo.materiales")
 @Inheritance(strategy = InheritanceType.JOINED)
 public class DonacionMaterial {
     @Id
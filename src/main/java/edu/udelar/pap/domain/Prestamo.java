@@ -29,10 +29,18 @@ public class Prestamo {
     @ManyToOne(optional = false)
     private DonacionMaterial material;
 
+    /** Control de concurrencia optimista: cada UPDATE la incrementa y falla si otro la cambió antes */
+    @Version
+    private Long version;
+
     public Long getId() {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public LocalDate getFechaSolicitud() {
         return fechaSolicitud;
     }
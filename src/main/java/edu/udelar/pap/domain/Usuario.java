@@ -5,13 +5,24 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
-import org.mindrot.jbcrypt.BCrypt;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import edu.udelar.pap.util.PasswordHasher;
+
+import java.util.Locale;
 
 @Entity
-@Table(name = "usuarios")
+@Table(name = "usuarios", indexes = {
+    @Index(name = "idx_usuarios_email_normalizado", columnList = "email_normalizado", unique = true)
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalogo.usuarios")
 @Inheritance(strategy = InheritanceType.JOINED)
 public class Usuario {
     @Id
@@ -24,9 +35,20 @@ public class Usuario {
     @Column(nullable = false, unique = true)
     private String email;
 
+    /** Email en minúsculas y sin espacios, indexado para el login sin distinguir mayúsculas */
+    @Column(name = "email_normalizado")
+    private String emailNormalizado;
+
     @Column(nullable = false)
     private String password;
 
+    /**
+     * Control de concurrencia optimista, en la tabla raíz para que cubra también los campos
+     * de Lector y Bibliotecario: cada UPDATE la incrementa y falla si otro la cambió antes
+     */
+    @Version
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -35,6 +57,10 @@ public class Usuario {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getNombre() {
         return nombre;
     }
@@ -49,6 +75,26 @@ public class Usuario {
 
     public void setEmail(String email) {
         this.email = email;
+        this.emailNormalizado = normalizarEmail(email);
+    }
+
+    public String getEmailNormalizado() {
+        return emailNormalizado;
+    }
+
+    /**
+     * Normaliza un email para búsquedas: sin espacios al borde y en minúsculas
+     * @param email El email tal como lo ingresó el usuario
+     * @return El email normalizado, o null si es null
+     */
+    public static String normalizarEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void actualizarEmailNormalizado() {
+        this.emailNormalizado = normalizarEmail(email);
     }
 
     public String getPassword() {
@@ -60,12 +106,12 @@ public class Usuario {
     }
 
     /**
-     * Establece el password hasheado usando BCrypt
+     * Establece el password hasheado usando BCrypt (en el pool acotado de PasswordHasher)
      * @param plainPassword El password en texto plano
      */
     public void setPlainPassword(String plainPassword) {
         if (plainPassword != null && !plainPassword.trim().isEmpty()) {
-            this.password = BCrypt.hashpw(plainPassword, BCrypt.gensalt());
+            this.password = PasswordHasher.getInstance().hashear(plainPassword);
         }
     }
 
@@ -78,7 +124,7 @@ public class Usuario {
         if (password == null || plainPassword == null) {
             return false;
         }
-        return BCrypt.checkpw(plainPassword, password);
+        return PasswordHasher.getInstance().verificar(plainPassword, password);
     }
     
     @Override
@@ -0,0 +1,37 @@
+package edu.udelar.pap.exception;
+
+/**
+ * Excepción cuando otro usuario modificó la misma entidad entre la lectura y la escritura
+ * (la versión del préstamo o del usuario ya no coincide). No se aplicó ningún cambio; los
+ * publishers la informan con el código CODIGO para que el cliente recargue los datos.
+ */
+public class ConflictoConcurrenciaException extends RuntimeException {
+
+    public static final String CODIGO = "CONFLICTO_CONCURRENCIA";
+
+    private final String entidad;
+    private final Long entidadId;
+
+    public ConflictoConcurrenciaException(String entidad, Long entidadId, Throwable cause) {
+        super(entidad + " " + entidadId + " fue modificado por otro usuario; recargue los datos y vuelva a intentarlo", cause);
+        this.entidad = entidad;
+        this.entidadId = entidadId;
+    }
+
+    /**
+     * Conflicto en una operación sobre varias entidades (operaciones masivas), sin un ID único
+     */
+    public ConflictoConcurrenciaException(String entidad, String message) {
+        super(message);
+        this.entidad = entidad;
+        this.entidadId = null;
+    }
+
+    public String getEntidad() {
+        return entidad;
+    }
+
+    public Long getEntidadId() {
+        return entidadId;
+    }
+}
@@ -0,0 +1,20 @@
+package edu.udelar.pap.exception;
+
+/**
+ * Excepción cuando un recurso acotado (por ejemplo el pool de BCrypt) no admite más trabajo
+ * Es unchecked porque se produce dentro de operaciones de dominio como Usuario.setPlainPassword;
+ * los handlers HTTP la traducen a 503 con Retry-After
+ */
+public class ServicioSaturadoException extends RuntimeException {
+
+    private final int retryAfterSegundos;
+
+    public ServicioSaturadoException(String message, int retryAfterSegundos) {
+        super(message);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public int getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+}
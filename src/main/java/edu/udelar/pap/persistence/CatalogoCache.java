@@ -0,0 +1,42 @@
+package edu.udelar.pap.persistence;
+
+import org.hibernate.Cache;
+
+/**
+ * Regiones de caché del catálogo (materiales donados y bibliotecarios)
+ * Los datos solo cambian al registrar o actualizar donaciones y bibliotecarios,
+ * por lo que los listados se sirven desde memoria y se invalidan en esas escrituras.
+ */
+public final class CatalogoCache {
+
+    /** Región de las entidades DonacionMaterial (Libro, ArticuloEspecial) */
+    public static final String REGION_MATERIALES = "catalogo.materiales";
+
+    /** Región de las entidades Usuario (Bibliotecario y Lector) */
+    public static final String REGION_USUARIOS = "catalogo.usuarios";
+
+    /** Región para los resultados de consultas de listados del catálogo */
+    public static final String REGION_CONSULTAS = "catalogo.consultas";
+
+    private CatalogoCache() {}
+
+    /**
+     * Descarta los listados cacheados del catálogo
+     * Hibernate ya invalida por timestamps las consultas sobre tablas modificadas;
+     * esto cubre además escrituras hechas fuera de la sesión (scripts SQL, importaciones).
+     */
+    public static void evictarConsultas() {
+        Cache cache = HibernateUtil.getSessionFactory().getCache();
+        cache.evictQueryRegion(REGION_CONSULTAS);
+    }
+
+    /**
+     * Descarta todo el catálogo cacheado: entidades y listados
+     */
+    public static void evictarTodo() {
+        Cache cache = HibernateUtil.getSessionFactory().getCache();
+        cache.evictRegion(REGION_MATERIALES);
+        cache.evictRegion(REGION_USUARIOS);
+        cache.evictQueryRegion(REGION_CONSULTAS);
+    }
+}
@@ -0,0 +1,160 @@
+package edu.udelar.pap.persistence;
+
+import edu.udelar.pap.util.RegistroMetricas;
+import org.hibernate.stat.Statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Foto de las estadísticas de Hibernate: consultas, sentencias JDBC, transacciones,
+ * aciertos de caché y consultas lentas (las que superan hibernate.log_slow_query)
+ */
+public final class EstadisticasHibernate {
+
+    /** Consultas lentas incluidas en la foto, las más lentas primero */
+    private static final int MAXIMO_CONSULTAS_LENTAS = 10;
+
+    private final long consultas;
+    private final long consultaMaximaMs;
+    private final String consultaMaxima;
+    private final long sentencias;
+    private final long transacciones;
+    private final long transaccionesExitosas;
+    private final long sesiones;
+    private final long entidadesCargadas;
+    private final long entidadesBuscadas;
+    private final long coleccionesBuscadas;
+    private final long cacheAciertos;
+    private final long cacheFallos;
+    private final long cacheConsultasAciertos;
+    private final long cacheConsultasFallos;
+    private final long planesAciertos;
+    private final long planesFallos;
+    private final int cantidadConsultasLentas;
+    private final List<Map.Entry<String, Long>> consultasLentas;
+
+    EstadisticasHibernate(Statistics estadisticas) {
+        this.consultas = estadisticas.getQueryExecutionCount();
+        this.consultaMaximaMs = estadisticas.getQueryExecutionMaxTime();
+        this.consultaMaxima = estadisticas.getQueryExecutionMaxTimeQueryString();
+        this.sentencias = estadisticas.getPrepareStatementCount();
+        this.transacciones = estadisticas.getTransactionCount();
+        this.transaccionesExitosas = estadisticas.getSuccessfulTransactionCount();
+        this.sesiones = estadisticas.getSessionOpenCount();
+        this.entidadesCargadas = estadisticas.getEntityLoadCount();
+        this.entidadesBuscadas = estadisticas.getEntityFetchCount();
+        this.coleccionesBuscadas = estadisticas.getCollectionFetchCount();
+        this.cacheAciertos = estadisticas.getSecondLevelCacheHitCount();
+        this.cacheFallos = estadisticas.getSecondLevelCacheMissCount();
+        this.cacheConsultasAciertos = estadisticas.getQueryCacheHitCount();
+        this.cacheConsultasFallos = estadisticas.getQueryCacheMissCount();
+        this.planesAciertos = estadisticas.getQueryPlanCacheHitCount();
+        this.planesFallos = estadisticas.getQueryPlanCacheMissCount();
+        Map<String, Long> lentas = estadisticas.getSlowQueries();
+        this.cantidadConsultasLentas = lentas.size();
+        List<Map.Entry<String, Long>> ordenadas = new ArrayList<>(lentas.entrySet());
+        ordenadas.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        this.consultasLentas = new ArrayList<>(ordenadas.subList(0, Math.min(MAXIMO_CONSULTAS_LENTAS, ordenadas.size())));
+    }
+
+    public long getConsultas() {
+        return consultas;
+    }
+
+    public long getSentencias() {
+        return sentencias;
+    }
+
+    public long getTransacciones() {
+        return transacciones;
+    }
+
+    public int getCantidadConsultasLentas() {
+        return cantidadConsultasLentas;
+    }
+
+    /**
+     * @return Proporción de aciertos de la caché de segundo nivel (0 si no se usó)
+     */
+    public double getTasaAciertosCache() {
+        long total = cacheAciertos + cacheFallos;
+        return total == 0 ? 0.0 : cacheAciertos / (double) total;
+    }
+
+    /**
+     * @return Proporción de aciertos de la caché de consultas (0 si no se usó)
+     */
+    public double getTasaAciertosCacheConsultas() {
+        long total = cacheConsultasAciertos + cacheConsultasFallos;
+        return total == 0 ? 0.0 : cacheConsultasAciertos / (double) total;
+    }
+
+    /**
+     * Serializa las estadísticas en el formato JSON usado por los publishers
+     */
+    public String toJson() {
+        StringBuilder lentas = new StringBuilder("[");
+        for (Map.Entry<String, Long> consulta : consultasLentas) {
+            if (lentas.length() > 1) {
+                lentas.append(", ");
+            }
+            lentas.append("{\"sql\": \"").append(escapar(consulta.getKey())).append("\", \"ms\": ")
+                  .append(consulta.getValue()).append('}');
+        }
+        lentas.append(']');
+        return String.format(Locale.ROOT,
+            "{\"consultas\": %d, \"consultaMaximaMs\": %d, \"consultaMaxima\": %s, \"sentencias\": %d, " +
+            "\"transacciones\": %d, \"transaccionesExitosas\": %d, \"sesiones\": %d, " +
+            "\"entidadesCargadas\": %d, \"entidadesBuscadas\": %d, \"coleccionesBuscadas\": %d, " +
+            "\"cacheAciertos\": %d, \"cacheFallos\": %d, \"tasaAciertosCache\": %.4f, " +
+            "\"cacheConsultasAciertos\": %d, \"cacheConsultasFallos\": %d, \"tasaAciertosCacheConsultas\": %.4f, " +
+            "\"planesAciertos\": %d, \"planesFallos\": %d, \"cantidadConsultasLentas\": %d, \"consultasLentas\": %s}",
+            consultas, consultaMaximaMs, consultaMaxima != null ? "\"" + escapar(consultaMaxima) + "\"" : "null",
+            sentencias, transacciones, transaccionesExitosas, sesiones,
+            entidadesCargadas, entidadesBuscadas, coleccionesBuscadas,
+            cacheAciertos, cacheFallos, getTasaAciertosCache(),
+            cacheConsultasAciertos, cacheConsultasFallos, getTasaAciertosCacheConsultas(),
+            planesAciertos, planesFallos, cantidadConsultasLentas, lentas);
+    }
+
+    /**
+     * Escribe las estadísticas en formato de texto de Prometheus
+     */
+    public void escribirPrometheus(StringBuilder out) {
+        contador(out, "biblioteca_hibernate_consultas_total", "Consultas HQL/SQL ejecutadas", consultas);
+        medidor(out, "biblioteca_hibernate_consulta_maxima_segundos", "Duración de la consulta más lenta", consultaMaximaMs / 1000.0);
+        contador(out, "biblioteca_hibernate_sentencias_total", "Sentencias JDBC preparadas", sentencias);
+        contador(out, "biblioteca_hibernate_transacciones_total", "Transacciones terminadas", transacciones);
+        contador(out, "biblioteca_hibernate_transacciones_exitosas_total", "Transacciones confirmadas", transaccionesExitosas);
+        contador(out, "biblioteca_hibernate_sesiones_total", "Sesiones abiertas", sesiones);
+        contador(out, "biblioteca_hibernate_entidades_cargadas_total", "Entidades cargadas", entidadesCargadas);
+        contador(out, "biblioteca_hibernate_entidades_buscadas_total", "Entidades buscadas con una consulta propia", entidadesBuscadas);
+        contador(out, "biblioteca_hibernate_colecciones_buscadas_total", "Colecciones buscadas con una consulta propia", coleccionesBuscadas);
+        contador(out, "biblioteca_hibernate_cache_aciertos_total", "Aciertos de la caché de segundo nivel", cacheAciertos);
+        contador(out, "biblioteca_hibernate_cache_fallos_total", "Fallos de la caché de segundo nivel", cacheFallos);
+        contador(out, "biblioteca_hibernate_cache_consultas_aciertos_total", "Aciertos de la caché de consultas", cacheConsultasAciertos);
+        contador(out, "biblioteca_hibernate_cache_consultas_fallos_total", "Fallos de la caché de consultas", cacheConsultasFallos);
+        contador(out, "biblioteca_hibernate_planes_aciertos_total", "Aciertos de la caché de planes de consulta", planesAciertos);
+        contador(out, "biblioteca_hibernate_planes_fallos_total", "Fallos de la caché de planes de consulta", planesFallos);
+        medidor(out, "biblioteca_hibernate_consultas_lentas", "Consultas distintas que superaron el umbral de consulta lenta", cantidadConsultasLentas);
+    }
+
+    private static void contador(StringBuilder out, String nombre, String ayuda, long valor) {
+        out.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        out.append("# TYPE ").append(nombre).append(" counter\n");
+        out.append(nombre).append(' ').append(valor).append('\n');
+    }
+
+    private static void medidor(StringBuilder out, String nombre, String ayuda, double valor) {
+        out.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        out.append("# TYPE ").append(nombre).append(" gauge\n");
+        out.append(nombre).append(' ').append(RegistroMetricas.formatear(valor)).append('\n');
+    }
+
+    private static String escapar(String texto) {
+        return texto.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", " ").replace("\r", " ").replace("\t", " ");
+    }
+}
@@ -1,14 +1,35 @@
 package edu.udelar.pap.persistence;
 
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 
 public final class HibernateUtil {
     private static final SessionFactory SESSION_FACTORY = buildSessionFactory();
 
+    /** Filas por viaje al servidor en consultas recorridas en streaming */
+    public static final int FETCH_SIZE_STREAMING = 500;
+
+    /** URL JDBC que reemplaza a la del perfil elegido */
+    public static final String PROPIEDAD_URL = "biblioteca.db.url";
+
+    /** migraciones (por defecto) o update */
+    public static final String PROPIEDAD_MODO_ESQUEMA = "biblioteca.schema.modo";
+
+    /** false para no recolectar estadísticas de Hibernate (activadas por defecto, ver /metrics) */
+    public static final String PROPIEDAD_ESTADISTICAS = "biblioteca.metricas.hibernate";
+
+    /** Milisegundos a partir de los cuales una consulta se registra como lenta (250 por defecto) */
+    public static final String PROPIEDAD_CONSULTA_LENTA = "biblioteca.metricas.consultaLentaMs";
+
     private HibernateUtil() {}
 
     private static SessionFactory buildSessionFactory() {
+        // Antes de que Hibernate cree sus loggers (niveles, SQL y handler asíncrono)
+        edu.udelar.pap.util.ConfiguracionLog.inicializar();
         try {
             String db = System.getProperty("db", "mysql");
             String cfg;
@@ -28,15 +49,108 @@ public final class HibernateUtil {
             
             Configuration configuration = new Configuration();
             configuration.configure(cfg);
-            return configuration.buildSessionFactory();
+            aplicarOverridesDelPool(configuration);
+            configurarEstadisticas(configuration);
+            boolean modoUpdate = prepararEsquema(configuration);
+            SessionFactory sessionFactory = configuration.buildSessionFactory();
+            if (modoUpdate) {
+                completarEmailsNormalizados(sessionFactory);
+            }
+            return sessionFactory;
         } catch (Exception ex) {
             throw new RuntimeException("Error inicializando Hibernate SessionFactory", ex);
         }
     }
 
+    /**
+     * Permite ajustar el pool del perfil elegido sin editar el XML,
+     * por ejemplo: -Ddb=mysql -Dbiblioteca.pool.maxSize=30
+     */
+    private static void aplicarOverridesDelPool(Configuration configuration) {
+        for (String clave : System.getProperties().stringPropertyNames()) {
+            if (clave.startsWith(PooledConnectionProvider.PREFIJO)) {
+                configuration.setProperty(clave, System.getProperty(clave));
+            }
+        }
+        // Base alternativa para el mismo perfil (p. ej. el benchmark usa su propio archivo H2)
+        String url = System.getProperty(PROPIEDAD_URL);
+        if (url != null && !url.trim().isEmpty()) {
+            configuration.setProperty("hibernate.connection.url", url.trim());
+        }
+    }
+
+    /**
+     * Activa las estadísticas de Hibernate y el registro de consultas lentas que se
+     * publican en /metrics, salvo que el perfil o -Dbiblioteca.metricas.hibernate=false digan otra cosa
+     */
+    private static void configurarEstadisticas(Configuration configuration) {
+        String activas = System.getProperty(PROPIEDAD_ESTADISTICAS,
+            configuration.getProperties().getProperty(PROPIEDAD_ESTADISTICAS, "true"));
+        configuration.setProperty("hibernate.generate_statistics", String.valueOf(!"false".equalsIgnoreCase(activas.trim())));
+        String umbral = System.getProperty(PROPIEDAD_CONSULTA_LENTA,
+            configuration.getProperties().getProperty(PROPIEDAD_CONSULTA_LENTA, "250"));
+        configuration.setProperty("hibernate.log_slow_query", umbral.trim());
+    }
+
+    /**
+     * Aplica las migraciones versionadas (db/migraciones) antes de crear la SessionFactory.
+     * Con -Dbiblioteca.schema.modo=update se vuelve a hbm2ddl update, solo para desarrollo
+     * local mientras se escribe una migración nueva.
+     * @return true si el esquema queda en manos de hbm2ddl update
+     */
+    private static boolean prepararEsquema(Configuration configuration) {
+        String modo = System.getProperty(PROPIEDAD_MODO_ESQUEMA,
+            configuration.getProperties().getProperty(PROPIEDAD_MODO_ESQUEMA, "migraciones"));
+        if ("update".equalsIgnoreCase(modo)) {
+            System.out.println("⚠️  Esquema gestionado por hbm2ddl update (" + PROPIEDAD_MODO_ESQUEMA + "=update)");
+            configuration.setProperty("hibernate.hbm2ddl.auto", "update");
+            return true;
+        }
+        configuration.setProperty("hibernate.hbm2ddl.auto", "none");
+        MigradorEsquema.migrar(configuration.getProperties());
+        return false;
+    }
+
+    /**
+     * En modo update hbm2ddl agrega la columna email_normalizado vacía en bases viejas;
+     * con migraciones la completa V5. Se ejecuta una vez al arrancar, antes de cualquier login.
+     */
+    private static void completarEmailsNormalizados(SessionFactory sessionFactory) {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            session.createMutationQuery(
+                "UPDATE Usuario u SET u.emailNormalizado = lower(trim(u.email)) " +
+                "WHERE u.emailNormalizado IS NULL")
+                .executeUpdate();
+            tx.commit();
+        }
+    }
+
     public static SessionFactory getSessionFactory() {
         return SESSION_FACTORY;
     }
+
+    /**
+     * Obtiene una foto de las estadísticas de Hibernate
+     * @return Estadísticas, o null si están desactivadas (biblioteca.metricas.hibernate=false)
+     */
+    public static EstadisticasHibernate getEstadisticas() {
+        org.hibernate.stat.Statistics estadisticas = SESSION_FACTORY.getStatistics();
+        return estadisticas.isStatisticsEnabled() ? new EstadisticasHibernate(estadisticas) : null;
+    }
+
+    /**
+     * Obtiene las métricas del pool de conexiones del perfil actual
+     * @return Métricas del pool, o null si el perfil no usa PooledConnectionProvider
+     */
+    public static PoolMetrics getPoolMetrics() {
+        ConnectionProvider provider = SESSION_FACTORY.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry().getService(ConnectionProvider.class);
+        if (provider != null && provider.isUnwrappableAs(PooledConnectionProvider.class)) {
+            return provider.unwrap(PooledConnectionProvider.class).obtenerMetricas();
+        }
+        return null;
+    }
 }
 
 
@@ -0,0 +1,113 @@
+package edu.udelar.pap.persistence;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Proveedor de caché de segundo nivel en memoria (mismo proceso)
+ * Cada región es un mapa LRU acotado; Hibernate se encarga de la coherencia
+ * (bloqueos READ_WRITE e invalidación de consultas por timestamps).
+ *
+ * Propiedad opcional: biblioteca.cache.maxEntries (por región, 10000 por defecto)
+ */
+public class InMemoryRegionFactory extends RegionFactoryTemplate {
+
+    public static final String MAX_ENTRIES = "biblioteca.cache.maxEntries";
+
+    private int maxEntradas = 10_000;
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        Object valor = configValues.get(MAX_ENTRIES);
+        if (valor != null && !valor.toString().trim().isEmpty()) {
+            maxEntradas = Integer.parseInt(valor.toString().trim());
+        }
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        // Las regiones se liberan individualmente con StorageAccess.release()
+    }
+
+    @Override
+    public AccessType getDefaultAccessType() {
+        return AccessType.READ_WRITE;
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                   DomainDataRegionBuildingContext buildingContext) {
+        return new MapStorageAccess(maxEntradas);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return new MapStorageAccess(maxEntradas);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        // Una entrada por tabla: no necesita límite
+        return new MapStorageAccess(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Almacenamiento de una región: LinkedHashMap en orden de acceso, sincronizado
+     */
+    private static final class MapStorageAccess implements DomainDataStorageAccess {
+
+        private final Map<Object, Object> datos;
+
+        MapStorageAccess(int maxEntradas) {
+            this.datos = Collections.synchronizedMap(new LinkedHashMap<Object, Object>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Object> mayor) {
+                    return size() > maxEntradas;
+                }
+            });
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return datos.get(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            datos.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return datos.containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            datos.clear();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            datos.remove(key);
+        }
+
+        @Override
+        public void release() {
+            datos.clear();
+        }
+    }
+}
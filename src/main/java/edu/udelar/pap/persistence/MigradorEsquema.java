@@ -0,0 +1,297 @@
+package edu.udelar.pap.persistence;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Migraciones versionadas del esquema
+ * Reemplaza a hibernate.hbm2ddl.auto=update: los cambios de esquema son scripts SQL
+ * numerados en db/migraciones (listados en migraciones.txt) que se aplican una sola vez
+ * y en orden antes de crear la SessionFactory. Las versiones aplicadas se registran en
+ * la tabla esquema_versiones junto con un checksum; si un script ya aplicado fue
+ * modificado el arranque falla en lugar de dejar el esquema en un estado desconocido.
+ *
+ * Una base creada anteriormente con update (tiene las tablas pero no esquema_versiones)
+ * registra V1 como línea base sin ejecutarla y continúa con las versiones siguientes.
+ *
+ * Una versión puede tener una precondición sobre los datos (PRECONDICIONES): una consulta
+ * que no debe devolver filas. Se evalúa antes de la primera sentencia, porque en MySQL el
+ * DDL no se deshace y un script cortado a mitad de camino no se puede volver a ejecutar.
+ *
+ * Los scripts usan sintaxis MySQL, que H2 acepta en MODE=MySQL.
+ */
+public final class MigradorEsquema {
+
+    private static final Logger logger = Logger.getLogger(MigradorEsquema.class.getName());
+
+    private static final String DIRECTORIO = "db/migraciones/";
+    private static final String INDICE = DIRECTORIO + "migraciones.txt";
+    private static final String TABLA_VERSIONES = "esquema_versiones";
+    private static final String TABLA_LINEA_BASE = "usuarios";
+    private static final Pattern NOMBRE_SCRIPT = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    /**
+     * Datos que impedirían aplicar una versión: la consulta devuelve las filas en conflicto
+     * (la primera columna identifica cada una en el mensaje de error)
+     */
+    private static final Map<Integer, Precondicion> PRECONDICIONES = Map.of(
+        5, new Precondicion(
+            "select lower(trim(email)), count(*) from usuarios group by lower(trim(email)) having count(*) > 1",
+            "Hay usuarios cuyos emails solo difieren en mayúsculas o espacios; unifique esas cuentas " +
+            "antes de crear el índice único de email_normalizado"));
+
+    private MigradorEsquema() {}
+
+    /**
+     * Consulta que no debe devolver filas para poder aplicar una migración
+     */
+    static final class Precondicion {
+        final String consulta;
+        final String mensaje;
+
+        Precondicion(String consulta, String mensaje) {
+            this.consulta = consulta;
+            this.mensaje = mensaje;
+        }
+    }
+
+    /**
+     * Script de migración leído del classpath
+     */
+    static final class Migracion {
+        final int version;
+        final String descripcion;
+        final String contenido;
+        final String checksum;
+
+        Migracion(int version, String descripcion, String contenido) {
+            this.version = version;
+            this.descripcion = descripcion;
+            this.contenido = contenido;
+            this.checksum = sha256(contenido);
+        }
+    }
+
+    /**
+     * Aplica las migraciones pendientes usando la conexión configurada en Hibernate
+     * @param propiedades Propiedades de la configuración (hibernate.connection.*)
+     * @throws IllegalStateException Si una migración falla o un script aplicado fue modificado
+     */
+    public static void migrar(Properties propiedades) {
+        String url = propiedades.getProperty("hibernate.connection.url");
+        String usuario = propiedades.getProperty("hibernate.connection.username");
+        String password = propiedades.getProperty("hibernate.connection.password", "");
+        try (Connection conexion = DriverManager.getConnection(url, usuario, password)) {
+            migrar(conexion);
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo conectar para migrar el esquema: " + e.getMessage(), e);
+        }
+    }
+
+    static void migrar(Connection conexion) throws SQLException {
+        List<Migracion> migraciones = cargarMigraciones();
+        boolean tablaVersionesExiste = existeTabla(conexion, TABLA_VERSIONES);
+        if (!tablaVersionesExiste) {
+            crearTablaVersiones(conexion);
+            if (existeTabla(conexion, TABLA_LINEA_BASE)) {
+                Migracion base = migraciones.get(0);
+                registrar(conexion, base, base.descripcion + " (línea base, esquema creado por hbm2ddl)", 0);
+                logger.info("Esquema existente registrado como línea base V" + base.version);
+            }
+        }
+
+        Map<Integer, String> aplicadas = leerAplicadas(conexion);
+        int aplicadasAhora = 0;
+        for (Migracion migracion : migraciones) {
+            String checksum = aplicadas.get(migracion.version);
+            if (checksum != null) {
+                if (!checksum.equals(migracion.checksum)) {
+                    throw new IllegalStateException("La migración V" + migracion.version + "__" + migracion.descripcion +
+                        " fue modificada después de aplicarse; agregue una versión nueva en lugar de editarla");
+                }
+                continue;
+            }
+            verificarPrecondicion(conexion, migracion);
+            long inicio = System.currentTimeMillis();
+            aplicar(conexion, migracion);
+            long duracion = System.currentTimeMillis() - inicio;
+            registrar(conexion, migracion, migracion.descripcion, duracion);
+            aplicadasAhora++;
+            logger.info("Migración aplicada: V" + migracion.version + "__" + migracion.descripcion + " (" + duracion + " ms)");
+        }
+        if (aplicadasAhora == 0) {
+            logger.info("Esquema al día (V" + migraciones.get(migraciones.size() - 1).version + ")");
+        }
+    }
+
+    private static void aplicar(Connection conexion, Migracion migracion) throws SQLException {
+        // En MySQL el DDL hace commit implícito: cada sentencia se aplica por separado
+        // y un fallo a mitad de script se informa con la sentencia que lo produjo
+        try (Statement statement = conexion.createStatement()) {
+            for (String sentencia : separarSentencias(migracion.contenido)) {
+                try {
+                    statement.execute(sentencia);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Falló la migración V" + migracion.version + "__" + migracion.descripcion +
+                        " en la sentencia: " + sentencia + " (" + e.getMessage() + ")", e);
+                }
+            }
+        }
+    }
+
+    private static void verificarPrecondicion(Connection conexion, Migracion migracion) throws SQLException {
+        Precondicion precondicion = PRECONDICIONES.get(migracion.version);
+        if (precondicion == null) {
+            return;
+        }
+        List<String> conflictos = new ArrayList<>();
+        try (Statement statement = conexion.createStatement();
+             ResultSet rs = statement.executeQuery(precondicion.consulta)) {
+            while (rs.next()) {
+                conflictos.add(rs.getString(1));
+            }
+        }
+        if (!conflictos.isEmpty()) {
+            throw new IllegalStateException("No se puede aplicar la migración V" + migracion.version + "__" + migracion.descripcion +
+                ": " + precondicion.mensaje + " (" + String.join(", ", conflictos) + ")");
+        }
+    }
+
+    private static void crearTablaVersiones(Connection conexion) throws SQLException {
+        try (Statement statement = conexion.createStatement()) {
+            statement.execute("create table " + TABLA_VERSIONES + " (version integer not null, descripcion varchar(200) not null, " +
+                "checksum varchar(64) not null, aplicada timestamp not null, duracion_ms bigint not null, primary key (version))");
+        }
+    }
+
+    private static void registrar(Connection conexion, Migracion migracion, String descripcion, long duracionMs) throws SQLException {
+        try (PreparedStatement statement = conexion.prepareStatement("insert into " + TABLA_VERSIONES +
+                " (version, descripcion, checksum, aplicada, duracion_ms) values (?, ?, ?, ?, ?)")) {
+            statement.setInt(1, migracion.version);
+            statement.setString(2, descripcion);
+            statement.setString(3, migracion.checksum);
+            statement.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            statement.setLong(5, duracionMs);
+            statement.executeUpdate();
+        }
+    }
+
+    private static Map<Integer, String> leerAplicadas(Connection conexion) throws SQLException {
+        Map<Integer, String> aplicadas = new HashMap<>();
+        try (Statement statement = conexion.createStatement();
+             ResultSet rs = statement.executeQuery("select version, checksum from " + TABLA_VERSIONES)) {
+            while (rs.next()) {
+                aplicadas.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return aplicadas;
+    }
+
+    private static boolean existeTabla(Connection conexion, String tabla) throws SQLException {
+        DatabaseMetaData metaData = conexion.getMetaData();
+        // H2 con DATABASE_TO_LOWER y MySQL guardan los nombres en minúscula; se prueban ambas formas
+        for (String nombre : new String[] { tabla, tabla.toUpperCase() }) {
+            try (ResultSet rs = metaData.getTables(conexion.getCatalog(), null, nombre, new String[] { "TABLE" })) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static List<Migracion> cargarMigraciones() {
+        List<Migracion> migraciones = new ArrayList<>();
+        for (String linea : leerRecurso(INDICE).split("\n")) {
+            String nombre = linea.trim();
+            if (nombre.isEmpty() || nombre.startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = NOMBRE_SCRIPT.matcher(nombre);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Nombre de migración no válido: " + nombre + " (se espera V<n>__<descripcion>.sql)");
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (!migraciones.isEmpty() && version <= migraciones.get(migraciones.size() - 1).version) {
+                throw new IllegalStateException("Las migraciones deben listarse en orden creciente de versión: " + nombre);
+            }
+            migraciones.add(new Migracion(version, matcher.group(2), leerRecurso(DIRECTORIO + nombre)));
+        }
+        if (migraciones.isEmpty()) {
+            throw new IllegalStateException("No hay migraciones listadas en " + INDICE);
+        }
+        return migraciones;
+    }
+
+    /**
+     * Separa un script en sentencias terminadas en ';', descartando comentarios de línea (--)
+     */
+    static List<String> separarSentencias(String script) {
+        List<String> sentencias = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        for (String linea : script.split("\n")) {
+            String limpia = linea.trim();
+            if (limpia.isEmpty() || limpia.startsWith("--")) {
+                continue;
+            }
+            actual.append(limpia).append(' ');
+            if (limpia.endsWith(";")) {
+                String sentencia = actual.toString().trim();
+                sentencias.add(sentencia.substring(0, sentencia.length() - 1));
+                actual.setLength(0);
+            }
+        }
+        if (actual.toString().trim().length() > 0) {
+            sentencias.add(actual.toString().trim());
+        }
+        return sentencias;
+    }
+
+    private static String leerRecurso(String ruta) {
+        InputStream in = MigradorEsquema.class.getClassLoader().getResourceAsStream(ruta);
+        if (in == null) {
+            throw new IllegalStateException("No se encontró el recurso de migración " + ruta);
+        }
+        StringBuilder contenido = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                contenido.append(linea).append('\n');
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer " + ruta, e);
+        }
+        return contenido.toString();
+    }
+
+    private static String sha256(String contenido) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(contenido.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
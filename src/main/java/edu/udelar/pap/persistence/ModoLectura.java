@@ -0,0 +1,78 @@
+package edu.udelar.pap.persistence;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.query.Query;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Modo de acceso a datos de una lectura, elegido por cada método de servicio o repositorio
+ *
+ *   COMPLETO      Session normal: las entidades quedan en el contexto de persistencia con su
+ *                 copia para dirty checking. Para lecturas cuyo resultado se modifica en la misma sesión.
+ *   SOLO_LECTURA  Session con entidades de solo lectura (sin copia para dirty checking) y sin flush.
+ *                 Sigue usando la caché de segundo nivel y la de consultas: listados del catálogo.
+ *   SIN_ESTADO    StatelessSession: sin contexto de persistencia ni cachés, filas leídas de a
+ *                 FETCH_SIZE_STREAMING. Para reportes y exportaciones grandes; las asociaciones
+ *                 de las entidades deben traerse con JOIN FETCH porque no hay carga diferida.
+ *
+ * En los tres casos las entidades devueltas quedan desacopladas al cerrar la sesión.
+ */
+public enum ModoLectura {
+    COMPLETO,
+    SOLO_LECTURA,
+    SIN_ESTADO;
+
+    /**
+     * Ejecuta una lectura en una sesión abierta según el modo y la cierra al terminar
+     * @param consulta Recibe la sesión; debe crear las consultas con consulta(session, hql, tipo)
+     */
+    public <T> T leer(SessionFactory sessionFactory, Function<SharedSessionContract, T> consulta) {
+        try (SharedSessionContract session = abrir(sessionFactory)) {
+            return consulta.apply(session);
+        }
+    }
+
+    /**
+     * Igual que leer pero para resultados recorridos en streaming: la sesión se cierra junto
+     * con el Stream devuelto, que debe cerrarse (try-with-resources)
+     */
+    public <T> Stream<T> recorrer(SessionFactory sessionFactory, Function<SharedSessionContract, Stream<T>> consulta) {
+        SharedSessionContract session = abrir(sessionFactory);
+        try {
+            return consulta.apply(session).onClose(session::close);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Crea una consulta HQL con las indicaciones del modo: entidades de solo lectura y,
+     * salvo en COMPLETO, lectura de a FETCH_SIZE_STREAMING filas
+     */
+    public <R> Query<R> consulta(SharedSessionContract session, String hql, Class<R> tipo) {
+        Query<R> query = session.createQuery(hql, tipo);
+        if (this != COMPLETO) {
+            query.setReadOnly(true);
+            query.setFetchSize(HibernateUtil.FETCH_SIZE_STREAMING);
+        }
+        return query;
+    }
+
+    private SharedSessionContract abrir(SessionFactory sessionFactory) {
+        if (this == SIN_ESTADO) {
+            return sessionFactory.openStatelessSession();
+        }
+        Session session = sessionFactory.openSession();
+        if (this == SOLO_LECTURA) {
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+        }
+        return session;
+    }
+}
@@ -0,0 +1,121 @@
+package edu.udelar.pap.persistence;
+
+import java.util.Locale;
+
+/**
+ * Foto inmutable de las métricas del pool de conexiones
+ * Permite dimensionar el pool bajo la carga concurrente del servidor web
+ */
+public final class PoolMetrics {
+
+    private final int activas;
+    private final int ociosas;
+    private final int esperando;
+    private final int total;
+    private final int minimo;
+    private final int maximo;
+    private final long adquisiciones;
+    private final double latenciaPromedioMs;
+    private final double latenciaMaximaMs;
+    private final long timeouts;
+    private final long fugasDetectadas;
+
+    public PoolMetrics(int activas, int ociosas, int esperando, int total, int minimo, int maximo,
+                       long adquisiciones, double latenciaPromedioMs, double latenciaMaximaMs,
+                       long timeouts, long fugasDetectadas) {
+        this.activas = activas;
+        this.ociosas = ociosas;
+        this.esperando = esperando;
+        this.total = total;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.adquisiciones = adquisiciones;
+        this.latenciaPromedioMs = latenciaPromedioMs;
+        this.latenciaMaximaMs = latenciaMaximaMs;
+        this.timeouts = timeouts;
+        this.fugasDetectadas = fugasDetectadas;
+    }
+
+    public int getActivas() {
+        return activas;
+    }
+
+    public int getOciosas() {
+        return ociosas;
+    }
+
+    public int getEsperando() {
+        return esperando;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMinimo() {
+        return minimo;
+    }
+
+    public int getMaximo() {
+        return maximo;
+    }
+
+    public long getAdquisiciones() {
+        return adquisiciones;
+    }
+
+    public double getLatenciaPromedioMs() {
+        return latenciaPromedioMs;
+    }
+
+    public double getLatenciaMaximaMs() {
+        return latenciaMaximaMs;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getFugasDetectadas() {
+        return fugasDetectadas;
+    }
+
+    /**
+     * Serializa las métricas en el formato JSON usado por los publishers
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT,
+            "{\"activas\": %d, \"ociosas\": %d, \"esperando\": %d, \"total\": %d, " +
+            "\"minimo\": %d, \"maximo\": %d, \"adquisiciones\": %d, " +
+            "\"latenciaPromedioMs\": %.3f, \"latenciaMaximaMs\": %.3f, " +
+            "\"timeouts\": %d, \"fugasDetectadas\": %d}",
+            activas, ociosas, esperando, total, minimo, maximo, adquisiciones,
+            latenciaPromedioMs, latenciaMaximaMs, timeouts, fugasDetectadas);
+    }
+
+    /**
+     * Escribe las métricas en formato de texto de Prometheus
+     */
+    public void escribirPrometheus(StringBuilder out) {
+        out.append("# HELP biblioteca_pool_conexiones Conexiones del pool por estado\n");
+        out.append("# TYPE biblioteca_pool_conexiones gauge\n");
+        out.append("biblioteca_pool_conexiones{estado=\"activas\"} ").append(activas).append('\n');
+        out.append("biblioteca_pool_conexiones{estado=\"ociosas\"} ").append(ociosas).append('\n');
+        out.append("# HELP biblioteca_pool_esperando Hilos esperando una conexión\n");
+        out.append("# TYPE biblioteca_pool_esperando gauge\n");
+        out.append("biblioteca_pool_esperando ").append(esperando).append('\n');
+        out.append("# HELP biblioteca_pool_maximo Tamaño máximo del pool\n");
+        out.append("# TYPE biblioteca_pool_maximo gauge\n");
+        out.append("biblioteca_pool_maximo ").append(maximo).append('\n');
+        out.append("# HELP biblioteca_pool_adquisiciones_total Conexiones entregadas\n");
+        out.append("# TYPE biblioteca_pool_adquisiciones_total counter\n");
+        out.append("biblioteca_pool_adquisiciones_total ").append(adquisiciones).append('\n');
+        out.append("# HELP biblioteca_pool_timeouts_total Esperas de conexión que vencieron\n");
+        out.append("# TYPE biblioteca_pool_timeouts_total counter\n");
+        out.append("biblioteca_pool_timeouts_total ").append(timeouts).append('\n');
+        out.append("# HELP biblioteca_pool_espera_maxima_segundos Espera máxima para obtener una conexión\n");
+        out.append("# TYPE biblioteca_pool_espera_maxima_segundos gauge\n");
+        out.append("biblioteca_pool_espera_maxima_segundos ")
+           .append(String.format(Locale.ROOT, "%.6f", latenciaMaximaMs / 1000.0)).append('\n');
+    }
+}
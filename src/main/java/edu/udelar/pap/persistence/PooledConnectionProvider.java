@@ -0,0 +1,368 @@
+package edu.udelar.pap.persistence;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool de conexiones JDBC para Hibernate
+ * Reemplaza el manejo de conexiones interno de Hibernate (no apto para producción)
+ * con un pool acotado: tamaño mínimo y máximo, expiración de conexiones ociosas,
+ * detección de conexiones no devueltas y métricas de uso.
+ *
+ * Se configura desde los archivos hibernate-*.cfg.xml con las propiedades
+ * "biblioteca.pool.*" (ver {@link #configure(Map)}).
+ */
+public class PooledConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    private static final Logger logger = Logger.getLogger(PooledConnectionProvider.class.getName());
+
+    public static final String PREFIJO = "biblioteca.pool.";
+    public static final String MIN_SIZE = PREFIJO + "minSize";
+    public static final String MAX_SIZE = PREFIJO + "maxSize";
+    public static final String IDLE_TIMEOUT_MS = PREFIJO + "idleTimeoutMs";
+    public static final String CONNECTION_TIMEOUT_MS = PREFIJO + "connectionTimeoutMs";
+    public static final String LEAK_DETECTION_MS = PREFIJO + "leakDetectionThresholdMs";
+    public static final String VALIDATION_TIMEOUT_S = PREFIJO + "validationTimeoutSeconds";
+
+    private String url;
+    private Properties credenciales;
+    private int minSize;
+    private int maxSize;
+    private long idleTimeoutMs;
+    private long connectionTimeoutMs;
+    private long leakDetectionMs;
+    private int validationTimeoutSeconds;
+
+    // Conexiones físicas disponibles (LIFO: la más reciente primero, las viejas expiran)
+    private final LinkedBlockingDeque<ConexionOciosa> ociosas = new LinkedBlockingDeque<>();
+    // Conexiones prestadas a Hibernate y el momento en que se prestaron
+    private final Map<Connection, UsoConexion> enUso = new ConcurrentHashMap<>();
+    private Semaphore permisos;
+    private ScheduledExecutorService mantenimiento;
+
+    private final AtomicInteger totalConexiones = new AtomicInteger();
+    private final AtomicInteger esperando = new AtomicInteger();
+    private final AtomicLong adquisiciones = new AtomicLong();
+    private final AtomicLong nanosAdquisicion = new AtomicLong();
+    private final AtomicLong maxNanosAdquisicion = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong fugasDetectadas = new AtomicLong();
+
+    /**
+     * Lee la configuración del pool
+     * Propiedades soportadas (con sus valores por defecto):
+     * biblioteca.pool.minSize (2), maxSize (10), idleTimeoutMs (600000),
+     * connectionTimeoutMs (30000), leakDetectionThresholdMs (0 = deshabilitado),
+     * validationTimeoutSeconds (2)
+     */
+    @Override
+    public void configure(Map<String, Object> settings) {
+        String driver = texto(settings, "hibernate.connection.driver_class", null);
+        this.url = texto(settings, "hibernate.connection.url", null);
+        if (url == null) {
+            throw new HibernateException("hibernate.connection.url es requerido para el pool de conexiones");
+        }
+
+        this.credenciales = new Properties();
+        String usuario = texto(settings, "hibernate.connection.username", null);
+        String password = texto(settings, "hibernate.connection.password", "");
+        if (usuario != null) {
+            credenciales.setProperty("user", usuario);
+            credenciales.setProperty("password", password);
+        }
+
+        this.minSize = entero(settings, MIN_SIZE, 2);
+        this.maxSize = Math.max(1, entero(settings, MAX_SIZE, 10));
+        this.minSize = Math.min(Math.max(0, minSize), maxSize);
+        this.idleTimeoutMs = entero(settings, IDLE_TIMEOUT_MS, 600_000);
+        this.connectionTimeoutMs = entero(settings, CONNECTION_TIMEOUT_MS, 30_000);
+        this.leakDetectionMs = entero(settings, LEAK_DETECTION_MS, 0);
+        this.validationTimeoutSeconds = entero(settings, VALIDATION_TIMEOUT_S, 2);
+
+        if (driver != null) {
+            try {
+                Class.forName(driver);
+            } catch (ClassNotFoundException e) {
+                throw new HibernateException("Driver JDBC no encontrado: " + driver, e);
+            }
+        }
+
+        this.permisos = new Semaphore(maxSize, true);
+        llenarHastaMinimo();
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "biblioteca-pool-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1_000, Math.min(30_000, idleTimeoutMs / 2));
+        mantenimiento.scheduleWithFixedDelay(this::mantener, periodo, periodo, TimeUnit.MILLISECONDS);
+
+        logger.info("Pool de conexiones iniciado - min: " + minSize + ", max: " + maxSize +
+                   ", idleTimeoutMs: " + idleTimeoutMs + ", leakDetectionMs: " + leakDetectionMs);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long inicio = System.nanoTime();
+        esperando.incrementAndGet();
+        boolean obtenido;
+        try {
+            obtenido = permisos.tryAcquire(connectionTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión del pool", e);
+        } finally {
+            esperando.decrementAndGet();
+        }
+
+        if (!obtenido) {
+            timeouts.incrementAndGet();
+            throw new SQLTransientConnectionException(
+                "No hay conexiones disponibles tras " + connectionTimeoutMs + " ms (activas: " +
+                enUso.size() + ", máximo: " + maxSize + ")");
+        }
+
+        try {
+            Connection conexion = tomarOciosaValida();
+            if (conexion == null) {
+                conexion = crearConexion();
+            }
+            enUso.put(conexion, new UsoConexion(leakDetectionMs > 0 ? new Throwable("Conexión obtenida aquí") : null));
+            registrarAdquisicion(System.nanoTime() - inicio);
+            return conexion;
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void closeConnection(Connection conexion) throws SQLException {
+        if (conexion == null) {
+            return;
+        }
+        UsoConexion uso = enUso.remove(conexion);
+        if (uso == null) {
+            // No pertenece al pool (o ya fue devuelta): cerrarla sin tocar los contadores
+            conexion.close();
+            return;
+        }
+
+        try {
+            if (conexion.isClosed()) {
+                totalConexiones.decrementAndGet();
+            } else {
+                if (!conexion.getAutoCommit()) {
+                    conexion.rollback();
+                    conexion.setAutoCommit(true);
+                }
+                ociosas.addFirst(new ConexionOciosa(conexion));
+            }
+        } catch (SQLException e) {
+            // La conexión quedó en un estado inconsistente: se descarta
+            totalConexiones.decrementAndGet();
+            cerrarSilenciosamente(conexion);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isAssignableFrom(PooledConnectionProvider.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (isUnwrappableAs(unwrapType)) {
+            return (T) this;
+        }
+        throw new org.hibernate.service.UnknownUnwrapTypeException(unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        if (mantenimiento != null) {
+            mantenimiento.shutdownNow();
+        }
+        ConexionOciosa ociosa;
+        while ((ociosa = ociosas.poll()) != null) {
+            cerrarSilenciosamente(ociosa.conexion);
+        }
+        if (!enUso.isEmpty()) {
+            logger.warning("Cerrando el pool con " + enUso.size() + " conexiones todavía en uso");
+        }
+        logger.info("Pool de conexiones detenido");
+    }
+
+    /**
+     * Obtiene una foto de las métricas actuales del pool
+     */
+    public PoolMetrics obtenerMetricas() {
+        long cantidad = adquisiciones.get();
+        double promedioMs = cantidad > 0 ? nanosAdquisicion.get() / (double) cantidad / 1_000_000.0 : 0.0;
+        return new PoolMetrics(
+            enUso.size(),
+            ociosas.size(),
+            esperando.get(),
+            totalConexiones.get(),
+            minSize,
+            maxSize,
+            cantidad,
+            promedioMs,
+            maxNanosAdquisicion.get() / 1_000_000.0,
+            timeouts.get(),
+            fugasDetectadas.get()
+        );
+    }
+
+    // ==================== MÉTODOS INTERNOS ====================
+
+    private Connection tomarOciosaValida() {
+        ConexionOciosa ociosa;
+        while ((ociosa = ociosas.pollFirst()) != null) {
+            if (esValida(ociosa.conexion)) {
+                return ociosa.conexion;
+            }
+            totalConexiones.decrementAndGet();
+            cerrarSilenciosamente(ociosa.conexion);
+        }
+        return null;
+    }
+
+    private Connection crearConexion() throws SQLException {
+        Connection conexion = DriverManager.getConnection(url, credenciales);
+        totalConexiones.incrementAndGet();
+        return conexion;
+    }
+
+    private boolean esValida(Connection conexion) {
+        try {
+            return !conexion.isClosed() && conexion.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void registrarAdquisicion(long nanos) {
+        adquisiciones.incrementAndGet();
+        nanosAdquisicion.addAndGet(nanos);
+        maxNanosAdquisicion.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Tarea periódica: cierra conexiones ociosas vencidas, repone el mínimo
+     * y avisa de conexiones retenidas más allá del umbral de fugas
+     */
+    private void mantener() {
+        try {
+            long ahora = System.currentTimeMillis();
+            Iterator<ConexionOciosa> it = ociosas.descendingIterator();
+            while (it.hasNext() && totalConexiones.get() > minSize) {
+                ConexionOciosa ociosa = it.next();
+                if (ahora - ociosa.desde > idleTimeoutMs && ociosas.remove(ociosa)) {
+                    totalConexiones.decrementAndGet();
+                    cerrarSilenciosamente(ociosa.conexion);
+                }
+            }
+
+            llenarHastaMinimo();
+
+            if (leakDetectionMs > 0) {
+                for (UsoConexion uso : enUso.values()) {
+                    if (!uso.reportado && ahora - uso.desde > leakDetectionMs) {
+                        uso.reportado = true;
+                        fugasDetectadas.incrementAndGet();
+                        logger.log(Level.WARNING, "Posible fuga de conexión: retenida por más de " +
+                                   leakDetectionMs + " ms", uso.origen);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Error en el mantenimiento del pool de conexiones", e);
+        }
+    }
+
+    private void llenarHastaMinimo() {
+        while (totalConexiones.get() < minSize) {
+            try {
+                ociosas.addLast(new ConexionOciosa(crearConexion()));
+            } catch (SQLException e) {
+                logger.log(Level.WARNING, "No se pudo abrir una conexión para el mínimo del pool", e);
+                return;
+            }
+        }
+    }
+
+    private static void cerrarSilenciosamente(Connection conexion) {
+        try {
+            conexion.close();
+        } catch (SQLException ignored) {
+            // La conexión se descarta de todos modos
+        }
+    }
+
+    private static String texto(Map<String, Object> settings, String clave, String porDefecto) {
+        Object valor = settings.get(clave);
+        return valor != null ? valor.toString() : porDefecto;
+    }
+
+    private static int entero(Map<String, Object> settings, String clave, int porDefecto) {
+        Object valor = settings.get(clave);
+        if (valor == null || valor.toString().trim().isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warning("Valor inválido para " + clave + ": " + valor + ", usando " + porDefecto);
+            return porDefecto;
+        }
+    }
+
+    private static final class ConexionOciosa {
+        final Connection conexion;
+        final long desde = System.currentTimeMillis();
+
+        ConexionOciosa(Connection conexion) {
+            this.conexion = conexion;
+        }
+    }
+
+    private static final class UsoConexion {
+        final long desde = System.currentTimeMillis();
+        final Throwable origen;
+        volatile boolean reportado;
+
+        UsoConexion(Throwable origen) {
+            this.origen = origen;
+        }
+    }
+}
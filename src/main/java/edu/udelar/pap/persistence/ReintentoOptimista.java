@@ -0,0 +1,92 @@
+package edu.udelar.pap.persistence;
+
+import edu.udelar.pap.exception.ConflictoConcurrenciaException;
+import org.hibernate.StaleStateException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Manejo de los conflictos de versión (@Version) de Hibernate
+ *
+ * Un UPDATE versionado que no encuentra la versión leída falla con OptimisticLockException /
+ * StaleStateException. Las transiciones idempotentes (fijar un estado o una zona, aprobar o
+ * cancelar un préstamo) se reintentan: cada intento abre su propia sesión, vuelve a leer la
+ * entidad y vuelve a validar, así que repetirla no pisa el cambio del otro usuario. Las
+ * ediciones hechas sobre datos que el usuario vio (actualizarPrestamoCompleto) no se
+ * reintentan: el conflicto se informa con ConflictoConcurrenciaException.
+ */
+public final class ReintentoOptimista {
+
+    private static final Logger logger = Logger.getLogger(ReintentoOptimista.class.getName());
+
+    /** Intentos en total (el primero más los reintentos) antes de informar el conflicto */
+    public static final int INTENTOS_MAXIMOS = 3;
+    /** Espera base entre intentos: se elige al azar hasta ESPERA_BASE_MS * 2^intento, para que los que chocaron no vuelvan a coincidir */
+    private static final int ESPERA_BASE_MS = 5;
+
+    private ReintentoOptimista() {}
+
+    /**
+     * Ejecuta una transacción completa reintentándola ante conflictos de versión
+     * @param entidad Nombre de la entidad, para el mensaje del conflicto
+     * @param entidadId ID de la entidad modificada
+     * @param transaccion Abre su sesión, lee, modifica y hace commit; se repite entera
+     * @throws ConflictoConcurrenciaException Si el conflicto persiste después de INTENTOS_MAXIMOS
+     */
+    public static <T> T ejecutar(String entidad, Long entidadId, Supplier<T> transaccion) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return transaccion.get();
+            } catch (RuntimeException e) {
+                // Un ConflictoConcurrenciaException sin causa viene de una versión esperada por el
+                // cliente distinta de la actual: reintentar no la cambia
+                boolean reintentable = e instanceof ConflictoConcurrenciaException
+                    ? e.getCause() != null
+                    : esConflictoDeVersion(e);
+                if (!reintentable) {
+                    throw e;
+                }
+                if (intento >= INTENTOS_MAXIMOS) {
+                    throw traducir(entidad, entidadId, e);
+                }
+                final int numero = intento;
+                logger.fine(() -> "Conflicto de versión en " + entidad + " " + entidadId + ", reintento " + numero);
+                esperar(intento);
+            }
+        }
+    }
+
+    /**
+     * Traduce un conflicto de versión a ConflictoConcurrenciaException, sin reintentar
+     * @return La excepción a lanzar: la traducida o la original si no es un conflicto
+     */
+    public static RuntimeException traducir(String entidad, Long entidadId, RuntimeException e) {
+        return esConflictoDeVersion(e) && !(e instanceof ConflictoConcurrenciaException)
+            ? new ConflictoConcurrenciaException(entidad, entidadId, e)
+            : e;
+    }
+
+    /**
+     * @return true si la excepción (o alguna de sus causas) es un conflicto de versión
+     */
+    public static boolean esConflictoDeVersion(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConflictoConcurrenciaException
+                    || causa instanceof jakarta.persistence.OptimisticLockException
+                    || causa instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void esperar(int intento) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(1, (ESPERA_BASE_MS << intento) + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package edu.udelar.pap.persistence;
+
+import org.hibernate.Session;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Verifica que las consultas frecuentes usen índices
+ * Ejecuta EXPLAIN sobre el SQL equivalente a las consultas de PrestamoService y
+ * LectorService y falla si alguna recorre completa la tabla que filtra
+ * (H2: "tableScan" en el plan; MySQL: type = ALL).
+ *
+ * Los planes dependen de las estadísticas, conviene correrlo contra una base con datos.
+ * Uso: java -Ddb=h2 edu.udelar.pap.persistence.VerificadorPlanes
+ * Termina con código 1 si alguna consulta no usa índice.
+ * Las consultas no usan alias de tabla: EXPLAIN de MySQL identifica cada fila por el alias.
+ */
+public final class VerificadorPlanes {
+
+    /**
+     * Consulta frecuente y tabla que no debe recorrerse completa
+     */
+    static final class ConsultaFrecuente {
+        final String nombre;
+        final String tabla;
+        final String sql;
+
+        ConsultaFrecuente(String nombre, String tabla, String sql) {
+            this.nombre = nombre;
+            this.tabla = tabla;
+            this.sql = sql;
+        }
+    }
+
+    static final List<ConsultaFrecuente> CONSULTAS = List.of(
+        new ConsultaFrecuente("prestamos vencidos", "prestamos",
+            "SELECT COUNT(*) FROM prestamos WHERE estado = 'EN_CURSO' AND fechaEstimadaDevolucion < CURRENT_DATE"),
+        new ConsultaFrecuente("prestamos activos por lector", "prestamos",
+            "SELECT COUNT(*) FROM prestamos WHERE lector_id = 1 AND estado = 'EN_CURSO'"),
+        new ConsultaFrecuente("prestamos por estado", "prestamos",
+            "SELECT * FROM prestamos WHERE estado = 'PENDIENTE' ORDER BY fechaSolicitud DESC"),
+        new ConsultaFrecuente("prestamos por bibliotecario", "prestamos",
+            "SELECT * FROM prestamos WHERE bibliotecario_id = 1 ORDER BY fechaSolicitud DESC"),
+        new ConsultaFrecuente("prestamos no devueltos de un material", "prestamos",
+            "SELECT * FROM prestamos WHERE material_id = 1 AND estado <> 'DEVUELTO'"),
+        new ConsultaFrecuente("pagina de prestamos por fecha de solicitud", "prestamos",
+            "SELECT * FROM prestamos WHERE fechaSolicitud < CURRENT_DATE ORDER BY fechaSolicitud DESC, id DESC LIMIT 51"),
+        new ConsultaFrecuente("reporte por zona con rango de fechas", "prestamos",
+            "SELECT lectores.zona, prestamos.estado, COUNT(*) FROM prestamos JOIN lectores ON lectores.id = prestamos.lector_id " +
+            "WHERE prestamos.fechaSolicitud BETWEEN DATE '2025-01-01' AND DATE '2025-01-31' GROUP BY lectores.zona, prestamos.estado"),
+        new ConsultaFrecuente("lectores por estado", "lectores",
+            "SELECT * FROM lectores JOIN usuarios ON usuarios.id = lectores.id WHERE lectores.estado = 'SUSPENDIDO'"),
+        new ConsultaFrecuente("pagina de usuarios por nombre", "usuarios",
+            "SELECT * FROM usuarios WHERE nombre > 'M' ORDER BY nombre, id LIMIT 51")
+    );
+
+    private VerificadorPlanes() {}
+
+    public static void main(String[] args) {
+        if (System.getProperty("db") == null) {
+            System.setProperty("db", "h2");
+        }
+        int fallas;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            fallas = session.doReturningWork(VerificadorPlanes::verificar);
+        } finally {
+            HibernateUtil.getSessionFactory().close();
+        }
+        System.out.println(fallas == 0
+            ? "✓ Todas las consultas frecuentes usan índices"
+            : "❌ " + fallas + " consulta(s) recorren la tabla completa");
+        System.exit(fallas == 0 ? 0 : 1);
+    }
+
+    /**
+     * Ejecuta EXPLAIN sobre cada consulta frecuente e imprime los planes
+     * @return Cantidad de consultas que recorren completa su tabla
+     */
+    public static int verificar(Connection conexion) throws SQLException {
+        boolean mysql = conexion.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+        int fallas = 0;
+        for (ConsultaFrecuente consulta : CONSULTAS) {
+            List<String> plan = explicar(conexion, consulta.sql);
+            boolean recorridoCompleto = mysql
+                ? recorreCompletaMySql(plan, consulta.tabla)
+                : recorreCompletaH2(plan, consulta.tabla);
+            System.out.println((recorridoCompleto ? "❌ " : "✓ ") + consulta.nombre);
+            if (recorridoCompleto) {
+                fallas++;
+                for (String linea : plan) {
+                    System.out.println("     " + linea);
+                }
+            }
+        }
+        return fallas;
+    }
+
+    private static List<String> explicar(Connection conexion, String sql) throws SQLException {
+        List<String> filas = new ArrayList<>();
+        try (Statement statement = conexion.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            while (rs.next()) {
+                StringBuilder fila = new StringBuilder();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    if (i > 1) fila.append(" | ");
+                    fila.append(metaData.getColumnLabel(i)).append('=').append(rs.getString(i));
+                }
+                filas.add(fila.toString());
+            }
+        }
+        return filas;
+    }
+
+    /** H2 marca el acceso sin índice con el comentario "tabla.tableScan" en el plan */
+    private static boolean recorreCompletaH2(List<String> plan, String tabla) {
+        Pattern tableScan = Pattern.compile("\\b" + tabla + "\\.tableScan\\b", Pattern.CASE_INSENSITIVE);
+        return plan.stream().anyMatch(linea -> tableScan.matcher(linea).find());
+    }
+
+    /** MySQL informa type = ALL en la fila de la tabla recorrida completa */
+    private static boolean recorreCompletaMySql(List<String> plan, String tabla) {
+        return plan.stream().anyMatch(linea -> linea.contains("table=" + tabla + " |") && linea.contains("type=ALL"));
+    }
+}
@@ -1,6 +1,10 @@
 package edu.udelar.pap.publisher;
 
 import edu.udelar.pap.controller.BibliotecarioController;
+import edu.udelar.pap.exception.ServicioSaturadoException;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Clase publicador para servicios de Bibliotecario
@@ -8,6 +12,8 @@ import edu.udelar.pap.controller.BibliotecarioController;
  */
 public class BibliotecarioPublisher {
     
+    private static final Logger logger = Logger.getLogger(BibliotecarioPublisher.class.getName());
+    
     private final BibliotecarioController bibliotecarioController;
     
     public BibliotecarioPublisher() {
@@ -34,6 +40,8 @@ public class BibliotecarioPublisher {
             } else {
                 return "{\"success\": false, \"message\": \"Error al crear bibliotecario. Verifique los datos ingresados.\"}";
             }
+        } catch (ServicioSaturadoException e) {
+            throw e;
         } catch (Exception e) {
             return String.format("{\"success\": false, \"message\": \"Error interno: %s\"}", e.getMessage());
         }
@@ -103,19 +111,15 @@ public class BibliotecarioPublisher {
      */
     public Long obtenerPrimerBibliotecarioId() {
         try {
-            java.util.List<edu.udelar.pap.domain.Bibliotecario> bibliotecarios = 
-                bibliotecarioController.obtenerBibliotecarios();
-            
-            if (bibliotecarios != null && !bibliotecarios.isEmpty()) {
-                Long id = bibliotecarios.get(0).getId();
-                System.out.println("✅ Primer bibliotecario encontrado con ID: " + id);
-                return id;
+            Long id = bibliotecarioController.obtenerPrimerBibliotecarioId();
+            if (id != null) {
+                logger.fine(() -> "Primer bibliotecario encontrado con ID: " + id);
             } else {
-                System.err.println("❌ No hay bibliotecarios en la base de datos");
-                return null;
+                logger.warning("No hay bibliotecarios en la base de datos");
             }
+            return id;
         } catch (Exception e) {
-            System.err.println("❌ Error al obtener primer bibliotecario: " + e.getMessage());
+            logger.log(Level.WARNING, "Error al obtener primer bibliotecario", e);
             return null;
         }
     }
@@ -182,6 +186,39 @@ public class BibliotecarioPublisher {
         }
     }
     
+    /**
+     * Obtiene una página de bibliotecarios (paginación por cursor)
+     * @param orden nombre (por defecto), numeroEmpleado o id
+     * @param cursor Valor de siguienteCursor de la página anterior, o null para la primera
+     * @param limite Tamaño de página (por defecto 50, máximo 500)
+     * @return JSON con los bibliotecarios de la página y el cursor de la siguiente
+     */
+    public String obtenerPaginaBibliotecarios(String orden, String cursor, Integer limite) {
+        try {
+            edu.udelar.pap.service.Pagina<edu.udelar.pap.domain.Bibliotecario> pagina =
+                bibliotecarioController.obtenerPaginaBibliotecarios(orden, cursor, limite);
+            
+            StringBuilder json = new StringBuilder();
+            json.append("{\"success\": true, \"bibliotecarios\": [");
+            boolean primero = true;
+            for (edu.udelar.pap.domain.Bibliotecario bib : pagina.getElementos()) {
+                if (!primero) json.append(",");
+                json.append(String.format("{\"id\": %d, \"nombre\": \"%s\", \"email\": \"%s\", \"numeroEmpleado\": \"%s\"}", 
+                    bib.getId(),
+                    edu.udelar.pap.util.JsonUtil.escapar(bib.getNombre()),
+                    edu.udelar.pap.util.JsonUtil.escapar(bib.getEmail()),
+                    edu.udelar.pap.util.JsonUtil.escapar(bib.getNumeroEmpleado())));
+                primero = false;
+            }
+            json.append("], ").append(pagina.metadatosJson()).append("}");
+            return json.toString();
+        } catch (IllegalArgumentException e) {
+            return String.format("{\"success\": false, \"message\": \"%s\"}", e.getMessage());
+        } catch (Exception e) {
+            return String.format("{\"success\": false, \"message\": \"Error al obtener lista: %s\"}", e.getMessage());
+        }
+    }
+    
     // ==================== MÉTODOS DE AUTENTICACIÓN ====================
     
     /**
@@ -199,6 +236,8 @@ public class BibliotecarioPublisher {
             } else {
                 return "{\"success\": false, \"message\": \"Credenciales incorrectas\"}";
             }
+        } catch (ServicioSaturadoException e) {
+            throw e;
         } catch (Exception e) {
             return String.format("{\"success\": false, \"message\": \"Error en autenticación: %s\"}", e.getMessage());
         }
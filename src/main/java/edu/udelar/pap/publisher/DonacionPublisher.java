@@ -2,12 +2,17 @@ package edu.udelar.pap.publisher;
 
 import edu.udelar.pap.controller.DonacionController;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Clase publicador para servicios de Donación
  * Actúa como capa de exposición para la aplicación web
  */
 public class DonacionPublisher {
     
+    private static final Logger logger = Logger.getLogger(DonacionPublisher.class.getName());
+    
     private final DonacionController donacionController;
     
     public DonacionPublisher() {
@@ -171,80 +176,133 @@ public class DonacionPublisher {
      * @return JSON con la lista de donaciones en el rango
      */
     public String obtenerDonacionesPorFechas(String fechaDesde, String fechaHasta) {
+        java.io.StringWriter json = new java.io.StringWriter();
         try {
-            // Validar parámetros
-            if (fechaDesde == null || fechaDesde.trim().isEmpty()) {
-                return "{\"success\": false, \"message\": \"La fecha de inicio es requerida\"}";
-            }
-            if (fechaHasta == null || fechaHasta.trim().isEmpty()) {
-                return "{\"success\": false, \"message\": \"La fecha de fin es requerida\"}";
-            }
-            
-            // Parsear fechas (formato DD/MM/YYYY)
-            java.time.LocalDate fechaInicio;
-            java.time.LocalDate fechaFin;
-            
-            try {
-                java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy");
-                fechaInicio = java.time.LocalDate.parse(fechaDesde, formatter);
-                fechaFin = java.time.LocalDate.parse(fechaHasta, formatter);
-            } catch (Exception e) {
-                return "{\"success\": false, \"message\": \"Formato de fecha inválido. Use DD/MM/YYYY\"}";
-            }
-            
-            // Validar que la fecha de inicio sea anterior o igual a la fecha de fin
-            if (fechaInicio.isAfter(fechaFin)) {
-                return "{\"success\": false, \"message\": \"La fecha de inicio debe ser anterior o igual a la fecha de fin\"}";
-            }
-            
-            // Obtener donaciones del servicio
-            java.util.List<Object> donaciones = donacionController.obtenerDonacionesPorRangoFechas(fechaInicio, fechaFin);
-            
-            if (donaciones == null || donaciones.isEmpty()) {
-                return "{\"success\": true, \"donaciones\": [], \"cantidad\": 0}";
-            }
-            
-            // Construir JSON con las donaciones
-            StringBuilder json = new StringBuilder();
-            json.append("{\"success\": true, \"donaciones\": [");
-            
-            for (int i = 0; i < donaciones.size(); i++) {
-                Object donacion = donaciones.get(i);
-                if (i > 0) json.append(",");
+            escribirDonacionesPorFechas(fechaDesde, fechaHasta, json);
+        } catch (java.io.IOException e) {
+            // StringWriter no lanza IOException
+        }
+        return json.toString();
+    }
+    
+    /**
+     * Escribe en formato JSON las donaciones de un rango de fechas directamente en el Writer,
+     * fila por fila desde la base de datos (sin armar la respuesta completa en memoria)
+     * @param fechaDesde Fecha de inicio (DD/MM/YYYY)
+     * @param fechaHasta Fecha de fin (DD/MM/YYYY)
+     * @param out Destino del JSON (p. ej. el cuerpo de la respuesta HTTP)
+     * @throws java.io.IOException Si falla la escritura en el destino
+     */
+    public void escribirDonacionesPorFechas(String fechaDesde, String fechaHasta, java.io.Writer out) throws java.io.IOException {
+        // Validar parámetros
+        if (fechaDesde == null || fechaDesde.trim().isEmpty()) {
+            out.write("{\"success\": false, \"message\": \"La fecha de inicio es requerida\"}");
+            return;
+        }
+        if (fechaHasta == null || fechaHasta.trim().isEmpty()) {
+            out.write("{\"success\": false, \"message\": \"La fecha de fin es requerida\"}");
+            return;
+        }
+        
+        // Parsear fechas (formato DD/MM/YYYY)
+        java.time.LocalDate fechaInicio;
+        java.time.LocalDate fechaFin;
+        
+        try {
+            java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy");
+            fechaInicio = java.time.LocalDate.parse(fechaDesde, formatter);
+            fechaFin = java.time.LocalDate.parse(fechaHasta, formatter);
+        } catch (Exception e) {
+            out.write("{\"success\": false, \"message\": \"Formato de fecha inválido. Use DD/MM/YYYY\"}");
+            return;
+        }
+        
+        // Validar que la fecha de inicio sea anterior o igual a la fecha de fin
+        if (fechaInicio.isAfter(fechaFin)) {
+            out.write("{\"success\": false, \"message\": \"La fecha de inicio debe ser anterior o igual a la fecha de fin\"}");
+            return;
+        }
+        
+        // Recorrer las donaciones del rango en streaming
+        java.util.stream.Stream<edu.udelar.pap.domain.DonacionMaterial> donaciones;
+        try {
+            donaciones = donacionController.streamDonacionesPorRangoFechas(fechaInicio, fechaFin);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error al obtener donaciones por rango de fechas", e);
+            out.write(String.format("{\"success\": false, \"message\": \"Error al obtener donaciones: %s\"}", e.getMessage()));
+            return;
+        }
+        
+        try (donaciones) {
+            out.write("{\"success\": true, \"donaciones\": [");
+            java.util.Iterator<edu.udelar.pap.domain.DonacionMaterial> it = donaciones.iterator();
+            int cantidad = 0;
+            while (it.hasNext()) {
+                edu.udelar.pap.domain.DonacionMaterial donacion = it.next();
+                if (cantidad > 0) out.write(",");
                 
-                if (donacion instanceof edu.udelar.pap.domain.Libro) {
-                    edu.udelar.pap.domain.Libro libro = (edu.udelar.pap.domain.Libro) donacion;
-                    json.append("{");
-                    json.append("\"id\": ").append(libro.getId()).append(",");
-                    json.append("\"tipo\": \"LIBRO\",");
-                    json.append("\"titulo\": \"").append(libro.getTitulo().replace("\"", "\\\"")).append("\",");
-                    json.append("\"paginas\": ").append(libro.getPaginas()).append(",");
-                    json.append("\"donante\": \"").append(libro.getDonante().replace("\"", "\\\"")).append("\",");
-                    json.append("\"fechaIngreso\": \"").append(libro.getFechaIngreso()).append("\"");
-                    json.append("}");
-                } else if (donacion instanceof edu.udelar.pap.domain.ArticuloEspecial) {
-                    edu.udelar.pap.domain.ArticuloEspecial articulo = (edu.udelar.pap.domain.ArticuloEspecial) donacion;
-                    json.append("{");
-                    json.append("\"id\": ").append(articulo.getId()).append(",");
-                    json.append("\"tipo\": \"ARTICULO\",");
-                    json.append("\"descripcion\": \"").append(articulo.getDescripcion().replace("\"", "\\\"")).append("\",");
-                    json.append("\"peso\": ").append(articulo.getPeso()).append(",");
-                    json.append("\"dimensiones\": \"").append(articulo.getDimensiones().replace("\"", "\\\"")).append("\",");
-                    json.append("\"donante\": \"").append(articulo.getDonante().replace("\"", "\\\"")).append("\",");
-                    json.append("\"fechaIngreso\": \"").append(articulo.getFechaIngreso()).append("\"");
-                    json.append("}");
-                }
+                escribirDonacion(out, donacion);
+                cantidad++;
             }
+            out.write("], \"cantidad\": " + cantidad + "}");
+        }
+    }
+    
+    /**
+     * Obtiene una página de donaciones, libros y artículos (paginación por cursor)
+     * @param orden fechaIngreso (más recientes primero, por defecto) o id
+     * @param cursor Valor de siguienteCursor de la página anterior, o null para la primera
+     * @param limite Tamaño de página (por defecto 50, máximo 500)
+     * @return JSON con las donaciones de la página y el cursor de la siguiente
+     */
+    public String obtenerPaginaDonaciones(String orden, String cursor, Integer limite) {
+        try {
+            edu.udelar.pap.service.Pagina<edu.udelar.pap.domain.DonacionMaterial> pagina =
+                donacionController.obtenerPaginaDonaciones(orden, cursor, limite);
             
-            json.append("], \"cantidad\": ").append(donaciones.size()).append("}");
+            java.io.StringWriter json = new java.io.StringWriter();
+            json.write("{\"success\": true, \"donaciones\": [");
+            boolean primero = true;
+            for (edu.udelar.pap.domain.DonacionMaterial donacion : pagina.getElementos()) {
+                if (!primero) json.write(",");
+                escribirDonacion(json, donacion);
+                primero = false;
+            }
+            json.write("], " + pagina.metadatosJson() + "}");
             return json.toString();
-            
+        } catch (IllegalArgumentException e) {
+            return String.format("{\"success\": false, \"message\": \"%s\"}", e.getMessage());
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.log(Level.SEVERE, "Error al obtener página de donaciones", e);
             return String.format("{\"success\": false, \"message\": \"Error al obtener donaciones: %s\"}", e.getMessage());
         }
     }
     
+    private void escribirDonacion(java.io.Writer out, edu.udelar.pap.domain.DonacionMaterial donacion) throws java.io.IOException {
+        if (donacion instanceof edu.udelar.pap.domain.Libro) {
+            edu.udelar.pap.domain.Libro libro = (edu.udelar.pap.domain.Libro) donacion;
+            out.write("{");
+            out.write("\"id\": " + libro.getId() + ",");
+            out.write("\"tipo\": \"LIBRO\",");
+            out.write("\"titulo\": \"" + edu.udelar.pap.util.JsonUtil.escapar(libro.getTitulo()) + "\",");
+            out.write("\"paginas\": " + libro.getPaginas() + ",");
+            out.write("\"donante\": \"" + edu.udelar.pap.util.JsonUtil.escapar(libro.getDonante()) + "\",");
+            out.write("\"fechaIngreso\": \"" + libro.getFechaIngreso() + "\"");
+            out.write("}");
+        } else if (donacion instanceof edu.udelar.pap.domain.ArticuloEspecial) {
+            edu.udelar.pap.domain.ArticuloEspecial articulo = (edu.udelar.pap.domain.ArticuloEspecial) donacion;
+            out.write("{");
+            out.write("\"id\": " + articulo.getId() + ",");
+            out.write("\"tipo\": \"ARTICULO\",");
+            out.write("\"descripcion\": \"" + edu.udelar.pap.util.JsonUtil.escapar(articulo.getDescripcion()) + "\",");
+            out.write("\"peso\": " + articulo.getPeso() + ",");
+            out.write("\"dimensiones\": \"" + edu.udelar.pap.util.JsonUtil.escapar(articulo.getDimensiones()) + "\",");
+            out.write("\"donante\": \"" + edu.udelar.pap.util.JsonUtil.escapar(articulo.getDonante()) + "\",");
+            out.write("\"fechaIngreso\": \"" + articulo.getFechaIngreso() + "\"");
+            out.write("}");
+        }
+    }
+    
     // ==================== MÉTODOS DE VALIDACIÓN ====================
     
     /**
@@ -339,5 +397,33 @@ public class DonacionPublisher {
             return String.format("{\"success\": false, \"message\": \"Error de estado: %s\"}", e.getMessage());
         }
     }
+    
+    // ==================== IMPORTACIÓN MASIVA ====================
+    
+    /**
+     * Importa libros o artículos especiales desde un archivo CSV o JSON lines
+     * Columnas de libros: titulo, paginas, donante, fechaIngreso (las dos últimas opcionales).
+     * Columnas de artículos: descripcion, peso, dimensiones, donante, fechaIngreso.
+     * @param tipo "libros" o "articulos"
+     * @param entrada Contenido del archivo (se lee en streaming)
+     * @param formato "csv" (por defecto) o "jsonl"
+     * @param intervaloCommit Filas por transacción (null = 1000)
+     * @return JSON con leídas, importadas, rechazadas y los errores por línea
+     */
+    public String importarDonaciones(String tipo, java.io.Reader entrada, String formato, Integer intervaloCommit) {
+        try (edu.udelar.pap.util.FilasImportacion filas = new edu.udelar.pap.util.FilasImportacion(entrada, formatoImportacion(formato))) {
+            return donacionController.importarDonaciones(
+                edu.udelar.pap.service.ImportacionService.TipoImportacion.desde(tipo), filas, intervaloCommit).aJson();
+        } catch (IllegalArgumentException e) {
+            return String.format("{\"success\": false, \"message\": \"%s\"}", edu.udelar.pap.util.JsonUtil.escapar(e.getMessage()));
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error al importar donaciones", e);
+            return String.format("{\"success\": false, \"message\": \"Error al importar donaciones: %s\"}", edu.udelar.pap.util.JsonUtil.escapar(e.getMessage()));
+        }
+    }
+    
+    static edu.udelar.pap.util.FilasImportacion.Formato formatoImportacion(String formato) {
+        edu.udelar.pap.util.FilasImportacion.Formato valor = edu.udelar.pap.util.FilasImportacion.Formato.desde(formato);
+        return valor != null ? valor : edu.udelar.pap.util.FilasImportacion.Formato.CSV;
+    }
 }
-
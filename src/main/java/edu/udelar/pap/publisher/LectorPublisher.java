@@ -1,6 +1,10 @@
 package edu.udelar.pap.publisher;
 
 import edu.udelar.pap.controller.LectorController;
+import edu.udelar.pap.exception.ServicioSaturadoException;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Clase publicador para servicios de Lector
@@ -8,6 +12,8 @@ import edu.udelar.pap.controller.LectorController;
  */
 public class LectorPublisher {
     
+    private static final Logger logger = Logger.getLogger(LectorPublisher.class.getName());
+    
     private final LectorController lectorController;
     
     public LectorPublisher() {
@@ -37,6 +43,8 @@ public class LectorPublisher {
             } else {
                 return "{\"success\": false, \"message\": \"Error al crear lector. Verifique los datos ingresados.\"}";
             }
+        } catch (ServicioSaturadoException e) {
+            throw e;
         } catch (Exception e) {
             return String.format("{\"success\": false, \"message\": \"Error interno: %s\"}", e.getMessage());
         }
@@ -206,6 +214,8 @@ public class LectorPublisher {
             } else {
                 return "{\"success\": false, \"message\": \"Credenciales incorrectas\"}";
             }
+        } catch (ServicioSaturadoException e) {
+            throw e;
         } catch (Exception e) {
             return String.format("{\"success\": false, \"message\": \"Error en autenticación: %s\"}", e.getMessage());
         }
@@ -228,6 +238,8 @@ public class LectorPublisher {
             } else {
                 return "{\"success\": false, \"message\": \"Error al cambiar estado. Verifique el ID y el estado.\"}";
             }
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException e) {
+            return edu.udelar.pap.util.JsonUtil.conflicto(e);
         } catch (Exception e) {
             return String.format("{\"success\": false, \"message\": \"Error interno: %s\"}", e.getMessage());
         }
@@ -248,6 +260,8 @@ public class LectorPublisher {
             } else {
                 return "{\"success\": false, \"message\": \"Error al cambiar zona. Verifique el ID y la zona.\"}";
             }
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException e) {
+            return edu.udelar.pap.util.JsonUtil.conflicto(e);
         } catch (Exception e) {
             return String.format("{\"success\": false, \"message\": \"Error interno: %s\"}", e.getMessage());
         }
@@ -260,36 +274,83 @@ public class LectorPublisher {
      * @return JSON con la lista de lectores
      */
     public String obtenerListaLectores() {
+        java.io.StringWriter json = new java.io.StringWriter();
         try {
-            java.util.List<edu.udelar.pap.domain.Lector> lectores = lectorController.obtenerTodosLectores();
-            
-            if (lectores == null || lectores.isEmpty()) {
-                return "{\"success\": true, \"lectores\": []}";
+            escribirListaLectores(json);
+        } catch (java.io.IOException e) {
+            // StringWriter no lanza IOException
+        }
+        return json.toString();
+    }
+    
+    /**
+     * Escribe la lista de todos los lectores en formato JSON directamente en el Writer,
+     * fila por fila desde la base de datos (sin armar la respuesta completa en memoria)
+     * @param out Destino del JSON (p. ej. el cuerpo de la respuesta HTTP)
+     * @throws java.io.IOException Si falla la escritura en el destino
+     */
+    public void escribirListaLectores(java.io.Writer out) throws java.io.IOException {
+        java.util.stream.Stream<edu.udelar.pap.domain.Lector> lectores;
+        try {
+            lectores = lectorController.streamTodosLectores();
+        } catch (Exception e) {
+            out.write(String.format("{\"success\": false, \"message\": \"Error al obtener lista: %s\"}", e.getMessage()));
+            return;
+        }
+        
+        try (lectores) {
+            out.write("{\"success\": true, \"lectores\": [");
+            java.util.Iterator<edu.udelar.pap.domain.Lector> it = lectores.iterator();
+            boolean primero = true;
+            while (it.hasNext()) {
+                if (!primero) out.write(",");
+                escribirLector(out, it.next());
+                primero = false;
             }
+            out.write("]}");
+        }
+    }
+    
+    /**
+     * Obtiene una página de lectores (paginación por cursor)
+     * @param orden nombre (por defecto), fechaRegistro o id
+     * @param cursor Valor de siguienteCursor de la página anterior, o null para la primera
+     * @param limite Tamaño de página (por defecto 50, máximo 500)
+     * @return JSON con los lectores de la página y el cursor de la siguiente
+     */
+    public String obtenerPaginaLectores(String orden, String cursor, Integer limite) {
+        try {
+            edu.udelar.pap.service.Pagina<edu.udelar.pap.domain.Lector> pagina =
+                lectorController.obtenerPaginaLectores(orden, cursor, limite);
             
-            StringBuilder json = new StringBuilder();
-            json.append("{\"success\": true, \"lectores\": [");
-            
-            for (int i = 0; i < lectores.size(); i++) {
-                edu.udelar.pap.domain.Lector lector = lectores.get(i);
-                if (i > 0) json.append(",");
-                json.append(String.format("{\"id\": %d, \"nombre\": \"%s\", \"email\": \"%s\", \"direccion\": \"%s\", \"zona\": \"%s\", \"estado\": \"%s\", \"fechaRegistro\": \"%s\"}", 
-                    lector.getId(),
-                    lector.getNombre(),
-                    lector.getEmail(),
-                    lector.getDireccion() != null ? lector.getDireccion() : "",
-                    lector.getZona(),
-                    lector.getEstado(),
-                    lector.getFechaRegistro()));
+            java.io.StringWriter json = new java.io.StringWriter();
+            json.write("{\"success\": true, \"lectores\": [");
+            boolean primero = true;
+            for (edu.udelar.pap.domain.Lector lector : pagina.getElementos()) {
+                if (!primero) json.write(",");
+                escribirLector(json, lector);
+                primero = false;
             }
-            
-            json.append("]}");
+            json.write("], " + pagina.metadatosJson() + "}");
             return json.toString();
+        } catch (IllegalArgumentException e) {
+            return String.format("{\"success\": false, \"message\": \"%s\"}", e.getMessage());
         } catch (Exception e) {
             return String.format("{\"success\": false, \"message\": \"Error al obtener lista: %s\"}", e.getMessage());
         }
     }
     
+    private void escribirLector(java.io.Writer out, edu.udelar.pap.domain.Lector lector) throws java.io.IOException {
+        out.write(String.format("{\"id\": %d, \"nombre\": \"%s\", \"email\": \"%s\", \"direccion\": \"%s\", \"zona\": \"%s\", \"estado\": \"%s\", \"fechaRegistro\": \"%s\"}", 
+            lector.getId(),
+            edu.udelar.pap.util.JsonUtil.escapar(lector.getNombre()),
+            edu.udelar.pap.util.JsonUtil.escapar(lector.getEmail()),
+            edu.udelar.pap.util.JsonUtil.escapar(lector.getDireccion()),
+            lector.getZona(),
+            lector.getEstado(),
+            lector.getFechaRegistro()));
+    }
+    
     /**
      * Obtiene el bibliotecario de referencia de un lector
      * (El bibliotecario que más préstamos ha gestionado para ese lector)
@@ -327,5 +388,26 @@ public class LectorPublisher {
             return String.format("{\"success\": false, \"message\": \"Error de estado: %s\"}", e.getMessage());
         }
     }
+    
+    // ==================== IMPORTACIÓN MASIVA ====================
+    
+    /**
+     * Importa lectores desde un archivo CSV o JSON lines
+     * Columnas: nombre, apellido, email, direccion, zona, estado, fechaRegistro y
+     * password o passwordHash (hash BCrypt exportado de otra sede).
+     * @param entrada Contenido del archivo (se lee en streaming)
+     * @param formato "csv" (por defecto) o "jsonl"
+     * @param intervaloCommit Filas por transacción (null = 1000)
+     * @return JSON con leídas, importadas, rechazadas y los errores por línea
+     */
+    public String importarLectores(java.io.Reader entrada, String formato, Integer intervaloCommit) {
+        try (edu.udelar.pap.util.FilasImportacion filas = new edu.udelar.pap.util.FilasImportacion(entrada, DonacionPublisher.formatoImportacion(formato))) {
+            return lectorController.importarLectores(filas, intervaloCommit).aJson();
+        } catch (IllegalArgumentException e) {
+            return String.format("{\"success\": false, \"message\": \"%s\"}", edu.udelar.pap.util.JsonUtil.escapar(e.getMessage()));
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error al importar lectores", e);
+            return String.format("{\"success\": false, \"message\": \"Error al importar lectores: %s\"}", edu.udelar.pap.util.JsonUtil.escapar(e.getMessage()));
+        }
+    }
 }
-
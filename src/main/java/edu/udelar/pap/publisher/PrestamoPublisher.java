@@ -2,12 +2,17 @@ package edu.udelar.pap.publisher;
 
 import edu.udelar.pap.controller.PrestamoControllerUltraRefactored;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Clase publicador para servicios de Préstamo
  * Actúa como capa de exposición para la aplicación web
  */
 public class PrestamoPublisher {
     
+    private static final Logger logger = Logger.getLogger(PrestamoPublisher.class.getName());
+    
     private final PrestamoControllerUltraRefactored prestamoController;
     
     public PrestamoPublisher() {
@@ -28,29 +33,23 @@ public class PrestamoPublisher {
     public String crearPrestamo(Long lectorId, Long bibliotecarioId, Long materialId, 
                                String fechaDevolucion, String estado) {
         try {
-            System.out.println("📋 PrestamoPublisher.crearPrestamo - Parámetros recibidos:");
-            System.out.println("   lectorId: " + lectorId);
-            System.out.println("   bibliotecarioId: " + bibliotecarioId);
-            System.out.println("   materialId: " + materialId);
-            System.out.println("   fechaDevolucion: " + fechaDevolucion);
-            System.out.println("   estado: " + estado);
+            logger.fine(() -> "PrestamoPublisher.crearPrestamo - Parámetros recibidos: lectorId=" + lectorId + ", bibliotecarioId=" + bibliotecarioId + ", materialId=" + materialId + ", fechaDevolucion=" + fechaDevolucion + ", estado=" + estado);
             
             Long id = prestamoController.crearPrestamoWeb(lectorId, bibliotecarioId, materialId, fechaDevolucion, estado);
             
-            System.out.println("📋 PrestamoPublisher.crearPrestamo - ID retornado: " + id);
+            logger.fine(() -> "PrestamoPublisher.crearPrestamo - ID retornado: " + id);
             
             String result = String.format("{\"success\": true, \"message\": \"Préstamo creado exitosamente\", \"id\": %d}", id);
-            System.out.println("✅ PrestamoPublisher.crearPrestamo - Resultado exitoso");
+            logger.fine("PrestamoPublisher.crearPrestamo - Resultado exitoso");
             return result;
             
         } catch (IllegalStateException e) {
             // Capturar errores de validación de negocio con mensajes específicos
-            System.err.println("❌ PrestamoPublisher.crearPrestamo - Error de validación: " + e.getMessage());
+            logger.fine(() -> "PrestamoPublisher.crearPrestamo - Error de validación: " + e.getMessage());
             return String.format("{\"success\": false, \"message\": \"%s\"}", 
                 e.getMessage().replace("\"", "\\\""));
         } catch (Exception e) {
-            System.err.println("❌ PrestamoPublisher.crearPrestamo - Excepción: " + e.getMessage());
-            e.printStackTrace();
+            logger.log(Level.SEVERE, "PrestamoPublisher.crearPrestamo - Excepción", e);
             return String.format("{\"success\": false, \"message\": \"Error al procesar la solicitud: %s\"}", 
                 e.getMessage().replace("\"", "\\\""));
         }
@@ -99,6 +98,41 @@ public class PrestamoPublisher {
         }
     }
     
+    /**
+     * Obtiene los préstamos vencidos (EN_CURSO con la fecha estimada de devolución pasada)
+     * @param limite Cantidad máxima, los más atrasados primero (null = todos)
+     * @param lectorId Solo los de este lector (null = todos los lectores)
+     * @return JSON con la cantidad total de vencidos y la lista
+     */
+    public String obtenerPrestamosVencidos(Integer limite, Long lectorId) {
+        try {
+            java.util.List<edu.udelar.pap.domain.Prestamo> prestamos = lectorId != null
+                ? prestamoController.obtenerPrestamosVencidosPorLector(lectorId)
+                : prestamoController.obtenerPrestamosVencidos(limite);
+            if (lectorId != null && limite != null && limite > 0 && prestamos.size() > limite) {
+                prestamos = prestamos.subList(0, limite);
+            }
+            long cantidad = lectorId != null
+                ? prestamoController.obtenerCantidadPrestamosVencidosPorLector(lectorId)
+                : prestamoController.obtenerCantidadPrestamosVencidos();
+            
+            java.io.StringWriter json = new java.io.StringWriter();
+            json.write(String.format("{\"success\": true, \"cantidad\": %d, \"prestamos\": [", cantidad));
+            java.time.LocalDate hoy = java.time.LocalDate.now();
+            boolean primero = true;
+            for (edu.udelar.pap.domain.Prestamo prestamo : prestamos) {
+                if (!primero) json.write(",");
+                escribirPrestamo(json, edu.udelar.pap.service.PrestamoService.ResumenPrestamo.desde(prestamo), hoy);
+                primero = false;
+            }
+            json.write("]}");
+            return json.toString();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error en obtenerPrestamosVencidos", e);
+            return String.format("{\"success\": false, \"message\": \"Error al obtener préstamos vencidos: %s\"}", edu.udelar.pap.util.JsonUtil.escapar(e.getMessage()));
+        }
+    }
+    
     /**
      * Obtiene la cantidad de préstamos vencidos
      * @return JSON con la cantidad
@@ -118,13 +152,13 @@ public class PrestamoPublisher {
      */
     public String obtenerEstadisticasPrestamos() {
         try {
-            int total = prestamoController.obtenerCantidadPrestamos();
-            int vencidos = prestamoController.obtenerCantidadPrestamosVencidos();
-            int enCurso = prestamoController.obtenerCantidadPrestamosPorEstado("EN_CURSO");
-            int pendientes = prestamoController.obtenerCantidadPrestamosPorEstado("PENDIENTE");
+            // Una sola consulta agregada en lugar de cuatro cargas completas de la tabla
+            edu.udelar.pap.service.PrestamoService.EstadisticasPrestamos estadisticas = 
+                prestamoController.obtenerEstadisticasPrestamos();
             
             return String.format("{\"success\": true, \"total\": %d, \"vencidos\": %d, \"enCurso\": %d, \"pendientes\": %d}", 
-                total, vencidos, enCurso, pendientes);
+                estadisticas.getTotal(), estadisticas.getVencidos(), 
+                estadisticas.getEnCurso(), estadisticas.getPendientes());
         } catch (Exception e) {
             return String.format("{\"success\": false, \"message\": \"Error al obtener estadísticas: %s\"}", e.getMessage());
         }
@@ -210,7 +244,7 @@ public class PrestamoPublisher {
                 "\"bibliotecarioId\": %d, \"bibliotecarioNombre\": \"%s\", " +
                 "\"materialId\": %d, \"materialTitulo\": \"%s\", \"tipo\": \"%s\", " +
                 "\"fechaSolicitud\": \"%s\", \"fechaDevolucion\": \"%s\", " +
-                "\"estado\": \"%s\"" +
+                "\"estado\": \"%s\", \"version\": %d" +
                 "}}",
                 prestamo.getId(),
                 lectorId != null ? lectorId : 0,
@@ -223,13 +257,14 @@ public class PrestamoPublisher {
                 tipo,
                 fechaSolicitudStr,
                 fechaDevolucionStr,
-                prestamo.getEstado()
+                prestamo.getEstado(),
+                prestamo.getVersion() != null ? prestamo.getVersion() : 0
             );
             
             return json;
             
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.log(Level.SEVERE, "Error en obtenerPrestamoDetallado", e);
             return String.format("{\"success\": false, \"message\": \"Error al obtener préstamo: %s\"}", e.getMessage());
         }
     }
@@ -239,102 +274,123 @@ public class PrestamoPublisher {
      * @return JSON con la lista de préstamos
      */
     public String obtenerListaPrestamos() {
+        java.io.StringWriter json = new java.io.StringWriter();
         try {
-            java.util.List<edu.udelar.pap.domain.Prestamo> prestamos = prestamoController.obtenerTodosPrestamos();
-            
-            if (prestamos == null || prestamos.isEmpty()) {
-                return "{\"success\": true, \"prestamos\": []}";
+            escribirListaPrestamos(json);
+        } catch (java.io.IOException e) {
+            // StringWriter no lanza IOException
+        }
+        return json.toString();
+    }
+    
+    /**
+     * Escribe la lista de todos los préstamos en formato JSON directamente en el Writer,
+     * fila por fila desde la base de datos (sin armar la respuesta completa en memoria)
+     * Lee solo las columnas del listado (ResumenPrestamo), sin cargar entidades
+     * @param out Destino del JSON (p. ej. el cuerpo de la respuesta HTTP)
+     * @throws java.io.IOException Si falla la escritura en el destino
+     */
+    public void escribirListaPrestamos(java.io.Writer out) throws java.io.IOException {
+        java.util.stream.Stream<edu.udelar.pap.service.PrestamoService.ResumenPrestamo> prestamos;
+        try {
+            prestamos = prestamoController.streamResumenPrestamos();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error en escribirListaPrestamos", e);
+            out.write(String.format("{\"success\": false, \"message\": \"Error al obtener préstamos: %s\"}", e.getMessage()));
+            return;
+        }
+        
+        try (prestamos) {
+            out.write("{\"success\": true, \"prestamos\": [");
+            java.time.LocalDate hoy = java.time.LocalDate.now();
+            java.util.Iterator<edu.udelar.pap.service.PrestamoService.ResumenPrestamo> it = prestamos.iterator();
+            boolean primero = true;
+            while (it.hasNext()) {
+                if (!primero) out.write(",");
+                escribirPrestamo(out, it.next(), hoy);
+                primero = false;
             }
-            
-            StringBuilder json = new StringBuilder();
-            json.append("{\"success\": true, \"prestamos\": [");
-            
-            for (int i = 0; i < prestamos.size(); i++) {
-                edu.udelar.pap.domain.Prestamo prestamo = prestamos.get(i);
-                if (i > 0) json.append(",");
-                
-                // Determinar tipo de material
-                String tipo = "LIBRO";
-                String materialNombre = "";
-                Long materialId = null;
-                if (prestamo.getMaterial() != null) {
-                    materialId = prestamo.getMaterial().getId();
-                    if (prestamo.getMaterial() instanceof edu.udelar.pap.domain.Libro) {
-                        edu.udelar.pap.domain.Libro libro = (edu.udelar.pap.domain.Libro) prestamo.getMaterial();
-                        materialNombre = libro.getTitulo();
-                        tipo = "LIBRO";
-                    } else if (prestamo.getMaterial() instanceof edu.udelar.pap.domain.ArticuloEspecial) {
-                        edu.udelar.pap.domain.ArticuloEspecial articulo = (edu.udelar.pap.domain.ArticuloEspecial) prestamo.getMaterial();
-                        materialNombre = articulo.getDescripcion();
-                        tipo = "ARTICULO";
-                    }
-                }
-                
-                // Calcular días restantes
-                long diasRestantes = 0;
-                if (prestamo.getFechaEstimadaDevolucion() != null) {
-                    try {
-                        java.time.LocalDate hoy = java.time.LocalDate.now();
-                        java.time.LocalDate fechaDevolucion = prestamo.getFechaEstimadaDevolucion();
-                        diasRestantes = java.time.temporal.ChronoUnit.DAYS.between(hoy, fechaDevolucion);
-                    } catch (Exception e) {
-                        System.err.println("Error calculando días restantes: " + e.getMessage());
-                    }
-                }
-                
-                // Formatear fechas
-                java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy");
-                String fechaSolicitudStr = prestamo.getFechaSolicitud() != null ? prestamo.getFechaSolicitud().format(formatter) : "";
-                String fechaDevolucionStr = prestamo.getFechaEstimadaDevolucion() != null ? prestamo.getFechaEstimadaDevolucion().format(formatter) : "";
-                
-                // Información del lector
-                String lectorNombre = "";
-                String lectorEmail = "";
-                Long lectorId = null;
-                if (prestamo.getLector() != null) {
-                    lectorNombre = prestamo.getLector().getNombre();
-                    lectorEmail = prestamo.getLector().getEmail();
-                    lectorId = prestamo.getLector().getId();
-                }
-                
-                // Información del bibliotecario
-                String bibliotecarioNombre = "";
-                Long bibliotecarioId = null;
-                if (prestamo.getBibliotecario() != null) {
-                    bibliotecarioNombre = prestamo.getBibliotecario().getNombre();
-                    bibliotecarioId = prestamo.getBibliotecario().getId();
-                }
-                
-                json.append(String.format(
-                    "{\"id\": %d, \"lectorId\": %d, \"lectorNombre\": \"%s\", \"lectorEmail\": \"%s\", " +
-                    "\"materialId\": %d, \"material\": \"%s\", \"materialTitulo\": \"%s\", \"tipo\": \"%s\", " +
-                    "\"fechaSolicitud\": \"%s\", \"fechaDevolucion\": \"%s\", \"estado\": \"%s\", " +
-                    "\"bibliotecarioId\": %d, \"bibliotecario\": \"%s\", \"bibliotecarioNombre\": \"%s\", \"diasRestantes\": %d}", 
-                    prestamo.getId(),
-                    lectorId != null ? lectorId : 0,
-                    lectorNombre.replace("\"", "\\\""),
-                    lectorEmail.replace("\"", "\\\""),
-                    materialId != null ? materialId : 0,
-                    materialNombre.replace("\"", "\\\""),
-                    materialNombre.replace("\"", "\\\""), // ✅ materialTitulo (igual que material)
-                    tipo,
-                    fechaSolicitudStr,
-                    fechaDevolucionStr,
-                    prestamo.getEstado(),
-                    bibliotecarioId != null ? bibliotecarioId : 0,
-                    bibliotecarioNombre.replace("\"", "\\\""),
-                    bibliotecarioNombre.replace("\"", "\\\""), // ✅ bibliotecarioNombre (igual que bibliotecario)
-                    diasRestantes));
+            out.write("]}");
+        }
+    }
+    
+    /**
+     * Obtiene una página de préstamos (paginación por cursor)
+     * @param orden fechaSolicitud (por defecto), fechaDevolucion o id
+     * @param cursor Valor de siguienteCursor de la página anterior, o null para la primera
+     * @param limite Tamaño de página (por defecto 50, máximo 500)
+     * @return JSON con los préstamos de la página y el cursor de la siguiente
+     */
+    public String obtenerPaginaPrestamos(String orden, String cursor, Integer limite) {
+        try {
+            edu.udelar.pap.service.Pagina<edu.udelar.pap.service.PrestamoService.ResumenPrestamo> pagina =
+                prestamoController.obtenerPaginaResumenPrestamos(orden, cursor, limite);
+            
+            java.io.StringWriter json = new java.io.StringWriter();
+            json.write("{\"success\": true, \"prestamos\": [");
+            java.time.LocalDate hoy = java.time.LocalDate.now();
+            boolean primero = true;
+            for (edu.udelar.pap.service.PrestamoService.ResumenPrestamo prestamo : pagina.getElementos()) {
+                if (!primero) json.write(",");
+                escribirPrestamo(json, prestamo, hoy);
+                primero = false;
             }
-            
-            json.append("]}");
+            json.write("], " + pagina.metadatosJson() + "}");
             return json.toString();
+        } catch (IllegalArgumentException e) {
+            return String.format("{\"success\": false, \"message\": \"%s\"}", e.getMessage());
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.log(Level.SEVERE, "Error en obtenerPaginaPrestamos", e);
             return String.format("{\"success\": false, \"message\": \"Error al obtener préstamos: %s\"}", e.getMessage());
         }
     }
     
+    private static final java.time.format.DateTimeFormatter FORMATO_FECHA = java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    
+    private void escribirPrestamo(java.io.Writer out, edu.udelar.pap.service.PrestamoService.ResumenPrestamo prestamo, java.time.LocalDate hoy) throws java.io.IOException {
+        // Calcular días restantes
+        long diasRestantes = 0;
+        if (prestamo.getFechaEstimadaDevolucion() != null) {
+            diasRestantes = java.time.temporal.ChronoUnit.DAYS.between(hoy, prestamo.getFechaEstimadaDevolucion());
+        }
+        
+        // Formatear fechas
+        String fechaSolicitudStr = prestamo.getFechaSolicitud() != null ? prestamo.getFechaSolicitud().format(FORMATO_FECHA) : "";
+        String fechaDevolucionStr = prestamo.getFechaEstimadaDevolucion() != null ? prestamo.getFechaEstimadaDevolucion().format(FORMATO_FECHA) : "";
+        
+        String materialNombre = prestamo.getMaterialNombre();
+        String tipo = prestamo.getTipo();
+        Long materialId = prestamo.getMaterialId();
+        String lectorNombre = prestamo.getLectorNombre() != null ? prestamo.getLectorNombre() : "";
+        String lectorEmail = prestamo.getLectorEmail() != null ? prestamo.getLectorEmail() : "";
+        Long lectorId = prestamo.getLectorId();
+        String bibliotecarioNombre = prestamo.getBibliotecarioNombre() != null ? prestamo.getBibliotecarioNombre() : "";
+        Long bibliotecarioId = prestamo.getBibliotecarioId();
+        
+        String material = edu.udelar.pap.util.JsonUtil.escapar(materialNombre);
+        String bibliotecario = edu.udelar.pap.util.JsonUtil.escapar(bibliotecarioNombre);
+        out.write(String.format(
+            "{\"id\": %d, \"lectorId\": %d, \"lectorNombre\": \"%s\", \"lectorEmail\": \"%s\", " +
+            "\"materialId\": %d, \"material\": \"%s\", \"materialTitulo\": \"%s\", \"tipo\": \"%s\", " +
+            "\"fechaSolicitud\": \"%s\", \"fechaDevolucion\": \"%s\", \"estado\": \"%s\", " +
+            "\"bibliotecarioId\": %d, \"bibliotecario\": \"%s\", \"bibliotecarioNombre\": \"%s\", \"diasRestantes\": %d}", 
+            prestamo.getId(),
+            lectorId != null ? lectorId : 0,
+            edu.udelar.pap.util.JsonUtil.escapar(lectorNombre),
+            edu.udelar.pap.util.JsonUtil.escapar(lectorEmail),
+            materialId != null ? materialId : 0,
+            material,
+            material, // materialTitulo (igual que material)
+            tipo,
+            fechaSolicitudStr,
+            fechaDevolucionStr,
+            prestamo.getEstado(),
+            bibliotecarioId != null ? bibliotecarioId : 0,
+            bibliotecario,
+            bibliotecario, // bibliotecarioNombre (igual que bibliotecario)
+            diasRestantes));
+    }
+    
     /**
      * Obtiene la lista de préstamos de un lector
      * @param lectorId ID del lector
@@ -350,66 +406,28 @@ public class PrestamoPublisher {
      * @return JSON con materiales ordenados por cantidad de préstamos activos
      */
     public String obtenerMaterialesPendientes() {
+        return obtenerMaterialesPendientes(null);
+    }
+    
+    /**
+     * Obtiene los materiales más demandados (préstamos pendientes + en curso)
+     * @param limite Cantidad máxima de materiales (null = todos)
+     * @return JSON con materiales ordenados por cantidad de préstamos activos
+     */
+    public String obtenerMaterialesPendientes(Integer limite) {
         try {
-            // Obtener materiales con préstamos pendientes (estado PENDIENTE)
-            java.util.List<Object[]> resultadosPendientes = prestamoController.obtenerMaterialesConPrestamosPendientes();
-            
-            // También obtener materiales en curso (estado EN_CURSO)
-            java.util.List<edu.udelar.pap.domain.Prestamo> todosLosPrestamos = prestamoController.obtenerTodosPrestamos();
-            
-            // Agrupar por material y contar préstamos EN_CURSO
-            java.util.Map<Object, Integer> materialesEnCurso = new java.util.HashMap<>();
-            for (edu.udelar.pap.domain.Prestamo p : todosLosPrestamos) {
-                if (p.getEstado() == edu.udelar.pap.domain.EstadoPrestamo.EN_CURSO && p.getMaterial() != null) {
-                    materialesEnCurso.put(p.getMaterial(), materialesEnCurso.getOrDefault(p.getMaterial(), 0) + 1);
-                }
-            }
-            
-            // Crear mapa consolidado de materiales con su información
-            java.util.Map<Long, MaterialPendienteInfo> materialesMap = new java.util.HashMap<>();
-            
-            // Procesar materiales con préstamos PENDIENTES
-            for (Object[] resultado : resultadosPendientes) {
-                edu.udelar.pap.domain.DonacionMaterial material = (edu.udelar.pap.domain.DonacionMaterial) resultado[0];
-                if (material != null) {
-                    Long materialId = material.getId();
-                    Long cantidadPendientes = ((Number) resultado[1]).longValue();
-                    
-                    MaterialPendienteInfo info = materialesMap.getOrDefault(materialId, new MaterialPendienteInfo());
-                    info.material = material;
-                    info.pendientes = cantidadPendientes.intValue();
-                    info.enCurso = materialesEnCurso.getOrDefault(material, 0);
-                    
-                    materialesMap.put(materialId, info);
-                }
-            }
-            
-            // Agregar materiales que solo tienen EN_CURSO (no tienen PENDIENTES)
-            for (java.util.Map.Entry<Object, Integer> entry : materialesEnCurso.entrySet()) {
-                edu.udelar.pap.domain.DonacionMaterial material = (edu.udelar.pap.domain.DonacionMaterial) entry.getKey();
-                Long materialId = material.getId();
-                
-                if (!materialesMap.containsKey(materialId)) {
-                    MaterialPendienteInfo info = new MaterialPendienteInfo();
-                    info.material = material;
-                    info.pendientes = 0;
-                    info.enCurso = entry.getValue();
-                    materialesMap.put(materialId, info);
-                }
-            }
-            
-            // Ordenar por total (pendientes + en curso) descendente
-            java.util.List<MaterialPendienteInfo> materialesOrdenados = new java.util.ArrayList<>(materialesMap.values());
-            materialesOrdenados.sort((a, b) -> Integer.compare(b.getTotal(), a.getTotal()));
+            // Ranking desde el índice de demanda en memoria (sin recorrer los préstamos)
+            java.util.List<edu.udelar.pap.service.PrestamoService.MaterialDemandado> materiales =
+                prestamoController.obtenerMaterialesMasDemandados(limite);
             
             // Construir JSON
             StringBuilder json = new StringBuilder();
             json.append("{\"success\": true, \"materiales\": [");
             
-            for (int i = 0; i < materialesOrdenados.size(); i++) {
+            for (int i = 0; i < materiales.size(); i++) {
                 if (i > 0) json.append(",");
-                MaterialPendienteInfo info = materialesOrdenados.get(i);
-                edu.udelar.pap.domain.DonacionMaterial material = info.material;
+                edu.udelar.pap.service.PrestamoService.MaterialDemandado info = materiales.get(i);
+                edu.udelar.pap.domain.DonacionMaterial material = info.getMaterial();
                 
                 String tipo = "ARTICULO";
                 String nombre = "Material";
@@ -422,7 +440,7 @@ public class PrestamoPublisher {
                     nombre = ((edu.udelar.pap.domain.ArticuloEspecial) material).getDescripcion();
                 }
                 
-                int total = info.getTotal();
+                long total = info.getTotal();
                 String prioridad = total >= 5 ? "ALTA" : (total >= 3 ? "MEDIA" : "BAJA");
                 
                 json.append(String.format(
@@ -430,8 +448,8 @@ public class PrestamoPublisher {
                     material.getId(),
                     nombre.replace("\"", "\\\""),
                     tipo,
-                    info.pendientes,
-                    info.enCurso,
+                    info.getPendientes(),
+                    info.getEnCurso(),
                     total,
                     prioridad
                 ));
@@ -441,67 +459,59 @@ public class PrestamoPublisher {
             return json.toString();
             
         } catch (Exception e) {
-            System.err.println("Error al obtener materiales pendientes: " + e.getMessage());
-            e.printStackTrace();
+            logger.log(Level.SEVERE, "Error al obtener materiales pendientes", e);
             return String.format("{\"success\": false, \"message\": \"Error: %s\"}", 
                 e.getMessage().replace("\"", "\\\""));
         }
     }
     
-    // Clase auxiliar para agrupar información de materiales
-    private static class MaterialPendienteInfo {
-        edu.udelar.pap.domain.DonacionMaterial material;
-        int pendientes = 0;
-        int enCurso = 0;
-        
-        int getTotal() {
-            return pendientes + enCurso;
-        }
-    }
-    
     /**
      * Obtiene un reporte completo de préstamos agrupados por zona
      * @return JSON con estadísticas por cada zona
      */
     public String obtenerReportePorZona() {
+        return obtenerReportePorZona(null, null);
+    }
+    
+    /**
+     * Obtiene el reporte de préstamos por zona, opcionalmente para un rango de fechas de solicitud
+     * @param fechaDesde Fecha de inicio (DD/MM/YYYY), o null/vacío para no limitar
+     * @param fechaHasta Fecha de fin (DD/MM/YYYY), o null/vacío para no limitar
+     * @return JSON con estadísticas por cada zona
+     */
+    public String obtenerReportePorZona(String fechaDesde, String fechaHasta) {
+        java.time.LocalDate desde;
+        java.time.LocalDate hasta;
+        try {
+            desde = parsearFechaOpcional(fechaDesde);
+            hasta = parsearFechaOpcional(fechaHasta);
+        } catch (java.time.format.DateTimeParseException e) {
+            return "{\"success\": false, \"message\": \"Formato de fecha inválido. Use DD/MM/YYYY\"}";
+        }
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            return "{\"success\": false, \"message\": \"La fecha de inicio debe ser anterior o igual a la fecha de fin\"}";
+        }
+        
         try {
             StringBuilder json = new StringBuilder();
-            json.append("{\"success\": true, \"zonas\": [");
-            
-            // Array de zonas
-            edu.udelar.pap.domain.Zona[] zonas = edu.udelar.pap.domain.Zona.values();
-            
-            for (int i = 0; i < zonas.length; i++) {
-                edu.udelar.pap.domain.Zona zona = zonas[i];
-                if (i > 0) json.append(",");
-                
-                // Obtener préstamos de esta zona
-                java.util.List<edu.udelar.pap.domain.Prestamo> prestamos = 
-                    prestamoController.obtenerPrestamosPorZona(zona);
-                
-                // Calcular estadísticas
-                int total = prestamos.size();
-                int pendientes = 0;
-                int enCurso = 0;
-                int devueltos = 0;
-                
-                for (edu.udelar.pap.domain.Prestamo p : prestamos) {
-                    if (p.getEstado() != null) {
-                        switch (p.getEstado()) {
-                            case PENDIENTE: pendientes++; break;
-                            case EN_CURSO: enCurso++; break;
-                            case DEVUELTO: devueltos++; break;
-                        }
-                    }
-                }
+            json.append("{\"success\": true, ");
+            if (desde != null) json.append("\"desde\": \"").append(desde.format(FORMATO_FECHA)).append("\", ");
+            if (hasta != null) json.append("\"hasta\": \"").append(hasta.format(FORMATO_FECHA)).append("\", ");
+            json.append("\"zonas\": [");
+            
+            boolean primero = true;
+            for (edu.udelar.pap.service.PrestamoService.ReporteZona fila : prestamoController.obtenerReportePorZona(desde, hasta)) {
+                if (!primero) json.append(",");
+                primero = false;
                 
                 // Formatear nombre de zona para mostrar
-                String nombreZona = zona.toString().replace("_", " ");
+                String nombreZona = fila.getZona().toString().replace("_", " ");
                 
                 json.append(String.format(
                     "{\"zona\": \"%s\", \"nombreZona\": \"%s\", \"total\": %d, " +
                     "\"pendientes\": %d, \"enCurso\": %d, \"devueltos\": %d}",
-                    zona.toString(), nombreZona, total, pendientes, enCurso, devueltos
+                    fila.getZona().toString(), nombreZona, fila.getTotal(),
+                    fila.getPendientes(), fila.getEnCurso(), fila.getDevueltos()
                 ));
             }
             
@@ -509,16 +519,22 @@ public class PrestamoPublisher {
             return json.toString();
             
         } catch (Exception e) {
-            System.err.println("Error al obtener reporte por zona: " + e.getMessage());
-            e.printStackTrace();
+            logger.log(Level.SEVERE, "Error al obtener reporte por zona", e);
             return String.format("{\"success\": false, \"message\": \"Error: %s\"}", 
                 e.getMessage().replace("\"", "\\\""));
         }
     }
     
+    private static java.time.LocalDate parsearFechaOpcional(String fecha) {
+        if (fecha == null || fecha.trim().isEmpty()) {
+            return null;
+        }
+        return java.time.LocalDate.parse(fecha.trim(), FORMATO_FECHA);
+    }
+    
     public String obtenerPrestamosPorBibliotecario(Long bibliotecarioId) {
         try {
-            java.util.List<edu.udelar.pap.domain.Prestamo> prestamos = prestamoController.obtenerPrestamosPorBibliotecario(bibliotecarioId);
+            java.util.List<edu.udelar.pap.service.PrestamoService.ResumenPrestamo> prestamos = prestamoController.obtenerResumenPrestamosPorBibliotecario(bibliotecarioId);
             
             if (prestamos == null || prestamos.isEmpty()) {
                 return String.format("{\"success\": true, \"bibliotecarioId\": %d, \"prestamos\": []}", bibliotecarioId);
@@ -528,21 +544,15 @@ public class PrestamoPublisher {
             json.append(String.format("{\"success\": true, \"bibliotecarioId\": %d, \"prestamos\": [", bibliotecarioId));
             
             for (int i = 0; i < prestamos.size(); i++) {
-                edu.udelar.pap.domain.Prestamo prestamo = prestamos.get(i);
+                edu.udelar.pap.service.PrestamoService.ResumenPrestamo prestamo = prestamos.get(i);
                 if (i > 0) json.append(",");
                 
-                // Determinar tipo de material
-                String tipo = "LIBRO";
-                String materialNombre = "";
-                if (prestamo.getMaterial() != null) {
-                    materialNombre = prestamo.getMaterial() instanceof edu.udelar.pap.domain.Libro ? 
-                        ((edu.udelar.pap.domain.Libro) prestamo.getMaterial()).getTitulo() : 
-                        "Material especial";
-                    tipo = prestamo.getMaterial() instanceof edu.udelar.pap.domain.Libro ? "LIBRO" : "ARTICULO";
-                }
+                // Tipo de material (los artículos especiales se muestran sin descripción)
+                String tipo = prestamo.getTipo();
+                String materialNombre = prestamo.esLibro() ? prestamo.getMaterialNombre() : "Material especial";
                 
                 // Obtener nombre del lector
-                String lectorNombre = prestamo.getLector() != null ? prestamo.getLector().getNombre() : "N/A";
+                String lectorNombre = prestamo.getLectorNombre() != null ? prestamo.getLectorNombre() : "N/A";
                 
                 // Calcular días restantes
                 long diasRestantes = 0;
@@ -552,7 +562,7 @@ public class PrestamoPublisher {
                         java.time.LocalDate fechaDevolucion = prestamo.getFechaEstimadaDevolucion();
                         diasRestantes = java.time.temporal.ChronoUnit.DAYS.between(hoy, fechaDevolucion);
                     } catch (Exception e) {
-                        System.err.println("Error calculando días restantes: " + e.getMessage());
+                        logger.warning(() -> "Error calculando días restantes: " + e.getMessage());
                     }
                 }
                 
@@ -577,8 +587,7 @@ public class PrestamoPublisher {
             return json.toString();
             
         } catch (Exception e) {
-            System.err.println("Error al obtener préstamos por bibliotecario: " + e.getMessage());
-            e.printStackTrace();
+            logger.log(Level.SEVERE, "Error al obtener préstamos por bibliotecario", e);
             return String.format("{\"success\": false, \"message\": \"Error: %s\"}", 
                 e.getMessage().replace("\"", "\\\""));
         }
@@ -586,7 +595,7 @@ public class PrestamoPublisher {
     
     public String obtenerPrestamosPorLector(Long lectorId) {
         try {
-            java.util.List<edu.udelar.pap.domain.Prestamo> prestamos = prestamoController.obtenerPrestamosPorLector(lectorId);
+            java.util.List<edu.udelar.pap.service.PrestamoService.ResumenPrestamo> prestamos = prestamoController.obtenerResumenPrestamosPorLector(lectorId);
             
             if (prestamos == null || prestamos.isEmpty()) {
                 return String.format("{\"success\": true, \"lectorId\": %d, \"prestamos\": []}", lectorId);
@@ -596,18 +605,12 @@ public class PrestamoPublisher {
             json.append(String.format("{\"success\": true, \"lectorId\": %d, \"prestamos\": [", lectorId));
             
             for (int i = 0; i < prestamos.size(); i++) {
-                edu.udelar.pap.domain.Prestamo prestamo = prestamos.get(i);
+                edu.udelar.pap.service.PrestamoService.ResumenPrestamo prestamo = prestamos.get(i);
                 if (i > 0) json.append(",");
                 
-                // Determinar tipo de material
-                String tipo = "LIBRO"; // Por defecto
-                String materialNombre = "";
-                if (prestamo.getMaterial() != null) {
-                    materialNombre = prestamo.getMaterial() instanceof edu.udelar.pap.domain.Libro ? 
-                        ((edu.udelar.pap.domain.Libro) prestamo.getMaterial()).getTitulo() : 
-                        "Material especial";
-                    tipo = prestamo.getMaterial() instanceof edu.udelar.pap.domain.Libro ? "LIBRO" : "ARTICULO";
-                }
+                // Tipo de material (los artículos especiales se muestran sin descripción)
+                String tipo = prestamo.getTipo();
+                String materialNombre = prestamo.esLibro() ? prestamo.getMaterialNombre() : "Material especial";
                 
                 // Calcular días restantes
                 long diasRestantes = 0;
@@ -617,7 +620,7 @@ public class PrestamoPublisher {
                         java.time.LocalDate fechaDevolucion = prestamo.getFechaEstimadaDevolucion();
                         diasRestantes = java.time.temporal.ChronoUnit.DAYS.between(hoy, fechaDevolucion);
                     } catch (Exception e) {
-                        System.err.println("Error calculando días restantes: " + e.getMessage());
+                        logger.warning(() -> "Error calculando días restantes: " + e.getMessage());
                     }
                 }
                 
@@ -633,14 +636,14 @@ public class PrestamoPublisher {
                     fechaSolicitudStr,
                     fechaDevolucionStr,
                     prestamo.getEstado(),
-                    prestamo.getBibliotecario() != null ? prestamo.getBibliotecario().getNombre() : "",
+                    prestamo.getBibliotecarioNombre() != null ? prestamo.getBibliotecarioNombre() : "",
                     diasRestantes));
             }
             
             json.append("]}");
             return json.toString();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.log(Level.SEVERE, "Error en obtenerPrestamosPorLector", e);
             return String.format("{\"success\": false, \"message\": \"Error al obtener préstamos: %s\"}", e.getMessage());
         }
     }
@@ -659,6 +662,16 @@ public class PrestamoPublisher {
      */
     public String actualizarPrestamo(String prestamoIdStr, String lectorIdStr, String bibliotecarioIdStr, 
                                     String materialIdStr, String fechaDevolucion, String estado) {
+        return actualizarPrestamo(prestamoIdStr, lectorIdStr, bibliotecarioIdStr, materialIdStr, fechaDevolucion, estado, null);
+    }
+    
+    /**
+     * Igual que actualizarPrestamo, sobre la versión del préstamo que vio el cliente
+     * @param versionStr Versión devuelta por obtenerPrestamoDetallado (null o vacío para no comprobarla)
+     * @return JSON con el resultado; error CONFLICTO_CONCURRENCIA si otro usuario modificó el préstamo
+     */
+    public String actualizarPrestamo(String prestamoIdStr, String lectorIdStr, String bibliotecarioIdStr, 
+                                    String materialIdStr, String fechaDevolucion, String estado, String versionStr) {
         try {
             // Validar que el ID del préstamo esté presente
             if (prestamoIdStr == null || prestamoIdStr.trim().isEmpty()) {
@@ -671,16 +684,12 @@ public class PrestamoPublisher {
             Long lectorId = (lectorIdStr != null && !lectorIdStr.trim().isEmpty()) ? Long.parseLong(lectorIdStr) : null;
             Long bibliotecarioId = (bibliotecarioIdStr != null && !bibliotecarioIdStr.trim().isEmpty()) ? Long.parseLong(bibliotecarioIdStr) : null;
             Long materialId = (materialIdStr != null && !materialIdStr.trim().isEmpty()) ? Long.parseLong(materialIdStr) : null;
+            Long version = (versionStr != null && !versionStr.trim().isEmpty()) ? Long.parseLong(versionStr.trim()) : null;
             
-            System.out.println("📋 Actualizando préstamo ID: " + prestamoId);
-            System.out.println("   lectorId: " + lectorId);
-            System.out.println("   bibliotecarioId: " + bibliotecarioId);
-            System.out.println("   materialId: " + materialId);
-            System.out.println("   fechaDevolucion: " + fechaDevolucion);
-            System.out.println("   estado: " + estado);
+            logger.fine(() -> "Actualizando préstamo ID: " + prestamoId + ", lectorId=" + lectorId + ", bibliotecarioId=" + bibliotecarioId + ", materialId=" + materialId + ", fechaDevolucion=" + fechaDevolucion + ", estado=" + estado);
             
             boolean resultado = prestamoController.actualizarPrestamoWeb(
-                prestamoId, lectorId, bibliotecarioId, materialId, fechaDevolucion, estado
+                prestamoId, lectorId, bibliotecarioId, materialId, fechaDevolucion, estado, version
             );
             
             if (resultado) {
@@ -689,15 +698,16 @@ public class PrestamoPublisher {
                 return "{\"success\": false, \"message\": \"No se pudo actualizar el préstamo. Verifique que el préstamo existe.\"}";
             }
             
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException e) {
+            return edu.udelar.pap.util.JsonUtil.conflicto(e);
         } catch (IllegalStateException e) {
-            System.err.println("❌ Error de validación al actualizar préstamo: " + e.getMessage());
+            logger.fine(() -> "Error de validación al actualizar préstamo: " + e.getMessage());
             return String.format("{\"success\": false, \"message\": \"%s\"}", 
                 e.getMessage().replace("\"", "\\\""));
         } catch (NumberFormatException e) {
             return "{\"success\": false, \"message\": \"ID inválido. Debe ser un número\"}";
         } catch (Exception e) {
-            System.err.println("❌ Error al actualizar préstamo: " + e.getMessage());
-            e.printStackTrace();
+            logger.log(Level.SEVERE, "Error al actualizar préstamo", e);
             return String.format("{\"success\": false, \"message\": \"Error al actualizar: %s\"}", 
                 e.getMessage().replace("\"", "\\\""));
         }
@@ -718,6 +728,8 @@ public class PrestamoPublisher {
             } else {
                 return "{\"success\": false, \"message\": \"Error al cambiar estado. Verifique el ID y el estado.\"}";
             }
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException e) {
+            return edu.udelar.pap.util.JsonUtil.conflicto(e);
         } catch (Exception e) {
             return String.format("{\"success\": false, \"message\": \"Error interno: %s\"}", e.getMessage());
         }
@@ -737,6 +749,8 @@ public class PrestamoPublisher {
             } else {
                 return "{\"success\": false, \"message\": \"Error al aprobar préstamo. Verifique que esté en estado PENDIENTE.\"}";
             }
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException e) {
+            return edu.udelar.pap.util.JsonUtil.conflicto(e);
         } catch (Exception e) {
             return String.format("{\"success\": false, \"message\": \"Error interno: %s\"}", e.getMessage());
         }
@@ -756,11 +770,96 @@ public class PrestamoPublisher {
             } else {
                 return "{\"success\": false, \"message\": \"Error al cancelar préstamo. Verifique que esté en estado PENDIENTE.\"}";
             }
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException e) {
+            return edu.udelar.pap.util.JsonUtil.conflicto(e);
         } catch (Exception e) {
             return String.format("{\"success\": false, \"message\": \"Error interno: %s\"}", e.getMessage());
         }
     }
     
+    // ==================== OPERACIONES MASIVAS ====================
+    
+    /**
+     * Aprueba una lista de préstamos pendientes en una sola transacción
+     * @param prestamoIds IDs de los préstamos (hasta 1000)
+     * @return JSON con el resultado de cada ID y los totales
+     */
+    public String aprobarPrestamos(java.util.List<Long> prestamoIds) {
+        return aplicarOperacionMasiva(edu.udelar.pap.service.PrestamoService.OperacionMasiva.APROBAR, prestamoIds);
+    }
+    
+    /**
+     * Marca como devueltos una lista de préstamos pendientes o en curso en una sola transacción
+     * @param prestamoIds IDs de los préstamos (hasta 1000)
+     * @return JSON con el resultado de cada ID y los totales
+     */
+    public String devolverPrestamos(java.util.List<Long> prestamoIds) {
+        return aplicarOperacionMasiva(edu.udelar.pap.service.PrestamoService.OperacionMasiva.DEVOLVER, prestamoIds);
+    }
+    
+    /**
+     * Cancela una lista de préstamos pendientes en una sola transacción
+     * @param prestamoIds IDs de los préstamos (hasta 1000)
+     * @return JSON con el resultado de cada ID y los totales
+     */
+    public String cancelarPrestamos(java.util.List<Long> prestamoIds) {
+        return aplicarOperacionMasiva(edu.udelar.pap.service.PrestamoService.OperacionMasiva.CANCELAR, prestamoIds);
+    }
+    
+    /**
+     * Aplica una operación masiva por nombre ("aprobar", "devolver" o "cancelar")
+     * @param operacion Nombre de la operación
+     * @param prestamoIds IDs de los préstamos (hasta 1000)
+     * @return JSON con el resultado de cada ID y los totales
+     */
+    public String aplicarOperacionMasiva(String operacion, java.util.List<Long> prestamoIds) {
+        try {
+            return aplicarOperacionMasiva(edu.udelar.pap.service.PrestamoService.OperacionMasiva.desde(operacion), prestamoIds);
+        } catch (IllegalArgumentException e) {
+            return String.format("{\"success\": false, \"message\": \"%s\"}", edu.udelar.pap.util.JsonUtil.escapar(e.getMessage()));
+        }
+    }
+    
+    private String aplicarOperacionMasiva(edu.udelar.pap.service.PrestamoService.OperacionMasiva operacion, java.util.List<Long> prestamoIds) {
+        try {
+            java.util.List<edu.udelar.pap.service.PrestamoService.ResultadoOperacion> resultados =
+                prestamoController.aplicarOperacionMasiva(operacion, prestamoIds);
+            
+            int exitosos = 0;
+            StringBuilder json = new StringBuilder();
+            json.append("[");
+            for (int i = 0; i < resultados.size(); i++) {
+                edu.udelar.pap.service.PrestamoService.ResultadoOperacion resultado = resultados.get(i);
+                if (i > 0) {
+                    json.append(",");
+                }
+                json.append("{\"id\": ").append(resultado.getPrestamoId())
+                    .append(", \"success\": ").append(resultado.isExito());
+                if (resultado.getEstadoAnterior() != null) {
+                    json.append(", \"estadoAnterior\": \"").append(resultado.getEstadoAnterior()).append("\"");
+                }
+                if (resultado.isExito()) {
+                    exitosos++;
+                    json.append(", \"estadoNuevo\": \"").append(resultado.getEstadoNuevo()).append("\"");
+                } else {
+                    json.append(", \"message\": \"").append(edu.udelar.pap.util.JsonUtil.escapar(resultado.getMensaje())).append("\"");
+                }
+                json.append("}");
+            }
+            json.append("]");
+            
+            return String.format("{\"success\": true, \"operacion\": \"%s\", \"total\": %d, \"exitosos\": %d, \"fallidos\": %d, \"resultados\": %s}",
+                operacion.name().toLowerCase(), resultados.size(), exitosos, resultados.size() - exitosos, json.toString());
+        } catch (edu.udelar.pap.exception.ConflictoConcurrenciaException e) {
+            return edu.udelar.pap.util.JsonUtil.conflicto(e);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return String.format("{\"success\": false, \"message\": \"%s\"}", edu.udelar.pap.util.JsonUtil.escapar(e.getMessage()));
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error en aplicarOperacionMasiva", e);
+            return String.format("{\"success\": false, \"message\": \"Error interno: %s\"}", edu.udelar.pap.util.JsonUtil.escapar(e.getMessage()));
+        }
+    }
+    
     // ==================== MÉTODOS DE VALIDACIÓN ====================
     
     /**
@@ -790,5 +889,26 @@ public class PrestamoPublisher {
             return String.format("{\"success\": false, \"message\": \"Error de estado: %s\"}", e.getMessage());
         }
     }
+    
+    // ==================== IMPORTACIÓN MASIVA ====================
+    
+    /**
+     * Importa préstamos desde un archivo CSV o JSON lines
+     * Columnas: lectorId, bibliotecarioId, materialId, fechaEstimadaDevolucion,
+     * fechaSolicitud y estado (las dos últimas opcionales).
+     * @param entrada Contenido del archivo (se lee en streaming)
+     * @param formato "csv" (por defecto) o "jsonl"
+     * @param intervaloCommit Filas por transacción (null = 1000)
+     * @return JSON con leídas, importadas, rechazadas y los errores por línea
+     */
+    public String importarPrestamos(java.io.Reader entrada, String formato, Integer intervaloCommit) {
+        try (edu.udelar.pap.util.FilasImportacion filas = new edu.udelar.pap.util.FilasImportacion(entrada, DonacionPublisher.formatoImportacion(formato))) {
+            return prestamoController.importarPrestamos(filas, intervaloCommit).aJson();
+        } catch (IllegalArgumentException e) {
+            return String.format("{\"success\": false, \"message\": \"%s\"}", edu.udelar.pap.util.JsonUtil.escapar(e.getMessage()));
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error en importarPrestamos", e);
+            return String.format("{\"success\": false, \"message\": \"Error al importar préstamos: %s\"}", edu.udelar.pap.util.JsonUtil.escapar(e.getMessage()));
+        }
+    }
 }
-
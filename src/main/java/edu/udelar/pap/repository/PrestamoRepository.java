@@ -2,6 +2,7 @@ package edu.udelar.pap.repository;
 
 import edu.udelar.pap.domain.Prestamo;
 import edu.udelar.pap.domain.EstadoPrestamo;
+import edu.udelar.pap.persistence.ModoLectura;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,6 +37,12 @@ public interface PrestamoRepository {
      */
     List<Prestamo> obtenerTodos();
     
+    /**
+     * Obtiene todos los préstamos con el modo de lectura indicado
+     * (SIN_ESTADO para exportaciones y reportes, COMPLETO si se van a modificar en la misma sesión)
+     */
+    List<Prestamo> obtenerTodos(ModoLectura modo);
+    
     /**
      * Obtiene préstamos por lector
      */
@@ -51,6 +58,11 @@ public interface PrestamoRepository {
      */
     List<Prestamo> obtenerPorEstado(EstadoPrestamo estado);
     
+    /**
+     * Obtiene préstamos por estado con el modo de lectura indicado
+     */
+    List<Prestamo> obtenerPorEstado(EstadoPrestamo estado, ModoLectura modo);
+    
     /**
      * Obtiene préstamos vencidos
      */
@@ -4,6 +4,7 @@ import edu.udelar.pap.repository.LectorRepository;
 import edu.udelar.pap.domain.Lector;
 import edu.udelar.pap.domain.EstadoLector;
 import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.persistence.ModoLectura;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
@@ -14,6 +15,9 @@ import java.util.List;
  */
 public class LectorRepositoryImpl implements LectorRepository {
     
+    /** Modo de los listados: solo lectura, sin copias para dirty checking pero con caché de entidades */
+    private static final ModoLectura LISTADOS = ModoLectura.SOLO_LECTURA;
+    
     private final SessionFactory sessionFactory;
     
     public LectorRepositoryImpl() {
@@ -56,29 +60,26 @@ public class LectorRepositoryImpl implements LectorRepository {
     
     @Override
     public List<Lector> findAll() {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("FROM Lector ORDER BY nombre", Lector.class).list();
-        }
+        return LISTADOS.leer(sessionFactory, session ->
+            LISTADOS.consulta(session, "FROM Lector ORDER BY nombre", Lector.class).list());
     }
     
     @Override
     public List<Lector> findByEstado(EstadoLector estado) {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("FROM Lector WHERE estado = :estado ORDER BY nombre", Lector.class)
+        return LISTADOS.leer(sessionFactory, session ->
+            LISTADOS.consulta(session, "FROM Lector WHERE estado = :estado ORDER BY nombre", Lector.class)
                 .setParameter("estado", estado)
-                .list();
-        }
+                .list());
     }
     
     @Override
     public List<Lector> findByNombreContaining(String nombre) {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery(
+        return LISTADOS.leer(sessionFactory, session ->
+            LISTADOS.consulta(session,
                 "FROM Lector WHERE LOWER(nombre) LIKE LOWER(:nombre) ORDER BY nombre", 
                 Lector.class)
                 .setParameter("nombre", "%" + nombre + "%")
-                .list();
-        }
+                .list());
     }
     
     @Override
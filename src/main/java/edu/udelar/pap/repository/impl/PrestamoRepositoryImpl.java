@@ -4,6 +4,7 @@ import edu.udelar.pap.domain.Prestamo;
 import edu.udelar.pap.domain.EstadoPrestamo;
 import edu.udelar.pap.repository.PrestamoRepository;
 import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.persistence.ModoLectura;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
@@ -19,6 +20,16 @@ import java.time.LocalDate;
  */
 public class PrestamoRepositoryImpl implements PrestamoRepository {
     
+    /**
+     * Modo de los listados: se devuelven desacoplados y solo se leen, así que no pasan por el
+     * contexto de persistencia. buscarPorId sigue con Session para aprovechar la caché de entidades.
+     */
+    private static final ModoLectura LISTADOS = ModoLectura.SIN_ESTADO;
+    
+    /** Sin contexto de persistencia no hay carga diferida: las asociaciones vienen en la misma consulta */
+    private static final String ASOCIACIONES =
+        " JOIN FETCH p.lector JOIN FETCH p.bibliotecario JOIN FETCH p.material";
+    
     private final SessionFactory sessionFactory;
     
     public PrestamoRepositoryImpl() {
@@ -62,58 +73,66 @@ public class PrestamoRepositoryImpl implements PrestamoRepository {
     
     @Override
     public List<Prestamo> obtenerTodos() {
-        try (Session session = sessionFactory.openSession()) {
-            Query<Prestamo> query = session.createQuery("FROM Prestamo", Prestamo.class);
-            return query.list();
-        }
+        return obtenerTodos(ModoLectura.SIN_ESTADO);
+    }
+    
+    @Override
+    public List<Prestamo> obtenerTodos(ModoLectura modo) {
+        return modo.leer(sessionFactory, session ->
+            modo.consulta(session, "FROM Prestamo p" + ASOCIACIONES, Prestamo.class).list());
     }
     
     @Override
     public List<Prestamo> obtenerPorLector(Long lectorId) {
-        try (Session session = sessionFactory.openSession()) {
-            Query<Prestamo> query = session.createQuery(
-                "FROM Prestamo p WHERE p.lector.id = :lectorId", Prestamo.class);
+        return LISTADOS.leer(sessionFactory, session -> {
+            Query<Prestamo> query = LISTADOS.consulta(session,
+                "FROM Prestamo p" + ASOCIACIONES + " WHERE p.lector.id = :lectorId", Prestamo.class);
             query.setParameter("lectorId", lectorId);
             return query.list();
-        }
+        });
     }
     
     @Override
     public List<Prestamo> obtenerPorBibliotecario(Long bibliotecarioId) {
-        try (Session session = sessionFactory.openSession()) {
-            Query<Prestamo> query = session.createQuery(
-                "FROM Prestamo p WHERE p.bibliotecario.id = :bibliotecarioId", Prestamo.class);
+        return LISTADOS.leer(sessionFactory, session -> {
+            Query<Prestamo> query = LISTADOS.consulta(session,
+                "FROM Prestamo p" + ASOCIACIONES + " WHERE p.bibliotecario.id = :bibliotecarioId", Prestamo.class);
             query.setParameter("bibliotecarioId", bibliotecarioId);
             return query.list();
-        }
+        });
     }
     
     @Override
     public List<Prestamo> obtenerPorEstado(EstadoPrestamo estado) {
-        try (Session session = sessionFactory.openSession()) {
-            Query<Prestamo> query = session.createQuery(
-                "FROM Prestamo p WHERE p.estado = :estado", Prestamo.class);
+        return obtenerPorEstado(estado, ModoLectura.SIN_ESTADO);
+    }
+    
+    @Override
+    public List<Prestamo> obtenerPorEstado(EstadoPrestamo estado, ModoLectura modo) {
+        return modo.leer(sessionFactory, session -> {
+            Query<Prestamo> query = modo.consulta(session,
+                "FROM Prestamo p" + ASOCIACIONES + " WHERE p.estado = :estado", Prestamo.class);
             query.setParameter("estado", estado);
             return query.list();
-        }
+        });
     }
     
     @Override
     public List<Prestamo> obtenerPrestamosVencidos() {
-        try (Session session = sessionFactory.openSession()) {
-            Query<Prestamo> query = session.createQuery(
-                "FROM Prestamo p WHERE p.fechaDevolucion < :fechaActual AND p.estado = :estado", 
+        return LISTADOS.leer(sessionFactory, session -> {
+            Query<Prestamo> query = LISTADOS.consulta(session,
+                "FROM Prestamo p" + ASOCIACIONES + " WHERE p.fechaEstimadaDevolucion < :fechaActual AND p.estado = :estado", 
                 Prestamo.class);
             query.setParameter("fechaActual", LocalDate.now());
             query.setParameter("estado", EstadoPrestamo.EN_CURSO);
             return query.list();
-        }
+        });
     }
     
     @Override
     public List<Object[]> obtenerMaterialesPendientes() {
-        try (Session session = sessionFactory.openSession()) {
-            Query<Object[]> query = session.createQuery(
+        return LISTADOS.leer(sessionFactory, session -> {
+            Query<Object[]> query = LISTADOS.consulta(session,
                 "SELECT p.material, COUNT(p) as cantidad " +
                 "FROM Prestamo p " +
                 "WHERE p.estado = :estado " +
@@ -121,28 +140,28 @@ public class PrestamoRepositoryImpl implements PrestamoRepository {
                 "ORDER BY cantidad DESC", Object[].class);
             query.setParameter("estado", EstadoPrestamo.EN_CURSO);
             return query.list();
-        }
+        });
     }
     
     @Override
     public long contarPorEstado(EstadoPrestamo estado) {
-        try (Session session = sessionFactory.openSession()) {
+        return ModoLectura.SIN_ESTADO.leer(sessionFactory, session -> {
             Query<Long> query = session.createQuery(
                 "SELECT COUNT(p) FROM Prestamo p WHERE p.estado = :estado", Long.class);
             query.setParameter("estado", estado);
             return query.uniqueResult();
-        }
+        });
     }
     
     @Override
     public long contarPrestamosVencidos() {
-        try (Session session = sessionFactory.openSession()) {
+        return ModoLectura.SIN_ESTADO.leer(sessionFactory, session -> {
             Query<Long> query = session.createQuery(
                 "SELECT COUNT(p) FROM Prestamo p " +
-                "WHERE p.fechaDevolucion < :fechaActual AND p.estado = :estado", Long.class);
+                "WHERE p.fechaEstimadaDevolucion < :fechaActual AND p.estado = :estado", Long.class);
             query.setParameter("fechaActual", LocalDate.now());
             query.setParameter("estado", EstadoPrestamo.EN_CURSO);
             return query.uniqueResult();
-        }
+        });
     }
 }
@@ -0,0 +1,181 @@
+package edu.udelar.pap.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Compresión de respuestas HTTP negociada con Accept-Encoding (gzip, o deflate si el
+ * cliente no acepta gzip)
+ * Solo se comprimen los tipos de texto (HTML, CSS, JavaScript, JSON, SVG, XML) y las
+ * respuestas de al menos el tamaño umbral; las imágenes y fuentes ya vienen comprimidas.
+ *
+ * Propiedades de sistema (opcionales):
+ *   biblioteca.http.compresion         false para desactivarla (activada por defecto)
+ *   biblioteca.http.compresion.umbral  tamaño mínimo en bytes para comprimir (1024 por defecto)
+ */
+final class CompresionHttp {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static final boolean ACTIVADA =
+        !"false".equalsIgnoreCase(System.getProperty("biblioteca.http.compresion", "true").trim());
+    private static final int UMBRAL = IntegratedServer.leerEntero("biblioteca.http.compresion.umbral", 1024);
+
+    private CompresionHttp() {}
+
+    /**
+     * Codificación a usar según el Accept-Encoding de la petición
+     * @return GZIP, DEFLATE o null si el cliente no acepta ninguna (o la compresión está desactivada)
+     */
+    static String negociar(HttpExchange exchange) {
+        if (!ACTIVADA) {
+            return null;
+        }
+        return elegir(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+    }
+
+    /**
+     * Codificación a usar según el valor de Accept-Encoding
+     * Una codificación nombrada explícitamente manda sobre "*": el comodín solo habilita gzip
+     * si gzip (o x-gzip) no aparece en la lista, así "gzip;q=0, *;q=1" no comprime con gzip.
+     * @return GZIP, DEFLATE o null si no se acepta ninguna
+     */
+    static String elegir(String aceptadas) {
+        if (aceptadas == null) {
+            return null;
+        }
+        Boolean gzip = null;
+        Boolean deflate = null;
+        boolean comodin = false;
+        for (String parte : aceptadas.split(",")) {
+            String[] campos = parte.split(";");
+            String nombre = campos[0].trim().toLowerCase(Locale.ROOT);
+            boolean aceptada = !rechazada(campos);
+            if (nombre.equals(GZIP) || nombre.equals("x-gzip")) {
+                gzip = Boolean.TRUE.equals(gzip) || aceptada;
+            } else if (nombre.equals(DEFLATE)) {
+                deflate = Boolean.TRUE.equals(deflate) || aceptada;
+            } else if (nombre.equals("*")) {
+                comodin = aceptada;
+            }
+        }
+        if (gzip != null ? gzip : comodin) {
+            return GZIP;
+        }
+        return Boolean.TRUE.equals(deflate) ? DEFLATE : null;
+    }
+
+    // q=0 significa "no aceptada"
+    private static boolean rechazada(String[] campos) {
+        for (int i = 1; i < campos.length; i++) {
+            String parametro = campos[i].trim();
+            if (parametro.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parametro.substring(2).trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true si vale la pena comprimir contenido de este tipo
+     */
+    static boolean esComprimible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String tipo = contentType.toLowerCase(Locale.ROOT);
+        return tipo.startsWith("text/") || tipo.contains("javascript") || tipo.contains("json")
+            || tipo.contains("xml") || tipo.startsWith("image/svg");
+    }
+
+    /**
+     * @return true si una respuesta de este tipo y tamaño se comprime
+     */
+    static boolean superaUmbral(int tamano) {
+        return tamano >= UMBRAL;
+    }
+
+    /**
+     * Envía una respuesta completa, comprimida si el tipo (Content-Type ya fijado), el tamaño
+     * y el Accept-Encoding lo permiten
+     */
+    static void enviar(HttpExchange exchange, int codigo, byte[] cuerpo) throws IOException {
+        String contentType = exchange.getResponseHeaders().getFirst("Content-Type");
+        if (esComprimible(contentType)) {
+            exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+            String codificacion = superaUmbral(cuerpo.length) ? negociar(exchange) : null;
+            if (codificacion != null) {
+                cuerpo = comprimir(cuerpo, codificacion, Deflater.DEFAULT_COMPRESSION);
+                exchange.getResponseHeaders().set("Content-Encoding", codificacion);
+            }
+        }
+        exchange.sendResponseHeaders(codigo, cuerpo.length);
+        exchange.getResponseBody().write(cuerpo);
+        exchange.getResponseBody().flush();
+    }
+
+    /**
+     * Envía los encabezados de una respuesta en streaming (Transfer-Encoding: chunked) y
+     * devuelve el cuerpo donde escribir, comprimido a medida que se escribe si el cliente lo acepta
+     * El stream devuelto debe cerrarse para completar la compresión.
+     */
+    static OutputStream abrirCuerpoEnStreaming(HttpExchange exchange, int codigo) throws IOException {
+        String codificacion = null;
+        if (esComprimible(exchange.getResponseHeaders().getFirst("Content-Type"))) {
+            exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+            codificacion = negociar(exchange);
+            if (codificacion != null) {
+                exchange.getResponseHeaders().set("Content-Encoding", codificacion);
+            }
+        }
+        exchange.sendResponseHeaders(codigo, 0);
+        return codificacion != null
+            ? envolver(exchange.getResponseBody(), codificacion, Deflater.DEFAULT_COMPRESSION)
+            : exchange.getResponseBody();
+    }
+
+    /**
+     * Comprime un contenido completo
+     * @param nivel Nivel de Deflater (BEST_COMPRESSION para lo que se comprime una vez y se reutiliza)
+     */
+    static byte[] comprimir(byte[] datos, String codificacion, int nivel) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, datos.length / 4));
+        try (OutputStream out = envolver(salida, codificacion, nivel)) {
+            out.write(datos);
+        }
+        return salida.toByteArray();
+    }
+
+    private static OutputStream envolver(OutputStream out, String codificacion, int nivel) throws IOException {
+        if (GZIP.equals(codificacion)) {
+            return new GZIPOutputStream(out, 8192) {
+                {
+                    def.setLevel(nivel);
+                }
+            };
+        }
+        // "deflate" en HTTP es el formato zlib, que es el que genera DeflaterOutputStream
+        return new DeflaterOutputStream(out, new Deflater(nivel), 8192) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    def.end();
+                }
+            }
+        };
+    }
+}
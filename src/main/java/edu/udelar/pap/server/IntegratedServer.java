@@ -4,8 +4,17 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import edu.udelar.pap.controller.MainController;
+import edu.udelar.pap.exception.ServicioSaturadoException;
+import com.sun.net.httpserver.Filter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
@@ -13,17 +22,35 @@ import com.sun.net.httpserver.HttpServer;
 /**
  * Servidor integrado simple que combina la aplicación de escritorio con el servidor web.
  * Usa el servidor HTTP integrado de Java para evitar dependencias externas.
+ *
+ * Propiedades de sistema (opcionales):
+ *   biblioteca.http.executor       virtual (un hilo virtual por petición, por defecto),
+ *                                  pool (pool fijo de hilos de plataforma) o legacy (hilo único)
+ *   biblioteca.http.threads        hilos del modo pool (núcleos x 4 por defecto)
+ *   biblioteca.http.backlog        conexiones pendientes de aceptar (0 = valor del sistema)
+ *   biblioteca.http.maxConcurrent  peticiones atendidas a la vez; el exceso recibe 503 (0 = sin límite)
+ *   biblioteca.http.compresion     false para no comprimir respuestas (ver CompresionHttp)
+ *   biblioteca.http.compresion.umbral  tamaño mínimo en bytes para comprimir (1024 por defecto)
+ *   biblioteca.http.estaticos.dev  true para recargar los archivos estáticos al modificarlos (ver RecursosEstaticos)
+ *   biblioteca.http.estaticos.maxMemoria  tamaño máximo en bytes de un archivo estático en el heap;
+ *                                  los mayores se mapean en memoria (512 KB por defecto)
+ *   biblioteca.http.estaticos.maxEntradas  cantidad máxima de archivos estáticos en caché (1000 por defecto)
  */
 public class IntegratedServer {
     
     private static final int WEB_PORT = 8080;
     private static HttpServer server;
     private static MainController mainController;
+    private static final Logger logger = Logger.getLogger(IntegratedServer.class.getName());
+    private static ExecutorService executor;
+    private static Filter limiteConcurrencia;
+    private static final Filter METRICAS = new MetricasFilter();
     
     /**
      * Inicia el servidor integrado
      */
     public static void startIntegratedServer() {
+        edu.udelar.pap.util.ConfiguracionLog.inicializar();
         try {
             System.out.println("🚀 Iniciando servidor integrado...");
             
@@ -32,10 +59,26 @@ public class IntegratedServer {
             mainController = new MainController();
             System.out.println("✅ Controladores inicializados");
             
+            // Índice de demanda de materiales (ranking de materiales pendientes), reconstruido
+            // periódicamente para incorporar los cambios de otros procesos sobre la misma base
+            edu.udelar.pap.service.IndiceDemandaMateriales.getInstance().reconstruir();
+            edu.udelar.pap.service.IndiceDemandaMateriales.getInstance().iniciarReconstruccionPeriodica();
+            // Índice de préstamos vencidos, reconstruido cada medianoche y periódicamente
+            edu.udelar.pap.service.IndicePrestamosVencidos.getInstance().reconstruir();
+            edu.udelar.pap.service.IndicePrestamosVencidos.getInstance().iniciarRevisionDiaria();
+            
             // 2. Configurar servidor HTTP integrado de Java
             System.out.println("🌐 Configurando servidor web...");
             // Escuchar en todas las interfaces de red (0.0.0.0) para permitir conexiones desde otras máquinas
-            server = HttpServer.create(new InetSocketAddress("0.0.0.0", WEB_PORT), 0);
+            int backlog = leerEntero("biblioteca.http.backlog", 0);
+            server = HttpServer.create(new InetSocketAddress("0.0.0.0", WEB_PORT), backlog);
+            executor = crearExecutor();
+            server.setExecutor(executor);
+            
+            int maxConcurrentes = leerEntero("biblioteca.http.maxConcurrent", 0);
+            limiteConcurrencia = maxConcurrentes > 0 ? new LimiteConcurrenciaFilter(maxConcurrentes) : null;
+            System.out.println("⚙️  Backlog: " + (backlog > 0 ? backlog : "sistema") +
+                             ", máximo de peticiones concurrentes: " + (maxConcurrentes > 0 ? maxConcurrentes : "sin límite"));
             
             // 3. Registrar rutas
             registerRoutes();
@@ -64,27 +107,350 @@ public class IntegratedServer {
         System.out.println("📝 Registrando rutas...");
         
         // Ruta principal
-        server.createContext("/", new StaticFileHandler());
+        registrar("/", new StaticFileHandler());
         
         // API endpoints
-        server.createContext("/api/", new ApiHandler());
+        registrar("/api/", new ApiHandler());
+        registrar("/metrics", new MetricasHandler());
         
         // Endpoints específicos de la API
-        server.createContext("/auth/", new AuthApiHandler());
-        server.createContext("/lector/", new LectorApiHandler());
-        server.createContext("/prestamo/", new PrestamoApiHandler());
-        server.createContext("/bibliotecario/", new BibliotecarioApiHandler());
-        server.createContext("/donacion/", new DonacionApiHandler());
+        registrar("/auth/", new AuthApiHandler());
+        registrar("/lector/", new LectorApiHandler());
+        registrar("/prestamo/", new PrestamoApiHandler());
+        registrar("/bibliotecario/", new BibliotecarioApiHandler());
+        registrar("/donacion/", new DonacionApiHandler());
         
         // Rutas específicas
-        server.createContext("/spa.html", new StaticFileHandler());
-        server.createContext("/test-spa.html", new StaticFileHandler());
-        server.createContext("/css/", new StaticFileHandler());
-        server.createContext("/js/", new StaticFileHandler());
+        registrar("/spa.html", new StaticFileHandler());
+        registrar("/test-spa.html", new StaticFileHandler());
+        registrar("/css/", new StaticFileHandler());
+        registrar("/js/", new StaticFileHandler());
         
         System.out.println("✅ Rutas registradas");
     }
     
+    /**
+     * Registra un contexto con la medición de métricas y el límite de peticiones
+     * concurrentes, si está configurado (las rechazadas con 503 también se miden)
+     */
+    private static void registrar(String ruta, HttpHandler handler) {
+        com.sun.net.httpserver.HttpContext contexto = server.createContext(ruta, handler);
+        contexto.getFilters().add(METRICAS);
+        if (limiteConcurrencia != null) {
+            contexto.getFilters().add(limiteConcurrencia);
+        }
+    }
+    
+    /**
+     * Crea el ejecutor de peticiones según biblioteca.http.executor
+     * @return El ejecutor, o null para el hilo único del despachador (modo legacy)
+     */
+    private static ExecutorService crearExecutor() {
+        String modo = System.getProperty("biblioteca.http.executor", "virtual").trim().toLowerCase();
+        switch (modo) {
+            case "legacy":
+                System.out.println("⚙️  Ejecutor HTTP: hilo único (legacy)");
+                return null;
+            case "pool":
+                int hilos = leerEntero("biblioteca.http.threads", Runtime.getRuntime().availableProcessors() * 4);
+                AtomicInteger contador = new AtomicInteger();
+                System.out.println("⚙️  Ejecutor HTTP: pool de " + hilos + " hilos");
+                return Executors.newFixedThreadPool(hilos, r -> {
+                    Thread t = new Thread(r, "biblioteca-http-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+            case "virtual":
+            default:
+                System.out.println("⚙️  Ejecutor HTTP: hilos virtuales");
+                return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("biblioteca-http-", 1).factory());
+        }
+    }
+    
+    static int leerEntero(String propiedad, int porDefecto) {
+        String valor = System.getProperty(propiedad);
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️  Valor inválido para " + propiedad + ": " + valor + ", se usa " + porDefecto);
+            return porDefecto;
+        }
+    }
+    
+    /**
+     * Escribe JSON en un Writer; lo implementan los publishers que generan listados en streaming
+     */
+    @FunctionalInterface
+    interface EscritorJson {
+        void escribir(java.io.Writer out) throws IOException;
+    }
+    
+    /**
+     * Envía una respuesta JSON en streaming (Transfer-Encoding: chunked)
+     * Las filas se escriben a medida que llegan de la base de datos, por lo que la
+     * memoria usada no depende del tamaño del listado y el primer byte sale antes.
+     * Si el cliente acepta gzip o deflate se comprime a medida que se escribe.
+     * Si falla a mitad de camino el código 200 ya fue enviado: se registra y se corta la
+     * conexión sin cerrar el cuerpo, para que el cliente no reciba un JSON truncado como válido.
+     */
+    static void enviarJsonEnStreaming(HttpExchange exchange, EscritorJson escritor) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        
+        java.io.Writer out = new java.io.BufferedWriter(
+            new java.io.OutputStreamWriter(CompresionHttp.abrirCuerpoEnStreaming(exchange, 200), java.nio.charset.StandardCharsets.UTF_8), 8192);
+        try {
+            escritor.escribir(out);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error durante respuesta en streaming (" + exchange.getRequestURI().getPath() + ")", e);
+            abortarRespuesta(exchange);
+            return;
+        }
+        try {
+            // Cerrar completa la compresión (último bloque y trailer) y el último chunk
+            out.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo completar la respuesta en streaming", e);
+        }
+    }
+    
+    /** Atributo del exchange que marca una respuesta cortada a mitad de camino (MetricasFilter la cuenta como error) */
+    static final String ATRIBUTO_RESPUESTA_INTERRUMPIDA = "biblioteca.respuestaInterrumpida";
+    
+    /**
+     * Corta la conexión de una respuesta ya empezada sin escribir el último chunk ni el
+     * trailer de gzip: el cliente ve una respuesta incompleta en lugar de un 200 terminado.
+     * HttpExchange.close() cierra el socket cuando falla el cierre del stream de respuesta,
+     * por eso se lo reemplaza por uno que siempre falla.
+     */
+    static void abortarRespuesta(HttpExchange exchange) {
+        exchange.setAttribute(ATRIBUTO_RESPUESTA_INTERRUMPIDA, Boolean.TRUE);
+        exchange.setStreams(null, new java.io.OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Respuesta interrumpida");
+            }
+            
+            @Override
+            public void close() throws IOException {
+                throw new IOException("Respuesta interrumpida");
+            }
+        });
+        exchange.close();
+    }
+    
+    /**
+     * Parámetros de paginación por cursor (orden, cursor, limite) de un query string
+     * @return Los parámetros presentes, o null si la petición no pide paginación
+     *         (en ese caso se mantiene el listado completo que usa la aplicación web)
+     */
+    static PaginaSolicitada leerPaginacion(String query) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+        String orden = null;
+        String cursor = null;
+        String limite = null;
+        for (String param : query.split("&")) {
+            int igual = param.indexOf('=');
+            if (igual < 0) continue;
+            String clave = param.substring(0, igual);
+            String valor = java.net.URLDecoder.decode(param.substring(igual + 1), java.nio.charset.StandardCharsets.UTF_8);
+            switch (clave) {
+                case "orden": orden = valor; break;
+                case "cursor": cursor = valor; break;
+                case "limite": limite = valor; break;
+                default: break;
+            }
+        }
+        if (orden == null && cursor == null && limite == null) {
+            return null;
+        }
+        Integer tamano = null;
+        if (limite != null && !limite.trim().isEmpty()) {
+            try {
+                tamano = Integer.parseInt(limite.trim());
+            } catch (NumberFormatException e) {
+                tamano = null;
+            }
+        }
+        return new PaginaSolicitada(orden, cursor, tamano);
+    }
+    
+    static final class PaginaSolicitada {
+        final String orden;
+        final String cursor;
+        final Integer limite;
+        
+        PaginaSolicitada(String orden, String cursor, Integer limite) {
+            this.orden = orden;
+            this.cursor = cursor;
+            this.limite = limite;
+        }
+    }
+    
+    /**
+     * Valor de un parámetro del query string, decodificado
+     * @return El valor, o null si no está presente
+     */
+    static String parametroQuery(String query, String nombre) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+        for (String param : query.split("&")) {
+            int igual = param.indexOf('=');
+            if (igual > 0 && param.substring(0, igual).equals(nombre)) {
+                return java.net.URLDecoder.decode(param.substring(igual + 1), java.nio.charset.StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Importa un archivo CSV o JSON lines; lo implementan los publishers con importación masiva
+     */
+    @FunctionalInterface
+    interface Importador {
+        String importar(java.io.Reader entrada, String formato, Integer intervaloCommit);
+    }
+    
+    /**
+     * Atiende un POST de importación masiva: el cuerpo es el archivo y se lee en streaming
+     * Parámetros: formato (csv o jsonl; si falta se deduce del Content-Type) e intervaloCommit
+     */
+    static String importarCuerpo(HttpExchange exchange, Importador importador) {
+        String query = exchange.getRequestURI().getQuery();
+        String formato = parametroQuery(query, "formato");
+        if (formato == null) {
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            formato = contentType != null && contentType.contains("json") ? "jsonl" : "csv";
+        }
+        Integer intervaloCommit = null;
+        String intervalo = parametroQuery(query, "intervaloCommit");
+        if (intervalo != null) {
+            try {
+                intervaloCommit = Integer.parseInt(intervalo.trim());
+            } catch (NumberFormatException e) {
+                return "{\"success\": false, \"message\": \"intervaloCommit debe ser un número\"}";
+            }
+        }
+        java.io.Reader entrada = new java.io.InputStreamReader(exchange.getRequestBody(), java.nio.charset.StandardCharsets.UTF_8);
+        return importador.importar(entrada, formato, intervaloCommit);
+    }
+    
+    /**
+     * IDs del cuerpo de una operación masiva: JSON ({"ids": [1, 2, 3]} o [1, 2, 3])
+     * o formulario (ids=1,2,3)
+     * @throws IllegalArgumentException Si algún ID no es un número
+     */
+    static java.util.List<Long> leerIdsLote(String body) {
+        String lista;
+        int apertura = body.indexOf('[');
+        if (apertura >= 0) {
+            int cierre = body.indexOf(']', apertura);
+            lista = body.substring(apertura + 1, cierre > apertura ? cierre : body.length());
+        } else {
+            lista = parametroQuery(body.trim(), "ids");
+        }
+        java.util.List<Long> ids = new java.util.ArrayList<>();
+        if (lista == null) {
+            return ids;
+        }
+        for (String valor : lista.split(",")) {
+            String id = valor.replace("\"", "").trim();
+            if (id.isEmpty()) {
+                continue;
+            }
+            try {
+                ids.add(Long.parseLong(id));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("ID de préstamo inválido: " + id);
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Limita las peticiones atendidas a la vez; el exceso recibe 503 con Retry-After
+     * en lugar de acumularse en memoria. El permiso se libera cuando vuelve el handler,
+     * así que los handlers responden en el mismo hilo (ninguno delega la petición a otro pool)
+     */
+    static class LimiteConcurrenciaFilter extends Filter {
+        private final Semaphore permisos;
+        
+        LimiteConcurrenciaFilter(int maxConcurrentes) {
+            this.permisos = new Semaphore(maxConcurrentes);
+        }
+        
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            if (!permisos.tryAcquire()) {
+                byte[] error = "{\"success\": false, \"message\": \"Servidor ocupado, intente nuevamente\"}".getBytes("UTF-8");
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.sendResponseHeaders(503, error.length);
+                exchange.getResponseBody().write(error);
+                exchange.close();
+                return;
+            }
+            try {
+                chain.doFilter(exchange);
+            } finally {
+                permisos.release();
+            }
+        }
+        
+        @Override
+        public String description() {
+            return "Límite de peticiones concurrentes";
+        }
+    }
+    
+    /**
+     * Mide cada petición en RegistroMetricas por método y ruta; cuenta como error una
+     * respuesta 5xx, una respuesta cortada a mitad de camino, una excepción del handler o un
+     * handler que vuelve sin haber respondido (la duración medida no sería la de la petición)
+     */
+    static class MetricasFilter extends Filter {
+        // Segmentos numéricos de la ruta (/lector/42) agrupados en una sola serie
+        private static final java.util.regex.Pattern SEGMENTO_NUMERICO = java.util.regex.Pattern.compile("/\\d+(?=/|$)");
+        
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            long inicio = System.nanoTime();
+            boolean error = true;
+            try {
+                chain.doFilter(exchange);
+                int codigo = exchange.getResponseCode();
+                if (codigo == -1) {
+                    logger.warning(() -> "El handler de " + exchange.getRequestURI().getPath() + " volvió sin enviar respuesta");
+                }
+                error = codigo == -1 || codigo >= 500 || exchange.getAttribute(ATRIBUTO_RESPUESTA_INTERRUMPIDA) != null;
+            } finally {
+                edu.udelar.pap.util.RegistroMetricas.getInstance().registrar(edu.udelar.pap.util.RegistroMetricas.Tipo.HTTP,
+                    System.nanoTime() - inicio, error, exchange.getRequestMethod(), ruta(exchange));
+            }
+        }
+        
+        /**
+         * Ruta con la que se agrupa la petición: los archivos estáticos por contexto (/js/*)
+         */
+        static String ruta(HttpExchange exchange) {
+            if (exchange.getHttpContext().getHandler() instanceof StaticFileHandler) {
+                return exchange.getHttpContext().getPath() + (exchange.getHttpContext().getPath().endsWith("/") ? "*" : "");
+            }
+            return SEGMENTO_NUMERICO.matcher(exchange.getRequestURI().getPath()).replaceAll("/{id}");
+        }
+        
+        @Override
+        public String description() {
+            return "Métricas por ruta";
+        }
+    }
+    
     /**
      * Obtiene el controlador principal
      */
@@ -100,6 +466,10 @@ public class IntegratedServer {
             if (server != null) {
                 System.out.println("🛑 Deteniendo servidor integrado...");
                 server.stop(0);
+                if (executor != null) {
+                    executor.shutdown();
+                    executor.awaitTermination(5, TimeUnit.SECONDS);
+                }
                 System.out.println("✅ Servidor detenido");
             }
         } catch (Exception e) {
@@ -117,60 +487,107 @@ public class IntegratedServer {
     /**
      * Handler para archivos estáticos
      * Usa rutas multiplataforma compatibles con Windows, Mac y Linux
+     * Los archivos se sirven desde la caché de RecursosEstaticos con ETag y Last-Modified;
+     * una petición condicional que coincide recibe 304 sin cuerpo y una con Range, 206 con el tramo pedido.
      */
     static class StaticFileHandler implements HttpHandler {
+        // ✅ SOLUCIÓN MULTIPLATAFORMA: Usar Paths.get() con componentes separados
+        // Fallback: buscar en target/ si no existe en src/ (para ejecución como WAR)
+        private static final RecursosEstaticos RECURSOS = new RecursosEstaticos(
+            java.util.List.of(
+                Paths.get(System.getProperty("user.dir"), "src", "main", "webapp").toAbsolutePath().normalize(),
+                Paths.get(System.getProperty("user.dir"), "target", "biblioteca-pap-0.1.0-SNAPSHOT").toAbsolutePath().normalize()),
+            leerEntero("biblioteca.http.estaticos.maxMemoria", 512 * 1024),
+            leerEntero("biblioteca.http.estaticos.maxEntradas", 1000),
+            Boolean.getBoolean("biblioteca.http.estaticos.dev"));
+        
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             String path = exchange.getRequestURI().getPath();
             if (path.equals("/")) path = "/index.html";
             
             try {
-                // ✅ SOLUCIÓN MULTIPLATAFORMA: Usar Paths.get() con componentes separados
-                // Construir ruta usando componentes individuales (no concatenación de strings)
-                java.nio.file.Path webappDir = Paths.get(System.getProperty("user.dir"), "src", "main", "webapp");
-                java.nio.file.Path filePath = webappDir.resolve(path.substring(1)); // Remover '/' inicial
+                RecursosEstaticos.Recurso recurso = RECURSOS.obtener(path);
+                if (recurso == null) {
+                    String error = "404 - Archivo no encontrado: " + path;
+                    exchange.sendResponseHeaders(404, error.length());
+                    exchange.getResponseBody().write(error.getBytes());
+                    return;
+                }
                 
-                // Fallback: buscar en target/ si no existe en src/ (para ejecución como WAR)
-                if (!Files.exists(filePath)) {
-                    webappDir = Paths.get(System.getProperty("user.dir"), "target", "biblioteca-pap-0.1.0-SNAPSHOT");
-                    filePath = webappDir.resolve(path.substring(1));
+                com.sun.net.httpserver.Headers headers = exchange.getResponseHeaders();
+                // Range solo vale si If-Range (cuando viene) coincide con la versión actual
+                String rango = "GET".equalsIgnoreCase(exchange.getRequestMethod())
+                    ? exchange.getRequestHeaders().getFirst("Range") : null;
+                String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+                if (rango != null && ifRange != null && !ifRange.trim().equals(recurso.etag(null))
+                        && !ifRange.trim().equals(recurso.lastModified())) {
+                    rango = null;
                 }
                 
-                // Leer contenido del archivo
-                byte[] content = Files.readAllBytes(filePath);
+                headers.set("Content-Type", recurso.getContentType());
+                headers.set("Accept-Ranges", "bytes");
+                headers.set("Last-Modified", recurso.lastModified());
+                headers.set("Cache-Control", RecursosEstaticos.esVersionado(path, exchange.getRequestURI().getRawQuery())
+                    ? RecursosEstaticos.CACHE_VERSIONADO : RecursosEstaticos.CACHE_REVALIDAR);
                 
-                // Determinar content type basado en extensión
-                String contentType = determinarContentType(path);
+                // Los archivos grandes (sin contenido en memoria) y los rangos se envían sin comprimir
+                byte[] content = recurso.getContenido();
+                String codificacion = null;
+                if (CompresionHttp.esComprimible(recurso.getContentType())) {
+                    headers.add("Vary", "Accept-Encoding");
+                    if (content != null && rango == null && CompresionHttp.superaUmbral(content.length)) {
+                        codificacion = CompresionHttp.negociar(exchange);
+                    }
+                }
+                headers.set("ETag", recurso.etag(codificacion));
                 
-                exchange.getResponseHeaders().set("Content-Type", contentType);
-                exchange.sendResponseHeaders(200, content.length);
-                exchange.getResponseBody().write(content);
+                if (recurso.noModificado(exchange.getRequestHeaders().getFirst("If-None-Match"),
+                                         exchange.getRequestHeaders().getFirst("If-Modified-Since"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+                RecursosEstaticos.Rango tramo = RecursosEstaticos.Rango.leer(rango, recurso.getTamano());
+                if (tramo == RecursosEstaticos.Rango.INSATISFACIBLE) {
+                    headers.set("Content-Range", "bytes */" + recurso.getTamano());
+                    exchange.sendResponseHeaders(416, -1);
+                    return;
+                }
+                if (tramo != null) {
+                    headers.set("Content-Range", "bytes " + tramo.getDesde() + "-" + tramo.getHasta() + "/" + recurso.getTamano());
+                    exchange.sendResponseHeaders(206, tramo.getLongitud());
+                    recurso.escribir(exchange.getResponseBody(), tramo.getDesde(), tramo.getLongitud());
+                    return;
+                }
+                
+                boolean head = "HEAD".equalsIgnoreCase(exchange.getRequestMethod());
+                if (codificacion != null) {
+                    content = recurso.comprimido(codificacion);
+                    headers.set("Content-Encoding", codificacion);
+                    exchange.sendResponseHeaders(200, head ? -1 : content.length);
+                    if (!head) {
+                        exchange.getResponseBody().write(content);
+                    }
+                } else {
+                    exchange.sendResponseHeaders(200, head ? -1 : recurso.getTamano());
+                    if (!head) {
+                        recurso.escribir(exchange.getResponseBody(), 0, recurso.getTamano());
+                    }
+                }
             } catch (IOException e) {
-                String error = "404 - Archivo no encontrado: " + path;
-                exchange.sendResponseHeaders(404, error.length());
-                exchange.getResponseBody().write(error.getBytes());
+                if (exchange.getResponseCode() == -1) {
+                    String error = "404 - Archivo no encontrado: " + path;
+                    exchange.sendResponseHeaders(404, error.length());
+                    exchange.getResponseBody().write(error.getBytes());
+                } else {
+                    // El 200/206 ya salió (cliente desconectado o archivo cambiado a mitad del envío):
+                    // se corta la conexión en lugar de agregar un 404 a la respuesta
+                    logger.log(Level.FINE, "No se pudo terminar de enviar " + path, e);
+                    abortarRespuesta(exchange);
+                }
+            } finally {
+                exchange.close();
             }
-            exchange.close();
-        }
-        
-        /**
-         * Determina el Content-Type basado en la extensión del archivo
-         * @param path Ruta del archivo
-         * @return Content-Type apropiado
-         */
-        private String determinarContentType(String path) {
-            if (path.endsWith(".css")) return "text/css; charset=UTF-8";
-            else if (path.endsWith(".js")) return "application/javascript; charset=UTF-8";
-            else if (path.endsWith(".json")) return "application/json; charset=UTF-8";
-            else if (path.endsWith(".png")) return "image/png";
-            else if (path.endsWith(".jpg") || path.endsWith(".jpeg")) return "image/jpeg";
-            else if (path.endsWith(".gif")) return "image/gif";
-            else if (path.endsWith(".svg")) return "image/svg+xml";
-            else if (path.endsWith(".ico")) return "image/x-icon";
-            else if (path.endsWith(".woff")) return "font/woff";
-            else if (path.endsWith(".woff2")) return "font/woff2";
-            else if (path.endsWith(".ttf")) return "font/ttf";
-            return "text/html; charset=UTF-8";
         }
     }
     
@@ -182,13 +599,63 @@ public class IntegratedServer {
         public void handle(HttpExchange exchange) throws IOException {
             String path = exchange.getRequestURI().getPath();
             String method = exchange.getRequestMethod();
-            
-            String response = "{\"message\":\"API funcionando\",\"path\":\"" + path + "\",\"method\":\"" + method + "\"}";
-            
-            exchange.getResponseHeaders().set("Content-Type", "application/json");
+
+            String response;
+            if (path.equals("/api/bcrypt")) {
+                // Métricas del pool de BCrypt (latencia de verificación y profundidad de cola)
+                response = "{\"success\": true, \"bcrypt\": " + edu.udelar.pap.util.PasswordHasher.getInstance().obtenerMetricasJson() + "}";
+            } else if (path.equals("/api/pool")) {
+                // Métricas del pool de conexiones JDBC
+                edu.udelar.pap.persistence.PoolMetrics metricas = edu.udelar.pap.persistence.HibernateUtil.getPoolMetrics();
+                response = metricas != null
+                    ? "{\"success\": true, \"pool\": " + metricas.toJson() + "}"
+                    : "{\"success\": false, \"message\": \"El perfil actual no usa el pool de conexiones\"}";
+            } else {
+                response = "{\"message\":\"API funcionando\",\"path\":\"" + path + "\",\"method\":\"" + method + "\"}";
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
             exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-            exchange.sendResponseHeaders(200, response.length());
-            exchange.getResponseBody().write(response.getBytes());
+            CompresionHttp.enviar(exchange, 200, response.getBytes("UTF-8"));
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Handler de /metrics: latencia y errores por ruta HTTP, operación SOAP y método de servicio,
+     * estadísticas de Hibernate y del pool de conexiones
+     * En formato de texto de Prometheus por defecto; en JSON con ?formato=json o Accept: application/json.
+     */
+    static class MetricasHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            boolean json = "json".equalsIgnoreCase(parametroQuery(exchange.getRequestURI().getRawQuery(), "formato"))
+                || (accept != null && accept.contains("application/json"));
+            edu.udelar.pap.util.RegistroMetricas registro = edu.udelar.pap.util.RegistroMetricas.getInstance();
+            edu.udelar.pap.persistence.EstadisticasHibernate hibernate = edu.udelar.pap.persistence.HibernateUtil.getEstadisticas();
+            edu.udelar.pap.persistence.PoolMetrics pool = edu.udelar.pap.persistence.HibernateUtil.getPoolMetrics();
+            
+            String response;
+            if (json) {
+                response = "{\"success\": true, \"metricas\": " + registro.toJson() +
+                    ", \"hibernate\": " + (hibernate != null ? hibernate.toJson() : "null") +
+                    ", \"pool\": " + (pool != null ? pool.toJson() : "null") + "}";
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            } else {
+                StringBuilder texto = new StringBuilder(16 * 1024);
+                registro.escribirPrometheus(texto);
+                if (hibernate != null) {
+                    hibernate.escribirPrometheus(texto);
+                }
+                if (pool != null) {
+                    pool.escribirPrometheus(texto);
+                }
+                response = texto.toString();
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=UTF-8");
+            }
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            CompresionHttp.enviar(exchange, 200, response.getBytes("UTF-8"));
             exchange.close();
         }
     }
@@ -202,7 +669,7 @@ public class IntegratedServer {
             String path = exchange.getRequestURI().getPath();
             String method = exchange.getRequestMethod();
             
-            System.out.println("📥 AuthApiHandler recibió: " + method + " " + path);
+            logger.fine(() -> "AuthApiHandler recibió: " + method + " " + path);
             
             try {
                 String response = handleAuthRequest(path, method, exchange);
@@ -211,18 +678,25 @@ public class IntegratedServer {
                     response = "{\"error\":\"Respuesta vacía del servidor\"}";
                 }
                 
-                System.out.println("📤 Enviando respuesta de auth (" + response.length() + " bytes)");
+                logger.log(Level.FINE, "Enviando respuesta de auth ({0} bytes)", response.length());
                 
                 exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
                 exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
                 
-                byte[] responseBytes = response.getBytes("UTF-8");
-                exchange.sendResponseHeaders(200, responseBytes.length);
-                exchange.getResponseBody().write(responseBytes);
-                exchange.getResponseBody().flush();
+                CompresionHttp.enviar(exchange, 200, response.getBytes("UTF-8"));
+            } catch (ServicioSaturadoException e) {
+                // Login y registro hashean con BCrypt en el pool acotado de PasswordHasher;
+                // si su cola está llena se responde 503 con Retry-After
+                String error = edu.udelar.pap.util.JsonUtil.saturado(e);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(e.getRetryAfterSegundos()));
+                
+                byte[] errorBytes = error.getBytes("UTF-8");
+                exchange.sendResponseHeaders(503, errorBytes.length);
+                exchange.getResponseBody().write(errorBytes);
             } catch (Exception e) {
-                System.err.println("❌ Error en AuthApiHandler: " + e.getMessage());
-                e.printStackTrace();
+                logger.log(Level.SEVERE, "Error en AuthApiHandler", e);
                 
                 String error = "{\"error\":\"Error interno del servidor: " + e.getMessage().replace("\"", "'") + "\"}";
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
@@ -238,12 +712,12 @@ public class IntegratedServer {
         
         private String handleAuthRequest(String path, String method, HttpExchange exchange) {
             try {
-                System.out.println("🔍 Procesando autenticación: " + path);
+                logger.fine(() -> "Procesando autenticación: " + path);
                 
                 if (path.equals("/auth/login") && method.equals("POST")) {
                     // Leer el body de la petición
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body recibido: " + body);
+                    logger.fine(() -> "Body recibido: " + body.length() + " bytes");
                     
                     // Parsear parámetros del body
                     java.util.Map<String, String> params = new java.util.HashMap<>();
@@ -258,7 +732,7 @@ public class IntegratedServer {
                     String email = params.get("email");
                     String password = params.get("password");
                     
-                    System.out.println("🔐 Intentando login: userType=" + userType + ", email=" + email);
+                    logger.fine(() -> "Intentando login: userType=" + userType + ", email=" + email);
                     
                     edu.udelar.pap.publisher.PublisherFactory factory = edu.udelar.pap.publisher.PublisherFactory.getInstance();
                     
@@ -272,7 +746,7 @@ public class IntegratedServer {
                 } else if (path.equals("/auth/register") && method.equals("POST")) {
                     // Leer el body de la petición
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body de registro recibido: " + body);
+                    logger.fine(() -> "Body de registro recibido: " + body.length() + " bytes");
                     
                     // Parsear parámetros del body
                     java.util.Map<String, String> params = new java.util.HashMap<>();
@@ -285,7 +759,7 @@ public class IntegratedServer {
                     
                     String userType = params.get("userType");
                     
-                    System.out.println("📝 Intentando registrar: userType=" + userType);
+                    logger.fine(() -> "Intentando registrar: userType=" + userType);
                     
                     edu.udelar.pap.publisher.PublisherFactory factory = edu.udelar.pap.publisher.PublisherFactory.getInstance();
                     
@@ -297,7 +771,7 @@ public class IntegratedServer {
                         String zona = params.get("zona");
                         String password = params.get("password");
                         
-                        System.out.println("📝 Creando lector: " + nombre + " " + apellido + ", email: " + email);
+                        logger.fine(() -> "Creando lector: " + nombre + " " + apellido + ", email: " + email);
                         
                         // Parámetro fechaNacimiento no utilizado, se pasa vacío
                         return factory.getLectorPublisher().crearLector(nombre, apellido != null ? apellido : "", email, "", direccion, zona, password);
@@ -308,7 +782,7 @@ public class IntegratedServer {
                         String numeroEmpleado = params.get("numeroEmpleado");
                         String password = params.get("password");
                         
-                        System.out.println("📝 Creando bibliotecario: " + nombre + " " + apellido + ", email: " + email);
+                        logger.fine(() -> "Creando bibliotecario: " + nombre + " " + apellido + ", email: " + email);
                         
                         return factory.getBibliotecarioPublisher().crearBibliotecario(nombre, apellido != null ? apellido : "", email, numeroEmpleado, password);
                     } else {
@@ -317,9 +791,10 @@ public class IntegratedServer {
                 } else {
                     return "{\"error\":\"Endpoint no encontrado: " + path + "\"}";
                 }
+            } catch (ServicioSaturadoException e) {
+                throw e;
             } catch (Exception e) {
-                System.err.println("❌ Error en handleAuthRequest: " + e.getMessage());
-                e.printStackTrace();
+                logger.log(Level.SEVERE, "Error en handleAuthRequest", e);
                 return "{\"error\":\"Error al procesar petición: " + e.getMessage().replace("\"", "'") + "\"}";
             }
         }
@@ -335,27 +810,27 @@ public class IntegratedServer {
             String query = exchange.getRequestURI().getQuery();
             String method = exchange.getRequestMethod();
             
-            System.out.println("📥 LectorApiHandler recibió: " + method + " " + path + (query != null ? "?" + query : ""));
+            logger.fine(() -> "LectorApiHandler recibió: " + method + " " + path + (query != null ? "?" + query : ""));
             
             try {
                 String response = handleLectorRequest(exchange, path, query, method);
                 
+                if (exchange.getResponseCode() != -1) {
+                    return; // La respuesta ya se envió en streaming
+                }
+                
                 if (response == null || response.isEmpty()) {
                     response = "{\"error\":\"Respuesta vacía del servidor\"}";
                 }
                 
-                System.out.println("📤 Enviando respuesta (" + response.length() + " bytes)");
+                logger.log(Level.FINE, "Enviando respuesta ({0} bytes)", response.length());
                 
                 exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
                 exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
                 
-                byte[] responseBytes = response.getBytes("UTF-8");
-                exchange.sendResponseHeaders(200, responseBytes.length);
-                exchange.getResponseBody().write(responseBytes);
-                exchange.getResponseBody().flush();
+                CompresionHttp.enviar(exchange, 200, response.getBytes("UTF-8"));
             } catch (Exception e) {
-                System.err.println("❌ Error en LectorApiHandler: " + e.getMessage());
-                e.printStackTrace();
+                logger.log(Level.SEVERE, "Error en LectorApiHandler", e);
                 
                 String error = "{\"error\":\"Error interno del servidor: " + e.getMessage().replace("\"", "'") + "\"}";
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
@@ -371,14 +846,17 @@ public class IntegratedServer {
         
         private String handleLectorRequest(HttpExchange exchange, String path, String query, String method) throws IOException {
             try {
-                System.out.println("🔍 Procesando lector: " + path + " method: " + method);
+                logger.fine(() -> "Procesando lector: " + path + " method: " + method);
                 edu.udelar.pap.publisher.PublisherFactory factory = edu.udelar.pap.publisher.PublisherFactory.getInstance();
                 
                 // Endpoints POST
-                if (method.equals("POST") && path.equals("/lector/cambiar-estado")) {
+                if (method.equals("POST") && path.equals("/lector/importar")) {
+                    return importarCuerpo(exchange, factory.getLectorPublisher()::importarLectores);
+                }
+                else if (method.equals("POST") && path.equals("/lector/cambiar-estado")) {
                     // Leer el cuerpo de la petición
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body recibido para cambiar estado: " + body);
+                    logger.fine(() -> "Body recibido para cambiar estado: " + body.length() + " bytes");
                     
                     // Parsear parámetros del body
                     java.util.Map<String, String> params = new java.util.HashMap<>();
@@ -396,7 +874,7 @@ public class IntegratedServer {
                     String lectorIdStr = params.get("lectorId");
                     String nuevoEstado = params.get("nuevoEstado");
                     
-                    System.out.println("🔄 Cambiando estado: lectorId=" + lectorIdStr + ", nuevoEstado=" + nuevoEstado);
+                    logger.fine(() -> "Cambiando estado: lectorId=" + lectorIdStr + ", nuevoEstado=" + nuevoEstado);
                     
                     if (lectorIdStr == null || lectorIdStr.trim().isEmpty()) {
                         return "{\"success\": false, \"message\": \"El ID del lector es requerido\"}";
@@ -411,7 +889,7 @@ public class IntegratedServer {
                 else if (method.equals("POST") && path.equals("/lector/cambiar-zona")) {
                     // Leer el cuerpo de la petición
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body recibido para cambiar zona: " + body);
+                    logger.fine(() -> "Body recibido para cambiar zona: " + body.length() + " bytes");
                     
                     // Parsear parámetros del body
                     java.util.Map<String, String> params = new java.util.HashMap<>();
@@ -429,7 +907,7 @@ public class IntegratedServer {
                     String lectorIdStr = params.get("lectorId");
                     String nuevaZona = params.get("nuevaZona");
                     
-                    System.out.println("📍 Cambiando zona: lectorId=" + lectorIdStr + ", nuevaZona=" + nuevaZona);
+                    logger.fine(() -> "Cambiando zona: lectorId=" + lectorIdStr + ", nuevaZona=" + nuevaZona);
                     
                     if (lectorIdStr == null || lectorIdStr.trim().isEmpty()) {
                         return "{\"success\": false, \"message\": \"El ID del lector es requerido\"}";
@@ -450,24 +928,25 @@ public class IntegratedServer {
                     // Obtener email del query string
                     if (query != null && query.contains("email=")) {
                         String email = java.net.URLDecoder.decode(query.split("email=")[1].split("&")[0], "UTF-8");
-                        System.out.println("👤 Obteniendo lector por email: " + email);
+                        logger.fine(() -> "Obteniendo lector por email: " + email);
                         return factory.getLectorPublisher().obtenerLectorPorEmail(email);
                     } else {
                         return "{\"error\":\"email es requerido\"}";
                     }
                 } else if (path.equals("/lector/lista")) {
-                    // Devolver todos los lectores desde la base de datos
-                    try {
-                        return factory.getLectorPublisher().obtenerListaLectores();
-                    } catch (Exception e) {
-                        return "{\"success\": false, \"message\": \"Error: " + e.getMessage() + "\"}";
+                    PaginaSolicitada pagina = leerPaginacion(query);
+                    if (pagina != null) {
+                        return factory.getLectorPublisher().obtenerPaginaLectores(pagina.orden, pagina.cursor, pagina.limite);
                     }
+                    // Devolver todos los lectores desde la base de datos, en streaming
+                    enviarJsonEnStreaming(exchange, factory.getLectorPublisher()::escribirListaLectores);
+                    return null;
                 } else if (path.equals("/lector/bibliotecario-referencia")) {
                     // Obtener bibliotecario de referencia de un lector
                     if (query != null && query.contains("lectorId=")) {
                         String lectorIdStr = query.split("lectorId=")[1].split("&")[0];
                         Long lectorId = Long.parseLong(lectorIdStr);
-                        System.out.println("👤 Obteniendo bibliotecario de referencia para lector ID: " + lectorId);
+                        logger.fine(() -> "Obteniendo bibliotecario de referencia para lector ID: " + lectorId);
                         return factory.getLectorPublisher().obtenerBibliotecarioReferencia(lectorId);
                     } else {
                         return "{\"error\":\"lectorId es requerido\"}";
@@ -489,7 +968,7 @@ public class IntegratedServer {
                     try {
                         String idStr = path.substring("/lector/".length());
                         Long lectorId = Long.parseLong(idStr);
-                        System.out.println("👤 Obteniendo lector por ID: " + lectorId);
+                        logger.fine(() -> "Obteniendo lector por ID: " + lectorId);
                         return factory.getLectorPublisher().obtenerLectorPorId(lectorId);
                     } catch (NumberFormatException e) {
                         return "{\"error\":\"ID de lector inválido\"}";
@@ -498,8 +977,7 @@ public class IntegratedServer {
                     return "{\"error\":\"Endpoint no encontrado: " + path + "\"}";
                 }
             } catch (Exception e) {
-                System.err.println("❌ Error en handleLectorRequest: " + e.getMessage());
-                e.printStackTrace();
+                logger.log(Level.SEVERE, "Error en handleLectorRequest", e);
                 return "{\"error\":\"Error al procesar petición: " + e.getMessage().replace("\"", "'") + "\"}";
             }
         }
@@ -515,27 +993,27 @@ public class IntegratedServer {
             String query = exchange.getRequestURI().getQuery();
             String method = exchange.getRequestMethod();
             
-            System.out.println("📥 PrestamoApiHandler recibió: " + method + " " + path + (query != null ? "?" + query : ""));
+            logger.fine(() -> "PrestamoApiHandler recibió: " + method + " " + path + (query != null ? "?" + query : ""));
             
             try {
                 String response = handlePrestamoRequest(path, query, method, exchange);
                 
+                if (exchange.getResponseCode() != -1) {
+                    return; // La respuesta ya se envió en streaming
+                }
+                
                 if (response == null || response.isEmpty()) {
                     response = "{\"error\":\"Respuesta vacía del servidor\"}";
                 }
                 
-                System.out.println("📤 Enviando respuesta (" + response.length() + " bytes)");
+                logger.log(Level.FINE, "Enviando respuesta ({0} bytes)", response.length());
                 
                 exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
                 exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
                 
-                byte[] responseBytes = response.getBytes("UTF-8");
-                exchange.sendResponseHeaders(200, responseBytes.length);
-                exchange.getResponseBody().write(responseBytes);
-                exchange.getResponseBody().flush();
+                CompresionHttp.enviar(exchange, 200, response.getBytes("UTF-8"));
             } catch (Exception e) {
-                System.err.println("❌ Error en PrestamoApiHandler: " + e.getMessage());
-                e.printStackTrace();
+                logger.log(Level.SEVERE, "Error en PrestamoApiHandler", e);
                 
                 String error = "{\"error\":\"Error interno del servidor: " + e.getMessage().replace("\"", "'") + "\"}";
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
@@ -551,22 +1029,46 @@ public class IntegratedServer {
         
         private String handlePrestamoRequest(String path, String query, String method, HttpExchange exchange) {
             try {
-                System.out.println("🔍 Procesando préstamo: " + path + " method: " + method);
+                logger.fine(() -> "Procesando préstamo: " + path + " method: " + method);
                 edu.udelar.pap.publisher.PublisherFactory factory = edu.udelar.pap.publisher.PublisherFactory.getInstance();
                 
-                if (path.equals("/prestamo/lista")) {
+                if (path.equals("/prestamo/importar") && method.equals("POST")) {
+                    return importarCuerpo(exchange, factory.getPrestamoPublisher()::importarPrestamos);
+                } else if (path.equals("/prestamo/lista")) {
+                    PaginaSolicitada pagina = leerPaginacion(query);
+                    if (pagina != null) {
+                        return factory.getPrestamoPublisher().obtenerPaginaPrestamos(pagina.orden, pagina.cursor, pagina.limite);
+                    }
                     // Obtener todos los préstamos del sistema
-                    System.out.println("📚 Obteniendo lista completa de préstamos...");
-                    return factory.getPrestamoPublisher().obtenerListaPrestamos();
+                    logger.fine("Obteniendo lista completa de préstamos...");
+                    enviarJsonEnStreaming(exchange, factory.getPrestamoPublisher()::escribirListaPrestamos);
+                    return null;
                 } else if (path.equals("/prestamo/cantidad")) {
                     return factory.getPrestamoPublisher().obtenerCantidadPrestamos();
                 } else if (path.equals("/prestamo/cantidad-vencidos")) {
                     return factory.getPrestamoPublisher().obtenerCantidadPrestamosVencidos();
+                } else if (path.equals("/prestamo/vencidos")) {
+                    // Préstamos vencidos desde el índice en memoria (limite y lectorId opcionales)
+                    Integer limite = null;
+                    Long lectorId = null;
+                    try {
+                        String valor = parametroQuery(query, "limite");
+                        if (valor != null) {
+                            limite = Integer.parseInt(valor.trim());
+                        }
+                        valor = parametroQuery(query, "lectorId");
+                        if (valor != null) {
+                            lectorId = Long.parseLong(valor.trim());
+                        }
+                    } catch (NumberFormatException e) {
+                        return "{\"success\": false, \"message\": \"limite y lectorId deben ser números\"}";
+                    }
+                    return factory.getPrestamoPublisher().obtenerPrestamosVencidos(limite, lectorId);
                 } else if (path.equals("/prestamo/cantidad-por-estado")) {
                     // Obtener estado del query string
                     if (query != null && query.contains("estado=")) {
                         String estado = query.split("estado=")[1].split("&")[0];
-                        System.out.println("📊 Obteniendo cantidad de préstamos para estado: " + estado);
+                        logger.fine(() -> "Obteniendo cantidad de préstamos para estado: " + estado);
                         return factory.getPrestamoPublisher().obtenerCantidadPrestamosPorEstado(estado);
                     } else {
                         return "{\"error\":\"estado es requerido\"}";
@@ -576,7 +1078,7 @@ public class IntegratedServer {
                     if (query != null && query.contains("lectorId=")) {
                         String lectorIdStr = query.split("lectorId=")[1].split("&")[0];
                         Long lectorId = Long.parseLong(lectorIdStr);
-                        System.out.println("📚 Obteniendo cantidad de préstamos para lector ID: " + lectorId);
+                        logger.fine(() -> "Obteniendo cantidad de préstamos para lector ID: " + lectorId);
                         return factory.getPrestamoPublisher().obtenerCantidadPrestamosPorLector(lectorId);
                     } else {
                         return "{\"error\":\"lectorId es requerido\"}";
@@ -586,7 +1088,7 @@ public class IntegratedServer {
                     if (query != null && query.contains("lectorId=")) {
                         String lectorIdStr = query.split("lectorId=")[1].split("&")[0];
                         Long lectorId = Long.parseLong(lectorIdStr);
-                        System.out.println("📚 Obteniendo lista de préstamos para lector ID: " + lectorId);
+                        logger.fine(() -> "Obteniendo lista de préstamos para lector ID: " + lectorId);
                         return factory.getPrestamoPublisher().obtenerPrestamosPorLector(lectorId);
                     } else {
                         return "{\"error\":\"lectorId es requerido\"}";
@@ -596,23 +1098,43 @@ public class IntegratedServer {
                     if (query != null && query.contains("bibliotecarioId=")) {
                         String bibliotecarioIdStr = query.split("bibliotecarioId=")[1].split("&")[0];
                         Long bibliotecarioId = Long.parseLong(bibliotecarioIdStr);
-                        System.out.println("👨‍💼 Obteniendo lista de préstamos para bibliotecario ID: " + bibliotecarioId);
+                        logger.fine(() -> "Obteniendo lista de préstamos para bibliotecario ID: " + bibliotecarioId);
                         return factory.getPrestamoPublisher().obtenerPrestamosPorBibliotecario(bibliotecarioId);
                     } else {
                         return "{\"error\":\"bibliotecarioId es requerido\"}";
                     }
                 } else if (path.equals("/prestamo/reporte-por-zona")) {
-                    // Obtener reporte de préstamos agrupados por zona
-                    System.out.println("📊 Obteniendo reporte de préstamos por zona");
-                    return factory.getPrestamoPublisher().obtenerReportePorZona();
+                    // Obtener reporte de préstamos agrupados por zona (rango de fechas opcional)
+                    logger.fine("Obteniendo reporte de préstamos por zona");
+                    String desde = null;
+                    String hasta = null;
+                    if (query != null) {
+                        for (String param : query.split("&")) {
+                            String[] keyValue = param.split("=");
+                            if (keyValue.length == 2 && keyValue[0].equals("desde")) {
+                                desde = java.net.URLDecoder.decode(keyValue[1], "UTF-8");
+                            } else if (keyValue.length == 2 && keyValue[0].equals("hasta")) {
+                                hasta = java.net.URLDecoder.decode(keyValue[1], "UTF-8");
+                            }
+                        }
+                    }
+                    return factory.getPrestamoPublisher().obtenerReportePorZona(desde, hasta);
                 } else if (path.equals("/prestamo/materiales-pendientes")) {
                     // Obtener materiales con muchos préstamos pendientes
-                    System.out.println("📦 Obteniendo materiales con préstamos pendientes");
-                    return factory.getPrestamoPublisher().obtenerMaterialesPendientes();
+                    logger.fine("Obteniendo materiales con préstamos pendientes");
+                    Integer limite = null;
+                    if (query != null && query.contains("limite=")) {
+                        try {
+                            limite = Integer.parseInt(query.split("limite=")[1].split("&")[0]);
+                        } catch (NumberFormatException e) {
+                            return "{\"success\": false, \"message\": \"limite debe ser un número\"}";
+                        }
+                    }
+                    return factory.getPrestamoPublisher().obtenerMaterialesPendientes(limite);
                 } else if (path.equals("/prestamo/cambiar-estado") && method.equals("POST")) {
                     // Cambiar estado de préstamo
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body recibido para cambiar estado: " + body);
+                    logger.fine(() -> "Body recibido para cambiar estado: " + body.length() + " bytes");
                     
                     java.util.Map<String, String> params = new java.util.HashMap<>();
                     if (body != null && !body.isEmpty()) {
@@ -629,7 +1151,7 @@ public class IntegratedServer {
                     String prestamoIdStr = params.get("prestamoId");
                     String nuevoEstado = params.get("nuevoEstado");
                     
-                    System.out.println("🔄 Cambiando estado préstamo: prestamoId=" + prestamoIdStr + ", nuevoEstado=" + nuevoEstado);
+                    logger.fine(() -> "Cambiando estado préstamo: prestamoId=" + prestamoIdStr + ", nuevoEstado=" + nuevoEstado);
                     
                     if (prestamoIdStr == null || prestamoIdStr.trim().isEmpty()) {
                         return "{\"success\": false, \"message\": \"El ID del préstamo es requerido\"}";
@@ -643,7 +1165,7 @@ public class IntegratedServer {
                 } else if (path.equals("/prestamo/actualizar") && method.equals("POST")) {
                     // ✨ NUEVO: Actualizar préstamo completo
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body recibido para actualizar préstamo: " + body);
+                    logger.fine(() -> "Body recibido para actualizar préstamo: " + body.length() + " bytes");
                     
                     java.util.Map<String, String> params = new java.util.HashMap<>();
                     if (body != null && !body.isEmpty()) {
@@ -663,20 +1185,22 @@ public class IntegratedServer {
                     String materialIdStr = params.get("materialId");
                     String fechaDevolucion = params.get("fechaDevolucion");
                     String estado = params.get("estado");
+                    // Versión leída en /prestamo/info: si otro usuario cambió el préstamo, CONFLICTO_CONCURRENCIA
+                    String version = params.get("version");
                     
-                    System.out.println("🔄 Actualizando préstamo: prestamoId=" + prestamoIdStr);
+                    logger.fine(() -> "Actualizando préstamo: prestamoId=" + prestamoIdStr);
                     
                     if (prestamoIdStr == null || prestamoIdStr.trim().isEmpty()) {
                         return "{\"success\": false, \"message\": \"El ID del préstamo es requerido\"}";
                     }
                     
                     return factory.getPrestamoPublisher().actualizarPrestamo(
-                        prestamoIdStr, lectorIdStr, bibliotecarioIdStr, materialIdStr, fechaDevolucion, estado
+                        prestamoIdStr, lectorIdStr, bibliotecarioIdStr, materialIdStr, fechaDevolucion, estado, version
                     );
                 } else if (path.equals("/prestamo/crear") && method.equals("POST")) {
                     // Crear préstamo - obtener parámetros del body
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body recibido: " + body);
+                    logger.fine(() -> "Body recibido: " + body.length() + " bytes");
                     
                     // Parsear parámetros del body (formato: param1=value1&param2=value2)
                     java.util.Map<String, String> params = new java.util.HashMap<>();
@@ -693,24 +1217,20 @@ public class IntegratedServer {
                     String fechaDevolucion = params.get("fechaDevolucion");
                     String estado = params.get("estado");  // NUEVO: Leer estado del request
                     
-                    System.out.println("📚 IntegratedServer - Creando préstamo:");
-                    System.out.println("   Lector ID: " + lectorId);
-                    System.out.println("   Bibliotecario ID (del formulario): " + bibliotecarioIdParam);
-                    System.out.println("   Material ID: " + materialId);
-                    System.out.println("   Fecha devolución: " + fechaDevolucion);
-                    System.out.println("   Estado: " + estado);
+                    logger.fine(() -> "Creando préstamo: lectorId=" + lectorId + ", bibliotecarioId=" + bibliotecarioIdParam
+                        + ", materialId=" + materialId + ", fechaDevolucion=" + fechaDevolucion + ", estado=" + estado);
                     
                     // Verificar que los parámetros no sean nulos
                     if (lectorId == null || lectorId.isEmpty()) {
-                        System.err.println("❌ lectorId es nulo o vacío");
+                        logger.warning("lectorId es nulo o vacío");
                         return "{\"success\": false, \"message\": \"lectorId es requerido\"}";
                     }
                     if (materialId == null || materialId.isEmpty()) {
-                        System.err.println("❌ materialId es nulo o vacío");
+                        logger.warning("materialId es nulo o vacío");
                         return "{\"success\": false, \"message\": \"materialId es requerido\"}";
                     }
                     if (fechaDevolucion == null || fechaDevolucion.isEmpty()) {
-                        System.err.println("❌ fechaDevolucion es nulo o vacío");
+                        logger.warning("fechaDevolucion es nulo o vacío");
                         return "{\"success\": false, \"message\": \"fechaDevolucion es requerido\"}";
                     }
                     
@@ -718,21 +1238,21 @@ public class IntegratedServer {
                     Long bibliotecarioId;
                     if (bibliotecarioIdParam != null && !bibliotecarioIdParam.isEmpty()) {
                         bibliotecarioId = Long.parseLong(bibliotecarioIdParam);
-                        System.out.println("✅ Usando bibliotecario seleccionado por el usuario: ID " + bibliotecarioId);
+                        logger.fine(() -> "Usando bibliotecario seleccionado por el usuario: ID " + bibliotecarioId);
                     } else {
                         // Fallback: obtener el primer bibliotecario disponible
                         bibliotecarioId = factory.getBibliotecarioPublisher().obtenerPrimerBibliotecarioId();
-                        System.out.println("⚠️ No se proporcionó bibliotecarioId, usando el primero disponible: ID " + bibliotecarioId);
+                        logger.fine(() -> "No se proporcionó bibliotecarioId, usando el primero disponible: ID " + bibliotecarioId);
                         
                         if (bibliotecarioId == null) {
-                            System.err.println("❌ No hay bibliotecarios en el sistema. Se debe crear al menos uno.");
+                            logger.warning("No hay bibliotecarios en el sistema. Se debe crear al menos uno.");
                             return "{\"success\": false, \"message\": \"No hay bibliotecarios disponibles en el sistema. Contacte al administrador.\"}";
                         }
                     }
                     
                     // Usar el estado proporcionado por el frontend, o PENDIENTE por defecto
                     String estadoPrestamo = (estado != null && !estado.isEmpty()) ? estado : "PENDIENTE";
-                    System.out.println("   Estado final a usar: " + estadoPrestamo);
+                    logger.fine(() -> "Estado final a usar: " + estadoPrestamo);
                     
                     String resultado = factory.getPrestamoPublisher().crearPrestamo(
                         Long.parseLong(lectorId),
@@ -742,24 +1262,37 @@ public class IntegratedServer {
                         estadoPrestamo  // CAMBIO: Usar el estado del request
                     );
                     
-                    System.out.println("📚 IntegratedServer - Resultado de crearPrestamo: " + resultado);
+                    logger.fine(() -> "Resultado de crearPrestamo: " + resultado);
                     return resultado;
                 } else if (path.equals("/prestamo/info")) {
                     // ✨ NUEVO: Obtener información detallada de un préstamo
                     if (query != null && query.contains("id=")) {
                         String idStr = query.split("id=")[1].split("&")[0];
                         Long prestamoId = Long.parseLong(idStr);
-                        System.out.println("📚 Obteniendo información del préstamo ID: " + prestamoId);
+                        logger.fine(() -> "Obteniendo información del préstamo ID: " + prestamoId);
                         return factory.getPrestamoPublisher().obtenerPrestamoDetallado(prestamoId);
                     } else {
                         return "{\"error\":\"id es requerido\"}";
                     }
                 } else if (path.equals("/prestamo/estado")) {
                     return factory.getPrestamoPublisher().obtenerEstado();
+                } else if ((path.equals("/prestamo/aprobar-lote") || path.equals("/prestamo/devolver-lote")
+                        || path.equals("/prestamo/cancelar-lote")) && method.equals("POST")) {
+                    // Operación masiva: {"ids": [1, 2, 3]} o ids=1,2,3
+                    String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
+                    String operacion = path.substring("/prestamo/".length(), path.length() - "-lote".length());
+                    java.util.List<Long> ids;
+                    try {
+                        ids = leerIdsLote(body);
+                    } catch (IllegalArgumentException e) {
+                        return "{\"success\": false, \"message\": \"" + e.getMessage().replace("\"", "'") + "\"}";
+                    }
+                    logger.fine(() -> "Operación masiva " + operacion + " sobre " + ids.size() + " préstamos");
+                    return factory.getPrestamoPublisher().aplicarOperacionMasiva(operacion, ids);
                 } else if (path.equals("/prestamo/aprobar") && method.equals("POST")) {
                     // Aprobar préstamo pendiente
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body recibido para aprobar: " + body);
+                    logger.fine(() -> "Body recibido para aprobar: " + body.length() + " bytes");
                     
                     // Parsear JSON simple ({"idPrestamo": 35})
                     String idPrestamoStr = null;
@@ -776,13 +1309,13 @@ public class IntegratedServer {
                         return "{\"error\":\"idPrestamo es requerido\"}";
                     }
                     
-                    System.out.println("✅ Aprobando préstamo ID: " + idPrestamoStr);
+                    logger.log(Level.FINE, "Aprobando préstamo ID: {0}", idPrestamoStr);
                     Long idPrestamo = Long.parseLong(idPrestamoStr);
                     return factory.getPrestamoPublisher().aprobarPrestamo(idPrestamo);
                 } else if (path.equals("/prestamo/devolver") && method.equals("POST")) {
                     // Devolver préstamo
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body recibido para devolver: " + body);
+                    logger.fine(() -> "Body recibido para devolver: " + body.length() + " bytes");
                     
                     // Parsear JSON simple ({"id": 35})
                     String idStr = null;
@@ -799,15 +1332,14 @@ public class IntegratedServer {
                         return "{\"error\":\"id es requerido\"}";
                     }
                     
-                    System.out.println("↩️ Devolviendo préstamo ID: " + idStr);
+                    logger.log(Level.FINE, "Devolviendo préstamo ID: {0}", idStr);
                     Long id = Long.parseLong(idStr);
                     return factory.getPrestamoPublisher().cambiarEstadoPrestamo(id, "DEVUELTO");
                 } else {
                     return "{\"error\":\"Endpoint no encontrado: " + path + "\"}";
                 }
             } catch (Exception e) {
-                System.err.println("❌ Error en handlePrestamoRequest: " + e.getMessage());
-                e.printStackTrace();
+                logger.log(Level.SEVERE, "Error en handlePrestamoRequest", e);
                 return "{\"error\":\"Error al procesar petición: " + e.getMessage().replace("\"", "'") + "\"}";
             }
         }
@@ -826,10 +1358,9 @@ public class IntegratedServer {
             try {
                 String response = handleBibliotecarioRequest(path, query, method);
                 
-                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
                 exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-                exchange.sendResponseHeaders(200, response.length());
-                exchange.getResponseBody().write(response.getBytes());
+                CompresionHttp.enviar(exchange, 200, response.getBytes("UTF-8"));
             } catch (Exception e) {
                 String error = "{\"error\":\"Error interno del servidor: " + e.getMessage() + "\"}";
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
@@ -864,16 +1395,20 @@ public class IntegratedServer {
                         return "{\"error\":\"Email no puede estar vacío\"}";
                     }
                     
-                    System.out.println("🔍 Buscando bibliotecario por email: " + email);
+                    logger.log(Level.FINE, "Buscando bibliotecario por email: {0}", email);
                     return factory.getBibliotecarioPublisher().obtenerBibliotecarioPorEmail(email);
                 } else if (path.equals("/bibliotecario/lista")) {
-                    System.out.println("📚 Obteniendo lista de bibliotecarios...");
+                    PaginaSolicitada pagina = leerPaginacion(query);
+                    if (pagina != null) {
+                        return factory.getBibliotecarioPublisher().obtenerPaginaBibliotecarios(pagina.orden, pagina.cursor, pagina.limite);
+                    }
+                    logger.fine("Obteniendo lista de bibliotecarios...");
                     return factory.getBibliotecarioPublisher().obtenerListaBibliotecarios();
                 } else {
                     return "{\"error\":\"Endpoint no encontrado: " + path + "\"}";
                 }
             } catch (Exception e) {
-                e.printStackTrace();
+                logger.log(Level.SEVERE, "Error en handleBibliotecarioRequest", e);
                 return "{\"error\":\"Error al procesar petición: " + e.getMessage() + "\"}";
             }
         }
@@ -918,27 +1453,27 @@ public class IntegratedServer {
             String path = exchange.getRequestURI().getPath();
             String method = exchange.getRequestMethod();
             
-            System.out.println("📥 DonacionApiHandler recibió: " + method + " " + path);
+            logger.fine(() -> "DonacionApiHandler recibió: " + method + " " + path);
             
             try {
                 String response = handleDonacionRequest(exchange, path, method);
                 
+                if (exchange.getResponseCode() != -1) {
+                    return; // La respuesta ya se envió en streaming
+                }
+                
                 if (response == null || response.isEmpty()) {
                     response = "{\"error\":\"Respuesta vacía del servidor\"}";
                 }
                 
-                System.out.println("📤 Enviando respuesta (" + response.length() + " bytes)");
+                logger.log(Level.FINE, "Enviando respuesta ({0} bytes)", response.length());
                 
                 exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
                 exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
                 
-                byte[] responseBytes = response.getBytes("UTF-8");
-                exchange.sendResponseHeaders(200, responseBytes.length);
-                exchange.getResponseBody().write(responseBytes);
-                exchange.getResponseBody().flush();
+                CompresionHttp.enviar(exchange, 200, response.getBytes("UTF-8"));
             } catch (Exception e) {
-                System.err.println("❌ Error en DonacionApiHandler: " + e.getMessage());
-                e.printStackTrace();
+                logger.log(Level.SEVERE, "Error en DonacionApiHandler", e);
                 
                 String error = "{\"error\":\"Error interno del servidor: " + e.getMessage().replace("\"", "'") + "\"}";
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
@@ -954,16 +1489,22 @@ public class IntegratedServer {
         
         private String handleDonacionRequest(HttpExchange exchange, String path, String method) throws IOException {
             try {
-                System.out.println("🔍 Procesando donacion: " + path + " method: " + method);
+                logger.fine(() -> "Procesando donacion: " + path + " method: " + method);
                 edu.udelar.pap.publisher.PublisherFactory factory = edu.udelar.pap.publisher.PublisherFactory.getInstance();
                 
                 String result = null;
                 
                 // Endpoints POST
-                if (method.equals("POST") && path.equals("/donacion/crear-libro")) {
+                if (method.equals("POST") && path.equals("/donacion/importar")) {
+                    // tipo=libros o tipo=articulos; el cuerpo es el archivo CSV o JSON lines
+                    String tipo = parametroQuery(exchange.getRequestURI().getQuery(), "tipo");
+                    result = importarCuerpo(exchange, (entrada, formato, intervaloCommit) ->
+                        factory.getDonacionPublisher().importarDonaciones(tipo, entrada, formato, intervaloCommit));
+                }
+                else if (method.equals("POST") && path.equals("/donacion/crear-libro")) {
                     // Leer el cuerpo de la petición
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body recibido para crear libro: " + body);
+                    logger.fine(() -> "Body recibido para crear libro: " + body.length() + " bytes");
                     
                     // Parsear parámetros del body (formato: titulo=xxx&paginas=xxx&donante=xxx)
                     java.util.Map<String, String> params = new java.util.HashMap<>();
@@ -982,7 +1523,7 @@ public class IntegratedServer {
                     String paginas = params.get("paginas");
                     String donante = params.getOrDefault("donante", "Anónimo");
                     
-                    System.out.println("📖 Creando libro: titulo=" + titulo + ", paginas=" + paginas + ", donante=" + donante);
+                    logger.fine(() -> "Creando libro: titulo=" + titulo + ", paginas=" + paginas + ", donante=" + donante);
                     
                     if (titulo == null || titulo.trim().isEmpty()) {
                         result = "{\"success\": false, \"message\": \"El título es requerido\"}";
@@ -995,7 +1536,7 @@ public class IntegratedServer {
                 else if (method.equals("POST") && path.equals("/donacion/crear-articulo")) {
                     // Leer el cuerpo de la petición
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body recibido para crear artículo: " + body);
+                    logger.fine(() -> "Body recibido para crear artículo: " + body.length() + " bytes");
                     
                     // Parsear parámetros del body
                     java.util.Map<String, String> params = new java.util.HashMap<>();
@@ -1015,7 +1556,7 @@ public class IntegratedServer {
                     String dimensiones = params.get("dimensiones");
                     String donante = params.getOrDefault("donante", "Anónimo");
                     
-                    System.out.println("🎨 Creando artículo: descripcion=" + descripcion + ", peso=" + peso + ", dimensiones=" + dimensiones + ", donante=" + donante);
+                    logger.fine(() -> "Creando artículo: descripcion=" + descripcion + ", peso=" + peso + ", dimensiones=" + dimensiones + ", donante=" + donante);
                     
                     if (descripcion == null || descripcion.trim().isEmpty()) {
                         result = "{\"success\": false, \"message\": \"La descripción es requerida\"}";
@@ -1031,8 +1572,7 @@ public class IntegratedServer {
                 else if (method.equals("POST") && path.equals("/donacion/registrar-libro")) {
                     // Leer el cuerpo de la petición JSON
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body JSON recibido para registrar libro: [" + body + "]");
-                    System.out.println("📝 Longitud del body: " + body.length());
+                    logger.fine(() -> "Body recibido para registrar libro: " + body.length() + " bytes");
                     
                     try {
                         // Parsear JSON manualmente
@@ -1040,7 +1580,7 @@ public class IntegratedServer {
                         String paginas = extractJsonValue(body, "paginas");
                         String donante = extractJsonValue(body, "donante");
                         
-                        System.out.println("📖 Valores parseados - titulo=[" + titulo + "], paginas=[" + paginas + "], donante=[" + donante + "]");
+                        logger.fine(() -> "Valores parseados - titulo=[" + titulo + "], paginas=[" + paginas + "], donante=[" + donante + "]");
                         
                         if (titulo == null || titulo.trim().isEmpty()) {
                             result = "{\"success\": false, \"message\": \"El título es requerido\"}";
@@ -1056,7 +1596,7 @@ public class IntegratedServer {
                 else if (method.equals("POST") && path.equals("/donacion/registrar-articulo")) {
                     // Leer el cuerpo de la petición JSON
                     String body = new String(exchange.getRequestBody().readAllBytes(), "UTF-8");
-                    System.out.println("📝 Body JSON recibido para registrar artículo: " + body);
+                    logger.fine(() -> "Body JSON recibido para registrar artículo: " + body.length() + " bytes");
                     
                     try {
                         // Parsear JSON manualmente
@@ -1065,7 +1605,8 @@ public class IntegratedServer {
                         String dimensiones = extractJsonValue(body, "dimensiones");
                         String donante = extractJsonValue(body, "donante");
                         
-                        System.out.println("🎨 Registrando artículo: descripcion=" + descripcion + ", peso=" + peso + ", dimensiones=" + dimensiones + ", donante=" + donante);
+                        logger.log(Level.FINE, "Registrando artículo: descripcion={0}, peso={1}, dimensiones={2}, donante={3}",
+                            new Object[] {descripcion, peso, dimensiones, donante});
                         
                         if (descripcion == null || descripcion.trim().isEmpty()) {
                             result = "{\"success\": false, \"message\": \"La descripción es requerida\"}";
@@ -1090,14 +1631,18 @@ public class IntegratedServer {
                 } else if (path.equals("/donacion/inventario")) {
                     result = factory.getDonacionPublisher().obtenerInventarioCompleto();
                 } else if (path.equals("/donacion/libros")) {
-                    System.out.println("📚 Obteniendo lista de libros...");
+                    logger.fine("Obteniendo lista de libros...");
                     result = factory.getDonacionPublisher().obtenerLibrosDisponibles();
-                    System.out.println("✅ Libros obtenidos, longitud respuesta: " + (result != null ? result.length() : "null"));
+                    logger.log(Level.FINE, "Libros obtenidos, longitud respuesta: {0}", result != null ? result.length() : null);
                 } else if (path.equals("/donacion/articulos")) {
                     result = factory.getDonacionPublisher().obtenerArticulosEspecialesDisponibles();
                 } else if (path.equals("/donacion/lista")) {
+                    PaginaSolicitada pagina = leerPaginacion(exchange.getRequestURI().getQuery());
+                    if (pagina != null) {
+                        return factory.getDonacionPublisher().obtenerPaginaDonaciones(pagina.orden, pagina.cursor, pagina.limite);
+                    }
                     // Obtener todas las donaciones (libros + artículos)
-                    System.out.println("📚 Obteniendo lista completa de donaciones...");
+                    logger.fine("Obteniendo lista completa de donaciones...");
                     String librosJson = factory.getDonacionPublisher().obtenerLibrosDisponibles();
                     String articulosJson = factory.getDonacionPublisher().obtenerArticulosEspecialesDisponibles();
                     result = combinarDonaciones(librosJson, articulosJson);
@@ -1121,12 +1666,15 @@ public class IntegratedServer {
                             }
                         }
                         
-                        System.out.println("📅 Consultando donaciones por fechas: desde=" + fechaDesde + ", hasta=" + fechaHasta);
+                        logger.log(Level.FINE, "Consultando donaciones por fechas: desde={0}, hasta={1}", new Object[] {fechaDesde, fechaHasta});
                         
                         if (fechaDesde == null || fechaHasta == null) {
                             result = "{\"success\": false, \"message\": \"Ambas fechas son requeridas (desde y hasta)\"}";
                         } else {
-                            result = factory.getDonacionPublisher().obtenerDonacionesPorFechas(fechaDesde, fechaHasta);
+                            String desde = fechaDesde;
+                            String hasta = fechaHasta;
+                            enviarJsonEnStreaming(exchange, out -> factory.getDonacionPublisher().escribirDonacionesPorFechas(desde, hasta, out));
+                            return null;
                         }
                     } else {
                         result = "{\"success\": false, \"message\": \"Parámetros requeridos: desde y hasta en formato DD/MM/YYYY\"}";
@@ -1138,8 +1686,7 @@ public class IntegratedServer {
                 return result;
                 
             } catch (Exception e) {
-                System.err.println("❌ Error en handleDonacionRequest: " + e.getMessage());
-                e.printStackTrace();
+                logger.log(Level.SEVERE, "Error en handleDonacionRequest", e);
                 return "{\"error\":\"Error al procesar petición: " + e.getMessage().replace("\"", "'") + "\"}";
             }
         }
@@ -1208,14 +1755,14 @@ public class IntegratedServer {
                 int fieldIndex = json.indexOf(searchPattern);
                 
                 if (fieldIndex == -1) {
-                    System.out.println("❌ Campo '" + fieldName + "' no encontrado en JSON");
+                    logger.finest(() -> "Campo '" + fieldName + "' no encontrado en JSON");
                     return null;
                 }
                 
                 // Buscar los dos puntos después del nombre del campo
                 int colonIndex = json.indexOf(":", fieldIndex);
                 if (colonIndex == -1) {
-                    System.out.println("❌ No se encontró ':' después de '" + fieldName + "'");
+                    logger.finest(() -> "No se encontró ':' después de '" + fieldName + "'");
                     return null;
                 }
                 
@@ -1238,7 +1785,6 @@ public class IntegratedServer {
                         return null;
                     }
                     String value = json.substring(valueStart, endQuote);
-                    System.out.println("✅ Campo '" + fieldName + "' = '" + value + "'");
                     return value;
                 } else {
                     // Valor numérico o booleano
@@ -1250,12 +1796,10 @@ public class IntegratedServer {
                         endIndex++;
                     }
                     String value = json.substring(valueStart, endIndex).trim();
-                    System.out.println("✅ Campo '" + fieldName + "' = '" + value + "'");
                     return value;
                 }
             } catch (Exception e) {
-                System.err.println("❌ Error extrayendo valor JSON para campo '" + fieldName + "': " + e.getMessage());
-                e.printStackTrace();
+                logger.log(Level.WARNING, "Error extrayendo valor JSON para campo '" + fieldName + "'", e);
                 return null;
             }
         }
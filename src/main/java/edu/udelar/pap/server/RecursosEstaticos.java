@@ -0,0 +1,515 @@
+package edu.udelar.pap.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Caché en memoria de los archivos estáticos de la aplicación web
+ * Cada archivo se lee del disco una sola vez: se guardan su contenido (si no supera el
+ * máximo en memoria), su fecha de modificación y un hash SHA-256 que sirve de ETag fuerte.
+ * Las versiones comprimidas se calculan la primera vez que se piden y quedan junto al original.
+ * Los archivos más grandes se mapean en memoria (fuera del heap) una vez y se comparten entre
+ * peticiones: cada envío copia de a bloques con un búfer de un pool fijo, así que una descarga
+ * no reserva en el heap más que ese bloque sea cual sea el tamaño del archivo.
+ * Un mapeo apunta al archivo en disco: si se acorta o se reescribe en el lugar, leerlo puede
+ * fallar (SIGBUS). Por eso antes de servir un archivo grande se comparan su tamaño y su fecha
+ * con los del mapeo, y si aun así la lectura falla el recurso se descarta de la caché.
+ *
+ * En producción los archivos no se vuelven a mirar hasta reiniciar el servidor; en modo
+ * desarrollo un WatchService vacía la caché cada vez que cambia algo en los directorios.
+ *
+ * La caché se indexa por la ruta real del archivo, no por la URL: /js/spa.js, /js/./spa.js y
+ * /js//spa.js comparten la misma entrada. Además tiene un máximo de entradas; cuando se llena,
+ * los archivos que faltan se sirven leyéndolos del disco sin guardarlos.
+ *
+ * Propiedades de sistema (opcionales):
+ *   biblioteca.http.estaticos.dev         true para invalidar la caché al modificar archivos
+ *   biblioteca.http.estaticos.maxMemoria  tamaño máximo en bytes de un archivo guardado en memoria
+ *                                         (512 KB por defecto); los mayores se mapean en memoria
+ *   biblioteca.http.estaticos.maxEntradas cantidad máxima de archivos en la caché (1000 por defecto)
+ */
+final class RecursosEstaticos {
+
+    private static final Logger logger = Logger.getLogger(RecursosEstaticos.class.getName());
+
+    /** Cache-Control de los archivos cuya URL cambia con el contenido */
+    static final String CACHE_VERSIONADO = "public, max-age=31536000, immutable";
+    /** Cache-Control del resto: el navegador guarda el archivo pero lo revalida con ETag */
+    static final String CACHE_REVALIDAR = "no-cache";
+
+    static final DateTimeFormatter FORMATO_HTTP = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+    // nombre.3f9a2c1b.js, nombre-3f9a2c1b4d.css: el nombre incluye un hash del contenido
+    private static final Pattern NOMBRE_CON_HASH = Pattern.compile(".*[.-][0-9a-fA-F]{8,}\\.[A-Za-z0-9]+$");
+
+    /** Bloques de copia de los archivos grandes, reutilizados entre peticiones */
+    private static final int TAMANO_BLOQUE = 64 * 1024;
+    private static final ArrayBlockingQueue<byte[]> BLOQUES = new ArrayBlockingQueue<>(64);
+
+    /**
+     * Rango de bytes pedido con el encabezado Range (solo se atiende un rango por petición)
+     */
+    static final class Rango {
+        /** El rango pedido empieza después del final del archivo: se responde 416 */
+        static final Rango INSATISFACIBLE = new Rango(-1, -1);
+
+        private final long desde;
+        private final long longitud;
+
+        private Rango(long desde, long longitud) {
+            this.desde = desde;
+            this.longitud = longitud;
+        }
+
+        long getDesde() {
+            return desde;
+        }
+
+        long getLongitud() {
+            return longitud;
+        }
+
+        long getHasta() {
+            return desde + longitud - 1;
+        }
+
+        /**
+         * Interpreta "bytes=a-b", "bytes=a-" o "bytes=-n"
+         * @return El rango, INSATISFACIBLE, o null si el encabezado no es válido o pide varios
+         *         rangos (en ese caso se envía el archivo completo, como permite HTTP)
+         */
+        static Rango leer(String encabezado, long tamano) {
+            if (encabezado == null || !encabezado.trim().startsWith("bytes=")) {
+                return null;
+            }
+            String especificacion = encabezado.trim().substring(6).trim();
+            int guion = especificacion.indexOf('-');
+            if (guion < 0 || especificacion.indexOf(',') >= 0) {
+                return null;
+            }
+            try {
+                String inicio = especificacion.substring(0, guion).trim();
+                String fin = especificacion.substring(guion + 1).trim();
+                if (inicio.isEmpty()) {
+                    // Sufijo: los últimos n bytes
+                    long ultimos = Long.parseLong(fin);
+                    if (ultimos <= 0) {
+                        return ultimos == 0 ? INSATISFACIBLE : null;
+                    }
+                    long longitud = Math.min(ultimos, tamano);
+                    return longitud > 0 ? new Rango(tamano - longitud, longitud) : INSATISFACIBLE;
+                }
+                long desde = Long.parseLong(inicio);
+                long hasta = fin.isEmpty() ? tamano - 1 : Math.min(Long.parseLong(fin), tamano - 1);
+                if (desde < 0 || (!fin.isEmpty() && Long.parseLong(fin) < desde)) {
+                    return null;
+                }
+                return desde < tamano ? new Rango(desde, hasta - desde + 1) : INSATISFACIBLE;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Archivo estático cargado
+     */
+    static final class Recurso {
+        private final Path archivo;
+        private final String contentType;
+        private final long tamano;
+        private final long ultimaModificacion;
+        private final String hash;
+        private final byte[] contenido;
+        private final MappedByteBuffer mapeado;
+        private final ConcurrentHashMap<String, byte[]> comprimidos = new ConcurrentHashMap<>();
+        /** El archivo mapeado cambió mientras se leía; obtener lo vuelve a cargar */
+        private volatile boolean invalido;
+
+        Recurso(Path archivo, String contentType, long tamano, long ultimaModificacion, String hash,
+                byte[] contenido, MappedByteBuffer mapeado) {
+            this.archivo = archivo;
+            this.contentType = contentType;
+            this.tamano = tamano;
+            this.ultimaModificacion = ultimaModificacion;
+            this.hash = hash;
+            this.contenido = contenido;
+            this.mapeado = mapeado;
+        }
+
+        Path getArchivo() {
+            return archivo;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        long getTamano() {
+            return tamano;
+        }
+
+        /**
+         * @return Fecha de modificación en milisegundos, truncada a segundos como en Last-Modified
+         */
+        long getUltimaModificacion() {
+            return ultimaModificacion;
+        }
+
+        /**
+         * @return Contenido completo, o null si el archivo supera el máximo en memoria
+         *         (se envía con escribir)
+         */
+        byte[] getContenido() {
+            return contenido;
+        }
+
+        /**
+         * @return false si el archivo en disco ya no es el que se cargó: los que están en memoria
+         *         siempre son válidos; los demás se leen del disco al enviarlos, así que se
+         *         comparan el tamaño y la fecha de modificación actuales con los de la carga
+         */
+        boolean vigente() {
+            if (contenido != null) {
+                return true;
+            }
+            if (invalido) {
+                return false;
+            }
+            try {
+                return Files.size(archivo) == tamano
+                    && Files.getLastModifiedTime(archivo).toMillis() / 1000 * 1000 == ultimaModificacion;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Escribe un tramo del archivo sin comprimir
+         * Los archivos en memoria se escriben directamente; los mapeados (o los que no se
+         * pudieron mapear, de más de 2 GB) se copian de a bloques de TAMANO_BLOQUE.
+         */
+        void escribir(OutputStream out, long desde, long longitud) throws IOException {
+            if (contenido != null) {
+                out.write(contenido, (int) desde, (int) longitud);
+                return;
+            }
+            byte[] bloque = BLOQUES.poll();
+            if (bloque == null) {
+                bloque = new byte[TAMANO_BLOQUE];
+            }
+            try {
+                if (mapeado != null) {
+                    // Vista propia de la petición: comparte la memoria pero no la posición
+                    ByteBuffer vista = mapeado.duplicate();
+                    vista.position((int) desde).limit((int) (desde + longitud));
+                    while (vista.hasRemaining()) {
+                        int cantidad = Math.min(bloque.length, vista.remaining());
+                        try {
+                            vista.get(bloque, 0, cantidad);
+                        } catch (InternalError e) {
+                            // La JVM traduce así el SIGBUS de leer páginas de un archivo acortado
+                            invalido = true;
+                            logger.log(Level.WARNING, "El archivo mapeado " + archivo + " cambió mientras se enviaba; se descarta de la caché", e);
+                            throw new IOException("El archivo mapeado cambió mientras se enviaba: " + archivo, e);
+                        }
+                        out.write(bloque, 0, cantidad);
+                    }
+                } else {
+                    try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                        ByteBuffer envoltorio = ByteBuffer.wrap(bloque);
+                        long posicion = desde;
+                        long fin = desde + longitud;
+                        while (posicion < fin) {
+                            envoltorio.clear();
+                            envoltorio.limit((int) Math.min(bloque.length, fin - posicion));
+                            int leidos = canal.read(envoltorio, posicion);
+                            if (leidos < 0) {
+                                throw new EOFException("El archivo se acortó mientras se enviaba: " + archivo);
+                            }
+                            out.write(bloque, 0, leidos);
+                            posicion += leidos;
+                        }
+                    }
+                }
+            } finally {
+                BLOQUES.offer(bloque);
+            }
+        }
+
+        /**
+         * ETag fuerte de una representación: el hash del contenido, con la codificación
+         * como sufijo para las versiones comprimidas
+         * @param codificacion gzip, deflate o null para el original
+         */
+        String etag(String codificacion) {
+            return "\"" + hash + (codificacion != null ? "-" + codificacion : "") + "\"";
+        }
+
+        /**
+         * Versión comprimida (con el nivel máximo, una sola vez por codificación)
+         */
+        byte[] comprimido(String codificacion) throws IOException {
+            byte[] resultado = comprimidos.get(codificacion);
+            if (resultado == null) {
+                resultado = CompresionHttp.comprimir(contenido, codificacion, java.util.zip.Deflater.BEST_COMPRESSION);
+                comprimidos.putIfAbsent(codificacion, resultado);
+            }
+            return resultado;
+        }
+
+        /**
+         * @return true si If-None-Match (o, en su ausencia, If-Modified-Since) indica que el
+         *         cliente ya tiene esta versión
+         */
+        boolean noModificado(String ifNoneMatch, String ifModifiedSince) {
+            if (ifNoneMatch != null) {
+                for (String etiqueta : ifNoneMatch.split(",")) {
+                    String valor = etiqueta.trim();
+                    if (valor.equals("*")) {
+                        return true;
+                    }
+                    if (valor.startsWith("W/")) {
+                        valor = valor.substring(2);
+                    }
+                    // Cualquier representación (original o comprimida) del mismo contenido
+                    if (valor.equals(etag(null)) || valor.equals(etag(CompresionHttp.GZIP)) || valor.equals(etag(CompresionHttp.DEFLATE))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (ifModifiedSince != null) {
+                try {
+                    long desde = ZonedDateTime.parse(ifModifiedSince.trim(), FORMATO_HTTP).toInstant().toEpochMilli();
+                    return ultimaModificacion <= desde;
+                } catch (DateTimeParseException e) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        String lastModified() {
+            return FORMATO_HTTP.format(Instant.ofEpochMilli(ultimaModificacion).atZone(ZoneOffset.UTC));
+        }
+    }
+
+    private final List<Path> directorios;
+    private final int maxMemoria;
+    private final int maxEntradas;
+    private final ConcurrentHashMap<Path, Recurso> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param directorios Directorios donde buscar, en orden de prioridad
+     * @param maxMemoria Tamaño máximo de un archivo guardado en memoria
+     * @param maxEntradas Cantidad máxima de archivos guardados en la caché
+     * @param observarCambios true para vaciar la caché cuando cambian los archivos (desarrollo)
+     */
+    RecursosEstaticos(List<Path> directorios, int maxMemoria, int maxEntradas, boolean observarCambios) {
+        this.directorios = directorios;
+        this.maxMemoria = maxMemoria;
+        this.maxEntradas = maxEntradas;
+        if (observarCambios) {
+            iniciarObservador();
+        }
+    }
+
+    /**
+     * Busca un archivo por su ruta URL (p. ej. /js/spa.js) y lo carga si no estaba en caché
+     * @return El recurso, o null si no existe o la ruta sale de los directorios publicados
+     */
+    Recurso obtener(String ruta) throws IOException {
+        Path archivo = resolver(ruta);
+        if (archivo == null) {
+            return null;
+        }
+        Recurso recurso = cache.get(archivo);
+        if (recurso != null) {
+            if (recurso.vigente()) {
+                return recurso;
+            }
+            cache.remove(archivo, recurso);
+        }
+        recurso = cargar(archivo);
+        if (cache.size() >= maxEntradas) {
+            logger.fine(() -> "Caché de archivos estáticos llena (" + maxEntradas + " entradas); " + archivo + " se sirve sin guardar");
+            return recurso;
+        }
+        Recurso previo = cache.putIfAbsent(archivo, recurso);
+        return previo != null ? previo : recurso;
+    }
+
+    /**
+     * @return true si la URL identifica una versión fija del archivo (hash en el nombre o
+     *         parámetro v=), que se puede guardar en el navegador sin revalidar
+     */
+    static boolean esVersionado(String ruta, String query) {
+        return NOMBRE_CON_HASH.matcher(ruta).matches() || IntegratedServer.parametroQuery(query, "v") != null;
+    }
+
+    /**
+     * @return Ruta real del archivo (la clave de la caché), o null si no existe o sale de los
+     *         directorios publicados
+     */
+    private Path resolver(String ruta) {
+        String relativa = ruta.startsWith("/") ? ruta.substring(1) : ruta;
+        if (relativa.isEmpty()) {
+            return null;
+        }
+        for (Path directorio : directorios) {
+            Path archivo = directorio.resolve(relativa).normalize();
+            // Rechaza ../ y rutas absolutas que salgan del directorio publicado
+            if (!archivo.startsWith(directorio) || !Files.isRegularFile(archivo)
+                    || directorio.relativize(archivo).toString().toUpperCase(Locale.ROOT).startsWith("WEB-INF")) {
+                continue;
+            }
+            try {
+                // Unifica mayúsculas y enlaces en sistemas de archivos que no los distinguen
+                return archivo.toRealPath();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private Recurso cargar(Path archivo) throws IOException {
+        long ultimaModificacion = Files.getLastModifiedTime(archivo).toMillis() / 1000 * 1000;
+        long tamano = Files.size(archivo);
+        MessageDigest digest = sha256();
+        byte[] contenido = null;
+        MappedByteBuffer mapeado = null;
+        if (tamano <= maxMemoria) {
+            contenido = Files.readAllBytes(archivo);
+            tamano = contenido.length;
+            digest.update(contenido);
+        } else if (tamano <= Integer.MAX_VALUE) {
+            // El mapeo sigue siendo válido después de cerrar el canal
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                mapeado = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+            }
+            digest.update(mapeado.duplicate());
+        } else {
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                ByteBuffer bloque = ByteBuffer.allocate(TAMANO_BLOQUE);
+                while (canal.read(bloque) > 0) {
+                    bloque.flip();
+                    digest.update(bloque);
+                    bloque.clear();
+                }
+            }
+        }
+        String hash = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16));
+        return new Recurso(archivo, determinarContentType(archivo.getFileName().toString()), tamano, ultimaModificacion, hash, contenido, mapeado);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private void iniciarObservador() {
+        WatchService observador;
+        try {
+            observador = FileSystems.getDefault().newWatchService();
+            for (Path directorio : directorios) {
+                registrarArbol(observador, directorio);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️  No se pudo observar los archivos estáticos: " + e.getMessage());
+            return;
+        }
+        Thread hilo = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey clave = observador.take();
+                    Path directorio = (Path) clave.watchable();
+                    clave.pollEvents().forEach(evento -> {
+                        if (evento.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                            // Un subdirectorio nuevo también se observa
+                            registrarArbol(observador, directorio.resolve((Path) evento.context()));
+                        }
+                    });
+                    clave.reset();
+                    cache.clear();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Fin del proceso
+            }
+        }, "biblioteca-estaticos-observador");
+        hilo.setDaemon(true);
+        hilo.start();
+        System.out.println("👀 Modo desarrollo: la caché de archivos estáticos se invalida al modificarlos");
+    }
+
+    private static void registrarArbol(WatchService observador, Path raiz) {
+        if (!Files.isDirectory(raiz)) {
+            return;
+        }
+        try (Stream<Path> subdirectorios = Files.walk(raiz)) {
+            subdirectorios.filter(Files::isDirectory).forEach(directorio -> {
+                try {
+                    directorio.register(observador, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                } catch (IOException e) {
+                    System.err.println("⚠️  No se pudo observar " + directorio + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("⚠️  No se pudo recorrer " + raiz + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Determina el Content-Type basado en la extensión del archivo
+     * @param path Ruta del archivo
+     * @return Content-Type apropiado
+     */
+    static String determinarContentType(String path) {
+        if (path.endsWith(".css")) return "text/css; charset=UTF-8";
+        else if (path.endsWith(".js")) return "application/javascript; charset=UTF-8";
+        else if (path.endsWith(".json")) return "application/json; charset=UTF-8";
+        else if (path.endsWith(".png")) return "image/png";
+        else if (path.endsWith(".jpg") || path.endsWith(".jpeg")) return "image/jpeg";
+        else if (path.endsWith(".gif")) return "image/gif";
+        else if (path.endsWith(".svg")) return "image/svg+xml";
+        else if (path.endsWith(".ico")) return "image/x-icon";
+        else if (path.endsWith(".woff")) return "font/woff";
+        else if (path.endsWith(".woff2")) return "font/woff2";
+        else if (path.endsWith(".ttf")) return "font/ttf";
+        return "text/html; charset=UTF-8";
+    }
+}
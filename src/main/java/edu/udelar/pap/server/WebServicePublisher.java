@@ -5,6 +5,7 @@ import edu.udelar.pap.webservice.BibliotecarioWebServiceImpl;
 import edu.udelar.pap.webservice.LectorWebServiceImpl;
 import edu.udelar.pap.webservice.PrestamoWebServiceImpl;
 import edu.udelar.pap.webservice.DonacionWebServiceImpl;
+import edu.udelar.pap.webservice.MetricasSoapHandler;
 
 /**
  * Publicador de Web Services SOAP usando Endpoint.publish()
@@ -45,6 +46,7 @@ public class WebServicePublisher {
      * Método principal para iniciar todos los servicios SOAP
      */
     public static void main(String[] args) {
+        edu.udelar.pap.util.ConfiguracionLog.inicializar();
         System.out.println("═══════════════════════════════════════════════════════════");
         System.out.println("🚀 INICIANDO WEB SERVICES SOAP - BIBLIOTECA PAP");
         System.out.println("═══════════════════════════════════════════════════════════\n");
@@ -83,28 +85,41 @@ public class WebServicePublisher {
         // Servicio de Bibliotecarios
         String urlBibliotecario = BASE_URL + PUERTO_BIBLIOTECARIO + "/BibliotecarioWS";
         System.out.println("   📚 Publicando BibliotecarioWebService en " + urlBibliotecario);
-        bibliotecarioEndpoint = Endpoint.publish(urlBibliotecario, new BibliotecarioWebServiceImpl());
+        bibliotecarioEndpoint = publicar(urlBibliotecario, new BibliotecarioWebServiceImpl(), "BibliotecarioWS");
         System.out.println("      ✅ BibliotecarioWebService publicado");
         
         // Servicio de Lectores
         String urlLector = BASE_URL + PUERTO_LECTOR + "/LectorWS";
         System.out.println("   👤 Publicando LectorWebService en " + urlLector);
-        lectorEndpoint = Endpoint.publish(urlLector, new LectorWebServiceImpl());
+        lectorEndpoint = publicar(urlLector, new LectorWebServiceImpl(), "LectorWS");
         System.out.println("      ✅ LectorWebService publicado");
         
         // Servicio de Préstamos
         String urlPrestamo = BASE_URL + PUERTO_PRESTAMO + "/PrestamoWS";
         System.out.println("   📖 Publicando PrestamoWebService en " + urlPrestamo);
-        prestamoEndpoint = Endpoint.publish(urlPrestamo, new PrestamoWebServiceImpl());
+        prestamoEndpoint = publicar(urlPrestamo, new PrestamoWebServiceImpl(), "PrestamoWS");
         System.out.println("      ✅ PrestamoWebService publicado");
         
         // Servicio de Donaciones
         String urlDonacion = BASE_URL + PUERTO_DONACION + "/DonacionWS";
         System.out.println("   🎁 Publicando DonacionWebService en " + urlDonacion);
-        donacionEndpoint = Endpoint.publish(urlDonacion, new DonacionWebServiceImpl());
+        donacionEndpoint = publicar(urlDonacion, new DonacionWebServiceImpl(), "DonacionWS");
         System.out.println("      ✅ DonacionWebService publicado");
     }
     
+    /**
+     * Publica un endpoint con el handler de métricas (ver /metrics) al final de su cadena
+     */
+    @SuppressWarnings("rawtypes")
+    private static Endpoint publicar(String url, Object implementacion, String servicio) {
+        Endpoint endpoint = Endpoint.create(implementacion);
+        java.util.List<jakarta.xml.ws.handler.Handler> cadena = new java.util.ArrayList<>(endpoint.getBinding().getHandlerChain());
+        cadena.add(new MetricasSoapHandler(servicio));
+        endpoint.getBinding().setHandlerChain(cadena);
+        endpoint.publish(url);
+        return endpoint;
+    }
+    
     /**
      * Muestra información detallada de los servicios publicados
      */
@@ -5,8 +5,10 @@ import edu.udelar.pap.domain.Lector;
 import edu.udelar.pap.domain.Usuario;
 import edu.udelar.pap.exception.BibliotecaException;
 import edu.udelar.pap.exception.ValidationException;
-
-import java.util.List;
+import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.util.RegistroMetricas;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 
 /**
  * Servicio para manejar la autenticación de usuarios
@@ -16,10 +18,13 @@ public class AutenticacionService {
     
     private final BibliotecarioService bibliotecarioService;
     private final LectorService lectorService;
+    private final SessionFactory sessionFactory;
+    private final RegistroMetricas metricas = RegistroMetricas.getInstance();
     
     public AutenticacionService() {
         this.bibliotecarioService = new BibliotecarioService();
         this.lectorService = new LectorService();
+        this.sessionFactory = HibernateUtil.getSessionFactory();
     }
     
     /**
@@ -31,47 +36,32 @@ public class AutenticacionService {
      * @throws BibliotecaException Si ocurre un error en la base de datos
      */
     public Usuario autenticarUsuario(String email, String password) throws ValidationException, BibliotecaException {
-        if (email == null || email.trim().isEmpty()) {
-            throw new ValidationException("El email es requerido");
-        }
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "AutenticacionService.autenticarUsuario", () -> {
+            if (email == null || email.trim().isEmpty()) {
+                throw new ValidationException("El email es requerido");
+            }
         
-        if (password == null || password.trim().isEmpty()) {
-            throw new ValidationException("El password es requerido");
-        }
+            if (password == null || password.trim().isEmpty()) {
+                throw new ValidationException("El password es requerido");
+            }
         
-        // Buscar primero como bibliotecario
-        try {
-            List<Bibliotecario> bibliotecarios = bibliotecarioService.obtenerTodosLosBibliotecarios();
-            for (Bibliotecario bibliotecario : bibliotecarios) {
-                if (bibliotecario.getEmail().equalsIgnoreCase(email.trim())) {
-                    if (bibliotecario.verificarPassword(password)) {
-                        return bibliotecario;
-                    } else {
-                        throw new ValidationException("Password incorrecto");
-                    }
-                }
+            // Búsqueda indexada por email normalizado en toda la jerarquía de Usuario
+            Usuario usuario;
+            try {
+                usuario = buscarUsuarioPorEmail(email);
+            } catch (Exception e) {
+                throw new BibliotecaException("Error al buscar usuario: " + e.getMessage());
             }
-        } catch (Exception e) {
-            // Si hay error al buscar bibliotecarios, continuar con lectores
-        }
         
-        // Buscar como lector
-        try {
-            List<Lector> lectores = lectorService.obtenerTodosLosLectores();
-            for (Lector lector : lectores) {
-                if (lector.getEmail().equalsIgnoreCase(email.trim())) {
-                    if (lector.verificarPassword(password)) {
-                        return lector;
-                    } else {
-                        throw new ValidationException("Password incorrecto");
-                    }
+            if (usuario != null) {
+                if (usuario.verificarPassword(password)) {
+                    return usuario;
                 }
+                throw new ValidationException("Password incorrecto");
             }
-        } catch (Exception e) {
-            throw new BibliotecaException("Error al buscar usuario: " + e.getMessage());
-        }
         
-        throw new ValidationException("Usuario no encontrado");
+            throw new ValidationException("Usuario no encontrado");
+        });
     }
     
     /**
@@ -85,21 +75,7 @@ public class AutenticacionService {
         }
         
         try {
-            // Verificar en bibliotecarios
-            List<Bibliotecario> bibliotecarios = bibliotecarioService.obtenerTodosLosBibliotecarios();
-            for (Bibliotecario bibliotecario : bibliotecarios) {
-                if (bibliotecario.getEmail().equalsIgnoreCase(email.trim())) {
-                    return true;
-                }
-            }
-            
-            // Verificar en lectores
-            List<Lector> lectores = lectorService.obtenerTodosLosLectores();
-            for (Lector lector : lectores) {
-                if (lector.getEmail().equalsIgnoreCase(email.trim())) {
-                    return true;
-                }
-            }
+            return buscarUsuarioPorEmail(email) != null;
         } catch (Exception e) {
             // En caso de error, asumir que no existe para permitir el registro
         }
@@ -107,6 +83,23 @@ public class AutenticacionService {
         return false;
     }
     
+    /**
+     * Busca un usuario (Bibliotecario o Lector) por email sin distinguir mayúsculas
+     * Usa la columna email_normalizado (índice único), por lo que el costo no depende
+     * de la cantidad de usuarios registrados
+     * @param email El email a buscar
+     * @return El usuario con su subclase concreta, o null si no existe
+     */
+    public Usuario buscarUsuarioPorEmail(String email) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(
+                "FROM Usuario u WHERE u.emailNormalizado = :email", Usuario.class)
+                .setParameter("email", Usuario.normalizarEmail(email))
+                .setMaxResults(1)
+                .uniqueResult();
+        }
+    }
+    
     /**
      * Obtiene el tipo de usuario (Bibliotecario o Lector)
      * @param usuario El usuario
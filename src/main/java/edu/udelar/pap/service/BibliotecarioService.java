@@ -1,6 +1,7 @@
 package edu.udelar.pap.service;
 
 import edu.udelar.pap.domain.Bibliotecario;
+import edu.udelar.pap.persistence.CatalogoCache;
 import edu.udelar.pap.persistence.HibernateUtil;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -66,6 +67,7 @@ public class BibliotecarioService {
             session.persist(bibliotecario);
             tx.commit();
         }
+        CatalogoCache.evictarConsultas();
     }
     
     /**
@@ -77,6 +79,7 @@ public class BibliotecarioService {
             session.merge(bibliotecario);
             tx.commit();
         }
+        CatalogoCache.evictarConsultas();
     }
     
     /**
@@ -88,6 +91,29 @@ public class BibliotecarioService {
             session.remove(bibliotecario);
             tx.commit();
         }
+        CatalogoCache.evictarConsultas();
+    }
+    
+    /**
+     * Ordenes admitidos por la paginación de bibliotecarios (el primero es el por defecto)
+     */
+    private static final java.util.Map<String, Paginacion.Orden<Bibliotecario>> ORDENES_BIBLIOTECARIOS = Paginacion.ordenes(
+        java.util.Map.entry("nombre", Paginacion.Orden.porTexto("nombre", false, Bibliotecario::getNombre)),
+        java.util.Map.entry("numeroEmpleado", Paginacion.Orden.porTexto("numeroEmpleado", false, Bibliotecario::getNumeroEmpleado)),
+        java.util.Map.entry("id", Paginacion.Orden.<Bibliotecario>porId()));
+    
+    /**
+     * Obtiene una página de bibliotecarios con paginación por cursor (keyset)
+     * @param orden nombre (por defecto), numeroEmpleado o id
+     * @param cursor Cursor de la página anterior, o null para la primera
+     * @param limite Tamaño de página (ver Paginacion.LIMITE_MAXIMO)
+     * @throws IllegalArgumentException Si el orden o el cursor no son válidos
+     */
+    public Pagina<Bibliotecario> obtenerPaginaBibliotecarios(String orden, String cursor, Integer limite) {
+        try (Session session = sessionFactory.openSession()) {
+            return Paginacion.consultar(session, Bibliotecario.class, "SELECT b FROM Bibliotecario b", "b",
+                ORDENES_BIBLIOTECARIOS, orden, cursor, limite, Bibliotecario::getId);
+        }
     }
     
     /**
@@ -99,12 +125,29 @@ public class BibliotecarioService {
         }
     }
     
+    /**
+     * Obtiene el ID del bibliotecario más antiguo (el de menor ID), con una consulta de una sola fila
+     * @return ID del bibliotecario, o null si no hay ninguno
+     */
+    public Long obtenerPrimerBibliotecarioId() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("SELECT b.id FROM Bibliotecario b ORDER BY b.id", Long.class)
+                .setMaxResults(1)
+                .setCacheable(true)
+                .setCacheRegion(CatalogoCache.REGION_CONSULTAS)
+                .uniqueResult();
+        }
+    }
+    
     /**
      * Obtiene todos los bibliotecarios
      */
     public List<Bibliotecario> obtenerTodosLosBibliotecarios() {
         try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("FROM Bibliotecario ORDER BY nombre", Bibliotecario.class).list();
+            return session.createQuery("FROM Bibliotecario ORDER BY nombre", Bibliotecario.class)
+                .setCacheable(true)
+                .setCacheRegion(CatalogoCache.REGION_CONSULTAS)
+                .list();
         }
     }
     
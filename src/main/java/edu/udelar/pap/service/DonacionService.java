@@ -2,11 +2,17 @@ package edu.udelar.pap.service;
 
 import edu.udelar.pap.domain.Libro;
 import edu.udelar.pap.domain.ArticuloEspecial;
+import edu.udelar.pap.domain.DonacionMaterial;
+import edu.udelar.pap.persistence.CatalogoCache;
 import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.persistence.ModoLectura;
+import edu.udelar.pap.util.RegistroMetricas;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
 import java.util.List;
+import java.util.stream.Stream;
 import java.time.LocalDate;
 
 /**
@@ -16,6 +22,7 @@ import java.time.LocalDate;
 public class DonacionService {
     
     private final SessionFactory sessionFactory;
+    private final RegistroMetricas metricas = RegistroMetricas.getInstance();
     
     public DonacionService() {
         this.sessionFactory = HibernateUtil.getSessionFactory();
@@ -56,6 +63,7 @@ public class DonacionService {
             session.persist(libro);
             tx.commit();
         }
+        CatalogoCache.evictarConsultas();
     }
     
     /**
@@ -97,6 +105,7 @@ public class DonacionService {
             session.persist(articulo);
             tx.commit();
         }
+        CatalogoCache.evictarConsultas();
     }
     
     /**
@@ -108,6 +117,7 @@ public class DonacionService {
             session.merge(libro);
             tx.commit();
         }
+        CatalogoCache.evictarConsultas();
     }
     
     /**
@@ -119,6 +129,7 @@ public class DonacionService {
             session.merge(articulo);
             tx.commit();
         }
+        CatalogoCache.evictarConsultas();
     }
     
     /**
@@ -130,6 +141,7 @@ public class DonacionService {
             session.remove(libro);
             tx.commit();
         }
+        CatalogoCache.evictarConsultas();
     }
     
     /**
@@ -141,6 +153,7 @@ public class DonacionService {
             session.remove(articulo);
             tx.commit();
         }
+        CatalogoCache.evictarConsultas();
     }
     
     /**
@@ -166,7 +179,10 @@ public class DonacionService {
      */
     public List<Libro> obtenerLibrosDisponibles() {
         try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("FROM Libro ORDER BY titulo", Libro.class).list();
+            return session.createQuery("FROM Libro ORDER BY titulo", Libro.class)
+                .setCacheable(true)
+                .setCacheRegion(CatalogoCache.REGION_CONSULTAS)
+                .list();
         }
     }
     
@@ -175,7 +191,10 @@ public class DonacionService {
      */
     public List<ArticuloEspecial> obtenerArticulosEspecialesDisponibles() {
         try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("FROM ArticuloEspecial ORDER BY descripcion", ArticuloEspecial.class).list();
+            return session.createQuery("FROM ArticuloEspecial ORDER BY descripcion", ArticuloEspecial.class)
+                .setCacheable(true)
+                .setCacheRegion(CatalogoCache.REGION_CONSULTAS)
+                .list();
         }
     }
     
@@ -222,48 +241,50 @@ public class DonacionService {
      * Obtiene todas las donaciones (libros y artículos especiales) ordenadas por fecha de ingreso
      */
     public List<Object> obtenerTodasLasDonaciones() {
-        try (Session session = sessionFactory.openSession()) {
-            // Obtener libros
-            List<Libro> libros = session.createQuery(
-                "FROM Libro ORDER BY fechaIngreso DESC", 
-                Libro.class).list();
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "DonacionService.obtenerTodasLasDonaciones", () -> {
+            try (Session session = sessionFactory.openSession()) {
+                // Obtener libros
+                List<Libro> libros = session.createQuery(
+                    "FROM Libro ORDER BY fechaIngreso DESC", 
+                    Libro.class).list();
             
-            // Obtener artículos especiales
-            List<ArticuloEspecial> articulos = session.createQuery(
-                "FROM ArticuloEspecial ORDER BY fechaIngreso DESC", 
-                ArticuloEspecial.class).list();
+                // Obtener artículos especiales
+                List<ArticuloEspecial> articulos = session.createQuery(
+                    "FROM ArticuloEspecial ORDER BY fechaIngreso DESC", 
+                    ArticuloEspecial.class).list();
             
-            // Combinar y ordenar por fecha de ingreso
-            List<Object> todasLasDonaciones = new java.util.ArrayList<>();
-            todasLasDonaciones.addAll(libros);
-            todasLasDonaciones.addAll(articulos);
+                // Combinar y ordenar por fecha de ingreso
+                List<Object> todasLasDonaciones = new java.util.ArrayList<>();
+                todasLasDonaciones.addAll(libros);
+                todasLasDonaciones.addAll(articulos);
             
-            // Ordenar por fecha de ingreso (más recientes primero)
-            todasLasDonaciones.sort((o1, o2) -> {
-                LocalDate fecha1 = null;
-                LocalDate fecha2 = null;
+                // Ordenar por fecha de ingreso (más recientes primero)
+                todasLasDonaciones.sort((o1, o2) -> {
+                    LocalDate fecha1 = null;
+                    LocalDate fecha2 = null;
                 
-                if (o1 instanceof Libro) {
-                    fecha1 = ((Libro) o1).getFechaIngreso();
-                } else if (o1 instanceof ArticuloEspecial) {
-                    fecha1 = ((ArticuloEspecial) o1).getFechaIngreso();
-                }
+                    if (o1 instanceof Libro) {
+                        fecha1 = ((Libro) o1).getFechaIngreso();
+                    } else if (o1 instanceof ArticuloEspecial) {
+                        fecha1 = ((ArticuloEspecial) o1).getFechaIngreso();
+                    }
                 
-                if (o2 instanceof Libro) {
-                    fecha2 = ((Libro) o2).getFechaIngreso();
-                } else if (o2 instanceof ArticuloEspecial) {
-                    fecha2 = ((ArticuloEspecial) o2).getFechaIngreso();
-                }
+                    if (o2 instanceof Libro) {
+                        fecha2 = ((Libro) o2).getFechaIngreso();
+                    } else if (o2 instanceof ArticuloEspecial) {
+                        fecha2 = ((ArticuloEspecial) o2).getFechaIngreso();
+                    }
                 
-                if (fecha1 == null && fecha2 == null) return 0;
-                if (fecha1 == null) return 1;
-                if (fecha2 == null) return -1;
+                    if (fecha1 == null && fecha2 == null) return 0;
+                    if (fecha1 == null) return 1;
+                    if (fecha2 == null) return -1;
                 
-                return fecha2.compareTo(fecha1); // Orden descendente
-            });
+                    return fecha2.compareTo(fecha1); // Orden descendente
+                });
             
-            return todasLasDonaciones;
-        }
+                return todasLasDonaciones;
+            }
+        });
     }
     
     /**
@@ -310,6 +331,52 @@ public class DonacionService {
         }
     }
     
+    /**
+     * Ordenes admitidos por la paginación de donaciones (el primero es el por defecto)
+     */
+    private static final java.util.Map<String, Paginacion.Orden<DonacionMaterial>> ORDENES_DONACIONES = Paginacion.ordenes(
+        java.util.Map.entry("fechaIngreso", Paginacion.Orden.porFecha("fechaIngreso", true, DonacionMaterial::getFechaIngreso)),
+        java.util.Map.entry("id", Paginacion.Orden.<DonacionMaterial>porId()));
+    
+    /**
+     * Obtiene una página de donaciones (libros y artículos) con paginación por cursor (keyset)
+     * @param orden fechaIngreso (más recientes primero, por defecto) o id
+     * @param cursor Cursor de la página anterior, o null para la primera
+     * @param limite Tamaño de página (ver Paginacion.LIMITE_MAXIMO)
+     * @throws IllegalArgumentException Si el orden o el cursor no son válidos
+     */
+    public Pagina<DonacionMaterial> obtenerPaginaDonaciones(String orden, String cursor, Integer limite) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "DonacionService.obtenerPaginaDonaciones", () -> {
+            try (Session session = sessionFactory.openSession()) {
+                return Paginacion.consultar(session, DonacionMaterial.class, "SELECT d FROM DonacionMaterial d", "d",
+                    ORDENES_DONACIONES, orden, cursor, limite, DonacionMaterial::getId);
+            }
+        });
+    }
+    
+    /**
+     * Recorre en streaming las donaciones (libros y artículos) de un rango de fechas,
+     * más recientes primero, con una sola consulta polimórfica
+     * El Stream debe cerrarse (try-with-resources) para liberar el cursor y la conexión
+     */
+    public Stream<DonacionMaterial> streamDonacionesPorRangoFechas(LocalDate fechaInicio, LocalDate fechaFin) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            return session.createQuery(
+                "FROM DonacionMaterial d WHERE d.fechaIngreso BETWEEN :fechaInicio AND :fechaFin " +
+                "ORDER BY d.fechaIngreso DESC, d.id", 
+                DonacionMaterial.class)
+                .setParameter("fechaInicio", fechaInicio)
+                .setParameter("fechaFin", fechaFin)
+                .setFetchSize(HibernateUtil.FETCH_SIZE_STREAMING)
+                .stream()
+                .onClose(session::close);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+    
     /**
      * Obtiene donaciones en un rango de fechas específico
      * @param fechaInicio Fecha de inicio del rango (inclusive)
@@ -317,9 +384,10 @@ public class DonacionService {
      * @return Lista de donaciones en el rango de fechas
      */
     public List<Object> obtenerDonacionesPorRangoFechas(LocalDate fechaInicio, LocalDate fechaFin) {
-        try (Session session = sessionFactory.openSession()) {
+        // Reporte: sin contexto de persistencia ni copias para dirty checking (ver ModoLectura)
+        return ModoLectura.SIN_ESTADO.leer(sessionFactory, session -> {
             // Obtener libros en el rango de fechas
-            List<Libro> libros = session.createQuery(
+            List<Libro> libros = ModoLectura.SIN_ESTADO.consulta(session,
                 "FROM Libro WHERE fechaIngreso BETWEEN :fechaInicio AND :fechaFin ORDER BY fechaIngreso DESC", 
                 Libro.class)
                 .setParameter("fechaInicio", fechaInicio)
@@ -327,7 +395,7 @@ public class DonacionService {
                 .list();
             
             // Obtener artículos especiales en el rango de fechas
-            List<ArticuloEspecial> articulos = session.createQuery(
+            List<ArticuloEspecial> articulos = ModoLectura.SIN_ESTADO.consulta(session,
                 "FROM ArticuloEspecial WHERE fechaIngreso BETWEEN :fechaInicio AND :fechaFin ORDER BY fechaIngreso DESC", 
                 ArticuloEspecial.class)
                 .setParameter("fechaInicio", fechaInicio)
@@ -364,6 +432,6 @@ public class DonacionService {
             });
             
             return donacionesEnRango;
-        }
+        });
     }
 }
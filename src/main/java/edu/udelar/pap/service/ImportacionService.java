@@ -0,0 +1,743 @@
+package edu.udelar.pap.service;
+
+import edu.udelar.pap.domain.ArticuloEspecial;
+import edu.udelar.pap.domain.Bibliotecario;
+import edu.udelar.pap.domain.DonacionMaterial;
+import edu.udelar.pap.domain.EstadoLector;
+import edu.udelar.pap.domain.EstadoPrestamo;
+import edu.udelar.pap.domain.Lector;
+import edu.udelar.pap.domain.Libro;
+import edu.udelar.pap.domain.Prestamo;
+import edu.udelar.pap.domain.Usuario;
+import edu.udelar.pap.domain.Zona;
+import edu.udelar.pap.exception.ServicioSaturadoException;
+import edu.udelar.pap.persistence.CatalogoCache;
+import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.util.FilasImportacion;
+import edu.udelar.pap.util.FilasImportacion.Fila;
+import edu.udelar.pap.util.JsonUtil;
+import edu.udelar.pap.util.PasswordHasher;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Importación masiva de libros, artículos especiales, lectores y préstamos
+ * Lee las filas en tramos de "intervalo de commit" filas; cada tramo se valida con las
+ * mismas reglas que el alta individual, con una consulta por tramo para las referencias
+ * (emails existentes, lectores, bibliotecarios y materiales) en lugar de una por fila,
+ * y se guarda en una sola transacción. Dentro del tramo la sesión se vacía con
+ * flush/clear cada "lote" filas (biblioteca.importacion.lote, 100 por defecto) para que
+ * el contexto de persistencia no crezca, y se omite la caché de segundo nivel.
+ *
+ * Las filas inválidas no detienen la importación: se informan con su número de línea.
+ * Si la base rechaza un tramo ya validado (p. ej. un email dado de alta en paralelo),
+ * se deshace y se reintenta fila por fila para aislar las que fallan.
+ *
+ * Las entidades usan claves IDENTITY, por lo que Hibernate ejecuta cada INSERT al
+ * persistir (no puede agruparlos en lotes JDBC); el costo por fila queda en un INSERT
+ * por tabla, sin consultas de validación por fila.
+ */
+public class ImportacionService {
+
+    private static final Logger logger = Logger.getLogger(ImportacionService.class.getName());
+
+    /**
+     * Tipo de registro a importar
+     */
+    public enum TipoImportacion {
+        LIBROS, ARTICULOS, LECTORES, PRESTAMOS;
+
+        /**
+         * @param valor Nombre del tipo sin distinguir mayúsculas (libros, articulos, lectores, prestamos)
+         * @throws IllegalArgumentException Si el tipo no existe
+         */
+        public static TipoImportacion desde(String valor) {
+            if (valor != null) {
+                String normalizado = valor.trim().toUpperCase(Locale.ROOT).replace("Í", "I").replace("É", "E");
+                for (TipoImportacion tipo : values()) {
+                    if (tipo.name().equals(normalizado)) {
+                        return tipo;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("Tipo de importación no válido: " + valor +
+                " (use libros, articulos, lectores o prestamos)");
+        }
+    }
+
+    public static final int INTERVALO_COMMIT_POR_DEFECTO = 1000;
+    public static final int INTERVALO_COMMIT_MAXIMO = 10000;
+    public static final String PROPIEDAD_LOTE = "biblioteca.importacion.lote";
+    static final int MAX_ERRORES_EN_REPORTE = 1000;
+
+    private static final int MAX_PARAMETROS_IN = 1000;
+    private static final int MAX_PRESTAMOS_ACTIVOS = PrestamoService.MAXIMO_PRESTAMOS_ACTIVOS;
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final Pattern HASH_BCRYPT = Pattern.compile("\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}");
+
+    private final SessionFactory sessionFactory;
+    private final int lote;
+
+    public ImportacionService() {
+        this.sessionFactory = HibernateUtil.getSessionFactory();
+        this.lote = leerLote();
+    }
+
+    /**
+     * Error de una fila del archivo
+     */
+    public static final class ErrorFila {
+        private final int linea;
+        private final String mensaje;
+
+        ErrorFila(int linea, String mensaje) {
+            this.linea = linea;
+            this.mensaje = mensaje;
+        }
+
+        public int getLinea() {
+            return linea;
+        }
+
+        public String getMensaje() {
+            return mensaje;
+        }
+    }
+
+    /**
+     * Resultado de una importación: conteos, duración y errores por fila
+     * Se guardan como máximo MAX_ERRORES_EN_REPORTE errores; el resto solo se cuenta.
+     */
+    public static final class ResultadoImportacion {
+        private final TipoImportacion tipo;
+        private final List<ErrorFila> errores = new ArrayList<>();
+        private int leidas;
+        private int importadas;
+        private int rechazadas;
+        private long duracionMs;
+
+        ResultadoImportacion(TipoImportacion tipo) {
+            this.tipo = tipo;
+        }
+
+        void agregarError(int linea, String mensaje) {
+            rechazadas++;
+            if (errores.size() < MAX_ERRORES_EN_REPORTE) {
+                errores.add(new ErrorFila(linea, mensaje));
+            }
+        }
+
+        public TipoImportacion getTipo() {
+            return tipo;
+        }
+
+        public int getLeidas() {
+            return leidas;
+        }
+
+        public int getImportadas() {
+            return importadas;
+        }
+
+        public int getRechazadas() {
+            return rechazadas;
+        }
+
+        /**
+         * @return Errores por fila (a lo sumo MAX_ERRORES_EN_REPORTE)
+         */
+        public List<ErrorFila> getErrores() {
+            return errores;
+        }
+
+        public int getErroresOmitidos() {
+            return rechazadas - errores.size();
+        }
+
+        public long getDuracionMs() {
+            return duracionMs;
+        }
+
+        public double getFilasPorSegundo() {
+            return duracionMs == 0 ? leidas : leidas * 1000.0 / duracionMs;
+        }
+
+        /**
+         * Reporte en JSON para la aplicación web
+         */
+        public String aJson() {
+            StringBuilder json = new StringBuilder();
+            json.append(String.format(Locale.ROOT,
+                "{\"success\": true, \"tipo\": \"%s\", \"leidas\": %d, \"importadas\": %d, \"rechazadas\": %d, " +
+                "\"duracionMs\": %d, \"filasPorSegundo\": %.1f, \"errores\": [",
+                tipo.name().toLowerCase(Locale.ROOT), leidas, importadas, rechazadas, duracionMs, getFilasPorSegundo()));
+            for (int i = 0; i < errores.size(); i++) {
+                if (i > 0) json.append(",");
+                json.append("{\"linea\": ").append(errores.get(i).getLinea())
+                    .append(", \"mensaje\": \"").append(JsonUtil.escapar(errores.get(i).getMensaje())).append("\"}");
+            }
+            json.append("], \"erroresOmitidos\": ").append(getErroresOmitidos()).append("}");
+            return json.toString();
+        }
+    }
+
+    /**
+     * Fila validada, lista para persistir
+     * La entidad se crea dentro de la sesión que la guarda, así un reintento parte
+     * de una instancia nueva
+     */
+    private static final class FilaValida {
+        final int linea;
+        final Function<Session, Object> entidad;
+        /** Lector de un préstamo no devuelto, cuyo límite se vuelve a verificar al guardar (null si no aplica) */
+        final Long lectorLimitado;
+        final boolean enCurso;
+
+        FilaValida(int linea, Function<Session, Object> entidad) {
+            this(linea, entidad, null, false);
+        }
+
+        FilaValida(int linea, Function<Session, Object> entidad, Long lectorLimitado, boolean enCurso) {
+            this.linea = linea;
+            this.entidad = entidad;
+            this.lectorLimitado = lectorLimitado;
+            this.enCurso = enCurso;
+        }
+    }
+
+    /**
+     * Datos de referencia de un tramo, consultados una vez para todas sus filas
+     */
+    private static final class Referencias {
+        final Set<String> emailsExistentes = new HashSet<>();
+        final Map<Long, EstadoLector> lectores = new HashMap<>();
+        final Set<Long> bibliotecarios = new HashSet<>();
+        final Set<Long> materiales = new HashSet<>();
+        final Map<Long, Long> prestamosActivos = new HashMap<>();
+    }
+
+    /**
+     * Importa todas las filas de un archivo
+     * @param tipo Tipo de registro de las filas
+     * @param filas Filas del archivo (no se cierran aquí)
+     * @param intervaloCommit Filas por transacción (null = INTERVALO_COMMIT_POR_DEFECTO)
+     * @return Resultado con conteos y errores por fila
+     * @throws IOException Si falla la lectura del archivo
+     */
+    public ResultadoImportacion importar(TipoImportacion tipo, FilasImportacion filas, Integer intervaloCommit) throws IOException {
+        int intervalo = intervaloCommit == null || intervaloCommit < 1
+            ? INTERVALO_COMMIT_POR_DEFECTO
+            : Math.min(intervaloCommit, INTERVALO_COMMIT_MAXIMO);
+        ResultadoImportacion resultado = new ResultadoImportacion(tipo);
+        // Emails del propio archivo, para rechazar repetidos entre tramos
+        Set<String> emailsDelArchivo = new HashSet<>();
+        long inicio = System.currentTimeMillis();
+
+        List<Fila> tramo = new ArrayList<>(intervalo);
+        Fila fila;
+        while ((fila = filas.siguiente()) != null) {
+            resultado.leidas++;
+            if (fila.getError() != null) {
+                resultado.agregarError(fila.getLinea(), fila.getError());
+                continue;
+            }
+            tramo.add(fila);
+            if (tramo.size() == intervalo) {
+                procesarTramo(tipo, tramo, emailsDelArchivo, resultado);
+                tramo.clear();
+            }
+        }
+        if (!tramo.isEmpty()) {
+            procesarTramo(tipo, tramo, emailsDelArchivo, resultado);
+        }
+        resultado.duracionMs = System.currentTimeMillis() - inicio;
+
+        if (resultado.importadas > 0) {
+            if (tipo == TipoImportacion.LIBROS || tipo == TipoImportacion.ARTICULOS) {
+                CatalogoCache.evictarConsultas();
+            } else if (tipo == TipoImportacion.PRESTAMOS) {
+                IndiceDemandaMateriales.getInstance().reconstruir();
+                IndicePrestamosVencidos.getInstance().reconstruir();
+            }
+        }
+        logger.info(() -> String.format(Locale.ROOT,
+            "Importación de %s: %d leídas, %d importadas, %d rechazadas en %d ms (%.0f filas/s)",
+            tipo.name().toLowerCase(Locale.ROOT), resultado.leidas, resultado.importadas, resultado.rechazadas,
+            resultado.duracionMs, resultado.getFilasPorSegundo()));
+        return resultado;
+    }
+
+    private void procesarTramo(TipoImportacion tipo, List<Fila> tramo, Set<String> emailsDelArchivo,
+                               ResultadoImportacion resultado) {
+        Referencias referencias = consultarReferencias(tipo, tramo);
+        List<FilaValida> validas = new ArrayList<>(tramo.size());
+        for (Fila fila : tramo) {
+            try {
+                validas.add(validar(tipo, fila, referencias, emailsDelArchivo));
+            } catch (IllegalStateException | IllegalArgumentException | ServicioSaturadoException e) {
+                resultado.agregarError(fila.getLinea(), e.getMessage());
+            }
+        }
+        if (validas.isEmpty()) {
+            return;
+        }
+        try {
+            resultado.importadas += guardar(validas, resultado);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Tramo rechazado por la base ({0}), reintentando fila por fila", causaRaiz(e));
+            guardarFilaPorFila(validas, resultado);
+        }
+    }
+
+    /**
+     * Guarda las filas en una transacción
+     * Los préstamos no devueltos vuelven a verificar el límite de préstamos activos: se bloquean
+     * sus lectores en orden de ID y se cuentan sus préstamos EN_CURSO antes de insertar, como en
+     * el alta individual (ver PrestamoService), porque el conteo de la validación se hizo sin
+     * bloqueo y otra petición pudo sumar préstamos desde entonces. Las filas que ya no entran se
+     * informan como rechazadas una vez confirmada la transacción.
+     * @return Filas guardadas
+     */
+    private int guardar(List<FilaValida> validas, ResultadoImportacion resultado) {
+        List<FilaValida> sobreElLimite = new ArrayList<>();
+        int guardadas = 0;
+        try (Session session = sessionFactory.openSession()) {
+            session.setCacheMode(CacheMode.IGNORE);
+            Transaction tx = session.beginTransaction();
+            try {
+                Map<Long, Long> activos = bloquearLectoresLimitados(session, validas);
+                for (FilaValida fila : validas) {
+                    if (fila.lectorLimitado != null) {
+                        long activosLector = activos.getOrDefault(fila.lectorLimitado, 0L);
+                        if (activosLector >= MAX_PRESTAMOS_ACTIVOS) {
+                            sobreElLimite.add(fila);
+                            continue;
+                        }
+                        if (fila.enCurso) {
+                            activos.put(fila.lectorLimitado, activosLector + 1);
+                        }
+                    }
+                    session.persist(fila.entidad.apply(session));
+                    guardadas++;
+                    if (guardadas % lote == 0) {
+                        session.flush();
+                        session.clear();
+                    }
+                }
+                tx.commit();
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw e;
+            }
+        }
+        for (FilaValida fila : sobreElLimite) {
+            resultado.agregarError(fila.linea, mensajeLimite(fila.lectorLimitado));
+        }
+        return guardadas;
+    }
+
+    /**
+     * Bloquea a los lectores de las filas con límite, en orden de ID y en partes de
+     * MAX_PARAMETROS_IN, y devuelve sus préstamos EN_CURSO
+     */
+    private static Map<Long, Long> bloquearLectoresLimitados(Session session, List<FilaValida> validas) {
+        Set<Long> lectores = new TreeSet<>();
+        for (FilaValida fila : validas) {
+            if (fila.lectorLimitado != null) {
+                lectores.add(fila.lectorLimitado);
+            }
+        }
+        Map<Long, Long> activos = new HashMap<>();
+        List<Long> parte = new ArrayList<>(Math.min(lectores.size(), MAX_PARAMETROS_IN));
+        for (Long lectorId : lectores) {
+            parte.add(lectorId);
+            if (parte.size() == MAX_PARAMETROS_IN) {
+                activos.putAll(PrestamoService.bloquearYContarActivos(session, parte));
+                parte.clear();
+            }
+        }
+        activos.putAll(PrestamoService.bloquearYContarActivos(session, parte));
+        return activos;
+    }
+
+    private void guardarFilaPorFila(List<FilaValida> validas, ResultadoImportacion resultado) {
+        List<FilaValida> una = new ArrayList<>(1);
+        for (FilaValida fila : validas) {
+            una.clear();
+            una.add(fila);
+            try {
+                resultado.importadas += guardar(una, resultado);
+            } catch (RuntimeException e) {
+                resultado.agregarError(fila.linea, "Rechazada por la base de datos: " + causaRaiz(e));
+            }
+        }
+    }
+
+    // ==================== VALIDACIÓN POR TIPO ====================
+
+    private FilaValida validar(TipoImportacion tipo, Fila fila, Referencias referencias,
+                               Set<String> emailsDelArchivo) {
+        switch (tipo) {
+            case LIBROS:
+                return new FilaValida(fila.getLinea(), validarLibro(fila));
+            case ARTICULOS:
+                return new FilaValida(fila.getLinea(), validarArticulo(fila));
+            case LECTORES:
+                return new FilaValida(fila.getLinea(), validarLector(fila, referencias, emailsDelArchivo));
+            default:
+                return validarPrestamo(fila, referencias);
+        }
+    }
+
+    /** Columnas: titulo, paginas, donante (opcional), fechaIngreso (opcional) */
+    private Function<Session, Object> validarLibro(Fila fila) {
+        String titulo = requerido(fila, "titulo");
+        int paginas = entero(fila, "paginas");
+        if (paginas <= 0) {
+            throw new IllegalStateException("El número de páginas debe ser mayor a cero");
+        }
+        if (paginas > 10000) {
+            throw new IllegalStateException("El número de páginas no puede ser mayor a 10,000");
+        }
+        String donante = valorOPorDefecto(fila, "donante", "Anónimo");
+        LocalDate fechaIngreso = fecha(fila, "fechaIngreso", LocalDate.now());
+        return session -> {
+            Libro libro = new Libro();
+            libro.setTitulo(titulo);
+            libro.setPaginas(paginas);
+            libro.setDonante(donante);
+            libro.setFechaIngreso(fechaIngreso);
+            return libro;
+        };
+    }
+
+    /** Columnas: descripcion, peso, dimensiones, donante (opcional), fechaIngreso (opcional) */
+    private Function<Session, Object> validarArticulo(Fila fila) {
+        String descripcion = requerido(fila, "descripcion");
+        double peso = decimal(fila, "peso");
+        if (peso <= 0) {
+            throw new IllegalStateException("El peso debe ser mayor a cero");
+        }
+        if (peso > 1000) {
+            throw new IllegalStateException("El peso no puede ser mayor a 1000 kg");
+        }
+        String dimensiones = requerido(fila, "dimensiones");
+        String donante = valorOPorDefecto(fila, "donante", "Anónimo");
+        LocalDate fechaIngreso = fecha(fila, "fechaIngreso", LocalDate.now());
+        return session -> {
+            ArticuloEspecial articulo = new ArticuloEspecial();
+            articulo.setDescripcion(descripcion);
+            articulo.setPeso(peso);
+            articulo.setDimensiones(dimensiones);
+            articulo.setDonante(donante);
+            articulo.setFechaIngreso(fechaIngreso);
+            return articulo;
+        };
+    }
+
+    /**
+     * Columnas: nombre, apellido (opcional), email, direccion, zona, estado (opcional),
+     * fechaRegistro (opcional) y password o passwordHash
+     * passwordHash es un hash BCrypt exportado de otra sede y se guarda tal cual; un
+     * password en texto plano se hashea con BCrypt, que limita la velocidad de esas filas.
+     */
+    private Function<Session, Object> validarLector(Fila fila, Referencias referencias, Set<String> emailsDelArchivo) {
+        String nombre = requerido(fila, "nombre");
+        String apellido = fila.valor("apellido");
+        String nombreCompleto = apellido != null ? nombre + " " + apellido : nombre;
+        String email = requerido(fila, "email");
+        if (!email.contains("@") || !email.contains(".")) {
+            throw new IllegalStateException("El formato del email no es válido: " + email);
+        }
+        String emailNormalizado = Usuario.normalizarEmail(email);
+        if (referencias.emailsExistentes.contains(emailNormalizado)) {
+            throw new IllegalStateException("Ya existe un usuario con el email: " + email);
+        }
+        if (emailsDelArchivo.contains(emailNormalizado)) {
+            throw new IllegalStateException("El email " + email + " está repetido en el archivo");
+        }
+        String direccion = requerido(fila, "direccion");
+        Zona zona = enumerado(fila, "zona", Zona.class, null);
+        EstadoLector estado = enumerado(fila, "estado", EstadoLector.class, EstadoLector.ACTIVO);
+        LocalDate fechaRegistro = fecha(fila, "fechaRegistro", LocalDate.now());
+
+        String hash = fila.valor("passwordHash");
+        if (hash != null) {
+            if (!HASH_BCRYPT.matcher(hash).matches()) {
+                throw new IllegalStateException("passwordHash no es un hash BCrypt válido");
+            }
+        } else {
+            String password = fila.valor("password");
+            if (password == null) {
+                throw new IllegalStateException("Falta el valor de la columna 'password' o 'passwordHash'");
+            }
+            hash = PasswordHasher.getInstance().hashear(password);
+        }
+        // Se registra recién al aceptar la fila, para no rechazar el email si la fila tenía otro error
+        emailsDelArchivo.add(emailNormalizado);
+
+        String passwordHash = hash;
+        return session -> {
+            Lector lector = new Lector();
+            lector.setNombre(nombreCompleto);
+            lector.setEmail(email);
+            lector.setDireccion(direccion);
+            lector.setZona(zona);
+            lector.setEstado(estado);
+            lector.setFechaRegistro(fechaRegistro);
+            lector.setPassword(passwordHash);
+            return lector;
+        };
+    }
+
+    /**
+     * Columnas: lectorId, bibliotecarioId, materialId, fechaEstimadaDevolucion,
+     * fechaSolicitud (opcional) y estado (opcional, PENDIENTE por defecto)
+     * Los préstamos no devueltos siguen las reglas del alta: lector activo y a lo sumo
+     * MAX_PRESTAMOS_ACTIVOS en curso, contando los importados en este archivo. Este conteo
+     * descarta pronto las filas que no entran; el que vale es el de guardar, con el lector bloqueado.
+     */
+    private FilaValida validarPrestamo(Fila fila, Referencias referencias) {
+        Long lectorId = largo(fila, "lectorId");
+        Long bibliotecarioId = largo(fila, "bibliotecarioId");
+        Long materialId = largo(fila, "materialId");
+        EstadoLector estadoLector = referencias.lectores.get(lectorId);
+        if (estadoLector == null) {
+            throw new IllegalStateException("No existe el lector con ID " + lectorId);
+        }
+        if (!referencias.bibliotecarios.contains(bibliotecarioId)) {
+            throw new IllegalStateException("No existe el bibliotecario con ID " + bibliotecarioId);
+        }
+        if (!referencias.materiales.contains(materialId)) {
+            throw new IllegalStateException("No existe el material con ID " + materialId);
+        }
+        LocalDate fechaSolicitud = fecha(fila, "fechaSolicitud", LocalDate.now());
+        LocalDate fechaEstimadaDevolucion = fecha(fila, "fechaEstimadaDevolucion", null);
+        if (fechaEstimadaDevolucion == null) {
+            throw new IllegalStateException("Falta el valor de la columna 'fechaEstimadaDevolucion'");
+        }
+        if (fechaEstimadaDevolucion.isBefore(fechaSolicitud)) {
+            throw new IllegalStateException("La fecha estimada de devolución es anterior a la de solicitud");
+        }
+        EstadoPrestamo estado = enumerado(fila, "estado", EstadoPrestamo.class, EstadoPrestamo.PENDIENTE);
+        if (estado != EstadoPrestamo.DEVUELTO) {
+            if (estadoLector != EstadoLector.ACTIVO) {
+                throw new IllegalStateException("No se puede crear un préstamo para un lector suspendido");
+            }
+            long activos = referencias.prestamosActivos.getOrDefault(lectorId, 0L);
+            if (activos >= MAX_PRESTAMOS_ACTIVOS) {
+                throw new IllegalStateException(mensajeLimite(lectorId));
+            }
+            if (estado == EstadoPrestamo.EN_CURSO) {
+                referencias.prestamosActivos.put(lectorId, activos + 1);
+            }
+        }
+        Function<Session, Object> entidad = session -> {
+            Prestamo prestamo = new Prestamo();
+            prestamo.setLector(session.getReference(Lector.class, lectorId));
+            prestamo.setBibliotecario(session.getReference(Bibliotecario.class, bibliotecarioId));
+            prestamo.setMaterial(session.getReference(DonacionMaterial.class, materialId));
+            prestamo.setFechaSolicitud(fechaSolicitud);
+            prestamo.setFechaEstimadaDevolucion(fechaEstimadaDevolucion);
+            prestamo.setEstado(estado);
+            return prestamo;
+        };
+        return estado != EstadoPrestamo.DEVUELTO
+            ? new FilaValida(fila.getLinea(), entidad, lectorId, estado == EstadoPrestamo.EN_CURSO)
+            : new FilaValida(fila.getLinea(), entidad);
+    }
+
+    private static String mensajeLimite(Long lectorId) {
+        return "El lector " + lectorId + " ya tiene el máximo de préstamos permitidos (" + MAX_PRESTAMOS_ACTIVOS + ")";
+    }
+
+    // ==================== REFERENCIAS POR TRAMO ====================
+
+    private Referencias consultarReferencias(TipoImportacion tipo, List<Fila> tramo) {
+        Referencias referencias = new Referencias();
+        if (tipo != TipoImportacion.LECTORES && tipo != TipoImportacion.PRESTAMOS) {
+            return referencias;
+        }
+        try (Session session = sessionFactory.openSession()) {
+            if (tipo == TipoImportacion.LECTORES) {
+                Set<String> emails = new HashSet<>();
+                for (Fila fila : tramo) {
+                    String email = fila.valor("email");
+                    if (email != null) {
+                        emails.add(Usuario.normalizarEmail(email));
+                    }
+                }
+                referencias.emailsExistentes.addAll(consultarPorPartes(session,
+                    "SELECT u.emailNormalizado FROM Usuario u WHERE u.emailNormalizado IN :valores", String.class, emails));
+                return referencias;
+            }
+
+            Set<Long> lectores = idsDeColumna(tramo, "lectorId");
+            Set<Long> bibliotecarios = idsDeColumna(tramo, "bibliotecarioId");
+            Set<Long> materiales = idsDeColumna(tramo, "materialId");
+            for (Object[] lector : consultarPorPartes(session,
+                    "SELECT l.id, l.estado FROM Lector l WHERE l.id IN :valores", Object[].class, lectores)) {
+                referencias.lectores.put((Long) lector[0], (EstadoLector) lector[1]);
+            }
+            referencias.bibliotecarios.addAll(consultarPorPartes(session,
+                "SELECT b.id FROM Bibliotecario b WHERE b.id IN :valores", Long.class, bibliotecarios));
+            referencias.materiales.addAll(consultarPorPartes(session,
+                "SELECT m.id FROM DonacionMaterial m WHERE m.id IN :valores", Long.class, materiales));
+            for (Object[] activos : consultarPorPartes(session,
+                    "SELECT p.lector.id, COUNT(p) FROM Prestamo p WHERE p.estado = edu.udelar.pap.domain.EstadoPrestamo.EN_CURSO AND p.lector.id IN :valores " +
+                    "GROUP BY p.lector.id", Object[].class, referencias.lectores.keySet())) {
+                referencias.prestamosActivos.put((Long) activos[0], ((Number) activos[1]).longValue());
+            }
+        }
+        return referencias;
+    }
+
+    /**
+     * Ejecuta una consulta con "IN :valores" en partes de MAX_PARAMETROS_IN valores
+     */
+    private static <T> List<T> consultarPorPartes(Session session, String hql, Class<T> tipo, Collection<?> valores) {
+        List<T> resultados = new ArrayList<>();
+        List<Object> parte = new ArrayList<>(Math.min(valores.size(), MAX_PARAMETROS_IN));
+        for (Object valor : valores) {
+            parte.add(valor);
+            if (parte.size() == MAX_PARAMETROS_IN) {
+                resultados.addAll(session.createQuery(hql, tipo).setParameterList("valores", parte).list());
+                parte.clear();
+            }
+        }
+        if (!parte.isEmpty()) {
+            resultados.addAll(session.createQuery(hql, tipo).setParameterList("valores", parte).list());
+        }
+        return resultados;
+    }
+
+    private static Set<Long> idsDeColumna(List<Fila> tramo, String columna) {
+        Set<Long> ids = new HashSet<>();
+        for (Fila fila : tramo) {
+            String valor = fila.valor(columna);
+            if (valor != null) {
+                try {
+                    ids.add(Long.parseLong(valor));
+                } catch (NumberFormatException e) {
+                    // Se informa al validar la fila
+                }
+            }
+        }
+        return ids;
+    }
+
+    // ==================== LECTURA DE COLUMNAS ====================
+
+    private static String requerido(Fila fila, String columna) {
+        String valor = fila.valor(columna);
+        if (valor == null) {
+            throw new IllegalStateException("Falta el valor de la columna '" + columna + "'");
+        }
+        return valor;
+    }
+
+    private static String valorOPorDefecto(Fila fila, String columna, String porDefecto) {
+        String valor = fila.valor(columna);
+        return valor != null ? valor : porDefecto;
+    }
+
+    private static int entero(Fila fila, String columna) {
+        String valor = requerido(fila, columna);
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("La columna '" + columna + "' debe ser un número entero: " + valor);
+        }
+    }
+
+    private static Long largo(Fila fila, String columna) {
+        String valor = requerido(fila, columna);
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("La columna '" + columna + "' debe ser un ID numérico: " + valor);
+        }
+    }
+
+    private static double decimal(Fila fila, String columna) {
+        String valor = requerido(fila, columna);
+        try {
+            // Se acepta coma decimal (archivos CSV separados por ';')
+            return Double.parseDouble(valor.replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("La columna '" + columna + "' debe ser un número: " + valor);
+        }
+    }
+
+    /**
+     * Fecha en DD/MM/YYYY (como en la aplicación web) o YYYY-MM-DD
+     */
+    private static LocalDate fecha(Fila fila, String columna, LocalDate porDefecto) {
+        String valor = fila.valor(columna);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            return valor.contains("/") ? LocalDate.parse(valor, FORMATO_FECHA) : LocalDate.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalStateException("La columna '" + columna + "' debe ser una fecha DD/MM/YYYY o YYYY-MM-DD: " + valor);
+        }
+    }
+
+    private static <E extends Enum<E>> E enumerado(Fila fila, String columna, Class<E> tipo, E porDefecto) {
+        String valor = fila.valor(columna);
+        if (valor == null) {
+            if (porDefecto == null) {
+                throw new IllegalStateException("Falta el valor de la columna '" + columna + "'");
+            }
+            return porDefecto;
+        }
+        try {
+            return Enum.valueOf(tipo, valor.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Valor no válido para '" + columna + "': " + valor);
+        }
+    }
+
+    private static String causaRaiz(Throwable e) {
+        Throwable causa = e;
+        while (causa.getCause() != null && causa.getCause() != causa) {
+            causa = causa.getCause();
+        }
+        return causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName();
+    }
+
+    private static int leerLote() {
+        String valor = System.getProperty(PROPIEDAD_LOTE);
+        if (valor == null || valor.trim().isEmpty()) {
+            return 100;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(valor.trim()));
+        } catch (NumberFormatException e) {
+            return 100;
+        }
+    }
+}
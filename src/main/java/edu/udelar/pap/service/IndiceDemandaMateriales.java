@@ -0,0 +1,246 @@
+package edu.udelar.pap.service;
+
+import edu.udelar.pap.domain.EstadoPrestamo;
+import edu.udelar.pap.persistence.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Índice de demanda de materiales: préstamos PENDIENTE y EN_CURSO por material
+ * Se mantiene en memoria y PrestamoService lo actualiza al confirmar cada alta,
+ * aprobación, cancelación, devolución, edición o baja de un préstamo, de modo que
+ * el ranking de materiales más demandados no necesita recorrer la tabla de préstamos.
+ *
+ * Los materiales se guardan ordenados por demanda (total, luego pendientes, luego id),
+ * así obtener los N primeros cuesta O(N) y cada cambio O(log M).
+ * Se reconstruye desde la base al iniciar el servidor o en el primer uso, y después
+ * periódicamente: los cambios de otros procesos sobre la misma base (la aplicación de
+ * escritorio u otra instancia del servidor) no pasan por este índice y se incorporan en la
+ * siguiente reconstrucción. Ver SincronizacionIndices para los cambios que se confirman
+ * mientras se reconstruye.
+ *
+ * Propiedad de sistema (opcional):
+ *   biblioteca.demanda.reconstruccionMinutos  minutos entre reconstrucciones (10 por defecto, 0 = nunca)
+ */
+public final class IndiceDemandaMateriales {
+
+    private static final Logger logger = Logger.getLogger(IndiceDemandaMateriales.class.getName());
+
+    static final String PROPIEDAD_MINUTOS = "biblioteca.demanda.reconstruccionMinutos";
+
+    private static final Comparator<Demanda> ORDEN_DEMANDA = Comparator
+        .comparingLong(Demanda::getTotal).reversed()
+        .thenComparing(Comparator.comparingLong(Demanda::getPendientes).reversed())
+        .thenComparingLong(Demanda::getMaterialId);
+
+    // Después de ORDEN_DEMANDA: el constructor lo usa
+    private static final IndiceDemandaMateriales INSTANCE = new IndiceDemandaMateriales();
+
+    private final Map<Long, Demanda> porMaterial = new HashMap<>();
+    private final TreeSet<Demanda> ranking = new TreeSet<>(ORDEN_DEMANDA);
+    private volatile boolean inicializado;
+    private ScheduledExecutorService reconstruccionPeriodica;
+
+    private IndiceDemandaMateriales() {}
+
+    public static IndiceDemandaMateriales getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Demanda de un material (inmutable; cada cambio reemplaza la entrada)
+     */
+    public static final class Demanda {
+        private final Long materialId;
+        private final long pendientes;
+        private final long enCurso;
+
+        Demanda(Long materialId, long pendientes, long enCurso) {
+            this.materialId = materialId;
+            this.pendientes = pendientes;
+            this.enCurso = enCurso;
+        }
+
+        public Long getMaterialId() {
+            return materialId;
+        }
+
+        public long getPendientes() {
+            return pendientes;
+        }
+
+        public long getEnCurso() {
+            return enCurso;
+        }
+
+        public long getTotal() {
+            return pendientes + enCurso;
+        }
+    }
+
+    /**
+     * Recalcula el índice con una consulta agrupada sobre los préstamos activos
+     * Mientras lee y reemplaza el índice, los préstamos que se confirman esperan (ver SincronizacionIndices).
+     */
+    public void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        int materiales;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            // La conexión se obtiene antes del candado: con él tomado, las transacciones que esperan
+            // para confirmar retienen sus conexiones y el pool podría no tener ninguna libre
+            Transaction tx = session.beginTransaction();
+            Lock reconstruccion = SincronizacionIndices.reconstruccion();
+            reconstruccion.lock();
+            try {
+                List<Object[]> filas = session.createQuery(
+                    "SELECT p.material.id, p.estado, COUNT(p) FROM Prestamo p " +
+                    "WHERE p.estado IN (:pendiente, :enCurso) " +
+                    "GROUP BY p.material.id, p.estado",
+                    Object[].class)
+                    .setParameter("pendiente", EstadoPrestamo.PENDIENTE)
+                    .setParameter("enCurso", EstadoPrestamo.EN_CURSO)
+                    .list();
+
+                synchronized (this) {
+                    porMaterial.clear();
+                    ranking.clear();
+                    for (Object[] fila : filas) {
+                        long cantidad = ((Number) fila[2]).longValue();
+                        boolean pendiente = fila[1] == EstadoPrestamo.PENDIENTE;
+                        sumar((Long) fila[0], pendiente ? cantidad : 0, pendiente ? 0 : cantidad);
+                    }
+                    inicializado = true;
+                    materiales = porMaterial.size();
+                }
+            } finally {
+                reconstruccion.unlock();
+            }
+            tx.commit();
+        }
+        logger.info("Índice de demanda reconstruido: " + materiales + " materiales en " +
+                    (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    /**
+     * Inicia la reconstrucción periódica (una sola vez por proceso), cada
+     * biblioteca.demanda.reconstruccionMinutos minutos
+     */
+    public synchronized void iniciarReconstruccionPeriodica() {
+        long minutos = leerMinutos();
+        if (reconstruccionPeriodica != null || minutos <= 0) {
+            return;
+        }
+        reconstruccionPeriodica = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "biblioteca-demanda-materiales");
+            t.setDaemon(true);
+            return t;
+        });
+        reconstruccionPeriodica.scheduleWithFixedDelay(() -> {
+            try {
+                reconstruir();
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Error al reconstruir el índice de demanda", e);
+            }
+        }, minutos, minutos, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Registra un cambio confirmado de un préstamo
+     * Sirve para todas las transiciones: un alta no tiene estado anterior, una baja no tiene
+     * estado nuevo y una edición puede cambiar de material además de estado.
+     * Se llama con el candado de cambios de SincronizacionIndices tomado desde antes del commit.
+     * @param materialAnterior Material antes del cambio (null en un alta)
+     * @param estadoAnterior Estado antes del cambio (null en un alta)
+     * @param materialNuevo Material después del cambio (null en una baja)
+     * @param estadoNuevo Estado después del cambio (null en una baja)
+     */
+    public synchronized void registrarCambio(Long materialAnterior, EstadoPrestamo estadoAnterior,
+                                             Long materialNuevo, EstadoPrestamo estadoNuevo) {
+        if (!inicializado) {
+            // Se reconstruirá desde la base, que ya incluye este cambio
+            return;
+        }
+        if (materialAnterior != null && estadoAnterior != null) {
+            sumar(materialAnterior, estadoAnterior == EstadoPrestamo.PENDIENTE ? -1 : 0,
+                                    estadoAnterior == EstadoPrestamo.EN_CURSO ? -1 : 0);
+        }
+        if (materialNuevo != null && estadoNuevo != null) {
+            sumar(materialNuevo, estadoNuevo == EstadoPrestamo.PENDIENTE ? 1 : 0,
+                                 estadoNuevo == EstadoPrestamo.EN_CURSO ? 1 : 0);
+        }
+    }
+
+    /**
+     * Materiales con más préstamos pendientes y en curso
+     * @param limite Cantidad máxima a devolver (null o menor a 1 = todos)
+     * @return Demanda de cada material, de mayor a menor
+     */
+    public List<Demanda> obtenerMasDemandados(Integer limite) {
+        if (!inicializado) {
+            // Fuera del monitor: reconstruir toma antes el candado de SincronizacionIndices
+            reconstruir();
+        }
+        synchronized (this) {
+            return primeros(limite);
+        }
+    }
+
+    private List<Demanda> primeros(Integer limite) {
+        int cantidad = (limite == null || limite < 1) ? ranking.size() : Math.min(limite, ranking.size());
+        List<Demanda> resultado = new ArrayList<>(cantidad);
+        Iterator<Demanda> it = ranking.iterator();
+        while (resultado.size() < cantidad && it.hasNext()) {
+            resultado.add(it.next());
+        }
+        return resultado;
+    }
+
+    private static long leerMinutos() {
+        String valor = System.getProperty(PROPIEDAD_MINUTOS);
+        if (valor == null || valor.trim().isEmpty()) {
+            return 10;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            return 10;
+        }
+    }
+
+    private void sumar(Long materialId, long pendientes, long enCurso) {
+        if (pendientes == 0 && enCurso == 0) {
+            return;
+        }
+        Demanda actual = porMaterial.remove(materialId);
+        if (actual != null) {
+            ranking.remove(actual);
+            pendientes += actual.pendientes;
+            enCurso += actual.enCurso;
+        }
+        if (pendientes < 0 || enCurso < 0) {
+            // No debería ocurrir si todas las escrituras pasan por PrestamoService
+            logger.warning("Índice de demanda inconsistente para el material " + materialId + ", se corrige a cero");
+            pendientes = Math.max(0, pendientes);
+            enCurso = Math.max(0, enCurso);
+        }
+        if (pendientes + enCurso > 0) {
+            Demanda nueva = new Demanda(materialId, pendientes, enCurso);
+            porMaterial.put(materialId, nueva);
+            ranking.add(nueva);
+        }
+    }
+}
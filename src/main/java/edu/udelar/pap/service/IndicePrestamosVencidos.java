@@ -0,0 +1,401 @@
+package edu.udelar.pap.service;
+
+import edu.udelar.pap.domain.EstadoPrestamo;
+import edu.udelar.pap.persistence.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Índice de préstamos vencidos: préstamos EN_CURSO ordenados por fecha estimada de devolución
+ * Un préstamo está vencido si está EN_CURSO y su fecha estimada de devolución es anterior a hoy.
+ * PrestamoService lo actualiza al confirmar cada cambio de un préstamo y una tarea diaria
+ * lo reconstruye a medianoche, pasando a vencidos los préstamos cuya fecha quedó atrás.
+ * Los cambios se registran después del commit, fuera de los bloqueos de la base, así que dos
+ * transiciones seguidas del mismo préstamo pueden llegar en desorden: cada registro trae la
+ * versión confirmada del préstamo y se descartan los que no son más nuevos que el último.
+ *
+ * La cantidad de vencidos (total y por lector) y la consulta de un préstamo cuestan O(1);
+ * listar los k vencidos más antiguos cuesta O(k), sin recorrer la tabla de préstamos.
+ * Se reconstruye desde la base al iniciar el servidor o en el primer uso, cada medianoche y
+ * periódicamente durante el día: los cambios de otros procesos sobre la misma base (la
+ * aplicación de escritorio u otra instancia del servidor) no pasan por este índice y se
+ * incorporan en la siguiente reconstrucción. Ver SincronizacionIndices para los cambios que
+ * se confirman mientras se reconstruye.
+ *
+ * Propiedad de sistema (opcional):
+ *   biblioteca.vencidos.reconstruccionMinutos  minutos entre reconstrucciones (10 por defecto, 0 = solo a medianoche)
+ */
+public final class IndicePrestamosVencidos {
+
+    private static final Logger logger = Logger.getLogger(IndicePrestamosVencidos.class.getName());
+
+    static final String PROPIEDAD_MINUTOS = "biblioteca.vencidos.reconstruccionMinutos";
+
+    private static final IndicePrestamosVencidos INSTANCE = new IndicePrestamosVencidos();
+
+    /** Préstamos EN_CURSO por ID */
+    private final Map<Long, Vencimiento> activos = new HashMap<>();
+    /** IDs de los préstamos EN_CURSO agrupados por fecha estimada de devolución */
+    private final TreeMap<LocalDate, Set<Long>> porFecha = new TreeMap<>();
+    /** IDs de los préstamos vencidos de cada lector (solo lectores con alguno) */
+    private final Map<Long, Set<Long>> vencidosPorLector = new HashMap<>();
+    /** Última versión registrada de cada préstamo (los EN_CURSO al reconstruir y los que cambiaron después) */
+    private final Map<Long, Long> versiones = new HashMap<>();
+    private int cantidadVencidos;
+    private LocalDate hoy;
+    private volatile boolean inicializado;
+    private ScheduledExecutorService revisionDiaria;
+
+    private IndicePrestamosVencidos() {}
+
+    public static IndicePrestamosVencidos getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Préstamo EN_CURSO con su fecha estimada de devolución
+     */
+    public static final class Vencimiento {
+        private final Long prestamoId;
+        private final Long lectorId;
+        private final LocalDate fechaEstimadaDevolucion;
+
+        Vencimiento(Long prestamoId, Long lectorId, LocalDate fechaEstimadaDevolucion) {
+            this.prestamoId = prestamoId;
+            this.lectorId = lectorId;
+            this.fechaEstimadaDevolucion = fechaEstimadaDevolucion;
+        }
+
+        public Long getPrestamoId() {
+            return prestamoId;
+        }
+
+        public Long getLectorId() {
+            return lectorId;
+        }
+
+        public LocalDate getFechaEstimadaDevolucion() {
+            return fechaEstimadaDevolucion;
+        }
+    }
+
+    /**
+     * Recarga los préstamos EN_CURSO desde la base (solo ID, lector, fecha y versión)
+     * Mientras lee y reemplaza el índice, los préstamos que se confirman esperan (ver SincronizacionIndices).
+     */
+    public void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        int enCurso;
+        int vencidos;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            // La conexión se obtiene antes del candado, como en IndiceDemandaMateriales.reconstruir
+            Transaction tx = session.beginTransaction();
+            Lock reconstruccion = SincronizacionIndices.reconstruccion();
+            reconstruccion.lock();
+            try {
+                List<Object[]> filas = session.createQuery(
+                    "SELECT p.id, p.lector.id, p.fechaEstimadaDevolucion, p.version FROM Prestamo p WHERE p.estado = :enCurso",
+                    Object[].class)
+                    .setParameter("enCurso", EstadoPrestamo.EN_CURSO)
+                    .list();
+
+                synchronized (this) {
+                    activos.clear();
+                    porFecha.clear();
+                    vencidosPorLector.clear();
+                    versiones.clear();
+                    cantidadVencidos = 0;
+                    hoy = LocalDate.now();
+                    for (Object[] fila : filas) {
+                        if (fila[3] != null) {
+                            versiones.put((Long) fila[0], (Long) fila[3]);
+                        }
+                        if (fila[2] != null) {
+                            agregar(new Vencimiento((Long) fila[0], (Long) fila[1], (LocalDate) fila[2]));
+                        }
+                    }
+                    inicializado = true;
+                    enCurso = activos.size();
+                    vencidos = cantidadVencidos;
+                }
+            } finally {
+                reconstruccion.unlock();
+            }
+            tx.commit();
+        }
+        logger.info("Índice de préstamos vencidos reconstruido: " + enCurso + " en curso, " +
+                    vencidos + " vencidos en " + (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    /**
+     * Registra el estado confirmado de un préstamo (alta, cambio de estado o de fecha, edición)
+     * Reemplaza lo que hubiera para ese préstamo: queda en el índice solo si está EN_CURSO.
+     * Se ignora si ya se registró una versión igual o más nueva del mismo préstamo.
+     * Se llama con el candado de cambios de SincronizacionIndices tomado desde antes del commit.
+     * @param prestamoId ID del préstamo
+     * @param version Versión del préstamo confirmada con el cambio
+     * @param lectorId Lector del préstamo
+     * @param estado Estado después del cambio
+     * @param fechaEstimadaDevolucion Fecha estimada de devolución después del cambio
+     */
+    public synchronized void registrar(Long prestamoId, Long version, Long lectorId, EstadoPrestamo estado,
+                                       LocalDate fechaEstimadaDevolucion) {
+        if (!inicializado || prestamoId == null) {
+            // Se reconstruirá desde la base, que ya incluye este cambio
+            return;
+        }
+        if (version != null) {
+            Long registrada = versiones.get(prestamoId);
+            if (registrada != null && version <= registrada) {
+                logger.fine(() -> "Registro del préstamo " + prestamoId + " versión " + version +
+                                  " descartado: ya se registró la versión " + registrada);
+                return;
+            }
+            versiones.put(prestamoId, version);
+        }
+        avanzarSiCambioElDia();
+        quitar(prestamoId);
+        if (estado == EstadoPrestamo.EN_CURSO && lectorId != null && fechaEstimadaDevolucion != null) {
+            agregar(new Vencimiento(prestamoId, lectorId, fechaEstimadaDevolucion));
+        }
+    }
+
+    /**
+     * Registra la baja de un préstamo: ningún registro posterior de ese ID lo vuelve a agregar
+     */
+    public void registrarBaja(Long prestamoId) {
+        registrar(prestamoId, Long.MAX_VALUE, null, null, null);
+    }
+
+    /**
+     * @return Cantidad de préstamos vencidos
+     */
+    public long contarVencidos() {
+        asegurarInicializado();
+        synchronized (this) {
+            avanzarSiCambioElDia();
+            return cantidadVencidos;
+        }
+    }
+
+    /**
+     * @return Cantidad de préstamos vencidos de un lector
+     */
+    public long contarVencidosPorLector(Long lectorId) {
+        asegurarInicializado();
+        synchronized (this) {
+            avanzarSiCambioElDia();
+            Set<Long> ids = vencidosPorLector.get(lectorId);
+            return ids != null ? ids.size() : 0;
+        }
+    }
+
+    /**
+     * @return true si el préstamo está EN_CURSO con la fecha estimada de devolución vencida
+     */
+    public boolean estaVencido(Long prestamoId) {
+        asegurarInicializado();
+        synchronized (this) {
+            avanzarSiCambioElDia();
+            Vencimiento vencimiento = activos.get(prestamoId);
+            return vencimiento != null && vencimiento.fechaEstimadaDevolucion.isBefore(hoy);
+        }
+    }
+
+    /**
+     * Préstamos vencidos, los de fecha estimada de devolución más antigua primero
+     * @param limite Cantidad máxima a devolver (null o menor a 1 = todos)
+     */
+    public List<Vencimiento> obtenerVencidos(Integer limite) {
+        asegurarInicializado();
+        synchronized (this) {
+            avanzarSiCambioElDia();
+            int cantidad = (limite == null || limite < 1) ? cantidadVencidos : Math.min(limite, cantidadVencidos);
+            List<Vencimiento> resultado = new ArrayList<>(cantidad);
+            for (Set<Long> ids : porFecha.headMap(hoy, false).values()) {
+                for (Long id : ids) {
+                    if (resultado.size() >= cantidad) {
+                        return resultado;
+                    }
+                    resultado.add(activos.get(id));
+                }
+            }
+            return resultado;
+        }
+    }
+
+    /**
+     * Préstamos vencidos de un lector, los de fecha más antigua primero
+     */
+    public List<Vencimiento> obtenerVencidosPorLector(Long lectorId) {
+        asegurarInicializado();
+        synchronized (this) {
+            avanzarSiCambioElDia();
+            Set<Long> ids = vencidosPorLector.get(lectorId);
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            List<Vencimiento> resultado = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                resultado.add(activos.get(id));
+            }
+            resultado.sort((a, b) -> a.fechaEstimadaDevolucion.compareTo(b.fechaEstimadaDevolucion));
+            return resultado;
+        }
+    }
+
+    /**
+     * Mueve el día de corte: los préstamos con fecha anterior a nuevoHoy pasan a vencidos
+     * Se usa al consultar el índice si cambió el día desde la última reconstrucción (la revisión
+     * de medianoche se atrasó); también admite que el reloj retroceda.
+     */
+    public synchronized void avanzarDia(LocalDate nuevoHoy) {
+        if (!inicializado || nuevoHoy.equals(hoy)) {
+            return;
+        }
+        int antes = cantidadVencidos;
+        boolean avanza = nuevoHoy.isAfter(hoy);
+        // Fechas que cambian de lado: [hoy, nuevoHoy) al avanzar, [nuevoHoy, hoy) al retroceder
+        Map<LocalDate, Set<Long>> cambian = avanza
+            ? porFecha.subMap(hoy, true, nuevoHoy, false)
+            : porFecha.subMap(nuevoHoy, true, hoy, false);
+        for (Set<Long> ids : cambian.values()) {
+            for (Long id : ids) {
+                if (avanza) {
+                    marcarVencido(activos.get(id));
+                } else {
+                    desmarcarVencido(activos.get(id));
+                }
+            }
+        }
+        hoy = nuevoHoy;
+        logger.info("Índice de préstamos vencidos avanzado al " + nuevoHoy + ": " + antes + " → " +
+                    cantidadVencidos + " vencidos");
+    }
+
+    /**
+     * Inicia la tarea que reconstruye el índice cada medianoche y cada
+     * biblioteca.vencidos.reconstruccionMinutos minutos (una sola vez por proceso)
+     */
+    public synchronized void iniciarRevisionDiaria() {
+        if (revisionDiaria != null) {
+            return;
+        }
+        revisionDiaria = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "biblioteca-prestamos-vencidos");
+            t.setDaemon(true);
+            return t;
+        });
+        programarSiguienteRevision();
+        long minutos = leerMinutos();
+        if (minutos > 0) {
+            revisionDiaria.scheduleWithFixedDelay(() -> {
+                try {
+                    reconstruir();
+                } catch (RuntimeException e) {
+                    logger.log(Level.SEVERE, "Error al reconstruir el índice de préstamos vencidos", e);
+                }
+            }, minutos, minutos, TimeUnit.MINUTES);
+        }
+    }
+
+    private void programarSiguienteRevision() {
+        LocalDateTime ahora = LocalDateTime.now();
+        // Un segundo después de medianoche, para no quedar del lado anterior del cambio de día
+        long demora = Duration.between(ahora, ahora.toLocalDate().plusDays(1).atStartOfDay().plusSeconds(1)).toMillis();
+        revisionDiaria.schedule(() -> {
+            try {
+                // Reconstruye en lugar de solo avanzar el día, para incorporar los cambios de otros procesos
+                reconstruir();
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Error en la revisión diaria de préstamos vencidos", e);
+            } finally {
+                synchronized (this) {
+                    programarSiguienteRevision();
+                }
+            }
+        }, demora, TimeUnit.MILLISECONDS);
+    }
+
+    // Fuera del monitor: reconstruir toma antes el candado de SincronizacionIndices
+    private void asegurarInicializado() {
+        if (!inicializado) {
+            reconstruir();
+        }
+    }
+
+    private static long leerMinutos() {
+        String valor = System.getProperty(PROPIEDAD_MINUTOS);
+        if (valor == null || valor.trim().isEmpty()) {
+            return 10;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            return 10;
+        }
+    }
+
+    // Por si la revisión diaria se atrasa (equipo suspendido, reloj ajustado)
+    private void avanzarSiCambioElDia() {
+        LocalDate actual = LocalDate.now();
+        if (!actual.equals(hoy)) {
+            avanzarDia(actual);
+        }
+    }
+
+    private void agregar(Vencimiento vencimiento) {
+        activos.put(vencimiento.prestamoId, vencimiento);
+        porFecha.computeIfAbsent(vencimiento.fechaEstimadaDevolucion, f -> new TreeSet<>()).add(vencimiento.prestamoId);
+        if (vencimiento.fechaEstimadaDevolucion.isBefore(hoy)) {
+            marcarVencido(vencimiento);
+        }
+    }
+
+    private void quitar(Long prestamoId) {
+        Vencimiento anterior = activos.remove(prestamoId);
+        if (anterior == null) {
+            return;
+        }
+        Set<Long> ids = porFecha.get(anterior.fechaEstimadaDevolucion);
+        ids.remove(prestamoId);
+        if (ids.isEmpty()) {
+            porFecha.remove(anterior.fechaEstimadaDevolucion);
+        }
+        if (anterior.fechaEstimadaDevolucion.isBefore(hoy)) {
+            desmarcarVencido(anterior);
+        }
+    }
+
+    private void marcarVencido(Vencimiento vencimiento) {
+        vencidosPorLector.computeIfAbsent(vencimiento.lectorId, l -> new TreeSet<>()).add(vencimiento.prestamoId);
+        cantidadVencidos++;
+    }
+
+    private void desmarcarVencido(Vencimiento vencimiento) {
+        Set<Long> ids = vencidosPorLector.get(vencimiento.lectorId);
+        ids.remove(vencimiento.prestamoId);
+        if (ids.isEmpty()) {
+            vencidosPorLector.remove(vencimiento.lectorId);
+        }
+        cantidadVencidos--;
+    }
+}
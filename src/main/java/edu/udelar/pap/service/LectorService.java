@@ -2,10 +2,14 @@ package edu.udelar.pap.service;
 
 import edu.udelar.pap.domain.Lector;
 import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.persistence.ReintentoOptimista;
+import edu.udelar.pap.util.RegistroMetricas;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
 import java.util.List;
+import java.util.stream.Stream;
 import edu.udelar.pap.domain.EstadoLector;
 import edu.udelar.pap.domain.Zona;
 
@@ -16,6 +20,7 @@ import edu.udelar.pap.domain.Zona;
 public class LectorService {
     
     private final SessionFactory sessionFactory;
+    private final RegistroMetricas metricas = RegistroMetricas.getInstance();
     
     public LectorService() {
         this.sessionFactory = HibernateUtil.getSessionFactory();
@@ -26,48 +31,59 @@ public class LectorService {
      * Incluye validaciones de negocio
      */
     public void guardarLector(Lector lector) throws IllegalStateException {
-        // Validaciones de negocio
-        if (lector == null) {
-            throw new IllegalStateException("El lector no puede ser nulo");
-        }
+        metricas.medirAccion(RegistroMetricas.Tipo.SERVICIO, "LectorService.guardarLector", () -> {
+            // Validaciones de negocio
+            if (lector == null) {
+                throw new IllegalStateException("El lector no puede ser nulo");
+            }
         
-        if (lector.getNombre() == null || lector.getNombre().trim().isEmpty()) {
-            throw new IllegalStateException("El nombre del lector es obligatorio");
-        }
+            if (lector.getNombre() == null || lector.getNombre().trim().isEmpty()) {
+                throw new IllegalStateException("El nombre del lector es obligatorio");
+            }
         
-        if (lector.getEmail() == null || lector.getEmail().trim().isEmpty()) {
-            throw new IllegalStateException("El email del lector es obligatorio");
-        }
+            if (lector.getEmail() == null || lector.getEmail().trim().isEmpty()) {
+                throw new IllegalStateException("El email del lector es obligatorio");
+            }
         
-        if (lector.getDireccion() == null || lector.getDireccion().trim().isEmpty()) {
-            throw new IllegalStateException("La dirección del lector es obligatoria");
-        }
+            if (lector.getDireccion() == null || lector.getDireccion().trim().isEmpty()) {
+                throw new IllegalStateException("La dirección del lector es obligatoria");
+            }
         
-        // Verificar que el email no esté ya en uso
-        if (existeLectorConEmail(lector.getEmail())) {
-            throw new IllegalStateException("Ya existe un lector con el email: " + lector.getEmail());
-        }
+            // Verificar que el email no esté ya en uso
+            if (existeLectorConEmail(lector.getEmail())) {
+                throw new IllegalStateException("Ya existe un lector con el email: " + lector.getEmail());
+            }
         
-        // Validar formato de email básico
-        if (!lector.getEmail().contains("@") || !lector.getEmail().contains(".")) {
-            throw new IllegalStateException("El formato del email no es válido");
-        }
+            // Validar formato de email básico
+            if (!lector.getEmail().contains("@") || !lector.getEmail().contains(".")) {
+                throw new IllegalStateException("El formato del email no es válido");
+            }
         
-        try (Session session = sessionFactory.openSession()) {
-            Transaction tx = session.beginTransaction();
-            session.persist(lector);
-            tx.commit();
-        }
+            try (Session session = sessionFactory.openSession()) {
+                Transaction tx = session.beginTransaction();
+                session.persist(lector);
+                tx.commit();
+            }
+        });
     }
     
     /**
      * Actualiza un lector existente
+     * @throws edu.udelar.pap.exception.ConflictoConcurrenciaException Si otro usuario lo modificó
+     *         después de que se leyó (su versión ya no coincide)
      */
     public void actualizarLector(Lector lector) {
         try (Session session = sessionFactory.openSession()) {
             Transaction tx = session.beginTransaction();
-            session.merge(lector);
-            tx.commit();
+            try {
+                session.merge(lector);
+                tx.commit();
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw ReintentoOptimista.traducir("Lector", lector.getId(), e);
+            }
         }
     }
     
@@ -106,8 +122,51 @@ public class LectorService {
      * Obtiene todos los lectores
      */
     public List<Lector> obtenerTodosLosLectores() {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("FROM Lector ORDER BY nombre", Lector.class).list();
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "LectorService.obtenerTodosLosLectores", () -> {
+            try (Session session = sessionFactory.openSession()) {
+                return session.createQuery("FROM Lector ORDER BY nombre", Lector.class).list();
+            }
+        });
+    }
+    
+    /**
+     * Ordenes admitidos por la paginación de lectores (el primero es el por defecto)
+     */
+    private static final java.util.Map<String, Paginacion.Orden<Lector>> ORDENES_LECTORES = Paginacion.ordenes(
+        java.util.Map.entry("nombre", Paginacion.Orden.porTexto("nombre", false, Lector::getNombre)),
+        java.util.Map.entry("fechaRegistro", Paginacion.Orden.porFecha("fechaRegistro", true, Lector::getFechaRegistro)),
+        java.util.Map.entry("id", Paginacion.Orden.<Lector>porId()));
+    
+    /**
+     * Obtiene una página de lectores con paginación por cursor (keyset)
+     * @param orden nombre (por defecto), fechaRegistro (más recientes primero) o id
+     * @param cursor Cursor de la página anterior, o null para la primera
+     * @param limite Tamaño de página (ver Paginacion.LIMITE_MAXIMO)
+     * @throws IllegalArgumentException Si el orden o el cursor no son válidos
+     */
+    public Pagina<Lector> obtenerPaginaLectores(String orden, String cursor, Integer limite) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "LectorService.obtenerPaginaLectores", () -> {
+            try (Session session = sessionFactory.openSession()) {
+                return Paginacion.consultar(session, Lector.class, "SELECT l FROM Lector l", "l",
+                    ORDENES_LECTORES, orden, cursor, limite, Lector::getId);
+            }
+        });
+    }
+    
+    /**
+     * Recorre todos los lectores en streaming, en el mismo orden que obtenerTodosLosLectores
+     * El Stream debe cerrarse (try-with-resources) para liberar el cursor y la conexión
+     */
+    public Stream<Lector> streamTodosLosLectores() {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            return session.createQuery("FROM Lector ORDER BY nombre", Lector.class)
+                .setFetchSize(HibernateUtil.FETCH_SIZE_STREAMING)
+                .stream()
+                .onClose(session::close);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
         }
     }
     
@@ -161,48 +220,56 @@ public class LectorService {
 
     /**
      * Cambia el estado de un lector
+     * Fijar un valor es idempotente: ante un conflicto de versión se relee el lector y se reintenta
+     * @throws edu.udelar.pap.exception.ConflictoConcurrenciaException Si el conflicto persiste tras los reintentos
      */
     public boolean cambiarEstadoLector(Long lectorId, EstadoLector nuevoEstado) {
-        try (Session session = sessionFactory.openSession()) {
-            Transaction tx = session.beginTransaction();
-            try {
-                Lector lector = session.get(Lector.class, lectorId);
-                if (lector != null) {
-                    lector.setEstado(nuevoEstado);
-                    session.merge(lector);
-                    tx.commit();
-                    return true;
+        return ReintentoOptimista.ejecutar("Lector", lectorId, () -> {
+            try (Session session = sessionFactory.openSession()) {
+                Transaction tx = session.beginTransaction();
+                try {
+                    Lector lector = session.get(Lector.class, lectorId);
+                    if (lector != null) {
+                        lector.setEstado(nuevoEstado);
+                        session.merge(lector);
+                        tx.commit();
+                        return true;
+                    }
+                    tx.rollback();
+                    return false;
+                } catch (RuntimeException e) {
+                    tx.rollback();
+                    throw e;
                 }
-                tx.rollback();
-                return false;
-            } catch (Exception e) {
-                tx.rollback();
-                throw e;
             }
-        }
+        });
     }
 
     /**
      * Cambia la zona de un lector
+     * Fijar un valor es idempotente: ante un conflicto de versión se relee el lector y se reintenta
+     * @throws edu.udelar.pap.exception.ConflictoConcurrenciaException Si el conflicto persiste tras los reintentos
      */
     public boolean cambiarZonaLector(Long lectorId, Zona nuevaZona) {
-        try (Session session = sessionFactory.openSession()) {
-            Transaction tx = session.beginTransaction();
-            try {
-                Lector lector = session.get(Lector.class, lectorId);
-                if (lector != null) {
-                    lector.setZona(nuevaZona);
-                    session.merge(lector);
-                    tx.commit();
-                    return true;
+        return ReintentoOptimista.ejecutar("Lector", lectorId, () -> {
+            try (Session session = sessionFactory.openSession()) {
+                Transaction tx = session.beginTransaction();
+                try {
+                    Lector lector = session.get(Lector.class, lectorId);
+                    if (lector != null) {
+                        lector.setZona(nuevaZona);
+                        session.merge(lector);
+                        tx.commit();
+                        return true;
+                    }
+                    tx.rollback();
+                    return false;
+                } catch (RuntimeException e) {
+                    tx.rollback();
+                    throw e;
                 }
-                tx.rollback();
-                return false;
-            } catch (Exception e) {
-                tx.rollback();
-                throw e;
             }
-        }
+        });
     }
 
     /**
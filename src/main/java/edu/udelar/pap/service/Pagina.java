@@ -0,0 +1,56 @@
+package edu.udelar.pap.service;
+
+import java.util.List;
+
+/**
+ * Página de resultados de una consulta paginada por cursor (keyset)
+ * @param <T> Tipo de los elementos
+ */
+public final class Pagina<T> {
+
+    private final List<T> elementos;
+    private final String siguienteCursor;
+    private final String orden;
+    private final int limite;
+
+    public Pagina(List<T> elementos, String siguienteCursor, String orden, int limite) {
+        this.elementos = elementos;
+        this.siguienteCursor = siguienteCursor;
+        this.orden = orden;
+        this.limite = limite;
+    }
+
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    /**
+     * @return Cursor para pedir la página siguiente, o null si esta es la última
+     */
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    public boolean hayMas() {
+        return siguienteCursor != null;
+    }
+
+    public String getOrden() {
+        return orden;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    /**
+     * Datos de paginación en JSON, sin llaves, para agregar a la respuesta del listado
+     * @return p. ej. "siguienteCursor": "...", "hayMas": true, "orden": "nombre", "limite": 50
+     */
+    public String metadatosJson() {
+        return "\"siguienteCursor\": " + (siguienteCursor != null ? "\"" + siguienteCursor + "\"" : "null") +
+               ", \"hayMas\": " + hayMas() +
+               ", \"orden\": \"" + orden + "\"" +
+               ", \"limite\": " + limite;
+    }
+}
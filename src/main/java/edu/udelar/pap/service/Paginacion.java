@@ -0,0 +1,182 @@
+package edu.udelar.pap.service;
+
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Paginación por cursor (keyset) para los listados de los servicios
+ * En lugar de OFFSET, cada página continúa a partir de la clave de orden y el id del
+ * último elemento de la anterior, por lo que el costo no crece con el número de página
+ * y las filas insertadas entre páginas no producen saltos ni duplicados.
+ *
+ * El cursor es opaco para el cliente: codifica el orden, el valor de orden y el id.
+ */
+public final class Paginacion {
+
+    public static final int LIMITE_POR_DEFECTO = 50;
+    public static final int LIMITE_MAXIMO = 500;
+
+    private Paginacion() {}
+
+    /**
+     * Criterio de orden admitido por un listado
+     * @param <T> Tipo de entidad
+     */
+    public static final class Orden<T> {
+        private final String propiedad;
+        private final boolean descendente;
+        private final Function<T, Object> valor;
+        private final Function<String, Object> parser;
+
+        private Orden(String propiedad, boolean descendente, Function<T, Object> valor, Function<String, Object> parser) {
+            this.propiedad = propiedad;
+            this.descendente = descendente;
+            this.valor = valor;
+            this.parser = parser;
+        }
+
+        /** Orden solo por id ascendente */
+        public static <T> Orden<T> porId() {
+            return new Orden<>(null, false, null, null);
+        }
+
+        /** Orden por una propiedad de texto (desempata por id) */
+        public static <T> Orden<T> porTexto(String propiedad, boolean descendente, Function<T, String> valor) {
+            return new Orden<>(propiedad, descendente, valor::apply, s -> s);
+        }
+
+        /** Orden por una propiedad de fecha (desempata por id) */
+        public static <T> Orden<T> porFecha(String propiedad, boolean descendente, Function<T, LocalDate> valor) {
+            return new Orden<>(propiedad, descendente, valor::apply, LocalDate::parse);
+        }
+    }
+
+    /**
+     * Ordenes admitidos por un listado, en orden de declaración; el primero es el por defecto
+     */
+    @SafeVarargs
+    public static <T> Map<String, Orden<T>> ordenes(Map.Entry<String, Orden<T>>... entradas) {
+        Map<String, Orden<T>> ordenes = new LinkedHashMap<>();
+        for (Map.Entry<String, Orden<T>> entrada : entradas) {
+            ordenes.put(entrada.getKey(), entrada.getValue());
+        }
+        return ordenes;
+    }
+
+    /**
+     * Normaliza el tamaño de página pedido
+     * @param limite Tamaño pedido (null o menor a 1 usa el valor por defecto)
+     * @return Tamaño entre 1 y LIMITE_MAXIMO
+     */
+    public static int normalizarLimite(Integer limite) {
+        if (limite == null || limite < 1) {
+            return LIMITE_POR_DEFECTO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    /**
+     * Ejecuta una consulta paginada por cursor
+     * @param session Sesión abierta
+     * @param tipo Clase de la entidad
+     * @param consulta HQL base sin WHERE ni ORDER BY, p. ej. "SELECT p FROM Prestamo p LEFT JOIN FETCH p.lector"
+     * @param alias Alias de la entidad en la consulta base
+     * @param ordenes Ordenes admitidos (ver ordenes())
+     * @param claveOrden Orden pedido (null usa el primero de ordenes)
+     * @param cursor Cursor devuelto por la página anterior (null para la primera)
+     * @param limite Tamaño de página pedido
+     * @param id Función que obtiene el id de la entidad
+     * @return La página y el cursor de la siguiente
+     * @throws IllegalArgumentException Si el orden o el cursor no son válidos
+     */
+    public static <T> Pagina<T> consultar(Session session, Class<T> tipo, String consulta, String alias,
+                                          Map<String, Orden<T>> ordenes, String claveOrden, String cursor,
+                                          Integer limite, Function<T, Long> id) {
+        String clave = (claveOrden == null || claveOrden.trim().isEmpty())
+            ? ordenes.keySet().iterator().next() : claveOrden.trim();
+        Orden<T> orden = ordenes.get(clave);
+        if (orden == null) {
+            throw new IllegalArgumentException("Orden no válido: " + clave + ". Valores admitidos: " + ordenes.keySet());
+        }
+        int tamano = normalizarLimite(limite);
+
+        StringBuilder hql = new StringBuilder(consulta);
+        Object valorCursor = null;
+        Long idCursor = null;
+        if (cursor != null && !cursor.trim().isEmpty()) {
+            String[] partes = decodificar(cursor.trim());
+            if (!partes[0].equals(clave)) {
+                throw new IllegalArgumentException("El cursor corresponde a otro orden (" + partes[0] + ")");
+            }
+            try {
+                idCursor = Long.parseLong(partes[2]);
+                valorCursor = orden.parser != null ? orden.parser.apply(partes[1]) : null;
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor no válido", e);
+            }
+            if (orden.propiedad == null) {
+                hql.append(" WHERE ").append(alias).append(".id > :idCursor");
+            } else {
+                String comparador = orden.descendente ? " < " : " > ";
+                String propiedad = alias + "." + orden.propiedad;
+                hql.append(" WHERE (").append(propiedad).append(comparador).append(":valorCursor OR (")
+                   .append(propiedad).append(" = :valorCursor AND ")
+                   .append(alias).append(".id").append(comparador).append(":idCursor))");
+            }
+        }
+
+        String direccion = orden.descendente ? " DESC" : " ASC";
+        hql.append(" ORDER BY ");
+        if (orden.propiedad != null) {
+            hql.append(alias).append(".").append(orden.propiedad).append(direccion).append(", ");
+        }
+        hql.append(alias).append(".id").append(orden.propiedad != null ? direccion : " ASC");
+
+        Query<T> query = session.createQuery(hql.toString(), tipo);
+        if (idCursor != null) {
+            query.setParameter("idCursor", idCursor);
+        }
+        if (valorCursor != null) {
+            query.setParameter("valorCursor", valorCursor);
+        }
+        // Se pide una fila de más para saber si hay página siguiente
+        List<T> filas = query.setMaxResults(tamano + 1).list();
+
+        String siguiente = null;
+        if (filas.size() > tamano) {
+            filas = new ArrayList<>(filas.subList(0, tamano));
+            T ultimo = filas.get(tamano - 1);
+            Object valor = orden.valor != null ? orden.valor.apply(ultimo) : "";
+            siguiente = codificar(clave, String.valueOf(valor), id.apply(ultimo));
+        }
+        return new Pagina<>(filas, siguiente, clave, tamano);
+    }
+
+    private static String codificar(String clave, String valor, Long id) {
+        String plano = clave + "\n" + valor + "\n" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodificar(String cursor) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int primero = plano.indexOf('\n');
+            int ultimo = plano.lastIndexOf('\n');
+            if (primero < 0 || ultimo == primero) {
+                throw new IllegalArgumentException("Cursor no válido");
+            }
+            return new String[] { plano.substring(0, primero), plano.substring(primero + 1, ultimo), plano.substring(ultimo + 1) };
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor no válido", e);
+        }
+    }
+}
@@ -6,15 +6,33 @@ import edu.udelar.pap.domain.Bibliotecario;
 import edu.udelar.pap.domain.Libro;
 import edu.udelar.pap.domain.ArticuloEspecial;
 import edu.udelar.pap.domain.Zona;
+import edu.udelar.pap.persistence.CatalogoCache;
 import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.persistence.ModoLectura;
+import edu.udelar.pap.persistence.ReintentoOptimista;
+import edu.udelar.pap.util.RegistroMetricas;
+import org.hibernate.LockMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.query.MutationQuery;
+import org.hibernate.query.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 import java.time.LocalDate;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 import java.util.function.Function;
+import java.util.concurrent.locks.Lock;
 import edu.udelar.pap.domain.EstadoPrestamo;
 
 /**
@@ -24,7 +42,18 @@ import edu.udelar.pap.domain.EstadoPrestamo;
 public class PrestamoService {
     
     private static final Logger logger = Logger.getLogger(PrestamoService.class.getName());
+    
+    /** Región de la caché de consultas para los reportes agregados de préstamos */
+    private static final String REGION_REPORTES = "prestamos.reportes";
+    
+    /** Préstamos EN_CURSO que puede tener un lector a la vez */
+    public static final int MAXIMO_PRESTAMOS_ACTIVOS = 3;
+    private static final String MENSAJE_LIMITE_PRESTAMOS =
+        "El lector ya tiene el máximo de préstamos permitidos (" + MAXIMO_PRESTAMOS_ACTIVOS + ")";
     private final SessionFactory sessionFactory;
+    private final IndiceDemandaMateriales indiceDemanda = IndiceDemandaMateriales.getInstance();
+    private final IndicePrestamosVencidos indiceVencidos = IndicePrestamosVencidos.getInstance();
+    private final RegistroMetricas metricas = RegistroMetricas.getInstance();
     
     public PrestamoService() {
         this.sessionFactory = HibernateUtil.getSessionFactory();
@@ -38,114 +67,215 @@ public class PrestamoService {
     private <T> T ejecutarTransaccionPrestamo(Long prestamoId, 
                                              Function<Prestamo, T> operacion,
                                              String operacionNombre) {
-        try (Session session = sessionFactory.openSession()) {
-            Transaction tx = session.beginTransaction();
-            try {
-                Prestamo prestamo = session.get(Prestamo.class, prestamoId);
-                if (prestamo == null) {
-                    tx.rollback();
-                    logger.warning("Préstamo no encontrado - ID: " + prestamoId);
-                    return null;
-                }
+        return ejecutarTransaccionPrestamo(prestamoId, false, (session, prestamo) -> operacion.apply(prestamo), operacionNombre);
+    }
+    
+    /**
+     * Igual que ejecutarTransaccionPrestamo, con la sesión disponible para la operación
+     * @param bloquearLector true para bloquear el préstamo y su lector antes de leerlo
+     *        (operaciones que pueden aumentar los préstamos activos del lector, ver bloquearLectorDelPrestamo)
+     * @throws edu.udelar.pap.exception.ConflictoConcurrenciaException Si el préstamo sigue cambiando
+     *         tras ReintentoOptimista.INTENTOS_MAXIMOS intentos
+     */
+    private <T> T ejecutarTransaccionPrestamo(Long prestamoId, boolean bloquearLector,
+                                             java.util.function.BiFunction<Session, Prestamo, T> operacion,
+                                             String operacionNombre) {
+        // Cada intento relee y revalida el préstamo: si otro lo cambió, la transición se
+        // reintenta sobre el estado nuevo (o falla su validación si ya no corresponde)
+        return ReintentoOptimista.ejecutar("Préstamo", prestamoId, () -> {
+            try (Session session = sessionFactory.openSession()) {
+                Transaction tx = session.beginTransaction();
+                try {
+                    Prestamo prestamo = !bloquearLector || bloquearLectorDelPrestamo(session, prestamoId) != null
+                        ? session.get(Prestamo.class, prestamoId)
+                        : null;
+                    if (prestamo == null) {
+                        tx.rollback();
+                        logger.warning("Préstamo no encontrado - ID: " + prestamoId);
+                        return null;
+                    }
                 
-                T resultado = operacion.apply(prestamo);
-                session.merge(prestamo);
-                tx.commit();
+                    Long materialAnterior = idMaterial(prestamo);
+                    EstadoPrestamo estadoAnterior = prestamo.getEstado();
+                    T resultado = operacion.apply(session, prestamo);
+                    session.merge(prestamo);
+                    confirmar(tx, () -> {
+                        indiceDemanda.registrarCambio(materialAnterior, estadoAnterior, idMaterial(prestamo), prestamo.getEstado());
+                        indiceVencidos.registrar(prestamo.getId(), prestamo.getVersion(), idLector(prestamo), prestamo.getEstado(), prestamo.getFechaEstimadaDevolucion());
+                    });
                 
-                logger.info("Préstamo " + operacionNombre + " exitosamente - ID: " + prestamo.getId() + 
-                           ", Lector: " + prestamo.getLector().getNombre() + 
-                           ", Material: " + prestamo.getMaterial().getClass().getSimpleName());
-                return resultado;
+                    logger.log(Level.INFO, "Préstamo {0} exitosamente - ID: {1}, Lector: {2}, Material: {3}", new Object[] {
+                        operacionNombre, prestamo.getId(), prestamo.getLector().getNombre(),
+                        prestamo.getMaterial().getClass().getSimpleName()});
+                    return resultado;
                 
-            } catch (Exception e) {
-                tx.rollback();
-                logger.log(Level.SEVERE, "Error al " + operacionNombre + " préstamo - ID: " + prestamoId, e);
-                throw e;
+                } catch (RuntimeException e) {
+                    tx.rollback();
+                    // Los conflictos de versión se reintentan: no son errores del servidor
+                    if (!ReintentoOptimista.esConflictoDeVersion(e)) {
+                        logger.log(Level.SEVERE, "Error al " + operacionNombre + " préstamo - ID: " + prestamoId, e);
+                    }
+                    throw e;
+                }
             }
-        }
+        });
     }
     
     /**
      * Guarda un nuevo préstamo en la base de datos
-     * Incluye validaciones de negocio
+     * Incluye validaciones de negocio; el lector, el bibliotecario y el material se vuelven
+     * a leer por ID dentro de la transacción (ver crearPrestamo), no se copian los recibidos
      */
     public void guardarPrestamo(Prestamo prestamo) throws IllegalStateException {
-        // Validaciones de negocio
-        if (prestamo.getLector() == null) {
-            throw new IllegalStateException("El préstamo debe tener un lector asignado");
-        }
-        
-        if (prestamo.getBibliotecario() == null) {
-            throw new IllegalStateException("El préstamo debe tener un bibliotecario asignado");
-        }
-        
-        if (prestamo.getMaterial() == null) {
-            throw new IllegalStateException("El préstamo debe tener un material asignado");
-        }
+        metricas.medirAccion(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.guardarPrestamo", () -> {
+            // Validaciones de negocio
+            if (prestamo.getLector() == null) {
+                throw new IllegalStateException("El préstamo debe tener un lector asignado");
+            }
         
-        // Verificar que el lector esté activo
-        if (prestamo.getLector().getEstado() != edu.udelar.pap.domain.EstadoLector.ACTIVO) {
-            throw new IllegalStateException("No se puede crear un préstamo para un lector suspendido");
-        }
+            if (prestamo.getBibliotecario() == null) {
+                throw new IllegalStateException("El préstamo debe tener un bibliotecario asignado");
+            }
         
-        // COMENTADO: Permitir préstamos múltiples del mismo material según requisitos
-        // Verificar que el material no esté ya prestado
-        // if (materialEstaPrestado(prestamo.getMaterial())) {
-        //     throw new IllegalStateException("El material seleccionado ya está prestado");
-        // }
+            if (prestamo.getMaterial() == null) {
+                throw new IllegalStateException("El préstamo debe tener un material asignado");
+            }
         
-        // Log del estado antes de guardar
-        System.out.println("💾 guardarPrestamo - Estado del préstamo a guardar: " + prestamo.getEstado());
+            // COMENTADO: Permitir préstamos múltiples del mismo material según requisitos
+            // Verificar que el material no esté ya prestado
+            // if (materialEstaPrestado(prestamo.getMaterial())) {
+            //     throw new IllegalStateException("El material seleccionado ya está prestado");
+            // }
         
-        // Verificar límite de préstamos por lector (máximo 3 préstamos activos)
-        long prestamosActivos = obtenerNumeroPrestamosActivos(prestamo.getLector());
-        System.out.println("📊 Préstamos activos del lector: " + prestamosActivos);
-        if (prestamosActivos >= 3) {
-            throw new IllegalStateException("El lector ya tiene el máximo de préstamos permitidos (3)");
-        }
+            // Log del estado antes de guardar
+            logger.fine(() -> "guardarPrestamo - Estado del préstamo a guardar: " + prestamo.getEstado());
         
+            persistirPrestamo(prestamo, prestamo.getLector().getId(), prestamo.getBibliotecario().getId(),
+                prestamo.getMaterial().getId());
+        });
+    }
+    
+    /**
+     * Crea un préstamo en una sola sesión y transacción
+     * Es la unidad de trabajo de guardarPrestamo sin entidades de por medio: con los IDs alcanza.
+     * @param fechaEstimadaDevolucion Fecha estimada de devolución (ya validada)
+     * @param estado Estado inicial del préstamo
+     * @return ID del préstamo creado
+     * @throws IllegalStateException Si el lector, el bibliotecario o el material no existen, el lector
+     *         está suspendido o ya tiene el máximo de préstamos activos
+     */
+    public Long crearPrestamo(Long lectorId, Long bibliotecarioId, Long materialId,
+                              LocalDate fechaEstimadaDevolucion, EstadoPrestamo estado) throws IllegalStateException {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.crearPrestamo", () -> {
+            Prestamo prestamo = new Prestamo();
+            prestamo.setFechaSolicitud(LocalDate.now());
+            prestamo.setFechaEstimadaDevolucion(fechaEstimadaDevolucion);
+            prestamo.setEstado(estado);
+            persistirPrestamo(prestamo, lectorId, bibliotecarioId, materialId);
+            return prestamo.getId();
+        });
+    }
+    
+    /**
+     * Unidad de trabajo del alta de un préstamo: una sesión, una transacción, el conteo de los
+     * préstamos activos del lector y el INSERT
+     *
+     * El lector, el bibliotecario y el material se leen por ID dentro de la misma sesión; la
+     * caché del catálogo normalmente los responde sin ir a la base de datos, y ya no se hace
+     * merge de entidades desacopladas.
+     *
+     * Solo un préstamo creado EN_CURSO puede hacer superar el límite (los PENDIENTES no cuentan
+     * hasta aprobarse). Para esos el lector se lee con SELECT ... FOR UPDATE: dos altas simultáneas
+     * para el mismo lector se ordenan en la base de datos y la segunda cuenta los activos después
+     * de que la primera confirme. Las altas de otros lectores no esperan.
+     */
+    private void persistirPrestamo(Prestamo prestamo, Long lectorId, Long bibliotecarioId, Long materialId) {
         try (Session session = sessionFactory.openSession()) {
             Transaction tx = session.beginTransaction();
             try {
-                // Recargar las entidades dentro de esta sesión para evitar problemas con objetos detached
-                Lector lectorManaged = session.merge(prestamo.getLector());
-                Bibliotecario bibliotecarioManaged = session.merge(prestamo.getBibliotecario());
-                edu.udelar.pap.domain.DonacionMaterial materialManaged = session.merge(prestamo.getMaterial());
+                Lector lector = prestamo.getEstado() == EstadoPrestamo.EN_CURSO
+                    ? session.get(Lector.class, lectorId, LockMode.PESSIMISTIC_WRITE)
+                    : session.get(Lector.class, lectorId);
+                if (lector == null) {
+                    throw new IllegalStateException("Lector no encontrado con ID: " + lectorId);
+                }
+                // Verificar que el lector esté activo
+                if (lector.getEstado() != edu.udelar.pap.domain.EstadoLector.ACTIVO) {
+                    throw new IllegalStateException("No se puede crear un préstamo para un lector suspendido");
+                }
+                Bibliotecario bibliotecario = session.get(Bibliotecario.class, bibliotecarioId);
+                if (bibliotecario == null) {
+                    throw new IllegalStateException("Bibliotecario no encontrado con ID: " + bibliotecarioId);
+                }
+                edu.udelar.pap.domain.DonacionMaterial material = session.get(edu.udelar.pap.domain.DonacionMaterial.class, materialId);
+                if (material == null) {
+                    throw new IllegalStateException("Material no encontrado con ID: " + materialId);
+                }
                 
-                // Actualizar el préstamo con las entidades managed
-                prestamo.setLector(lectorManaged);
-                prestamo.setBibliotecario(bibliotecarioManaged);
-                prestamo.setMaterial(materialManaged);
+                // Verificar límite de préstamos por lector (máximo 3 préstamos activos)
+                long prestamosActivos = contarPrestamosActivos(session, lectorId);
+                logger.fine(() -> "Préstamos activos del lector: " + prestamosActivos);
+                if (prestamosActivos >= MAXIMO_PRESTAMOS_ACTIVOS) {
+                    throw new IllegalStateException(MENSAJE_LIMITE_PRESTAMOS);
+                }
                 
-                // Persistir el préstamo
+                prestamo.setLector(lector);
+                prestamo.setBibliotecario(bibliotecario);
+                prestamo.setMaterial(material);
                 session.persist(prestamo);
-                tx.commit();
-                
-                System.out.println("✅ Préstamo persistido con estado: " + prestamo.getEstado());
-                System.out.println("✅ ID generado: " + prestamo.getId());
-                
-                logger.info("Préstamo creado exitosamente - ID: " + prestamo.getId() + 
-                           ", Lector: " + prestamo.getLector().getNombre() + 
-                           ", Material: " + prestamo.getMaterial().getClass().getSimpleName() +
-                           ", Estado: " + prestamo.getEstado());
-            } catch (Exception e) {
-                tx.rollback();
+                confirmar(tx, () -> {
+                    indiceDemanda.registrarCambio(null, null, idMaterial(prestamo), prestamo.getEstado());
+                    indiceVencidos.registrar(prestamo.getId(), prestamo.getVersion(), idLector(prestamo), prestamo.getEstado(), prestamo.getFechaEstimadaDevolucion());
+                });
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                if (!(e instanceof IllegalStateException)) {
+                    logger.log(Level.SEVERE, "Error al guardar préstamo", e);
+                }
                 throw e;
             }
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error al guardar préstamo", e);
-            throw e;
         }
+        
+        logger.log(Level.INFO, "Préstamo creado exitosamente - ID: {0}, Lector: {1}, Material: {2}, Estado: {3}", new Object[] {
+            prestamo.getId(), prestamo.getLector().getNombre(),
+            prestamo.getMaterial().getClass().getSimpleName(), prestamo.getEstado()});
     }
     
     /**
      * Actualiza un préstamo existente
+     * @throws edu.udelar.pap.exception.ConflictoConcurrenciaException Si otro usuario lo modificó
+     *         después de que se leyó (su versión ya no coincide)
+     * @throws IllegalStateException Si queda EN_CURSO para un lector que ya tiene el máximo de préstamos activos
      */
     public void actualizarPrestamo(Prestamo prestamo) {
         try (Session session = sessionFactory.openSession()) {
             Transaction tx = session.beginTransaction();
-            session.merge(prestamo);
-            tx.commit();
+            try {
+                // Un préstamo que queda EN_CURSO puede sumar uno activo a su lector (ver verificarLimiteAlActivar)
+                if (prestamo.getId() != null && prestamo.getEstado() == EstadoPrestamo.EN_CURSO) {
+                    bloquearLectorDelPrestamo(session, prestamo.getId(), idLector(prestamo));
+                }
+                // Estado guardado antes de copiar los cambios, para el índice de demanda
+                Prestamo actual = prestamo.getId() != null ? session.get(Prestamo.class, prestamo.getId()) : null;
+                Long materialAnterior = actual != null ? idMaterial(actual) : null;
+                EstadoPrestamo estadoAnterior = actual != null ? actual.getEstado() : null;
+                if (actual != null) {
+                    verificarLimiteAlActivar(session, estadoAnterior, idLector(actual), prestamo.getEstado(), idLector(prestamo));
+                }
+                // La copia administrada es la que recibe la versión nueva al confirmar
+                Prestamo guardado = session.merge(prestamo);
+                confirmar(tx, () -> {
+                    indiceDemanda.registrarCambio(materialAnterior, estadoAnterior, idMaterial(prestamo), prestamo.getEstado());
+                    indiceVencidos.registrar(prestamo.getId(), guardado.getVersion(), idLector(prestamo), prestamo.getEstado(), prestamo.getFechaEstimadaDevolucion());
+                });
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw ReintentoOptimista.traducir("Préstamo", prestamo.getId(), e);
+            }
         }
     }
     
@@ -156,7 +286,10 @@ public class PrestamoService {
         try (Session session = sessionFactory.openSession()) {
             Transaction tx = session.beginTransaction();
             session.remove(prestamo);
-            tx.commit();
+            confirmar(tx, () -> {
+                indiceDemanda.registrarCambio(idMaterial(prestamo), prestamo.getEstado(), null, null);
+                indiceVencidos.registrarBaja(prestamo.getId());
+            });
         }
     }
     
@@ -173,14 +306,257 @@ public class PrestamoService {
      * Obtiene todos los préstamos con fetch join para evitar N+1 queries
      */
     public List<Prestamo> obtenerTodosLosPrestamos() {
-        try (Session session = sessionFactory.openSession()) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.obtenerTodosLosPrestamos", () -> {
+            try (Session session = sessionFactory.openSession()) {
+                return session.createQuery(
+                    "SELECT DISTINCT p FROM Prestamo p " +
+                    "LEFT JOIN FETCH p.lector " +
+                    "LEFT JOIN FETCH p.bibliotecario " +
+                    "LEFT JOIN FETCH p.material " +
+                    "ORDER BY p.fechaSolicitud DESC", 
+                    Prestamo.class).list();
+            }
+        });
+    }
+    
+    /**
+     * Ordenes admitidos por la paginación de préstamos (el primero es el por defecto)
+     */
+    private static final java.util.Map<String, Paginacion.Orden<Prestamo>> ORDENES_PRESTAMOS = Paginacion.ordenes(
+        java.util.Map.entry("fechaSolicitud", Paginacion.Orden.porFecha("fechaSolicitud", true, Prestamo::getFechaSolicitud)),
+        java.util.Map.entry("fechaDevolucion", Paginacion.Orden.porFecha("fechaEstimadaDevolucion", false, Prestamo::getFechaEstimadaDevolucion)),
+        java.util.Map.entry("id", Paginacion.Orden.<Prestamo>porId()));
+    
+    /**
+     * Obtiene una página de préstamos con paginación por cursor (keyset)
+     * @param orden fechaSolicitud (más recientes primero, por defecto), fechaDevolucion o id
+     * @param cursor Cursor de la página anterior, o null para la primera
+     * @param limite Tamaño de página (ver Paginacion.LIMITE_MAXIMO)
+     * @throws IllegalArgumentException Si el orden o el cursor no son válidos
+     */
+    public Pagina<Prestamo> obtenerPaginaPrestamos(String orden, String cursor, Integer limite) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.obtenerPaginaPrestamos", () -> {
+            try (Session session = sessionFactory.openSession()) {
+                return Paginacion.consultar(session, Prestamo.class,
+                    "SELECT p FROM Prestamo p " +
+                    "LEFT JOIN FETCH p.lector " +
+                    "LEFT JOIN FETCH p.bibliotecario " +
+                    "LEFT JOIN FETCH p.material",
+                    "p", ORDENES_PRESTAMOS, orden, cursor, limite, Prestamo::getId);
+            }
+        });
+    }
+    
+    /**
+     * Recorre todos los préstamos en streaming, en el mismo orden que obtenerTodosLosPrestamos
+     * Usa una StatelessSession para que las filas no se acumulen en memoria;
+     * el Stream debe cerrarse (try-with-resources) para liberar el cursor y la conexión
+     */
+    public Stream<Prestamo> streamTodosLosPrestamos() {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
             return session.createQuery(
-                "SELECT DISTINCT p FROM Prestamo p " +
+                "SELECT p FROM Prestamo p " +
                 "LEFT JOIN FETCH p.lector " +
                 "LEFT JOIN FETCH p.bibliotecario " +
                 "LEFT JOIN FETCH p.material " +
                 "ORDER BY p.fechaSolicitud DESC", 
-                Prestamo.class).list();
+                Prestamo.class)
+                .setFetchSize(HibernateUtil.FETCH_SIZE_STREAMING)
+                .stream()
+                .onClose(session::close);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Proyección de los listados de préstamos: solo las columnas que muestran, sin cargar
+     * entidades. Lector y bibliotecario se unen por usuarios (sin lectores/bibliotecarios) y el
+     * nombre del material sale de libros o de articulos_especiales según el tipo.
+     */
+    private static final String CONSULTA_RESUMEN =
+        "SELECT new edu.udelar.pap.service.PrestamoService$ResumenPrestamo(" +
+        "p.id, le.id, le.nombre, le.email, b.id, b.nombre, p.material.id, l.titulo, a.descripcion, " +
+        "p.fechaSolicitud, p.fechaEstimadaDevolucion, p.estado) " +
+        "FROM Prestamo p JOIN Usuario le ON le.id = p.lector.id JOIN Usuario b ON b.id = p.bibliotecario.id " +
+        "LEFT JOIN Libro l ON l.id = p.material.id " +
+        "LEFT JOIN ArticuloEspecial a ON a.id = p.material.id";
+    
+    private static final java.util.Map<String, Paginacion.Orden<ResumenPrestamo>> ORDENES_RESUMEN = Paginacion.ordenes(
+        java.util.Map.entry("fechaSolicitud", Paginacion.Orden.porFecha("fechaSolicitud", true, ResumenPrestamo::getFechaSolicitud)),
+        java.util.Map.entry("fechaDevolucion", Paginacion.Orden.porFecha("fechaEstimadaDevolucion", false, ResumenPrestamo::getFechaEstimadaDevolucion)),
+        java.util.Map.entry("id", Paginacion.Orden.<ResumenPrestamo>porId()));
+    
+    /**
+     * Recorre el resumen de todos los préstamos en streaming, más recientes primero
+     * Igual que streamTodosLosPrestamos pero sin armar entidades; el Stream debe cerrarse
+     */
+    public Stream<ResumenPrestamo> streamResumenPrestamos() {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            return session.createQuery(CONSULTA_RESUMEN + " ORDER BY p.fechaSolicitud DESC", ResumenPrestamo.class)
+                .setFetchSize(HibernateUtil.FETCH_SIZE_STREAMING)
+                .setReadOnly(true)
+                .stream()
+                .onClose(session::close);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Página del resumen de préstamos (mismos órdenes y cursor que obtenerPaginaPrestamos)
+     * @throws IllegalArgumentException Si el orden o el cursor no son válidos
+     */
+    public Pagina<ResumenPrestamo> obtenerPaginaResumenPrestamos(String orden, String cursor, Integer limite) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.obtenerPaginaResumenPrestamos", () -> {
+            try (Session session = sessionFactory.openSession()) {
+                session.setDefaultReadOnly(true);
+                return Paginacion.consultar(session, ResumenPrestamo.class, CONSULTA_RESUMEN,
+                    "p", ORDENES_RESUMEN, orden, cursor, limite, ResumenPrestamo::getId);
+            }
+        });
+    }
+    
+    /**
+     * Resumen de los préstamos de un lector, más recientes primero
+     */
+    public List<ResumenPrestamo> obtenerResumenPrestamosPorLector(Long lectorId) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.obtenerResumenPrestamosPorLector", () -> {
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                return session.createQuery(CONSULTA_RESUMEN + " WHERE p.lector.id = :lectorId ORDER BY p.fechaSolicitud DESC", ResumenPrestamo.class)
+                    .setParameter("lectorId", lectorId)
+                    .setReadOnly(true)
+                    .list();
+            }
+        });
+    }
+    
+    /**
+     * Resumen de los préstamos gestionados por un bibliotecario, más recientes primero
+     */
+    public List<ResumenPrestamo> obtenerResumenPrestamosPorBibliotecario(Long bibliotecarioId) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.obtenerResumenPrestamosPorBibliotecario", () -> {
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                return session.createQuery(CONSULTA_RESUMEN + " WHERE p.bibliotecario.id = :bibliotecarioId ORDER BY p.fechaSolicitud DESC", ResumenPrestamo.class)
+                    .setParameter("bibliotecarioId", bibliotecarioId)
+                    .setReadOnly(true)
+                    .list();
+            }
+        });
+    }
+    
+    /**
+     * Fila de los listados de préstamos (ver CONSULTA_RESUMEN)
+     */
+    public static final class ResumenPrestamo {
+        private final Long id;
+        private final Long lectorId;
+        private final String lectorNombre;
+        private final String lectorEmail;
+        private final Long bibliotecarioId;
+        private final String bibliotecarioNombre;
+        private final Long materialId;
+        private final String tituloLibro;
+        private final String descripcionArticulo;
+        private final LocalDate fechaSolicitud;
+        private final LocalDate fechaEstimadaDevolucion;
+        private final EstadoPrestamo estado;
+
+        public ResumenPrestamo(Long id, Long lectorId, String lectorNombre, String lectorEmail,
+                               Long bibliotecarioId, String bibliotecarioNombre,
+                               Long materialId, String tituloLibro, String descripcionArticulo,
+                               LocalDate fechaSolicitud, LocalDate fechaEstimadaDevolucion, EstadoPrestamo estado) {
+            this.id = id;
+            this.lectorId = lectorId;
+            this.lectorNombre = lectorNombre;
+            this.lectorEmail = lectorEmail;
+            this.bibliotecarioId = bibliotecarioId;
+            this.bibliotecarioNombre = bibliotecarioNombre;
+            this.materialId = materialId;
+            this.tituloLibro = tituloLibro;
+            this.descripcionArticulo = descripcionArticulo;
+            this.fechaSolicitud = fechaSolicitud;
+            this.fechaEstimadaDevolucion = fechaEstimadaDevolucion;
+            this.estado = estado;
+        }
+
+        /**
+         * Resumen de un préstamo ya cargado (con lector, bibliotecario y material inicializados)
+         */
+        public static ResumenPrestamo desde(Prestamo prestamo) {
+            Lector lector = prestamo.getLector();
+            Bibliotecario bibliotecario = prestamo.getBibliotecario();
+            edu.udelar.pap.domain.DonacionMaterial material = prestamo.getMaterial();
+            return new ResumenPrestamo(prestamo.getId(),
+                lector != null ? lector.getId() : null, lector != null ? lector.getNombre() : null,
+                lector != null ? lector.getEmail() : null,
+                bibliotecario != null ? bibliotecario.getId() : null, bibliotecario != null ? bibliotecario.getNombre() : null,
+                material != null ? material.getId() : null,
+                material instanceof Libro ? ((Libro) material).getTitulo() : null,
+                material instanceof ArticuloEspecial ? ((ArticuloEspecial) material).getDescripcion() : null,
+                prestamo.getFechaSolicitud(), prestamo.getFechaEstimadaDevolucion(), prestamo.getEstado());
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Long getLectorId() {
+            return lectorId;
+        }
+
+        public String getLectorNombre() {
+            return lectorNombre;
+        }
+
+        public String getLectorEmail() {
+            return lectorEmail;
+        }
+
+        public Long getBibliotecarioId() {
+            return bibliotecarioId;
+        }
+
+        public String getBibliotecarioNombre() {
+            return bibliotecarioNombre;
+        }
+
+        public Long getMaterialId() {
+            return materialId;
+        }
+
+        public boolean esLibro() {
+            return descripcionArticulo == null;
+        }
+
+        /**
+         * @return LIBRO o ARTICULO
+         */
+        public String getTipo() {
+            return esLibro() ? "LIBRO" : "ARTICULO";
+        }
+
+        /**
+         * @return Título del libro o descripción del artículo especial
+         */
+        public String getMaterialNombre() {
+            return esLibro() ? (tituloLibro != null ? tituloLibro : "") : descripcionArticulo;
+        }
+
+        public LocalDate getFechaSolicitud() {
+            return fechaSolicitud;
+        }
+
+        public LocalDate getFechaEstimadaDevolucion() {
+            return fechaEstimadaDevolucion;
+        }
+
+        public EstadoPrestamo getEstado() {
+            return estado;
         }
     }
     
@@ -215,10 +591,11 @@ public class PrestamoService {
     
     /**
      * Obtiene préstamos por zona del lector
+     * Es un reporte que no modifica los préstamos: se lee sin estado (ver ModoLectura)
      */
     public List<Prestamo> obtenerPrestamosPorZona(Zona zona) {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery(
+        return ModoLectura.SIN_ESTADO.leer(sessionFactory, session ->
+            ModoLectura.SIN_ESTADO.consulta(session,
                 "SELECT DISTINCT p FROM Prestamo p " +
                 "LEFT JOIN FETCH p.lector " +
                 "LEFT JOIN FETCH p.bibliotecario " +
@@ -227,10 +604,179 @@ public class PrestamoService {
                 "ORDER BY p.fechaSolicitud DESC", 
                 Prestamo.class)
                 .setParameter("zona", zona)
-                .list();
+                .list());
+    }
+    
+    /**
+     * Reporte de préstamos por zona del lector y estado en una sola consulta agrupada
+     * La consulta solo lee (lector_id, estado) de los préstamos y la zona de cada lector,
+     * sin cargar entidades; el resultado queda en la caché de consultas hasta que se
+     * modifiquen préstamos o lectores, por lo que las lecturas repetidas no recorren la tabla.
+     * @param desde Fecha de solicitud mínima, inclusive (null = sin límite)
+     * @param hasta Fecha de solicitud máxima, inclusive (null = sin límite)
+     * @return Una fila por cada zona, en el orden de Zona.values() (con ceros si no hay préstamos)
+     */
+    public List<ReporteZona> obtenerReportePorZona(LocalDate desde, LocalDate hasta) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.obtenerReportePorZona", () -> {
+            StringBuilder hql = new StringBuilder(
+                "SELECT l.zona, p.estado, COUNT(p) FROM Prestamo p JOIN p.lector l");
+            if (desde != null && hasta != null) {
+                hql.append(" WHERE p.fechaSolicitud BETWEEN :desde AND :hasta");
+            } else if (desde != null) {
+                hql.append(" WHERE p.fechaSolicitud >= :desde");
+            } else if (hasta != null) {
+                hql.append(" WHERE p.fechaSolicitud <= :hasta");
+            }
+            hql.append(" GROUP BY l.zona, p.estado");
+
+            List<Object[]> filas;
+            try (Session session = sessionFactory.openSession()) {
+                Query<Object[]> query = session.createQuery(hql.toString(), Object[].class)
+                    .setCacheable(true)
+                    .setCacheRegion(REGION_REPORTES);
+                if (desde != null) {
+                    query.setParameter("desde", desde);
+                }
+                if (hasta != null) {
+                    query.setParameter("hasta", hasta);
+                }
+                filas = query.list();
+            }
+
+            Map<Zona, long[]> conteos = new EnumMap<>(Zona.class);
+            for (Zona zona : Zona.values()) {
+                conteos.put(zona, new long[EstadoPrestamo.values().length]);
+            }
+            for (Object[] fila : filas) {
+                conteos.get((Zona) fila[0])[((EstadoPrestamo) fila[1]).ordinal()] += aLong(fila[2]);
+            }
+
+            List<ReporteZona> reporte = new ArrayList<>();
+            for (Map.Entry<Zona, long[]> entrada : conteos.entrySet()) {
+                long[] c = entrada.getValue();
+                reporte.add(new ReporteZona(entrada.getKey(),
+                    c[EstadoPrestamo.PENDIENTE.ordinal()],
+                    c[EstadoPrestamo.EN_CURSO.ordinal()],
+                    c[EstadoPrestamo.DEVUELTO.ordinal()]));
+            }
+            return reporte;
+        });
+    }
+
+    /**
+     * Cantidad de préstamos de una zona por estado
+     */
+    public static final class ReporteZona {
+        private final Zona zona;
+        private final long pendientes;
+        private final long enCurso;
+        private final long devueltos;
+
+        public ReporteZona(Zona zona, long pendientes, long enCurso, long devueltos) {
+            this.zona = zona;
+            this.pendientes = pendientes;
+            this.enCurso = enCurso;
+            this.devueltos = devueltos;
+        }
+
+        public Zona getZona() {
+            return zona;
+        }
+
+        public long getPendientes() {
+            return pendientes;
+        }
+
+        public long getEnCurso() {
+            return enCurso;
+        }
+
+        public long getDevueltos() {
+            return devueltos;
+        }
+
+        public long getTotal() {
+            return pendientes + enCurso + devueltos;
+        }
+    }
+    
+    /**
+     * Materiales con más préstamos pendientes y en curso, según el índice de demanda
+     * Solo se consultan en la base los N materiales del ranking (para nombre y tipo)
+     * @param limite Cantidad máxima (null = todos los que tienen demanda)
+     * @return Material y cantidades, de mayor a menor demanda
+     */
+    public List<MaterialDemandado> obtenerMaterialesMasDemandados(Integer limite) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.obtenerMaterialesMasDemandados", () -> {
+            List<IndiceDemandaMateriales.Demanda> ranking = indiceDemanda.obtenerMasDemandados(limite);
+            if (ranking.isEmpty()) {
+                return new ArrayList<>();
+            }
+            List<Long> ids = new ArrayList<>(ranking.size());
+            for (IndiceDemandaMateriales.Demanda demanda : ranking) {
+                ids.add(demanda.getMaterialId());
+            }
+        
+            Map<Long, edu.udelar.pap.domain.DonacionMaterial> materiales = new java.util.HashMap<>();
+            try (Session session = sessionFactory.openSession()) {
+                for (edu.udelar.pap.domain.DonacionMaterial material : session.createQuery(
+                        "FROM DonacionMaterial m WHERE m.id IN :ids", edu.udelar.pap.domain.DonacionMaterial.class)
+                        .setParameter("ids", ids)
+                        .list()) {
+                    materiales.put(material.getId(), material);
+                }
+            }
+        
+            List<MaterialDemandado> resultado = new ArrayList<>(ranking.size());
+            for (IndiceDemandaMateriales.Demanda demanda : ranking) {
+                edu.udelar.pap.domain.DonacionMaterial material = materiales.get(demanda.getMaterialId());
+                if (material != null) {
+                    resultado.add(new MaterialDemandado(material, demanda.getPendientes(), demanda.getEnCurso()));
+                }
+            }
+            return resultado;
+        });
+    }
+    
+    /**
+     * Material con su cantidad de préstamos pendientes y en curso
+     */
+    public static final class MaterialDemandado {
+        private final edu.udelar.pap.domain.DonacionMaterial material;
+        private final long pendientes;
+        private final long enCurso;
+        
+        public MaterialDemandado(edu.udelar.pap.domain.DonacionMaterial material, long pendientes, long enCurso) {
+            this.material = material;
+            this.pendientes = pendientes;
+            this.enCurso = enCurso;
+        }
+        
+        public edu.udelar.pap.domain.DonacionMaterial getMaterial() {
+            return material;
+        }
+        
+        public long getPendientes() {
+            return pendientes;
+        }
+        
+        public long getEnCurso() {
+            return enCurso;
+        }
+        
+        public long getTotal() {
+            return pendientes + enCurso;
         }
     }
     
+    private static Long idMaterial(Prestamo prestamo) {
+        return prestamo.getMaterial() != null ? prestamo.getMaterial().getId() : null;
+    }
+    
+    private static Long idLector(Prestamo prestamo) {
+        return prestamo.getLector() != null ? prestamo.getLector().getId() : null;
+    }
+    
     /**
      * Obtiene materiales con préstamos pendientes ordenados por cantidad
      */
@@ -269,16 +815,78 @@ public class PrestamoService {
     }
     
     /**
-     * Obtiene préstamos vencidos
+     * Obtiene préstamos vencidos (EN_CURSO con fecha estimada de devolución anterior a hoy)
      */
     public List<Prestamo> obtenerPrestamosVencidos() {
+        return obtenerPrestamosVencidos(null);
+    }
+    
+    /**
+     * Obtiene préstamos vencidos, los más atrasados primero
+     * Los IDs salen del índice de vencidos: solo se leen de la base los préstamos devueltos
+     * @param limite Cantidad máxima (null = todos)
+     */
+    public List<Prestamo> obtenerPrestamosVencidos(Integer limite) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.obtenerPrestamosVencidos", () -> {
+            return cargarVencidos(indiceVencidos.obtenerVencidos(limite));
+        });
+    }
+    
+    /**
+     * Obtiene los préstamos vencidos de un lector, los más atrasados primero
+     */
+    public List<Prestamo> obtenerPrestamosVencidosPorLector(Long lectorId) {
+        return cargarVencidos(indiceVencidos.obtenerVencidosPorLector(lectorId));
+    }
+    
+    /**
+     * Indica si un préstamo está vencido, sin consultar la base
+     */
+    public boolean prestamoEstaVencido(Long prestamoId) {
+        return indiceVencidos.estaVencido(prestamoId);
+    }
+    
+    /**
+     * Cuenta los préstamos vencidos de un lector, sin consultar la base
+     */
+    public long contarPrestamosVencidosPorLector(Long lectorId) {
+        return indiceVencidos.contarVencidosPorLector(lectorId);
+    }
+    
+    private List<Prestamo> cargarVencidos(List<IndicePrestamosVencidos.Vencimiento> vencidos) {
+        List<Prestamo> resultado = new ArrayList<>(vencidos.size());
+        if (vencidos.isEmpty()) {
+            return resultado;
+        }
+        List<Long> ids = new ArrayList<>(vencidos.size());
+        for (IndicePrestamosVencidos.Vencimiento vencimiento : vencidos) {
+            ids.add(vencimiento.getPrestamoId());
+        }
+        
+        Map<Long, Prestamo> porId = new HashMap<>();
         try (Session session = sessionFactory.openSession()) {
-            return session.createQuery(
-                "FROM Prestamo WHERE fechaEstimadaDevolucion < CURRENT_DATE AND estado != :estadoDevuelto ORDER BY fechaEstimadaDevolucion", 
-                Prestamo.class)
-                .setParameter("estadoDevuelto", EstadoPrestamo.DEVUELTO)
-                .list();
+            // En tramos para no armar un IN demasiado largo
+            for (int desde = 0; desde < ids.size(); desde += MAXIMO_OPERACION_MASIVA) {
+                for (Prestamo prestamo : session.createQuery(
+                        "SELECT p FROM Prestamo p " +
+                        "LEFT JOIN FETCH p.lector " +
+                        "LEFT JOIN FETCH p.bibliotecario " +
+                        "LEFT JOIN FETCH p.material " +
+                        "WHERE p.id IN :ids",
+                        Prestamo.class)
+                        .setParameter("ids", ids.subList(desde, Math.min(ids.size(), desde + MAXIMO_OPERACION_MASIVA)))
+                        .list()) {
+                    porId.put(prestamo.getId(), prestamo);
+                }
+            }
         }
+        for (Long id : ids) {
+            Prestamo prestamo = porId.get(id);
+            if (prestamo != null) {
+                resultado.add(prestamo);
+            }
+        }
+        return resultado;
     }
     
     /**
@@ -286,7 +894,10 @@ public class PrestamoService {
      */
     public List<Libro> obtenerLibrosDisponibles() {
         try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("FROM Libro ORDER BY titulo", Libro.class).list();
+            return session.createQuery("FROM Libro ORDER BY titulo", Libro.class)
+                .setCacheable(true)
+                .setCacheRegion(CatalogoCache.REGION_CONSULTAS)
+                .list();
         }
     }
     
@@ -295,7 +906,10 @@ public class PrestamoService {
      */
     public List<ArticuloEspecial> obtenerArticulosEspecialesDisponibles() {
         try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("FROM ArticuloEspecial ORDER BY descripcion", ArticuloEspecial.class).list();
+            return session.createQuery("FROM ArticuloEspecial ORDER BY descripcion", ArticuloEspecial.class)
+                .setCacheable(true)
+                .setCacheRegion(CatalogoCache.REGION_CONSULTAS)
+                .list();
         }
     }
     
@@ -329,8 +943,8 @@ public class PrestamoService {
                 .uniqueResult();
             
             boolean estaPrestado = resultado != null;
-            System.out.println("🔍 materialEstaPrestadoExcluyendo - Material: " + material.getClass().getSimpleName() + 
-                             ", Excluyendo ID: " + prestamoIdExcluir + ", ¿Está prestado? " + estaPrestado);
+            logger.log(Level.FINE, "materialEstaPrestadoExcluyendo - Material: {0}, Excluyendo ID: {1}, ¿Está prestado? {2}",
+                new Object[] {material.getClass().getSimpleName(), prestamoIdExcluir, estaPrestado});
             return estaPrestado;
         }
     }
@@ -351,6 +965,212 @@ public class PrestamoService {
         }
     }
 
+    /**
+     * Confirma la transacción y registra el cambio en los índices en memoria, con el candado de
+     * cambios de SincronizacionIndices: una reconstrucción de los índices no puede leer la base
+     * entre el commit y el registro
+     */
+    private static void confirmar(Transaction tx, Runnable registrarEnIndices) {
+        Lock cambios = SincronizacionIndices.cambios();
+        cambios.lock();
+        try {
+            tx.commit();
+            registrarEnIndices.run();
+        } finally {
+            cambios.unlock();
+        }
+    }
+
+    // ==================== LÍMITE DE PRÉSTAMOS ACTIVOS ====================
+    //
+    // Toda operación que puede aumentar los préstamos EN_CURSO de un lector (alta EN_CURSO,
+    // aprobación, aprobación masiva, cambio de estado a EN_CURSO y ediciones que dejan un préstamo
+    // EN_CURSO o lo pasan a otro lector) bloquea la fila del lector (SELECT ... FOR UPDATE) antes de
+    // contar, y cuenta e inserta o actualiza en la misma transacción. El bloqueo es por lector:
+    // operaciones sobre lectores distintos no se esperan, y vale también entre procesos (servidor
+    // web y aplicación de escritorio sobre la misma base). Orden de bloqueo: préstamos por ID y
+    // después lectores por ID, para que dos operaciones no se bloqueen mutuamente.
+    // El bloqueo se toma antes de cualquier lectura de la transacción: con REPEATABLE READ
+    // (MySQL) el conteo posterior ve lo confirmado por quien tenía el bloqueo.
+    // La importación de préstamos hace lo mismo al guardar cada tramo (ImportacionService.guardar).
+    
+    /**
+     * Bloquea las filas de los lectores indicados hasta el fin de la transacción, en orden de ID
+     */
+    private static void bloquearLectores(Session session, Collection<Long> lectorIds) {
+        if (lectorIds.isEmpty()) {
+            return;
+        }
+        session.createQuery("SELECT l.id FROM Lector l WHERE l.id IN :lectorIds ORDER BY l.id", Long.class)
+            .setParameter("lectorIds", lectorIds)
+            .setHibernateLockMode(LockMode.PESSIMISTIC_WRITE)
+            .list();
+    }
+    
+    /**
+     * Bloquea el préstamo (con lo que su lector ya no puede cambiar) y después a su lector
+     * @return ID del lector, o null si el préstamo no existe
+     */
+    private static Long bloquearLectorDelPrestamo(Session session, Long prestamoId) {
+        return bloquearLectorDelPrestamo(session, prestamoId, null);
+    }
+    
+    /**
+     * Igual que bloquearLectorDelPrestamo, para una edición que puede reasignar el préstamo
+     * @param lectorNuevoId Lector con el que va a quedar el préstamo (null si no cambia): se
+     *        bloquea ese lector, que es al que se le suma el préstamo activo
+     * @return ID del lector actual, o null si el préstamo no existe
+     */
+    private static Long bloquearLectorDelPrestamo(Session session, Long prestamoId, Long lectorNuevoId) {
+        Long lectorId = session.createQuery("SELECT p.lector.id FROM Prestamo p WHERE p.id = :id", Long.class)
+            .setParameter("id", prestamoId)
+            .setHibernateLockMode(LockMode.PESSIMISTIC_WRITE)
+            .uniqueResult();
+        if (lectorId != null) {
+            bloquearLectores(session, List.of(lectorNuevoId != null ? lectorNuevoId : lectorId));
+        }
+        return lectorId;
+    }
+    
+    /**
+     * Verifica el límite de préstamos activos cuando un cambio deja al préstamo EN_CURSO para un
+     * lector que no lo tenía activo (pasa a EN_CURSO, o un EN_CURSO cambia de lector)
+     * Se llama con ese lector ya bloqueado y antes de modificar el préstamo: así el conteo no lo
+     * incluye aunque Hibernate haga flush antes de la consulta
+     * @throws IllegalStateException Si el lector ya tiene el máximo de préstamos activos
+     */
+    private static void verificarLimiteAlActivar(Session session, EstadoPrestamo estadoAnterior, Long lectorAnteriorId,
+                                                 EstadoPrestamo estadoNuevo, Long lectorNuevoId) {
+        if (estadoNuevo != EstadoPrestamo.EN_CURSO || lectorNuevoId == null
+                || (estadoAnterior == EstadoPrestamo.EN_CURSO && lectorNuevoId.equals(lectorAnteriorId))) {
+            return;
+        }
+        if (contarPrestamosActivos(session, lectorNuevoId) >= MAXIMO_PRESTAMOS_ACTIVOS) {
+            throw new IllegalStateException(MENSAJE_LIMITE_PRESTAMOS);
+        }
+    }
+    
+    /**
+     * Préstamos EN_CURSO del lector, contados dentro de la transacción que los va a modificar
+     */
+    private static long contarPrestamosActivos(Session session, Long lectorId) {
+        return session.createQuery(
+            "SELECT COUNT(p) FROM Prestamo p WHERE p.lector.id = :lectorId AND p.estado = :estadoEnCurso",
+            Long.class)
+            .setParameter("lectorId", lectorId)
+            .setParameter("estadoEnCurso", EstadoPrestamo.EN_CURSO)
+            .uniqueResult();
+    }
+
+    // ==================== MÉTODOS DE ESTADÍSTICAS (AGREGADOS EN SQL) ====================
+
+    /**
+     * Cuenta todos los préstamos del sistema con un COUNT en la base de datos
+     */
+    public long contarPrestamos() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("SELECT COUNT(p) FROM Prestamo p", Long.class)
+                .uniqueResult();
+        }
+    }
+
+    /**
+     * Cuenta los préstamos que se encuentran en un estado dado
+     */
+    public long contarPrestamosPorEstado(EstadoPrestamo estado) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(
+                "SELECT COUNT(p) FROM Prestamo p WHERE p.estado = :estado",
+                Long.class)
+                .setParameter("estado", estado)
+                .uniqueResult();
+        }
+    }
+
+    /**
+     * Cuenta los préstamos activos (EN_CURSO) de un lector a partir de su ID
+     * No necesita cargar el lector: filtra directamente por la clave foránea
+     */
+    public long contarPrestamosActivosPorLectorId(Long lectorId) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(
+                "SELECT COUNT(p) FROM Prestamo p WHERE p.lector.id = :lectorId AND p.estado = :estadoEnCurso",
+                Long.class)
+                .setParameter("lectorId", lectorId)
+                .setParameter("estadoEnCurso", EstadoPrestamo.EN_CURSO)
+                .uniqueResult();
+        }
+    }
+
+    /**
+     * Cuenta los préstamos EN_CURSO cuya fecha estimada de devolución ya pasó
+     * Lee el contador del índice de vencidos, sin consultar la base
+     */
+    public long contarPrestamosVencidos() {
+        return indiceVencidos.contarVencidos();
+    }
+
+    /**
+     * Obtiene el total, vencidos, en curso y pendientes en una sola consulta agregada
+     * Evita cargar la tabla de préstamos en memoria para calcular los contadores
+     */
+    public EstadisticasPrestamos obtenerEstadisticasPrestamos() {
+        try (Session session = sessionFactory.openSession()) {
+            Object[] fila = session.createQuery(
+                "SELECT COUNT(p), " +
+                "SUM(CASE WHEN p.estado = :estadoEnCurso AND p.fechaEstimadaDevolucion < :hoy THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN p.estado = :estadoEnCurso THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN p.estado = :estadoPendiente THEN 1 ELSE 0 END) " +
+                "FROM Prestamo p",
+                Object[].class)
+                .setParameter("estadoEnCurso", EstadoPrestamo.EN_CURSO)
+                .setParameter("estadoPendiente", EstadoPrestamo.PENDIENTE)
+                .setParameter("hoy", LocalDate.now())
+                .uniqueResult();
+
+            return new EstadisticasPrestamos(
+                aLong(fila[0]), aLong(fila[1]), aLong(fila[2]), aLong(fila[3]));
+        }
+    }
+
+    // SUM devuelve NULL cuando la tabla está vacía
+    private static long aLong(Object valor) {
+        return valor != null ? ((Number) valor).longValue() : 0L;
+    }
+
+    /**
+     * Contadores agregados de préstamos para el dashboard
+     */
+    public static final class EstadisticasPrestamos {
+        private final long total;
+        private final long vencidos;
+        private final long enCurso;
+        private final long pendientes;
+
+        public EstadisticasPrestamos(long total, long vencidos, long enCurso, long pendientes) {
+            this.total = total;
+            this.vencidos = vencidos;
+            this.enCurso = enCurso;
+            this.pendientes = pendientes;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getVencidos() {
+            return vencidos;
+        }
+
+        public long getEnCurso() {
+            return enCurso;
+        }
+
+        public long getPendientes() {
+            return pendientes;
+        }
+    }
+
     /**
      * Obtiene todos los préstamos activos (EN_CURSO) de un lector con fetch join optimizado
      */
@@ -393,28 +1213,53 @@ public class PrestamoService {
      * @return true si se marcó exitosamente, false en caso contrario
      */
     public boolean marcarPrestamoComoDevuelto(Long prestamoId) {
-        Boolean resultado = ejecutarTransaccionPrestamo(prestamoId, prestamo -> {
-            // Validar que el préstamo no esté ya devuelto
-            if (prestamo.getEstado() == EstadoPrestamo.DEVUELTO) {
-                throw new IllegalStateException("El préstamo ya está marcado como devuelto");
-            }
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.marcarPrestamoComoDevuelto", () -> {
+            Boolean resultado = ejecutarTransaccionPrestamo(prestamoId, prestamo -> {
+                // Validar que el préstamo no esté ya devuelto
+                if (prestamo.getEstado() == EstadoPrestamo.DEVUELTO) {
+                    throw new IllegalStateException("El préstamo ya está marcado como devuelto");
+                }
             
-            // Guardar el estado original para la lógica de fecha
-            EstadoPrestamo estadoOriginal = prestamo.getEstado();
+                // Guardar el estado original para la lógica de fecha
+                EstadoPrestamo estadoOriginal = prestamo.getEstado();
             
-            // Marcar como devuelto
-            prestamo.setEstado(EstadoPrestamo.DEVUELTO);
+                // Marcar como devuelto
+                prestamo.setEstado(EstadoPrestamo.DEVUELTO);
             
-            // Si estaba EN_CURSO, actualizar fecha de devolución a la fecha actual
-            if (estadoOriginal == EstadoPrestamo.EN_CURSO) {
-                prestamo.setFechaEstimadaDevolucion(LocalDate.now());
-            }
-            // Si estaba PENDIENTE, mantener la fecha original (no se prestó realmente)
+                // Si estaba EN_CURSO, actualizar fecha de devolución a la fecha actual
+                if (estadoOriginal == EstadoPrestamo.EN_CURSO) {
+                    prestamo.setFechaEstimadaDevolucion(LocalDate.now());
+                }
+                // Si estaba PENDIENTE, mantener la fecha original (no se prestó realmente)
             
-            return true;
-        }, "marcado como devuelto");
+                return true;
+            }, "marcado como devuelto");
         
-        return resultado != null && resultado;
+            return resultado != null && resultado;
+        });
+    }
+    
+    /**
+     * Fija el estado de un préstamo, sin validar la transición (edición administrativa)
+     * Fijar un valor es idempotente: ante un conflicto de versión se relee el préstamo y se reintenta.
+     * Pasar a EN_CURSO respeta el límite de préstamos activos, con el lector bloqueado como al aprobar.
+     * @param prestamoId ID del préstamo
+     * @param nuevoEstado Estado a fijar
+     * @return true si se cambió, false si el préstamo no existe
+     * @throws IllegalStateException Si pasa a EN_CURSO y el lector ya tiene el máximo de préstamos activos
+     */
+    public boolean cambiarEstadoPrestamo(Long prestamoId, EstadoPrestamo nuevoEstado) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.cambiarEstadoPrestamo", () -> {
+            boolean activa = nuevoEstado == EstadoPrestamo.EN_CURSO;
+            Boolean resultado = ejecutarTransaccionPrestamo(prestamoId, activa, (session, prestamo) -> {
+                Long lectorId = idLector(prestamo);
+                verificarLimiteAlActivar(session, prestamo.getEstado(), lectorId, nuevoEstado, lectorId);
+                prestamo.setEstado(nuevoEstado);
+                return true;
+            }, "cambiado a " + nuevoEstado);
+            
+            return resultado != null && resultado;
+        });
     }
     
     /**
@@ -467,41 +1312,81 @@ public class PrestamoService {
                                             Object nuevoMaterial,
                                             LocalDate nuevaFechaEstimadaDevolucion, 
                                             EstadoPrestamo nuevoEstado) {
-        try (Session session = sessionFactory.openSession()) {
-            Transaction tx = session.beginTransaction();
-            try {
-                Prestamo prestamo = session.get(Prestamo.class, prestamoId);
-                if (prestamo == null) {
-                    tx.rollback();
-                    return false;
-                }
+        return actualizarPrestamoCompleto(prestamoId, nuevoLector, nuevoBibliotecario, nuevoMaterial,
+            nuevaFechaEstimadaDevolucion, nuevoEstado, null);
+    }
+    
+    /**
+     * Igual que actualizarPrestamoCompleto, sobre la versión del préstamo que vio el usuario
+     * La edición no se reintenta: si el préstamo cambió desde que se leyó (o cambia antes del
+     * commit) se descarta y se informa el conflicto, en lugar de pisar el cambio del otro usuario
+     * Si la edición deja el préstamo EN_CURSO para un lector que no lo tenía activo (cambio de
+     * estado o de lector) se bloquea a ese lector y se verifica el límite de préstamos activos.
+     * @param versionEsperada Versión leída junto con los datos editados (null para no comprobarla)
+     * @throws edu.udelar.pap.exception.ConflictoConcurrenciaException Si la versión no coincide
+     * @throws IllegalStateException Si el lector con el que queda ya tiene el máximo de préstamos activos
+     */
+    public boolean actualizarPrestamoCompleto(Long prestamoId, Lector nuevoLector, 
+                                            Bibliotecario nuevoBibliotecario, 
+                                            Object nuevoMaterial,
+                                            LocalDate nuevaFechaEstimadaDevolucion, 
+                                            EstadoPrestamo nuevoEstado,
+                                            Long versionEsperada) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.actualizarPrestamoCompleto", () -> {
+            try (Session session = sessionFactory.openSession()) {
+                Transaction tx = session.beginTransaction();
+                try {
+                    // Solo estas ediciones pueden sumar un préstamo activo a un lector: el bloqueo se
+                    // toma antes de leer el préstamo, como en aprobarPrestamo
+                    Long lectorNuevoId = nuevoLector != null ? nuevoLector.getId() : null;
+                    if (nuevoEstado == EstadoPrestamo.EN_CURSO || lectorNuevoId != null) {
+                        bloquearLectorDelPrestamo(session, prestamoId, lectorNuevoId);
+                    }
+                    Prestamo prestamo = session.get(Prestamo.class, prestamoId);
+                    if (prestamo == null) {
+                        tx.rollback();
+                        return false;
+                    }
+                    if (versionEsperada != null && !versionEsperada.equals(prestamo.getVersion())) {
+                        throw new edu.udelar.pap.exception.ConflictoConcurrenciaException("Préstamo", prestamoId, null);
+                    }
                 
-                // Actualizar solo los campos que no sean null
-                if (nuevoLector != null) {
-                    prestamo.setLector(nuevoLector);
-                }
-                if (nuevoBibliotecario != null) {
-                    prestamo.setBibliotecario(nuevoBibliotecario);
-                }
-                if (nuevoMaterial != null) {
-                    prestamo.setMaterial((edu.udelar.pap.domain.DonacionMaterial) nuevoMaterial);
-                }
-                if (nuevaFechaEstimadaDevolucion != null) {
-                    prestamo.setFechaEstimadaDevolucion(nuevaFechaEstimadaDevolucion);
-                }
-                if (nuevoEstado != null) {
-                    prestamo.setEstado(nuevoEstado);
-                }
+                    Long materialAnterior = idMaterial(prestamo);
+                    EstadoPrestamo estadoAnterior = prestamo.getEstado();
+                    verificarLimiteAlActivar(session, estadoAnterior, idLector(prestamo),
+                        nuevoEstado != null ? nuevoEstado : estadoAnterior,
+                        lectorNuevoId != null ? lectorNuevoId : idLector(prestamo));
                 
-                session.merge(prestamo);
-                tx.commit();
-                return true;
+                    // Actualizar solo los campos que no sean null
+                    if (nuevoLector != null) {
+                        prestamo.setLector(nuevoLector);
+                    }
+                    if (nuevoBibliotecario != null) {
+                        prestamo.setBibliotecario(nuevoBibliotecario);
+                    }
+                    if (nuevoMaterial != null) {
+                        prestamo.setMaterial((edu.udelar.pap.domain.DonacionMaterial) nuevoMaterial);
+                    }
+                    if (nuevaFechaEstimadaDevolucion != null) {
+                        prestamo.setFechaEstimadaDevolucion(nuevaFechaEstimadaDevolucion);
+                    }
+                    if (nuevoEstado != null) {
+                        prestamo.setEstado(nuevoEstado);
+                    }
                 
-            } catch (Exception e) {
-                tx.rollback();
-                throw e;
+                    session.merge(prestamo);
+                    confirmar(tx, () -> {
+                        indiceDemanda.registrarCambio(materialAnterior, estadoAnterior, idMaterial(prestamo), prestamo.getEstado());
+                        indiceVencidos.registrar(prestamo.getId(), prestamo.getVersion(), idLector(prestamo), prestamo.getEstado(), prestamo.getFechaEstimadaDevolucion());
+                    });
+                    return true;
+                
+                } catch (RuntimeException e) {
+                    tx.rollback();
+                    throw ReintentoOptimista.traducir("Préstamo", prestamoId, e);
+                }
             }
-        }
+        });
     }
     
     // ==================== MÉTODOS PARA APROBACIÓN DE PRÉSTAMOS ====================
@@ -547,40 +1432,37 @@ public class PrestamoService {
      * @return true si se aprobó exitosamente, false en caso contrario
      */
     public boolean aprobarPrestamo(Long prestamoId) {
-        Boolean resultado = ejecutarTransaccionPrestamo(prestamoId, prestamo -> {
-            // Log del estado actual para debugging
-            System.out.println("🔍 aprobarPrestamo - Préstamo ID: " + prestamoId);
-            System.out.println("🔍 Estado actual del préstamo: " + prestamo.getEstado());
-            System.out.println("🔍 Estado esperado: " + EstadoPrestamo.PENDIENTE);
-            System.out.println("🔍 Son iguales? " + (prestamo.getEstado() == EstadoPrestamo.PENDIENTE));
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.aprobarPrestamo", () -> {
+            // El lector queda bloqueado desde antes de leer el préstamo hasta el commit: dos
+            // aprobaciones (o una aprobación y un alta) del mismo lector no cuentan a la vez
+            Boolean resultado = ejecutarTransaccionPrestamo(prestamoId, true, (session, prestamo) -> {
+                logger.log(Level.FINE, "aprobarPrestamo - Préstamo ID: {0}, estado actual: {1}", new Object[] {prestamoId, prestamo.getEstado()});
             
-            // Validar que el préstamo esté en estado PENDIENTE
-            if (prestamo.getEstado() != EstadoPrestamo.PENDIENTE) {
-                System.err.println("❌ El préstamo NO está en estado PENDIENTE, está en: " + prestamo.getEstado());
-                throw new IllegalStateException("El préstamo debe estar en estado PENDIENTE para ser aprobado");
-            }
+                // Validar que el préstamo esté en estado PENDIENTE
+                if (prestamo.getEstado() != EstadoPrestamo.PENDIENTE) {
+                    throw new IllegalStateException("El préstamo debe estar en estado PENDIENTE para ser aprobado");
+                }
             
-            // COMENTADO: Permitir préstamos múltiples del mismo material según requisitos
-            // Esta validación es inconsistente con la lógica de negocio que permite múltiples préstamos
-            // if (materialEstaPrestadoExcluyendo(prestamo.getMaterial(), prestamo.getId())) {
-            //     throw new IllegalStateException("El material ya está prestado por otro préstamo");
-            // }
-            System.out.println("✅ Validación de material omitida (se permiten préstamos múltiples del mismo material)");
+                // COMENTADO: Permitir préstamos múltiples del mismo material según requisitos
+                // Esta validación es inconsistente con la lógica de negocio que permite múltiples préstamos
+                // if (materialEstaPrestadoExcluyendo(prestamo.getMaterial(), prestamo.getId())) {
+                //     throw new IllegalStateException("El material ya está prestado por otro préstamo");
+                // }
             
-            // Verificar límite de préstamos por lector
-            long prestamosActivos = obtenerNumeroPrestamosActivos(prestamo.getLector());
-            System.out.println("🔍 Préstamos activos del lector: " + prestamosActivos);
-            if (prestamosActivos >= 3) {
-                System.err.println("❌ El lector ya tiene 3 préstamos activos");
-                throw new IllegalStateException("El lector ya tiene el máximo de préstamos permitidos (3)");
-            }
+                // Verificar límite de préstamos por lector (en la misma transacción que el cambio)
+                long prestamosActivos = contarPrestamosActivos(session, idLector(prestamo));
+                logger.fine(() -> "Préstamos activos del lector: " + prestamosActivos);
+                if (prestamosActivos >= MAXIMO_PRESTAMOS_ACTIVOS) {
+                    throw new IllegalStateException(MENSAJE_LIMITE_PRESTAMOS);
+                }
             
-            // Aprobar el préstamo
-            prestamo.setEstado(EstadoPrestamo.EN_CURSO);
-            return true;
-        }, "aprobado");
+                // Aprobar el préstamo
+                prestamo.setEstado(EstadoPrestamo.EN_CURSO);
+                return true;
+            }, "aprobado");
         
-        return resultado != null && resultado;
+            return resultado != null && resultado;
+        });
     }
     
     /**
@@ -589,38 +1471,345 @@ public class PrestamoService {
      * @return true si se canceló exitosamente, false en caso contrario
      */
     public boolean cancelarPrestamo(Long prestamoId) {
-        try (Session session = sessionFactory.openSession()) {
-            Transaction tx = session.beginTransaction();
-            try {
-                Prestamo prestamo = session.get(Prestamo.class, prestamoId);
-                if (prestamo == null) {
-                    tx.rollback();
-                    return false;
-                }
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.cancelarPrestamo", () -> {
+            return ReintentoOptimista.ejecutar("Préstamo", prestamoId, () -> {
+                try (Session session = sessionFactory.openSession()) {
+                    Transaction tx = session.beginTransaction();
+                    try {
+                        Prestamo prestamo = session.get(Prestamo.class, prestamoId);
+                        if (prestamo == null) {
+                            tx.rollback();
+                            return false;
+                        }
                 
-                // Validar que el préstamo esté en estado PENDIENTE
-                if (prestamo.getEstado() != EstadoPrestamo.PENDIENTE) {
-                    tx.rollback();
-                    return false;
+                        // Validar que el préstamo esté en estado PENDIENTE
+                        if (prestamo.getEstado() != EstadoPrestamo.PENDIENTE) {
+                            tx.rollback();
+                            return false;
+                        }
+                
+                        // Cancelar el préstamo y actualizar la fecha de devolución a la fecha actual
+                        prestamo.setEstado(EstadoPrestamo.DEVUELTO);
+                        prestamo.setFechaEstimadaDevolucion(LocalDate.now()); // Actualizar a la fecha actual
+                        session.merge(prestamo);
+                        confirmar(tx, () -> {
+                            indiceDemanda.registrarCambio(idMaterial(prestamo), EstadoPrestamo.PENDIENTE, idMaterial(prestamo), EstadoPrestamo.DEVUELTO);
+                            indiceVencidos.registrar(prestamo.getId(), prestamo.getVersion(), idLector(prestamo), prestamo.getEstado(), prestamo.getFechaEstimadaDevolucion());
+                        });
+                
+                        logger.log(Level.INFO, "Préstamo cancelado exitosamente - ID: {0}, Lector: {1}, Material: {2}, Fecha cancelación: {3}", new Object[] {
+                            prestamo.getId(), prestamo.getLector().getNombre(),
+                            prestamo.getMaterial().getClass().getSimpleName(), LocalDate.now()});
+                        return true;
+                
+                    } catch (RuntimeException e) {
+                        tx.rollback();
+                        if (!ReintentoOptimista.esConflictoDeVersion(e)) {
+                            logger.log(Level.SEVERE, "Error al cancelar préstamo", e);
+                        }
+                        throw e;
+                    }
+                }
+            });
+        });
+    }
+    
+    // ==================== OPERACIONES MASIVAS ====================
+    
+    /** Cantidad máxima de préstamos por operación masiva */
+    public static final int MAXIMO_OPERACION_MASIVA = 1000;
+    
+    /**
+     * Operaciones de cambio de estado que se pueden aplicar a una lista de préstamos
+     * Cada una valida lo mismo que su versión individual
+     */
+    public enum OperacionMasiva {
+        /** PENDIENTE → EN_CURSO, respetando el límite de 3 préstamos activos por lector */
+        APROBAR,
+        /** PENDIENTE o EN_CURSO → DEVUELTO (los EN_CURSO quedan con fecha de devolución de hoy) */
+        DEVOLVER,
+        /** PENDIENTE → DEVUELTO, manteniendo la fecha estimada original */
+        CANCELAR;
+        
+        /**
+         * @param valor "aprobar", "devolver" o "cancelar" (sin distinguir mayúsculas)
+         * @throws IllegalArgumentException Si la operación no existe
+         */
+        public static OperacionMasiva desde(String valor) {
+            if (valor != null) {
+                for (OperacionMasiva operacion : values()) {
+                    if (operacion.name().equalsIgnoreCase(valor.trim())) {
+                        return operacion;
+                    }
                 }
+            }
+            throw new IllegalArgumentException("Operación no soportada: " + valor + " (use aprobar, devolver o cancelar)");
+        }
+    }
+    
+    /**
+     * Aplica una operación a una lista de préstamos en una sola transacción
+     * Lee el estado de todos los préstamos con una consulta, valida cada uno (para APROBAR
+     * el límite por lector sale de un único COUNT agrupado y cuenta también las aprobaciones
+     * del mismo lote) y aplica los cambios con UPDATE masivos, uno por transición de estado.
+     * Los préstamos que no pasan la validación se informan sin impedir que se apliquen los demás.
+     * @param operacion Operación a aplicar
+     * @param prestamoIds IDs de los préstamos (hasta MAXIMO_OPERACION_MASIVA)
+     * @return Un resultado por ID, en el orden recibido
+     * @throws IllegalArgumentException Si la lista está vacía, tiene IDs nulos o supera el máximo
+     * @throws edu.udelar.pap.exception.ConflictoConcurrenciaException Si otro usuario modificó alguno de los préstamos
+     *         durante la operación (no se aplica ningún cambio y se puede reintentar)
+     */
+    public List<ResultadoOperacion> aplicarOperacionMasiva(OperacionMasiva operacion, List<Long> prestamoIds) {
+        return metricas.medir(RegistroMetricas.Tipo.SERVICIO, "PrestamoService.aplicarOperacionMasiva", () -> {
+            if (operacion == null) {
+                throw new IllegalArgumentException("La operación es requerida");
+            }
+            if (prestamoIds == null || prestamoIds.isEmpty()) {
+                throw new IllegalArgumentException("Debe indicar al menos un préstamo");
+            }
+            if (prestamoIds.size() > MAXIMO_OPERACION_MASIVA) {
+                throw new IllegalArgumentException("Se pueden procesar hasta " + MAXIMO_OPERACION_MASIVA +
+                    " préstamos por operación (se recibieron " + prestamoIds.size() + ")");
+            }
+            if (prestamoIds.contains(null)) {
+                throw new IllegalArgumentException("La lista de préstamos contiene IDs nulos");
+            }
+            List<Long> idsUnicos = new ArrayList<>(new LinkedHashSet<>(prestamoIds));
+        
+            List<ResultadoOperacion> resultados = new ArrayList<>(prestamoIds.size());
+            // Cambios aplicados (id, material, estado anterior, estado nuevo, lector, fecha) para los índices
+            List<Object[]> cambios = new ArrayList<>();
+            Map<Long, Long> versiones = new HashMap<>();
+            try (Session session = sessionFactory.openSession()) {
+                Transaction tx = session.beginTransaction();
+                try {
+                    // Las aprobaciones bloquean los préstamos y después sus lectores, en el mismo
+                    // orden que aprobarPrestamo, antes de contar los activos
+                    boolean aprobar = operacion == OperacionMasiva.APROBAR;
+                    Map<Long, Object[]> filas = new HashMap<>();
+                    for (Object[] fila : session.createQuery(
+                            "SELECT p.id, p.estado, p.lector.id, p.material.id, p.fechaEstimadaDevolucion FROM Prestamo p " +
+                            "WHERE p.id IN :ids ORDER BY p.id",
+                            Object[].class)
+                            .setParameter("ids", idsUnicos)
+                            .setHibernateLockMode(aprobar ? LockMode.PESSIMISTIC_WRITE : LockMode.NONE)
+                            .list()) {
+                        filas.put((Long) fila[0], fila);
+                    }
                 
-                // Cancelar el préstamo y actualizar la fecha de devolución a la fecha actual
-                prestamo.setEstado(EstadoPrestamo.DEVUELTO);
-                prestamo.setFechaEstimadaDevolucion(LocalDate.now()); // Actualizar a la fecha actual
-                session.merge(prestamo);
-                tx.commit();
+                    Map<Long, Long> activosPorLector = aprobar
+                        ? contarPrestamosActivosPorLector(session, filas.values())
+                        : new HashMap<>();
                 
-                logger.info("Préstamo cancelado exitosamente - ID: " + prestamo.getId() + 
-                           ", Lector: " + prestamo.getLector().getNombre() + 
-                           ", Material: " + prestamo.getMaterial().getClass().getSimpleName() +
-                           ", Fecha cancelación: " + LocalDate.now());
-                return true;
+                    List<Long> aprobados = new ArrayList<>();
+                    List<Long> devueltosEnCurso = new ArrayList<>();
+                    List<Long> devueltosPendientes = new ArrayList<>();
+                    Set<Long> procesados = new HashSet<>();
+                    for (Long id : prestamoIds) {
+                        if (!procesados.add(id)) {
+                            resultados.add(ResultadoOperacion.fallido(id, null, "ID repetido en la solicitud"));
+                            continue;
+                        }
+                        Object[] fila = filas.get(id);
+                        if (fila == null) {
+                            resultados.add(ResultadoOperacion.fallido(id, null, "Préstamo no encontrado"));
+                            continue;
+                        }
+                        EstadoPrestamo estado = (EstadoPrestamo) fila[1];
+                        String error = null;
+                        EstadoPrestamo nuevo = null;
+                        switch (operacion) {
+                            case APROBAR:
+                                Long lectorId = (Long) fila[2];
+                                long activos = activosPorLector.getOrDefault(lectorId, 0L);
+                                if (estado != EstadoPrestamo.PENDIENTE) {
+                                    error = "El préstamo debe estar en estado PENDIENTE para ser aprobado";
+                                } else if (activos >= MAXIMO_PRESTAMOS_ACTIVOS) {
+                                    error = MENSAJE_LIMITE_PRESTAMOS;
+                                } else {
+                                    activosPorLector.put(lectorId, activos + 1);
+                                    aprobados.add(id);
+                                    nuevo = EstadoPrestamo.EN_CURSO;
+                                }
+                                break;
+                            case DEVOLVER:
+                                if (estado == EstadoPrestamo.DEVUELTO) {
+                                    error = "El préstamo ya está marcado como devuelto";
+                                } else {
+                                    (estado == EstadoPrestamo.EN_CURSO ? devueltosEnCurso : devueltosPendientes).add(id);
+                                    nuevo = EstadoPrestamo.DEVUELTO;
+                                }
+                                break;
+                            case CANCELAR:
+                                if (estado != EstadoPrestamo.PENDIENTE) {
+                                    error = "Solo se pueden cancelar préstamos en estado PENDIENTE";
+                                } else {
+                                    devueltosPendientes.add(id);
+                                    nuevo = EstadoPrestamo.DEVUELTO;
+                                }
+                                break;
+                        }
+                        if (error != null) {
+                            resultados.add(ResultadoOperacion.fallido(id, estado, error));
+                        } else {
+                            resultados.add(new ResultadoOperacion(id, true, null, estado, nuevo));
+                            cambios.add(new Object[] { id, fila[3], estado, nuevo, fila[2], fila[4] });
+                        }
+                    }
                 
-            } catch (Exception e) {
-                tx.rollback();
-                logger.log(Level.SEVERE, "Error al cancelar préstamo", e);
-                throw e;
+                    actualizarEstados(session, aprobados, EstadoPrestamo.PENDIENTE, EstadoPrestamo.EN_CURSO, null);
+                    // Como en marcarPrestamoComoDevuelto: solo los EN_CURSO registran la devolución de hoy
+                    actualizarEstados(session, devueltosEnCurso, EstadoPrestamo.EN_CURSO, EstadoPrestamo.DEVUELTO, LocalDate.now());
+                    actualizarEstados(session, devueltosPendientes, EstadoPrestamo.PENDIENTE, EstadoPrestamo.DEVUELTO, null);
+                    // Versiones que dejó el UPDATE VERSIONED, para que el índice de vencidos descarte registros atrasados;
+                    // las filas siguen bloqueadas por esta transacción hasta el commit
+                    if (!cambios.isEmpty()) {
+                        List<Long> idsCambiados = new ArrayList<>(cambios.size());
+                        for (Object[] cambio : cambios) {
+                            idsCambiados.add((Long) cambio[0]);
+                        }
+                        for (Object[] fila : session.createQuery(
+                                "SELECT p.id, p.version FROM Prestamo p WHERE p.id IN :ids", Object[].class)
+                                .setParameter("ids", idsCambiados)
+                                .list()) {
+                            versiones.put((Long) fila[0], (Long) fila[1]);
+                        }
+                    }
+                    confirmar(tx, () -> {
+                        for (Object[] cambio : cambios) {
+                            indiceDemanda.registrarCambio((Long) cambio[1], (EstadoPrestamo) cambio[2], (Long) cambio[1], (EstadoPrestamo) cambio[3]);
+                            // Al devolver, la fecha nueva no importa: el préstamo sale del índice de vencidos
+                            indiceVencidos.registrar((Long) cambio[0], versiones.get((Long) cambio[0]), (Long) cambio[4], (EstadoPrestamo) cambio[3], (LocalDate) cambio[5]);
+                        }
+                    });
+                } catch (Exception e) {
+                    tx.rollback();
+                    if (!ReintentoOptimista.esConflictoDeVersion(e)) {
+                        logger.log(Level.SEVERE, "Error en operación masiva " + operacion + " de " + prestamoIds.size() + " préstamos", e);
+                    }
+                    throw e;
+                }
+            }
+            logger.log(Level.INFO, "Operación masiva {0}: {1} de {2} préstamos actualizados", new Object[] {operacion, cambios.size(), prestamoIds.size()});
+            return resultados;
+        });
+    }
+    
+    /**
+     * Préstamos EN_CURSO de cada lector de las filas (id, estado, lectorId, ...), en un solo COUNT agrupado
+     * Bloquea antes a esos lectores (ver bloquearLectores), así que los conteos valen hasta el commit
+     */
+    private static Map<Long, Long> contarPrestamosActivosPorLector(Session session, Collection<Object[]> filas) {
+        Set<Long> lectorIds = new HashSet<>();
+        for (Object[] fila : filas) {
+            if (fila[1] == EstadoPrestamo.PENDIENTE) {
+                lectorIds.add((Long) fila[2]);
             }
         }
+        return bloquearYContarActivos(session, lectorIds);
+    }
+    
+    /**
+     * Bloquea a los lectores (ver bloquearLectores) y cuenta sus préstamos EN_CURSO en un solo COUNT agrupado
+     * Los conteos valen hasta el commit; también lo usa ImportacionService al guardar préstamos importados.
+     * @return Préstamos EN_CURSO por lector (los que no tienen ninguno no aparecen)
+     */
+    static Map<Long, Long> bloquearYContarActivos(Session session, Collection<Long> lectorIds) {
+        Map<Long, Long> activos = new HashMap<>();
+        if (lectorIds.isEmpty()) {
+            return activos;
+        }
+        bloquearLectores(session, lectorIds);
+        for (Object[] fila : session.createQuery(
+                "SELECT p.lector.id, COUNT(p) FROM Prestamo p " +
+                "WHERE p.lector.id IN :lectorIds AND p.estado = :estadoEnCurso GROUP BY p.lector.id",
+                Object[].class)
+                .setParameter("lectorIds", lectorIds)
+                .setParameter("estadoEnCurso", EstadoPrestamo.EN_CURSO)
+                .list()) {
+            activos.put((Long) fila[0], aLong(fila[1]));
+        }
+        return activos;
+    }
+    
+    /**
+     * UPDATE masivo de estado; la condición sobre el estado anterior detecta cambios
+     * concurrentes entre la lectura y la escritura. Es VERSIONED para que incremente la versión
+     * de cada préstamo y una edición concurrente hecha sobre la versión anterior falle
+     */
+    private static void actualizarEstados(Session session, List<Long> ids, EstadoPrestamo desde,
+                                          EstadoPrestamo hasta, LocalDate fechaDevolucion) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        MutationQuery update = session.createMutationQuery(
+                "UPDATE VERSIONED Prestamo p SET p.estado = :hasta" +
+                (fechaDevolucion != null ? ", p.fechaEstimadaDevolucion = :fecha" : "") +
+                " WHERE p.id IN :ids AND p.estado = :desde")
+            .setParameter("hasta", hasta)
+            .setParameter("desde", desde)
+            .setParameter("ids", ids);
+        if (fechaDevolucion != null) {
+            update.setParameter("fecha", fechaDevolucion);
+        }
+        int actualizados = update.executeUpdate();
+        if (actualizados != ids.size()) {
+            throw new edu.udelar.pap.exception.ConflictoConcurrenciaException("Préstamo", "Otro usuario modificó alguno de los préstamos durante la operación; " +
+                "no se aplicó ningún cambio, recargue los datos y vuelva a intentarlo");
+        }
+    }
+    
+    /**
+     * Resultado de una operación masiva para un préstamo
+     */
+    public static final class ResultadoOperacion {
+        private final Long prestamoId;
+        private final boolean exito;
+        private final String mensaje;
+        private final EstadoPrestamo estadoAnterior;
+        private final EstadoPrestamo estadoNuevo;
+        
+        public ResultadoOperacion(Long prestamoId, boolean exito, String mensaje,
+                                  EstadoPrestamo estadoAnterior, EstadoPrestamo estadoNuevo) {
+            this.prestamoId = prestamoId;
+            this.exito = exito;
+            this.mensaje = mensaje;
+            this.estadoAnterior = estadoAnterior;
+            this.estadoNuevo = estadoNuevo;
+        }
+        
+        static ResultadoOperacion fallido(Long prestamoId, EstadoPrestamo estado, String mensaje) {
+            return new ResultadoOperacion(prestamoId, false, mensaje, estado, null);
+        }
+        
+        public Long getPrestamoId() {
+            return prestamoId;
+        }
+        
+        public boolean isExito() {
+            return exito;
+        }
+        
+        /**
+         * @return Motivo del rechazo, o null si se aplicó
+         */
+        public String getMensaje() {
+            return mensaje;
+        }
+        
+        /**
+         * @return Estado antes de la operación, o null si el préstamo no existe
+         */
+        public EstadoPrestamo getEstadoAnterior() {
+            return estadoAnterior;
+        }
+        
+        /**
+         * @return Estado después de la operación, o null si no se aplicó
+         */
+        public EstadoPrestamo getEstadoNuevo() {
+            return estadoNuevo;
+        }
     }
 }
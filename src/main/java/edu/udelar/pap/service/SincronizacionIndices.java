@@ -0,0 +1,36 @@
+package edu.udelar.pap.service;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Coordina los índices en memoria de préstamos (IndiceDemandaMateriales, IndicePrestamosVencidos)
+ * con sus reconstrucciones desde la base
+ * PrestamoService confirma cada transacción y registra el cambio en los índices con el candado de
+ * cambios (compartido); una reconstrucción toma el exclusivo mientras lee la base y publica el
+ * resultado. Así ninguna reconstrucción lee entre el commit de un cambio y su registro: los
+ * registrados antes ya están en lo que se lee y los confirmados después llegan como cambios,
+ * sin contarse dos veces ni perderse.
+ *
+ * Orden de adquisición: primero este candado y después el monitor del índice.
+ */
+final class SincronizacionIndices {
+
+    private static final ReentrantReadWriteLock CANDADO = new ReentrantReadWriteLock();
+
+    private SincronizacionIndices() {}
+
+    /**
+     * Candado compartido: se toma antes del commit y se suelta después de registrar el cambio
+     */
+    static Lock cambios() {
+        return CANDADO.readLock();
+    }
+
+    /**
+     * Candado exclusivo: mientras una reconstrucción lee la base y reemplaza el índice
+     */
+    static Lock reconstruccion() {
+        return CANDADO.writeLock();
+    }
+}
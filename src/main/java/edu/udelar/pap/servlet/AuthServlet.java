@@ -1,6 +1,8 @@
 package edu.udelar.pap.servlet;
 
 import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import edu.udelar.pap.publisher.PublisherFactory;
 import jakarta.servlet.ServletException;
@@ -14,6 +16,8 @@ import jakarta.servlet.http.HttpSession;
  */
 public class AuthServlet extends HttpServlet {
     
+    private static final Logger logger = Logger.getLogger(AuthServlet.class.getName());
+    
     private PublisherFactory factory;
     
     @Override
@@ -161,10 +165,10 @@ public class AuthServlet extends HttpServlet {
         // Verificar si es una petición AJAX
         boolean isAjax = "XMLHttpRequest".equals(request.getHeader("X-Requested-With"));
         
-        System.out.println("🔍 AuthServlet.handleRegister - userType: " + userType);
+        logger.fine(() -> "AuthServlet.handleRegister - userType: " + userType);
         
         if (userType == null || userType.trim().isEmpty()) {
-            System.out.println("❌ userType está vacío");
+            logger.fine("userType está vacío");
             if (isAjax) {
                 sendJsonResponse(response, false, "Por favor seleccione un tipo de usuario");
             } else {
@@ -179,11 +183,7 @@ public class AuthServlet extends HttpServlet {
             String result;
             
             if ("BIBLIOTECARIO".equals(userType)) {
-                System.out.println("📚 Creando bibliotecario...");
-                System.out.println("  - nombre: " + request.getParameter("nombre"));
-                System.out.println("  - apellido: " + request.getParameter("apellido"));
-                System.out.println("  - email: " + request.getParameter("email"));
-                System.out.println("  - numeroEmpleado: " + request.getParameter("numeroEmpleado"));
+                logger.fine(() -> "Creando bibliotecario: nombre=" + request.getParameter("nombre") + ", apellido=" + request.getParameter("apellido") + ", email=" + request.getParameter("email") + ", numeroEmpleado=" + request.getParameter("numeroEmpleado"));
                 
                 result = factory.getBibliotecarioPublisher().crearBibliotecario(
                     request.getParameter("nombre"),
@@ -193,13 +193,7 @@ public class AuthServlet extends HttpServlet {
                     request.getParameter("password")
                 );
             } else if ("LECTOR".equals(userType)) {
-                System.out.println("👤 Creando lector...");
-                System.out.println("  - nombre: " + request.getParameter("nombre"));
-                System.out.println("  - apellido: " + request.getParameter("apellido"));
-                System.out.println("  - email: " + request.getParameter("email"));
-                System.out.println("  - telefono: " + request.getParameter("telefono"));
-                System.out.println("  - direccion: " + request.getParameter("direccion"));
-                System.out.println("  - zona: " + request.getParameter("zona"));
+                logger.fine(() -> "Creando lector: nombre=" + request.getParameter("nombre") + ", apellido=" + request.getParameter("apellido") + ", email=" + request.getParameter("email") + ", telefono=" + request.getParameter("telefono") + ", direccion=" + request.getParameter("direccion") + ", zona=" + request.getParameter("zona"));
                 
                 result = factory.getLectorPublisher().crearLector(
                     request.getParameter("nombre"),
@@ -222,10 +216,10 @@ public class AuthServlet extends HttpServlet {
             }
             
             // Parsear resultado JSON (simplificado)
-            System.out.println("📊 Resultado del publisher: " + result);
+            logger.fine(() -> "Resultado del publisher: " + result);
             
             if (result.contains("\"success\": true")) {
-                System.out.println("✅ Registro exitoso");
+                logger.fine("Registro exitoso");
                 if (isAjax) {
                     sendJsonResponse(response, true, "Usuario registrado exitosamente. Por favor inicie sesión.");
                 } else {
@@ -244,7 +238,7 @@ public class AuthServlet extends HttpServlet {
                     }
                 }
                 
-                System.out.println("❌ Error en registro: " + errorMessage);
+                logger.log(Level.FINE, "Error en registro: {0}", errorMessage);
                 
                 if (isAjax) {
                     sendJsonResponse(response, false, errorMessage);
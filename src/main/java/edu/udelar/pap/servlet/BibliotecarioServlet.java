@@ -3,6 +3,7 @@ package edu.udelar.pap.servlet;
 import java.io.IOException;
 import java.io.PrintWriter;
 
+import edu.udelar.pap.exception.ServicioSaturadoException;
 import edu.udelar.pap.publisher.PublisherFactory;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
@@ -129,6 +130,10 @@ public class BibliotecarioServlet extends HttpServlet {
                 out.println("{\"error\": \"Endpoint no encontrado\"}");
             }
             
+        } catch (ServicioSaturadoException e) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSegundos()));
+            out.println(edu.udelar.pap.util.JsonUtil.saturado(e));
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             out.println("{\"error\": \"" + e.getMessage() + "\"}");
@@ -90,8 +90,9 @@ public class DonacionServlet extends HttpServlet {
                     return;
                 }
                 
-                String result = factory.getDonacionPublisher().obtenerDonacionesPorFechas(fechaDesde, fechaHasta);
-                out.println(result);
+                // En streaming directamente sobre la respuesta
+                factory.getDonacionPublisher().escribirDonacionesPorFechas(fechaDesde, fechaHasta, out);
+                out.println();
                 
             } else {
                 response.setStatus(HttpServletResponse.SC_NOT_FOUND);
@@ -115,7 +116,29 @@ public class DonacionServlet extends HttpServlet {
         String pathInfo = request.getPathInfo();
         
         try {
-            if (pathInfo.equals("/crear-libro")) {
+            if (pathInfo.equals("/importar")) {
+                // Importación masiva: el cuerpo es el archivo CSV o JSON lines
+                String tipo = request.getParameter("tipo");
+                String formato = request.getParameter("formato");
+                if (formato == null) {
+                    String contentType = request.getContentType();
+                    formato = contentType != null && contentType.contains("json") ? "jsonl" : "csv";
+                }
+                Integer intervaloCommit = null;
+                if (request.getParameter("intervaloCommit") != null) {
+                    try {
+                        intervaloCommit = Integer.parseInt(request.getParameter("intervaloCommit").trim());
+                    } catch (NumberFormatException e) {
+                        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                        out.println("{\"error\": \"intervaloCommit debe ser un número\"}");
+                        return;
+                    }
+                }
+                request.setCharacterEncoding("UTF-8");
+                out.println(factory.getDonacionPublisher()
+                    .importarDonaciones(tipo, request.getReader(), formato, intervaloCommit));
+
+            } else if (pathInfo.equals("/crear-libro")) {
                 // Crear donación de libro
                 String titulo = request.getParameter("titulo");
                 String cantidadPaginas = request.getParameter("cantidadPaginas");
@@ -3,6 +3,7 @@ package edu.udelar.pap.servlet;
 import java.io.IOException;
 import java.io.PrintWriter;
 
+import edu.udelar.pap.exception.ServicioSaturadoException;
 import edu.udelar.pap.publisher.PublisherFactory;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
@@ -63,9 +64,9 @@ public class LectorServlet extends HttpServlet {
                 out.println(result);
                 
             } else if (pathInfo.equals("/lista")) {
-                // Obtener lista de lectores
-                String result = factory.getLectorPublisher().obtenerListaLectores();
-                out.println(result);
+                // Obtener lista de lectores (en streaming sobre la respuesta)
+                factory.getLectorPublisher().escribirListaLectores(out);
+                out.println();
                 
             } else if (pathInfo.equals("/estado")) {
                 // Estado del servicio
@@ -174,6 +175,10 @@ public class LectorServlet extends HttpServlet {
                 out.println("{\"error\": \"Endpoint no encontrado\"}");
             }
             
+        } catch (ServicioSaturadoException e) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSegundos()));
+            out.println(edu.udelar.pap.util.JsonUtil.saturado(e));
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             out.println("{\"error\": \"" + e.getMessage() + "\"}");
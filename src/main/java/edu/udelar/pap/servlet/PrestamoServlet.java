@@ -45,11 +45,12 @@ public class PrestamoServlet extends HttpServlet {
                 out.println("    \"GET /prestamo/cantidad-por-estado - Obtener cantidad por estado\",");
                 out.println("    \"GET /prestamo/cantidad-por-lector - Obtener cantidad por lector\",");
                 out.println("    \"GET /prestamo/cantidad-vencidos - Obtener cantidad de préstamos vencidos\",");
+                out.println("    \"GET /prestamo/vencidos?limite=N&lectorId=X - Préstamos vencidos, los más atrasados primero\",");
                 out.println("    \"GET /prestamo/info?id=X - Obtener información detallada de un préstamo\",");
                 out.println("    \"GET /prestamo/estado - Estado del servicio\",");
                 out.println("    \"POST /prestamo/crear - Crear préstamo (lectorId, bibliotecarioId, materialId, fechaDevolucion, estado)\",");
                 out.println("    \"POST /prestamo/cambiar-estado - Cambiar estado del préstamo\",");
-                out.println("    \"POST /prestamo/actualizar - Actualizar cualquier información del préstamo (prestamoId, lectorId, bibliotecarioId, materialId, fechaDevolucion, estado)\",");
+                out.println("    \"POST /prestamo/actualizar - Actualizar cualquier información del préstamo (prestamoId, lectorId, bibliotecarioId, materialId, fechaDevolucion, estado, version opcional)\",");
                 out.println("    \"POST /prestamo/aprobar - Aprobar préstamo\",");
                 out.println("    \"POST /prestamo/cancelar - Cancelar préstamo\",");
                 out.println("    \"POST /prestamo/devolver - Devolver préstamo (id)\",");
@@ -89,6 +90,15 @@ public class PrestamoServlet extends HttpServlet {
                 String result = factory.getPrestamoPublisher().obtenerCantidadPrestamosVencidos();
                 out.println(result);
                 
+            } else if (pathInfo.equals("/vencidos")) {
+                // Préstamos vencidos (limite y lectorId opcionales)
+                String limite = request.getParameter("limite");
+                String lectorId = request.getParameter("lectorId");
+                String result = factory.getPrestamoPublisher().obtenerPrestamosVencidos(
+                    limite != null ? Integer.valueOf(limite) : null,
+                    lectorId != null ? Long.valueOf(lectorId) : null);
+                out.println(result);
+                
             } else if (pathInfo.equals("/estadisticas")) {
                 // Obtener estadísticas completas de préstamos
                 String result = factory.getPrestamoPublisher().obtenerEstadisticasPrestamos();
@@ -118,13 +128,16 @@ public class PrestamoServlet extends HttpServlet {
                 out.println(result);
                 
             } else if (pathInfo.equals("/reporte-por-zona")) {
-                // Obtener reporte de préstamos agrupados por zona
-                String result = factory.getPrestamoPublisher().obtenerReportePorZona();
+                // Obtener reporte de préstamos agrupados por zona (rango de fechas opcional)
+                String result = factory.getPrestamoPublisher().obtenerReportePorZona(
+                    request.getParameter("desde"), request.getParameter("hasta"));
                 out.println(result);
                 
             } else if (pathInfo.equals("/materiales-pendientes")) {
                 // Obtener materiales con muchos préstamos pendientes
-                String result = factory.getPrestamoPublisher().obtenerMaterialesPendientes();
+                String limite = request.getParameter("limite");
+                String result = factory.getPrestamoPublisher().obtenerMaterialesPendientes(
+                    limite != null && !limite.trim().isEmpty() ? Integer.valueOf(limite.trim()) : null);
                 out.println(result);
                 
             } else if (pathInfo.equals("/estado")) {
@@ -203,6 +216,7 @@ public class PrestamoServlet extends HttpServlet {
                 String materialId = request.getParameter("materialId");
                 String fechaDevolucion = request.getParameter("fechaDevolucion");
                 String estado = request.getParameter("estado");
+                String version = request.getParameter("version");
                 
                 if (prestamoId == null) {
                     response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
@@ -211,7 +225,7 @@ public class PrestamoServlet extends HttpServlet {
                 }
                 
                 String result = factory.getPrestamoPublisher().actualizarPrestamo(
-                    prestamoId, lectorId, bibliotecarioId, materialId, fechaDevolucion, estado
+                    prestamoId, lectorId, bibliotecarioId, materialId, fechaDevolucion, estado, version
                 );
                 out.println(result);
                 
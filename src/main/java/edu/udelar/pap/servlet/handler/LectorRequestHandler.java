@@ -1,5 +1,6 @@
 package edu.udelar.pap.servlet.handler;
 
+import edu.udelar.pap.exception.ServicioSaturadoException;
 import edu.udelar.pap.publisher.PublisherFactory;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -73,6 +74,10 @@ public class LectorRequestHandler {
                 response.setStatus(HttpServletResponse.SC_NOT_FOUND);
                 out.println("{\"error\": \"Endpoint no encontrado\"}");
             }
+        } catch (ServicioSaturadoException e) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSegundos()));
+            out.println(edu.udelar.pap.util.JsonUtil.saturado(e));
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             out.println("{\"error\": \"" + e.getMessage() + "\"}");
@@ -127,9 +132,10 @@ public class LectorRequestHandler {
     /**
      * Obtiene la lista de lectores
      */
-    private void obtenerListaLectores(PrintWriter out) {
-        String result = factory.getLectorPublisher().obtenerListaLectores();
-        out.println(result);
+    private void obtenerListaLectores(PrintWriter out) throws IOException {
+        // Se escribe en streaming directamente sobre la respuesta
+        factory.getLectorPublisher().escribirListaLectores(out);
+        out.println();
     }
     
     /**
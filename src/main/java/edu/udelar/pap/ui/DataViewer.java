@@ -1,10 +1,9 @@
 package edu.udelar.pap.ui;
 
 import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.persistence.ModoLectura;
 import edu.udelar.pap.domain.*;
-import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.query.Query;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -17,6 +16,9 @@ import java.util.List;
  */
 public class DataViewer {
     
+    /** Las tablas solo muestran datos: se cargan sin estado, con las asociaciones de préstamos en la misma consulta */
+    private static final ModoLectura TABLAS = ModoLectura.SIN_ESTADO;
+    
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("📊 Visor de Datos - Biblioteca PAP");
@@ -74,21 +76,19 @@ public class DataViewer {
         
         try {
             SessionFactory sf = HibernateUtil.getSessionFactory();
-            try (Session session = sf.openSession()) {
-                Query<Lector> query = session.createQuery("FROM Lector", Lector.class);
-                List<Lector> lectores = query.list();
-                
-                for (Lector lector : lectores) {
-                    model.addRow(new Object[]{
-                        lector.getId(),
-                        lector.getNombre(),
-                        lector.getEmail(),
-                        lector.getDireccion(),
-                        lector.getFechaRegistro(),
-                        lector.getEstado(),
-                        lector.getZona()
-                    });
-                }
+            List<Lector> lectores = TABLAS.leer(sf, session ->
+                TABLAS.consulta(session, "FROM Lector", Lector.class).list());
+            
+            for (Lector lector : lectores) {
+                model.addRow(new Object[]{
+                    lector.getId(),
+                    lector.getNombre(),
+                    lector.getEmail(),
+                    lector.getDireccion(),
+                    lector.getFechaRegistro(),
+                    lector.getEstado(),
+                    lector.getZona()
+                });
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(null, "Error al cargar lectores: " + e.getMessage(), 
@@ -114,18 +114,16 @@ public class DataViewer {
         
         try {
             SessionFactory sf = HibernateUtil.getSessionFactory();
-            try (Session session = sf.openSession()) {
-                Query<Bibliotecario> query = session.createQuery("FROM Bibliotecario", Bibliotecario.class);
-                List<Bibliotecario> bibliotecarios = query.list();
-                
-                for (Bibliotecario bibliotecario : bibliotecarios) {
-                    model.addRow(new Object[]{
-                        bibliotecario.getId(),
-                        bibliotecario.getNombre(),
-                        bibliotecario.getEmail(),
-                        bibliotecario.getNumeroEmpleado()
-                    });
-                }
+            List<Bibliotecario> bibliotecarios = TABLAS.leer(sf, session ->
+                TABLAS.consulta(session, "FROM Bibliotecario", Bibliotecario.class).list());
+            
+            for (Bibliotecario bibliotecario : bibliotecarios) {
+                model.addRow(new Object[]{
+                    bibliotecario.getId(),
+                    bibliotecario.getNombre(),
+                    bibliotecario.getEmail(),
+                    bibliotecario.getNumeroEmpleado()
+                });
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(null, "Error al cargar bibliotecarios: " + e.getMessage(), 
@@ -148,18 +146,16 @@ public class DataViewer {
         
         try {
             SessionFactory sf = HibernateUtil.getSessionFactory();
-            try (Session session = sf.openSession()) {
-                Query<Libro> query = session.createQuery("FROM Libro", Libro.class);
-                List<Libro> libros = query.list();
-                
-                for (Libro libro : libros) {
-                    model.addRow(new Object[]{
-                        libro.getId(),
-                        libro.getTitulo(),
-                        libro.getPaginas(),
-                        libro.getFechaIngreso()
-                    });
-                }
+            List<Libro> libros = TABLAS.leer(sf, session ->
+                TABLAS.consulta(session, "FROM Libro", Libro.class).list());
+            
+            for (Libro libro : libros) {
+                model.addRow(new Object[]{
+                    libro.getId(),
+                    libro.getTitulo(),
+                    libro.getPaginas(),
+                    libro.getFechaIngreso()
+                });
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(null, "Error al cargar libros: " + e.getMessage(), 
@@ -182,19 +178,17 @@ public class DataViewer {
         
         try {
             SessionFactory sf = HibernateUtil.getSessionFactory();
-            try (Session session = sf.openSession()) {
-                Query<ArticuloEspecial> query = session.createQuery("FROM ArticuloEspecial", ArticuloEspecial.class);
-                List<ArticuloEspecial> articulos = query.list();
-                
-                for (ArticuloEspecial articulo : articulos) {
-                    model.addRow(new Object[]{
-                        articulo.getId(),
-                        articulo.getDescripcion(),
-                        articulo.getPeso(),
-                        articulo.getDimensiones(),
-                        articulo.getFechaIngreso()
-                    });
-                }
+            List<ArticuloEspecial> articulos = TABLAS.leer(sf, session ->
+                TABLAS.consulta(session, "FROM ArticuloEspecial", ArticuloEspecial.class).list());
+            
+            for (ArticuloEspecial articulo : articulos) {
+                model.addRow(new Object[]{
+                    articulo.getId(),
+                    articulo.getDescripcion(),
+                    articulo.getPeso(),
+                    articulo.getDimensiones(),
+                    articulo.getFechaIngreso()
+                });
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(null, "Error al cargar artículos especiales: " + e.getMessage(), 
@@ -218,23 +212,21 @@ public class DataViewer {
         
         try {
             SessionFactory sf = HibernateUtil.getSessionFactory();
-            try (Session session = sf.openSession()) {
-                Query<Prestamo> query = session.createQuery("FROM Prestamo", Prestamo.class);
-                List<Prestamo> prestamos = query.list();
+            List<Prestamo> prestamos = TABLAS.leer(sf, session ->
+                TABLAS.consulta(session, "FROM Prestamo p JOIN FETCH p.lector JOIN FETCH p.bibliotecario JOIN FETCH p.material", Prestamo.class).list());
+            
+            for (Prestamo prestamo : prestamos) {
+                String materialInfo = "ID: " + prestamo.getMaterial().getId();
                 
-                for (Prestamo prestamo : prestamos) {
-                    String materialInfo = "ID: " + prestamo.getMaterial().getId();
-                    
-                    model.addRow(new Object[]{
-                        prestamo.getId(),
-                        prestamo.getLector() != null ? prestamo.getLector().getNombre() : "N/A",
-                        prestamo.getBibliotecario() != null ? prestamo.getBibliotecario().getNombre() : "N/A",
-                        materialInfo,
-                        prestamo.getFechaSolicitud(),
-                        prestamo.getFechaEstimadaDevolucion(),
-                        prestamo.getEstado()
-                    });
-                }
+                model.addRow(new Object[]{
+                    prestamo.getId(),
+                    prestamo.getLector() != null ? prestamo.getLector().getNombre() : "N/A",
+                    prestamo.getBibliotecario() != null ? prestamo.getBibliotecario().getNombre() : "N/A",
+                    materialInfo,
+                    prestamo.getFechaSolicitud(),
+                    prestamo.getFechaEstimadaDevolucion(),
+                    prestamo.getEstado()
+                });
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(null, "Error al cargar préstamos: " + e.getMessage(), 
@@ -25,6 +25,7 @@ import edu.udelar.pap.server.WebServicePublisher;
 public class MainRefactored {
     
     public static void main(String[] args) {
+        edu.udelar.pap.util.ConfiguracionLog.inicializar();
         try {
             // Verificar si se solicita ayuda
             if (args.length > 0 && "--help".equals(args[0])) {
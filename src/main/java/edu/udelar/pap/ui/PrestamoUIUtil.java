@@ -636,14 +636,15 @@ public class PrestamoUIUtil {
                 return;
             }
             
-            // Actualizar préstamo usando el servicio
+            // Actualizar préstamo usando el servicio, sobre la versión que se mostró en el diálogo
             boolean exito = prestamoService.actualizarPrestamoCompleto(
                 prestamo.getId(),
                 nuevoLector,
                 nuevoBibliotecario,
                 nuevoMaterialItem.getMaterial(),
                 nuevaFechaDevolucion,
-                nuevoEstado
+                nuevoEstado,
+                prestamo.getVersion()
             );
             
             if (exito) {
@@ -0,0 +1,132 @@
+package edu.udelar.pap.util;
+
+import edu.udelar.pap.domain.EstadoLector;
+import edu.udelar.pap.domain.Lector;
+import edu.udelar.pap.domain.Zona;
+import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.service.AutenticacionService;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Mide la latencia del login y de emailExiste con muchos lectores registrados
+ * Inserta lectores de prueba (@benchmark.local), mide y los elimina al terminar.
+ *
+ * Uso: java -Ddb=h2 edu.udelar.pap.util.BenchmarkLogin [cantidadLectores] [iteraciones]
+ */
+public class BenchmarkLogin {
+
+    private static final String DOMINIO = "@benchmark.local";
+    private static final String PASSWORD = "benchmark123";
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("db") == null) {
+            System.setProperty("db", "h2");
+        }
+        int lectores = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int iteraciones = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        System.out.println("=== BENCHMARK DE LOGIN ===");
+        System.out.println("Configuración: " + System.getProperty("db").toUpperCase());
+        System.out.println("Lectores: " + lectores + ", iteraciones: " + iteraciones);
+
+        try {
+            long inicio = System.nanoTime();
+            insertarLectores(lectores);
+            System.out.printf("✓ Lectores insertados en %.1f s%n", (System.nanoTime() - inicio) / 1e9);
+
+            AutenticacionService autenticacion = new AutenticacionService();
+            Random random = new Random(42);
+
+            // Calentamiento (JIT, caches, normalización de filas previas)
+            for (int i = 0; i < 20; i++) {
+                autenticacion.emailExiste(email(random.nextInt(lectores)));
+            }
+
+            long[] busqueda = new long[iteraciones];
+            long[] login = new long[iteraciones];
+            for (int i = 0; i < iteraciones; i++) {
+                // Mayúsculas para ejercitar la búsqueda sin distinguir mayúsculas
+                String email = email(random.nextInt(lectores)).toUpperCase();
+
+                long t0 = System.nanoTime();
+                if (!autenticacion.emailExiste(email)) {
+                    throw new IllegalStateException("No se encontró " + email);
+                }
+                busqueda[i] = System.nanoTime() - t0;
+
+                t0 = System.nanoTime();
+                autenticacion.autenticarUsuario(email, PASSWORD);
+                login[i] = System.nanoTime() - t0;
+            }
+
+            imprimir("emailExiste", busqueda);
+            imprimir("autenticarUsuario (incluye BCrypt)", login);
+        } finally {
+            eliminarLectores();
+            HibernateUtil.getSessionFactory().close();
+        }
+    }
+
+    private static void insertarLectores(int cantidad) {
+        // Mismo hash para todos: el benchmark mide la búsqueda, no el hasheo
+        String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt());
+        Zona[] zonas = Zona.values();
+        // Session y no StatelessSession: Hibernate 6.4 no inicializa la columna @Version en los
+        // insert de StatelessSession con ids IDENTITY. Se vacía el contexto en cada commit
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Transaction tx = session.beginTransaction();
+            for (int i = 0; i < cantidad; i++) {
+                Lector lector = new Lector();
+                lector.setNombre("Lector Benchmark " + i);
+                lector.setEmail(email(i));
+                lector.setPassword(hash);
+                lector.setDireccion("Calle Benchmark " + i);
+                lector.setFechaRegistro(LocalDate.now());
+                lector.setEstado(EstadoLector.ACTIVO);
+                lector.setZona(zonas[i % zonas.length]);
+                session.persist(lector);
+                if ((i + 1) % 10_000 == 0) {
+                    tx.commit();
+                    session.clear();
+                    tx = session.beginTransaction();
+                }
+            }
+            tx.commit();
+        }
+    }
+
+    private static void eliminarLectores() {
+        try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            int eliminados = session.createMutationQuery("DELETE FROM Lector l WHERE l.email LIKE :patron")
+                .setParameter("patron", "%" + DOMINIO)
+                .executeUpdate();
+            tx.commit();
+            System.out.println("✓ Lectores de prueba eliminados: " + eliminados);
+        }
+    }
+
+    private static String email(int i) {
+        return "lector" + i + DOMINIO;
+    }
+
+    private static void imprimir(String nombre, long[] muestrasNanos) {
+        long[] ordenadas = muestrasNanos.clone();
+        Arrays.sort(ordenadas);
+        System.out.printf("%-36s p50=%.3f ms  p95=%.3f ms  p99=%.3f ms  max=%.3f ms%n", nombre,
+            percentil(ordenadas, 50), percentil(ordenadas, 95), percentil(ordenadas, 99),
+            ordenadas[ordenadas.length - 1] / 1e6);
+    }
+
+    private static double percentil(long[] ordenadas, int p) {
+        int indice = (int) Math.ceil(p / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+}
@@ -0,0 +1,306 @@
+package edu.udelar.pap.util;
+
+import edu.udelar.pap.domain.ArticuloEspecial;
+import edu.udelar.pap.domain.Bibliotecario;
+import edu.udelar.pap.domain.DonacionMaterial;
+import edu.udelar.pap.domain.EstadoLector;
+import edu.udelar.pap.domain.EstadoPrestamo;
+import edu.udelar.pap.domain.Lector;
+import edu.udelar.pap.domain.Libro;
+import edu.udelar.pap.domain.Prestamo;
+import edu.udelar.pap.domain.Zona;
+import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.publisher.PrestamoPublisher;
+import edu.udelar.pap.service.AutenticacionService;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+/**
+ * Benchmark de las capas de servicio y publisher sobre una base H2 con datos sintéticos
+ * Usa el perfil hibernate-h2.cfg.xml apuntado a un archivo propio (target/h2db/benchmark),
+ * que se recrea en cada corrida, de modo que no toca la base de desarrollo.
+ *
+ * Por cada operación informa throughput (ops/s), latencia p50/p95/p99/máx y bytes
+ * asignados por operación en el hilo que la ejecuta. La verificación BCrypt corre en el
+ * pool de PasswordHasher, por lo que su asignación no se cuenta en autenticarUsuario.
+ * La salida por consola de las capas medidas se descarta durante el benchmark.
+ *
+ * Propiedades de sistema (opcionales):
+ *   biblioteca.bench.lectores      lectores a insertar (2000 por defecto)
+ *   biblioteca.bench.libros        libros (1000)
+ *   biblioteca.bench.articulos     artículos especiales (200)
+ *   biblioteca.bench.prestamos     préstamos (10000)
+ *   biblioteca.bench.calentamiento iteraciones descartadas por operación (20)
+ *   biblioteca.bench.iteraciones   iteraciones medidas por operación (100)
+ *   biblioteca.bench.operaciones   lista separada por comas para medir solo algunas
+ *
+ * Uso: java edu.udelar.pap.util.BenchmarkServicios
+ */
+public class BenchmarkServicios {
+
+    private static final String PREFIJO = "biblioteca.bench.";
+    private static final String PASSWORD = "benchmark123";
+    private static final String DOMINIO = "@benchmark.local";
+    private static final String ARCHIVO_BASE = "./target/h2db/benchmark";
+
+    /**
+     * Resultado de medir una operación
+     */
+    private static final class Resultado {
+        final String nombre;
+        final long[] latenciasNanos;
+        final long totalNanos;
+        final long bytesAsignados;
+        final int fallas;
+
+        Resultado(String nombre, long[] latenciasNanos, long totalNanos, long bytesAsignados, int fallas) {
+            this.nombre = nombre;
+            this.latenciasNanos = latenciasNanos;
+            this.totalNanos = totalNanos;
+            this.bytesAsignados = bytesAsignados;
+            this.fallas = fallas;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("db", "h2");
+        if (System.getProperty(HibernateUtil.PROPIEDAD_URL) == null) {
+            for (String sufijo : new String[] { ".mv.db", ".trace.db" }) {
+                new File(ARCHIVO_BASE + sufijo).delete();
+            }
+            System.setProperty(HibernateUtil.PROPIEDAD_URL,
+                "jdbc:h2:" + ARCHIVO_BASE + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+        }
+
+        int lectores = leerEntero("lectores", 2000);
+        int libros = leerEntero("libros", 1000);
+        int articulos = leerEntero("articulos", 200);
+        int prestamos = leerEntero("prestamos", 10_000);
+        int calentamiento = leerEntero("calentamiento", 20);
+        int iteraciones = leerEntero("iteraciones", 100);
+
+        PrintStream consola = System.out;
+        consola.println("=== BENCHMARK DE SERVICIOS Y PUBLISHERS ===");
+        consola.printf("Datos: %d lectores, %d libros, %d artículos, %d préstamos%n", lectores, libros, articulos, prestamos);
+        consola.printf("Iteraciones: %d de calentamiento, %d medidas%n", calentamiento, iteraciones);
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            long inicio = System.nanoTime();
+            Datos datos = insertarDatos(lectores, libros, articulos, prestamos, calentamiento + iteraciones);
+            consola.printf("✓ Datos insertados en %.1f s%n%n", (System.nanoTime() - inicio) / 1e9);
+
+            PrestamoPublisher publisher = new PrestamoPublisher();
+            AutenticacionService autenticacion = new AutenticacionService();
+            Random random = new Random(42);
+            String fechaDevolucion = LocalDate.now().plusDays(14).format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+            int[] siguienteLectorLibre = { 0 };
+
+            Map<String, Callable<Boolean>> operaciones = new LinkedHashMap<>();
+            operaciones.put("obtenerListaPrestamos", () -> exito(publisher.obtenerListaPrestamos()));
+            operaciones.put("obtenerReportePorZona", () -> exito(publisher.obtenerReportePorZona()));
+            operaciones.put("obtenerMaterialesPendientes", () -> exito(publisher.obtenerMaterialesPendientes()));
+            operaciones.put("autenticarUsuario", () ->
+                autenticacion.autenticarUsuario(email(random.nextInt(lectores)), PASSWORD) != null);
+            operaciones.put("crearPrestamo", () -> {
+                // Lectores sin préstamos previos: cada alta pasa la validación del límite
+                Long lectorId = datos.lectoresLibres.get(siguienteLectorLibre[0]++ % datos.lectoresLibres.size());
+                Long materialId = datos.materiales.get(random.nextInt(datos.materiales.size()));
+                return exito(publisher.crearPrestamo(lectorId, datos.bibliotecarioId, materialId, fechaDevolucion, "PENDIENTE"));
+            });
+
+            String filtro = System.getProperty(PREFIJO + "operaciones");
+            List<Resultado> resultados = new ArrayList<>();
+            for (Map.Entry<String, Callable<Boolean>> operacion : operaciones.entrySet()) {
+                if (filtro != null && !Arrays.asList(filtro.split(",")).contains(operacion.getKey())) {
+                    continue;
+                }
+                consola.println("… " + operacion.getKey());
+                resultados.add(medir(operacion.getKey(), operacion.getValue(), calentamiento, iteraciones));
+            }
+            imprimir(consola, resultados);
+        } finally {
+            System.setOut(consola);
+            HibernateUtil.getSessionFactory().close();
+        }
+        System.exit(0);
+    }
+
+    private static Resultado medir(String nombre, Callable<Boolean> operacion, int calentamiento, int iteraciones) throws Exception {
+        for (int i = 0; i < calentamiento; i++) {
+            operacion.call();
+        }
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] latencias = new long[iteraciones];
+        int fallas = 0;
+        long bytesInicio = hilos.getCurrentThreadAllocatedBytes();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < iteraciones; i++) {
+            long t0 = System.nanoTime();
+            if (!operacion.call()) {
+                fallas++;
+            }
+            latencias[i] = System.nanoTime() - t0;
+        }
+        long total = System.nanoTime() - inicio;
+        long bytes = hilos.getCurrentThreadAllocatedBytes() - bytesInicio;
+        return new Resultado(nombre, latencias, total, bytes, fallas);
+    }
+
+    private static void imprimir(PrintStream consola, List<Resultado> resultados) {
+        consola.println();
+        consola.printf("%-30s %10s %10s %10s %10s %10s %12s %7s%n",
+            "operación", "ops/s", "p50 ms", "p95 ms", "p99 ms", "máx ms", "KB/op", "fallas");
+        for (Resultado r : resultados) {
+            long[] ordenadas = r.latenciasNanos.clone();
+            Arrays.sort(ordenadas);
+            int n = ordenadas.length;
+            consola.printf(Locale.ROOT, "%-30s %10.1f %10.3f %10.3f %10.3f %10.3f %12.1f %7d%n", r.nombre,
+                n / (r.totalNanos / 1e9),
+                percentil(ordenadas, 50), percentil(ordenadas, 95), percentil(ordenadas, 99),
+                ordenadas[n - 1] / 1e6,
+                r.bytesAsignados / (double) n / 1024.0,
+                r.fallas);
+        }
+    }
+
+    private static double percentil(long[] ordenadas, int p) {
+        int indice = (int) Math.ceil(p / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+
+    private static boolean exito(String json) {
+        return json != null && json.contains("\"success\": true");
+    }
+
+    /**
+     * Ids generados al insertar los datos, usados por las operaciones que los necesitan
+     */
+    private static final class Datos {
+        Long bibliotecarioId;
+        final List<Long> materiales = new ArrayList<>();
+        final List<Long> lectoresLibres = new ArrayList<>();
+    }
+
+    private static Datos insertarDatos(int cantidadLectores, int cantidadLibros, int cantidadArticulos,
+                                       int cantidadPrestamos, int altasDePrestamo) {
+        Datos datos = new Datos();
+        // Mismo hash para todos: se mide la autenticación, no el alta
+        String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt());
+        Zona[] zonas = Zona.values();
+        EstadoPrestamo[] estados = EstadoPrestamo.values();
+        Random random = new Random(7);
+        LocalDate hoy = LocalDate.now();
+
+        // Session y no StatelessSession: Hibernate 6.4 no inicializa la columna @Version en los
+        // insert de StatelessSession con ids IDENTITY. Se vacía el contexto en cada commit
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Transaction tx = session.beginTransaction();
+
+            Bibliotecario bibliotecario = new Bibliotecario();
+            bibliotecario.setNombre("Bibliotecario Benchmark");
+            bibliotecario.setEmail("bibliotecario" + DOMINIO);
+            bibliotecario.setPassword(hash);
+            bibliotecario.setNumeroEmpleado("BENCH-1");
+            session.persist(bibliotecario);
+            datos.bibliotecarioId = bibliotecario.getId();
+
+            List<Lector> lectores = new ArrayList<>();
+            for (int i = 0; i < cantidadLectores; i++) {
+                lectores.add(insertarLector(session, email(i), "Lector Benchmark " + i, zonas[i % zonas.length], hash));
+            }
+            // Lectores reservados para medir el alta de préstamos
+            int libres = Math.max(1, altasDePrestamo / 2);
+            for (int i = 0; i < libres; i++) {
+                Lector lector = insertarLector(session, "libre" + i + DOMINIO, "Lector Libre " + i, zonas[i % zonas.length], hash);
+                datos.lectoresLibres.add(lector.getId());
+            }
+
+            List<DonacionMaterial> materiales = new ArrayList<>();
+            for (int i = 0; i < cantidadLibros; i++) {
+                Libro libro = new Libro();
+                libro.setTitulo("Libro Benchmark " + i);
+                libro.setPaginas(100 + i % 400);
+                libro.setDonante("Donante " + (i % 50));
+                libro.setFechaIngreso(hoy.minusDays(i % 365));
+                session.persist(libro);
+                materiales.add(libro);
+                datos.materiales.add(libro.getId());
+            }
+            for (int i = 0; i < cantidadArticulos; i++) {
+                ArticuloEspecial articulo = new ArticuloEspecial();
+                articulo.setDescripcion("Artículo Benchmark " + i);
+                articulo.setPeso(0.5 + i % 10);
+                articulo.setDimensiones("30x20x" + (i % 15 + 1));
+                articulo.setDonante("Donante " + (i % 50));
+                articulo.setFechaIngreso(hoy.minusDays(i % 365));
+                session.persist(articulo);
+                materiales.add(articulo);
+                datos.materiales.add(articulo.getId());
+            }
+            tx.commit();
+            session.clear();
+            tx = session.beginTransaction();
+
+            for (int i = 0; i < cantidadPrestamos; i++) {
+                Prestamo prestamo = new Prestamo();
+                prestamo.setLector(lectores.get(random.nextInt(lectores.size())));
+                prestamo.setBibliotecario(bibliotecario);
+                prestamo.setMaterial(materiales.get(random.nextInt(materiales.size())));
+                LocalDate solicitud = hoy.minusDays(random.nextInt(180));
+                prestamo.setFechaSolicitud(solicitud);
+                prestamo.setFechaEstimadaDevolucion(solicitud.plusDays(7 + random.nextInt(21)));
+                prestamo.setEstado(estados[random.nextInt(estados.length)]);
+                session.persist(prestamo);
+                if ((i + 1) % 10_000 == 0) {
+                    tx.commit();
+                    session.clear();
+                    tx = session.beginTransaction();
+                }
+            }
+            tx.commit();
+        }
+        return datos;
+    }
+
+    private static Lector insertarLector(Session session, String email, String nombre, Zona zona, String hash) {
+        Lector lector = new Lector();
+        lector.setNombre(nombre);
+        lector.setEmail(email);
+        lector.setPassword(hash);
+        lector.setDireccion("Calle Benchmark 1234");
+        lector.setFechaRegistro(LocalDate.now());
+        lector.setEstado(EstadoLector.ACTIVO);
+        lector.setZona(zona);
+        session.persist(lector);
+        return lector;
+    }
+
+    private static String email(int i) {
+        return "lector" + i + DOMINIO;
+    }
+
+    private static int leerEntero(String nombre, int porDefecto) {
+        String valor = System.getProperty(PREFIJO + nombre);
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        return Integer.parseInt(valor.trim());
+    }
+}
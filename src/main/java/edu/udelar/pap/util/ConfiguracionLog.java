@@ -0,0 +1,98 @@
+package edu.udelar.pap.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Configuración del logging de la aplicación
+ * Carga logging.properties del classpath (handler asíncrono, niveles por paquete) salvo que se
+ * indique otro archivo con -Djava.util.logging.config.file, y aplica los ajustes por línea de
+ * comandos. Hibernate escribe por java.util.logging, así que sus mensajes pasan por el mismo camino.
+ *
+ * Propiedades de sistema (opcionales):
+ *   biblioteca.log.nivel  nivel de los loggers de la aplicación (FINE para ver el detalle de cada petición)
+ *   biblioteca.log.sql    true para registrar cada sentencia SQL, parametros para incluir además
+ *                         los valores enlazados (false por defecto; reemplaza a hibernate.show_sql)
+ */
+public final class ConfiguracionLog {
+
+    public static final String PROPIEDAD_NIVEL = "biblioteca.log.nivel";
+    public static final String PROPIEDAD_SQL = "biblioteca.log.sql";
+
+    /** Referencias fuertes: LogManager solo guarda referencias débiles a los loggers */
+    private static final List<Logger> AJUSTADOS = new ArrayList<>();
+    private static boolean inicializado;
+
+    private ConfiguracionLog() {}
+
+    /**
+     * Aplica la configuración una sola vez por proceso (las llamadas siguientes no hacen nada)
+     */
+    public static synchronized void inicializar() {
+        if (inicializado) {
+            return;
+        }
+        inicializado = true;
+        String nivel = leerNivel();
+        // Con biblioteca.log.nivel se reemplazan todos los niveles de la aplicación del archivo
+        // (edu.udelar.pap y sus subpaquetes), no solo el del paquete raíz
+        Function<String, BiFunction<String, String, String>> ajuste = clave ->
+            nivel != null && clave.startsWith("edu.udelar.pap") && clave.endsWith(".level")
+                    && !clave.startsWith(ManejadorLogAsincrono.class.getName())
+                ? (anterior, nuevo) -> nivel
+                : (anterior, nuevo) -> nuevo;
+        try {
+            if (System.getProperty("java.util.logging.config.file") != null
+                    || System.getProperty("java.util.logging.config.class") != null) {
+                LogManager.getLogManager().updateConfiguration(ajuste);
+            } else {
+                try (InputStream in = ConfiguracionLog.class.getResourceAsStream("/logging.properties")) {
+                    if (in != null) {
+                        LogManager.getLogManager().updateConfiguration(in, ajuste);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️  No se pudo cargar logging.properties: " + e.getMessage());
+        }
+        if (nivel != null) {
+            ajustar("edu.udelar.pap", Level.parse(nivel));
+        }
+
+        String sql = System.getProperty(PROPIEDAD_SQL, "false").trim().toLowerCase(Locale.ROOT);
+        if (sql.equals("true") || sql.equals("parametros")) {
+            // Hibernate registra las sentencias en DEBUG (FINE) y los valores enlazados en TRACE (FINEST)
+            ajustar("org.hibernate.SQL", Level.FINE);
+            if (sql.equals("parametros")) {
+                ajustar("org.hibernate.orm.jdbc.bind", Level.FINEST);
+            }
+        }
+    }
+
+    private static String leerNivel() {
+        String nivel = System.getProperty(PROPIEDAD_NIVEL);
+        if (nivel == null || nivel.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Level.parse(nivel.trim().toUpperCase(Locale.ROOT)).getName();
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠️  Nivel de log no válido: " + nivel);
+            return null;
+        }
+    }
+
+    private static void ajustar(String nombre, Level nivel) {
+        Logger logger = Logger.getLogger(nombre);
+        logger.setLevel(nivel);
+        AJUSTADOS.add(logger);
+    }
+}
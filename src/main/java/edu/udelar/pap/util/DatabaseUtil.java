@@ -1,6 +1,8 @@
 package edu.udelar.pap.util;
 
+import edu.udelar.pap.persistence.CatalogoCache;
 import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.persistence.ModoLectura;
 import edu.udelar.pap.domain.Lector;
 import edu.udelar.pap.domain.Bibliotecario;
 import edu.udelar.pap.domain.Libro;
@@ -15,6 +17,12 @@ import java.util.List;
  */
 public class DatabaseUtil {
     
+    /**
+     * Modo de los listados: los resultados solo se muestran, así que no necesitan copias para
+     * dirty checking; se mantiene la sesión (y no StatelessSession) para usar la caché de consultas
+     */
+    private static final ModoLectura LISTADOS = ModoLectura.SOLO_LECTURA;
+    
     /**
      * Guarda una entidad en la base de datos
      */
@@ -43,40 +51,41 @@ public class DatabaseUtil {
      * Obtiene todos los lectores activos
      */
     public static List<Lector> obtenerLectoresActivos() {
-        SessionFactory sf = HibernateUtil.getSessionFactory();
-        try (Session session = sf.openSession()) {
-            return session.createQuery("FROM Lector WHERE estado = 'ACTIVO' ORDER BY nombre", Lector.class).list();
-        }
+        return LISTADOS.leer(HibernateUtil.getSessionFactory(), session ->
+            LISTADOS.consulta(session, "FROM Lector WHERE estado = 'ACTIVO' ORDER BY nombre", Lector.class).list());
     }
     
     /**
      * Obtiene todos los bibliotecarios
      */
     public static List<Bibliotecario> obtenerBibliotecarios() {
-        SessionFactory sf = HibernateUtil.getSessionFactory();
-        try (Session session = sf.openSession()) {
-            return session.createQuery("FROM Bibliotecario ORDER BY nombre", Bibliotecario.class).list();
-        }
+        return LISTADOS.leer(HibernateUtil.getSessionFactory(), session ->
+            LISTADOS.consulta(session, "FROM Bibliotecario ORDER BY nombre", Bibliotecario.class)
+                .setCacheable(true)
+                .setCacheRegion(CatalogoCache.REGION_CONSULTAS)
+                .list());
     }
     
     /**
      * Obtiene todos los libros disponibles
      */
     public static List<Libro> obtenerLibrosDisponibles() {
-        SessionFactory sf = HibernateUtil.getSessionFactory();
-        try (Session session = sf.openSession()) {
-            return session.createQuery("FROM Libro ORDER BY titulo", Libro.class).list();
-        }
+        return LISTADOS.leer(HibernateUtil.getSessionFactory(), session ->
+            LISTADOS.consulta(session, "FROM Libro ORDER BY titulo", Libro.class)
+                .setCacheable(true)
+                .setCacheRegion(CatalogoCache.REGION_CONSULTAS)
+                .list());
     }
     
     /**
      * Obtiene todos los artículos especiales disponibles
      */
     public static List<ArticuloEspecial> obtenerArticulosEspecialesDisponibles() {
-        SessionFactory sf = HibernateUtil.getSessionFactory();
-        try (Session session = sf.openSession()) {
-            return session.createQuery("FROM ArticuloEspecial ORDER BY descripcion", ArticuloEspecial.class).list();
-        }
+        return LISTADOS.leer(HibernateUtil.getSessionFactory(), session ->
+            LISTADOS.consulta(session, "FROM ArticuloEspecial ORDER BY descripcion", ArticuloEspecial.class)
+                .setCacheable(true)
+                .setCacheRegion(CatalogoCache.REGION_CONSULTAS)
+                .list());
     }
     
     /**
@@ -0,0 +1,371 @@
+package edu.udelar.pap.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lectura fila a fila de archivos de importación masiva (CSV o JSON lines)
+ * No carga el archivo en memoria: cada llamada a siguiente() lee una fila.
+ *
+ * CSV: la primera línea tiene los nombres de columna; separador ',' o ';' (se detecta
+ * en el encabezado); los valores entre comillas pueden contener separadores, saltos de
+ * línea y comillas duplicadas ("").
+ * JSON lines: un objeto plano por línea, con valores texto, número, booleano o null.
+ *
+ * Los nombres de columna no distinguen mayúsculas. Una fila mal formada no corta la
+ * lectura: se devuelve con su mensaje de error para informarla en el reporte.
+ */
+public final class FilasImportacion implements Closeable {
+
+    /**
+     * Formato del archivo de importación
+     */
+    public enum Formato {
+        CSV, JSONL;
+
+        /**
+         * @param valor "csv", "jsonl", "ndjson" o "json" (sin distinguir mayúsculas)
+         * @return El formato, o null si el valor es null o vacío
+         * @throws IllegalArgumentException Si el formato no es soportado
+         */
+        public static Formato desde(String valor) {
+            if (valor == null || valor.trim().isEmpty()) {
+                return null;
+            }
+            switch (valor.trim().toLowerCase(Locale.ROOT)) {
+                case "csv":
+                    return CSV;
+                case "jsonl":
+                case "ndjson":
+                case "json":
+                    return JSONL;
+                default:
+                    throw new IllegalArgumentException("Formato de importación no soportado: " + valor + " (use csv o jsonl)");
+            }
+        }
+
+        /**
+         * Formato según la extensión del archivo (.jsonl/.ndjson/.json = JSONL, el resto CSV)
+         */
+        public static Formato porNombreArchivo(String nombre) {
+            String minusculas = nombre.toLowerCase(Locale.ROOT);
+            return minusculas.endsWith(".jsonl") || minusculas.endsWith(".ndjson") || minusculas.endsWith(".json")
+                ? JSONL : CSV;
+        }
+    }
+
+    /**
+     * Fila leída del archivo
+     */
+    public static final class Fila {
+        private final int linea;
+        private final Map<String, String> valores;
+        private final String error;
+
+        Fila(int linea, Map<String, String> valores, String error) {
+            this.linea = linea;
+            this.valores = valores;
+            this.error = error;
+        }
+
+        /**
+         * @return Número de línea del archivo donde empieza la fila (1 = primera línea)
+         */
+        public int getLinea() {
+            return linea;
+        }
+
+        /**
+         * @return Mensaje si la fila no se pudo interpretar, null si es válida
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Valor de una columna, sin espacios al borde
+         * @return El valor, o null si la columna no existe o está vacía
+         */
+        public String valor(String columna) {
+            String valor = valores.get(columna.toLowerCase(Locale.ROOT));
+            if (valor == null) {
+                return null;
+            }
+            valor = valor.trim();
+            return valor.isEmpty() ? null : valor;
+        }
+    }
+
+    private final BufferedReader reader;
+    private final Formato formato;
+    private List<String> columnas;
+    private char separador = ',';
+    private int linea;
+
+    public FilasImportacion(Reader entrada, Formato formato) {
+        this.reader = entrada instanceof BufferedReader ? (BufferedReader) entrada : new BufferedReader(entrada);
+        this.formato = formato;
+    }
+
+    /**
+     * Lee la fila siguiente, salteando líneas en blanco
+     * @return La fila, o null al llegar al final del archivo
+     * @throws IOException Si falla la lectura
+     */
+    public Fila siguiente() throws IOException {
+        return formato == Formato.CSV ? siguienteCsv() : siguienteJsonl();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // ==================== CSV ====================
+
+    private Fila siguienteCsv() throws IOException {
+        if (columnas == null) {
+            String encabezado = leerLineaNoVacia();
+            if (encabezado == null) {
+                return null;
+            }
+            if (!encabezado.isEmpty() && encabezado.charAt(0) == '\uFEFF') {
+                // BOM de archivos guardados como "CSV UTF-8"
+                encabezado = encabezado.substring(1);
+            }
+            if (encabezado.indexOf(',') < 0 && encabezado.indexOf(';') >= 0) {
+                separador = ';';
+            }
+            List<String> nombres = new ArrayList<>();
+            for (String nombre : separarCsv(encabezado)) {
+                nombres.add(nombre.trim().toLowerCase(Locale.ROOT));
+            }
+            columnas = Collections.unmodifiableList(nombres);
+        }
+
+        String texto = leerLineaNoVacia();
+        if (texto == null) {
+            return null;
+        }
+        int inicio = linea;
+        // Un valor entre comillas puede continuar en las líneas siguientes
+        while (comillasAbiertas(texto)) {
+            String continuacion = reader.readLine();
+            if (continuacion == null) {
+                return new Fila(inicio, Collections.emptyMap(), "Comillas sin cerrar al final del archivo");
+            }
+            linea++;
+            texto = texto + "\n" + continuacion;
+        }
+
+        List<String> campos = separarCsv(texto);
+        if (campos.size() != columnas.size()) {
+            return new Fila(inicio, Collections.emptyMap(),
+                "Se esperaban " + columnas.size() + " columnas y la fila tiene " + campos.size());
+        }
+        Map<String, String> valores = new HashMap<>();
+        for (int i = 0; i < campos.size(); i++) {
+            valores.put(columnas.get(i), campos.get(i));
+        }
+        return new Fila(inicio, valores, null);
+    }
+
+    private List<String> separarCsv(String texto) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else if (c != '\r') {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    private static boolean comillasAbiertas(String texto) {
+        int comillas = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '"') {
+                comillas++;
+            }
+        }
+        return comillas % 2 != 0;
+    }
+
+    // ==================== JSON LINES ====================
+
+    private Fila siguienteJsonl() throws IOException {
+        String texto = leerLineaNoVacia();
+        if (texto == null) {
+            return null;
+        }
+        try {
+            return new Fila(linea, new ObjetoPlano(texto).leer(), null);
+        } catch (IllegalArgumentException e) {
+            return new Fila(linea, Collections.emptyMap(), "JSON no válido: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Intérprete mínimo de un objeto JSON sin anidamiento
+     */
+    private static final class ObjetoPlano {
+        private final String texto;
+        private int pos;
+
+        ObjetoPlano(String texto) {
+            this.texto = texto;
+        }
+
+        Map<String, String> leer() {
+            Map<String, String> valores = new HashMap<>();
+            esperar('{');
+            if (consumir('}')) {
+                return terminar(valores);
+            }
+            do {
+                String clave = leerTexto();
+                esperar(':');
+                valores.put(clave.trim().toLowerCase(Locale.ROOT), leerValor());
+            } while (consumir(','));
+            esperar('}');
+            return terminar(valores);
+        }
+
+        private Map<String, String> terminar(Map<String, String> valores) {
+            saltarEspacios();
+            if (pos < texto.length()) {
+                throw new IllegalArgumentException("contenido extra después del objeto en la posición " + pos);
+            }
+            return valores;
+        }
+
+        private String leerValor() {
+            saltarEspacios();
+            if (pos >= texto.length()) {
+                throw new IllegalArgumentException("falta un valor al final de la línea");
+            }
+            char c = texto.charAt(pos);
+            if (c == '"') {
+                return leerTexto();
+            }
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("los valores anidados no están soportados (posición " + pos + ")");
+            }
+            int inicio = pos;
+            while (pos < texto.length() && ",} \t".indexOf(texto.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = texto.substring(inicio, pos);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false") || literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                return literal;
+            }
+            throw new IllegalArgumentException("valor no reconocido '" + literal + "' en la posición " + inicio);
+        }
+
+        private String leerTexto() {
+            esperar('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < texto.length()) {
+                char c = texto.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= texto.length()) {
+                    break;
+                }
+                char escape = texto.charAt(pos++);
+                switch (escape) {
+                    case '"': sb.append('"'); break;
+                    case '\\': sb.append('\\'); break;
+                    case '/': sb.append('/'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > texto.length()) {
+                            throw new IllegalArgumentException("escape \\u incompleto");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("escape \\u no válido en la posición " + pos);
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("escape \\" + escape + " no válido");
+                }
+            }
+            throw new IllegalArgumentException("texto sin cerrar");
+        }
+
+        private void esperar(char c) {
+            if (!consumir(c)) {
+                throw new IllegalArgumentException("se esperaba '" + c + "' en la posición " + pos);
+            }
+        }
+
+        private boolean consumir(char c) {
+            saltarEspacios();
+            if (pos < texto.length() && texto.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void saltarEspacios() {
+            while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+
+    private String leerLineaNoVacia() throws IOException {
+        String texto;
+        do {
+            texto = reader.readLine();
+            if (texto == null) {
+                return null;
+            }
+            linea++;
+        } while (texto.trim().isEmpty());
+        return texto;
+    }
+}
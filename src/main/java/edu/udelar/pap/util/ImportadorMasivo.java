@@ -0,0 +1,82 @@
+package edu.udelar.pap.util;
+
+import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.service.ImportacionService;
+import edu.udelar.pap.service.ImportacionService.ErrorFila;
+import edu.udelar.pap.service.ImportacionService.ResultadoImportacion;
+import edu.udelar.pap.service.ImportacionService.TipoImportacion;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Importación masiva desde la línea de comandos
+ * Importa un archivo CSV o JSON lines de libros, artículos, lectores o préstamos con
+ * ImportacionService y deja los errores por fila en &lt;archivo&gt;.errores.csv.
+ *
+ * Uso: java edu.udelar.pap.util.ImportadorMasivo &lt;libros|articulos|lectores|prestamos&gt; &lt;archivo&gt; [intervaloCommit]
+ * El formato se deduce de la extensión (.jsonl/.ndjson = JSON lines, el resto CSV) o se
+ * fija con -Dbiblioteca.importacion.formato=csv|jsonl. La base se elige con -Ddb como en
+ * el resto de la aplicación.
+ * Termina con código 0 si se importaron todas las filas, 1 si hubo filas rechazadas
+ * y 2 si la importación no pudo completarse.
+ */
+public class ImportadorMasivo {
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Uso: ImportadorMasivo <libros|articulos|lectores|prestamos> <archivo> [intervaloCommit]");
+            System.exit(2);
+        }
+        int codigo;
+        try {
+            codigo = importar(args);
+        } catch (Exception e) {
+            System.err.println("❌ La importación no pudo completarse: " + e.getMessage());
+            e.printStackTrace();
+            codigo = 2;
+        }
+        HibernateUtil.getSessionFactory().close();
+        System.exit(codigo);
+    }
+
+    private static int importar(String[] args) throws IOException {
+        TipoImportacion tipo = TipoImportacion.desde(args[0]);
+        Path archivo = Paths.get(args[1]);
+        Integer intervaloCommit = args.length > 2 ? Integer.valueOf(args[2].trim()) : null;
+        FilasImportacion.Formato formato = FilasImportacion.Formato.desde(System.getProperty("biblioteca.importacion.formato"));
+        if (formato == null) {
+            formato = FilasImportacion.Formato.porNombreArchivo(archivo.getFileName().toString());
+        }
+
+        System.out.println("📥 Importando " + tipo.name().toLowerCase(Locale.ROOT) + " desde " + archivo + " (" + formato + ")");
+        ResultadoImportacion resultado;
+        try (FilasImportacion filas = new FilasImportacion(Files.newBufferedReader(archivo, StandardCharsets.UTF_8), formato)) {
+            resultado = new ImportacionService().importar(tipo, filas, intervaloCommit);
+        }
+
+        System.out.println(String.format(Locale.ROOT,
+            "✅ %d filas leídas, %d importadas, %d rechazadas en %.1f s (%.0f filas/s)",
+            resultado.getLeidas(), resultado.getImportadas(), resultado.getRechazadas(),
+            resultado.getDuracionMs() / 1000.0, resultado.getFilasPorSegundo()));
+        if (resultado.getRechazadas() == 0) {
+            return 0;
+        }
+
+        Path reporte = Paths.get(archivo + ".errores.csv");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(reporte, StandardCharsets.UTF_8))) {
+            out.println("linea,mensaje");
+            for (ErrorFila error : resultado.getErrores()) {
+                out.println(error.getLinea() + ",\"" + error.getMensaje().replace("\"", "\"\"") + "\"");
+            }
+        }
+        System.out.println("⚠️  Errores por fila en " + reporte +
+            (resultado.getErroresOmitidos() > 0 ? " (" + resultado.getErroresOmitidos() + " más no detallados)" : ""));
+        return 1;
+    }
+}
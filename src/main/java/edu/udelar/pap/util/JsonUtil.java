@@ -0,0 +1,68 @@
+package edu.udelar.pap.util;
+
+import edu.udelar.pap.exception.ServicioSaturadoException;
+
+/**
+ * Utilidades para generar JSON a mano (sin dependencias externas)
+ */
+public final class JsonUtil {
+
+    private JsonUtil() {}
+
+    /**
+     * Escapa un texto para usarlo dentro de comillas en JSON
+     * @param texto El texto original (null se trata como cadena vacía)
+     * @return El texto escapado, sin las comillas externas
+     */
+    public static String escapar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        StringBuilder sb = null;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            String reemplazo;
+            switch (c) {
+                case '"': reemplazo = "\\\""; break;
+                case '\\': reemplazo = "\\\\"; break;
+                case '\n': reemplazo = "\\n"; break;
+                case '\r': reemplazo = "\\r"; break;
+                case '\t': reemplazo = "\\t"; break;
+                default:
+                    reemplazo = c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+            }
+            if (reemplazo != null) {
+                if (sb == null) {
+                    sb = new StringBuilder(texto.length() + 16);
+                    sb.append(texto, 0, i);
+                }
+                sb.append(reemplazo);
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? texto : sb.toString();
+    }
+
+    /**
+     * Respuesta de los publishers (JSON y SOAP) cuando otro usuario modificó la entidad:
+     * el código "error" le indica al cliente que recargue los datos antes de volver a intentarlo
+     * @param e El conflicto de versión
+     * @return JSON con success false, error CONFLICTO_CONCURRENCIA y el mensaje
+     */
+    public static String conflicto(edu.udelar.pap.exception.ConflictoConcurrenciaException e) {
+        return "{\"success\": false, \"error\": \"" + edu.udelar.pap.exception.ConflictoConcurrenciaException.CODIGO +
+            "\", \"message\": \"" + escapar(e.getMessage()) + "\"}";
+    }
+
+    /**
+     * Respuesta cuando el pool de BCrypt no admite más trabajo (login y registro);
+     * los handlers HTTP la envían con 503 y Retry-After, SOAP la devuelve tal cual
+     * @param e La saturación informada por PasswordHasher
+     * @return JSON con success false, el mensaje y los segundos sugeridos para reintentar
+     */
+    public static String saturado(ServicioSaturadoException e) {
+        return "{\"success\": false, \"message\": \"" + escapar(e.getMessage()) +
+            "\", \"retryAfter\": " + e.getRetryAfterSegundos() + "}";
+    }
+}
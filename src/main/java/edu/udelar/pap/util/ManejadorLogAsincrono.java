@@ -0,0 +1,171 @@
+package edu.udelar.pap.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * Handler de java.util.logging que desacopla el registro de la escritura
+ * publish() solo deja el registro en un buffer circular acotado; un hilo de fondo lo formatea
+ * y lo pasa a los handlers destino (consola, archivo). Así el hilo que atiende una petición no
+ * espera el lock de la consola ni la E/S.
+ *
+ * Con el buffer lleno los registros de nivel menor a WARNING se descartan (y se informa cuántos);
+ * los WARNING y SEVERE esperan lugar, para no perder errores.
+ *
+ * El origen (clase y método) no se infiere: se formatea en otro hilo, por eso el formato debe
+ * usar el nombre del logger (%3$s) y no el origen (%2$s).
+ *
+ * Propiedades en logging.properties:
+ *   edu.udelar.pap.util.ManejadorLogAsincrono.destinos   handlers destino separados por coma
+ *                                                        (java.util.logging.ConsoleHandler por defecto)
+ *   edu.udelar.pap.util.ManejadorLogAsincrono.capacidad  registros en espera (8192 por defecto)
+ *   edu.udelar.pap.util.ManejadorLogAsincrono.level      nivel mínimo (ALL por defecto; el filtro real
+ *                                                        son los niveles de los loggers)
+ */
+public final class ManejadorLogAsincrono extends Handler {
+
+    private static final String PREFIJO = ManejadorLogAsincrono.class.getName();
+    private static final int CAPACIDAD_POR_DEFECTO = 8192;
+
+    private final ArrayBlockingQueue<LogRecord> pendientes;
+    private final List<Handler> destinos = new ArrayList<>();
+    private final AtomicLong descartados = new AtomicLong();
+    private final Thread escritor;
+    private volatile boolean cerrado;
+
+    public ManejadorLogAsincrono() {
+        LogManager manager = LogManager.getLogManager();
+        this.pendientes = new ArrayBlockingQueue<>(leerEntero(manager.getProperty(PREFIJO + ".capacidad"), CAPACIDAD_POR_DEFECTO));
+        String nivel = manager.getProperty(PREFIJO + ".level");
+        setLevel(nivel != null ? Level.parse(nivel.trim()) : Level.ALL);
+
+        String nombres = manager.getProperty(PREFIJO + ".destinos");
+        for (String nombre : (nombres != null ? nombres : "java.util.logging.ConsoleHandler").split(",")) {
+            if (nombre.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                destinos.add((Handler) ClassLoader.getSystemClassLoader().loadClass(nombre.trim())
+                    .getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                reportError("No se pudo crear el handler destino " + nombre.trim(), e, ErrorManager.OPEN_FAILURE);
+            }
+        }
+
+        escritor = new Thread(this::escribir, "biblioteca-log");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (cerrado || !isLoggable(record)) {
+            return;
+        }
+        if (pendientes.offer(record)) {
+            return;
+        }
+        if (record.getLevel().intValue() < Level.WARNING.intValue()) {
+            descartados.incrementAndGet();
+            return;
+        }
+        try {
+            pendientes.put(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Espera (hasta un segundo) a que se escriba lo pendiente y vacía los destinos
+     */
+    @Override
+    public void flush() {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (!pendientes.isEmpty() && escritor.isAlive() && System.nanoTime() < limite) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Handler destino : destinos) {
+            destino.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        cerrado = true;
+        escritor.interrupt();
+        // Lo que haya llegado mientras tanto se escribe en este hilo
+        LogRecord record;
+        while ((record = pendientes.poll()) != null) {
+            entregar(record);
+        }
+        for (Handler destino : destinos) {
+            destino.close();
+        }
+    }
+
+    /**
+     * @return Registros descartados por tener el buffer lleno
+     */
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    private void escribir() {
+        long informados = 0;
+        while (!cerrado) {
+            LogRecord record;
+            try {
+                record = pendientes.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            long total = descartados.get();
+            if (total > informados) {
+                entregar(new LogRecord(Level.WARNING, "Log saturado: " + (total - informados) + " registros descartados"));
+                informados = total;
+            }
+            entregar(record);
+            if (pendientes.isEmpty()) {
+                for (Handler destino : destinos) {
+                    destino.flush();
+                }
+            }
+        }
+    }
+
+    private void entregar(LogRecord record) {
+        for (Handler destino : destinos) {
+            try {
+                destino.publish(record);
+            } catch (RuntimeException e) {
+                reportError("Error al escribir un registro", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private static int leerEntero(String valor, int porDefecto) {
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Math.max(16, Integer.parseInt(valor.trim()));
+        } catch (NumberFormatException e) {
+            return porDefecto;
+        }
+    }
+}
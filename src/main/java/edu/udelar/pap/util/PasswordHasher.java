@@ -0,0 +1,193 @@
+package edu.udelar.pap.util;
+
+import edu.udelar.pap.exception.ServicioSaturadoException;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado para hashear y verificar passwords con BCrypt
+ * BCrypt consume CPU a propósito; ejecutarlo en los hilos del servidor HTTP deja
+ * al resto de la API sin CPU durante una ráfaga de logins. Aquí corre en un
+ * ejecutor con tantos hilos como núcleos y una cola acotada: si la cola se llena
+ * se lanza ServicioSaturadoException (el servidor responde 503 con Retry-After).
+ * Solo pasan por el pool los cálculos de BCrypt; el resto de la petición (lectura
+ * del cuerpo, búsqueda del usuario) sigue en el hilo que la atiende.
+ *
+ * Propiedades de sistema (opcionales):
+ *   biblioteca.bcrypt.workFactor        log2 de rondas para hashes nuevos (10 por defecto)
+ *   biblioteca.bcrypt.threads           hilos del pool (núcleos disponibles por defecto)
+ *   biblioteca.bcrypt.queueSize         tareas en espera admitidas (hilos x 16 por defecto)
+ *   biblioteca.bcrypt.retryAfterSeconds valor de Retry-After al rechazar (1 por defecto)
+ */
+public final class PasswordHasher {
+
+    public static final String PREFIJO = "biblioteca.bcrypt.";
+
+    private static final PasswordHasher INSTANCE = new PasswordHasher();
+
+    /** Marca los hilos creados por el pool (la fija su ThreadFactory, no depende del nombre) */
+    private static final ThreadLocal<Boolean> EN_POOL = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final int workFactor;
+    private final int hilos;
+    private final int capacidadCola;
+    private final int retryAfterSegundos;
+    private final ThreadPoolExecutor executor;
+
+    // Métricas
+    private final LongAdder verificaciones = new LongAdder();
+    private final LongAdder hasheos = new LongAdder();
+    private final LongAdder rechazos = new LongAdder();
+    private final LongAdder tiempoVerificacionNanos = new LongAdder();
+    private final AtomicLong maxVerificacionNanos = new AtomicLong();
+    private final LongAdder tiempoEnColaNanos = new LongAdder();
+    private final LongAdder tareas = new LongAdder();
+    private final AtomicInteger maxProfundidadCola = new AtomicInteger();
+
+    private PasswordHasher() {
+        this.workFactor = Math.min(31, Math.max(4, leerEntero("workFactor", 10)));
+        this.hilos = leerEntero("threads", Runtime.getRuntime().availableProcessors());
+        this.capacidadCola = leerEntero("queueSize", hilos * 16);
+        this.retryAfterSegundos = leerEntero("retryAfterSeconds", 1);
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacidadCola),
+            r -> {
+                Thread t = new Thread(() -> {
+                    EN_POOL.set(Boolean.TRUE);
+                    r.run();
+                }, "biblioteca-bcrypt-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public static PasswordHasher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Hashea un password con el work factor configurado
+     * @throws ServicioSaturadoException Si el pool está saturado
+     */
+    public String hashear(String plainPassword) {
+        return ejecutarYEsperar(() -> {
+            String hash = BCrypt.hashpw(plainPassword, BCrypt.gensalt(workFactor));
+            hasheos.increment();
+            return hash;
+        });
+    }
+
+    /**
+     * Verifica un password contra su hash BCrypt
+     * @throws ServicioSaturadoException Si el pool está saturado
+     */
+    public boolean verificar(String plainPassword, String hash) {
+        return ejecutarYEsperar(() -> {
+            long inicio = System.nanoTime();
+            try {
+                return BCrypt.checkpw(plainPassword, hash);
+            } finally {
+                long duracion = System.nanoTime() - inicio;
+                verificaciones.increment();
+                tiempoVerificacionNanos.add(duracion);
+                maxVerificacionNanos.accumulateAndGet(duracion, Math::max);
+            }
+        });
+    }
+
+    /**
+     * Si ya estamos en un hilo del pool se ejecuta en el lugar (evita bloquear
+     * un hilo del pool esperando a otro); si no, se encola y se espera el resultado
+     */
+    private <T> T ejecutarYEsperar(Callable<T> tarea) {
+        if (EN_POOL.get()) {
+            try {
+                return tarea.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        Future<T> futuro = enviar(tarea);
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futuro.cancel(true);
+            throw new IllegalStateException("Operación de password interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw new IllegalStateException(causa);
+        }
+    }
+
+    private <T> Future<T> enviar(Callable<T> tarea) {
+        long encolada = System.nanoTime();
+        try {
+            Future<T> futuro = executor.submit(() -> {
+                tiempoEnColaNanos.add(System.nanoTime() - encolada);
+                tareas.increment();
+                return tarea.call();
+            });
+            maxProfundidadCola.accumulateAndGet(executor.getQueue().size(), Math::max);
+            return futuro;
+        } catch (RejectedExecutionException e) {
+            rechazos.increment();
+            throw new ServicioSaturadoException(
+                "Demasiadas solicitudes de autenticación en curso, intente nuevamente", retryAfterSegundos);
+        }
+    }
+
+    public int getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+
+    /**
+     * Métricas del pool en JSON: latencia de verificación, espera y profundidad de cola
+     */
+    public String obtenerMetricasJson() {
+        long n = verificaciones.sum();
+        long t = tareas.sum();
+        return String.format(Locale.ROOT,
+            "{\"hilos\": %d, \"workFactor\": %d, \"capacidadCola\": %d, \"enCola\": %d, " +
+            "\"maxEnCola\": %d, \"activos\": %d, \"verificaciones\": %d, \"hasheos\": %d, " +
+            "\"rechazos\": %d, \"verificacionPromedioMs\": %.2f, \"verificacionMaximaMs\": %.2f, " +
+            "\"esperaPromedioEnColaMs\": %.2f}",
+            hilos, workFactor, capacidadCola, executor.getQueue().size(),
+            maxProfundidadCola.get(), executor.getActiveCount(), n, hasheos.sum(),
+            rechazos.sum(),
+            n == 0 ? 0.0 : tiempoVerificacionNanos.sum() / (double) n / 1_000_000.0,
+            maxVerificacionNanos.get() / 1_000_000.0,
+            t == 0 ? 0.0 : tiempoEnColaNanos.sum() / (double) t / 1_000_000.0);
+    }
+
+    private static int leerEntero(String nombre, int porDefecto) {
+        String valor = System.getProperty(PREFIJO + nombre);
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(valor.trim()));
+        } catch (NumberFormatException e) {
+            return porDefecto;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package edu.udelar.pap.util;
+
+import edu.udelar.pap.domain.Bibliotecario;
+import edu.udelar.pap.domain.EstadoLector;
+import edu.udelar.pap.domain.EstadoPrestamo;
+import edu.udelar.pap.domain.Lector;
+import edu.udelar.pap.domain.Libro;
+import edu.udelar.pap.domain.Prestamo;
+import edu.udelar.pap.domain.Zona;
+import edu.udelar.pap.persistence.HibernateUtil;
+import edu.udelar.pap.service.ImportacionService;
+import edu.udelar.pap.service.PrestamoService;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Prueba de carga del límite de préstamos activos por lector (PrestamoService.MAXIMO_PRESTAMOS_ACTIVOS)
+ * Cada lector arranca con varios préstamos PENDIENTES; muchos hilos los pasan a EN_CURSO a la vez
+ * (aprobación una por una y en lotes, cambio de estado y edición completa), crean préstamos EN_CURSO
+ * para los mismos lectores, los importan en archivos CSV (ImportacionService) y les reasignan
+ * préstamos EN_CURSO de un lector donante (que queda fuera del control del límite). Al terminar se cuenta en la
+ * base cuántos EN_CURSO tiene cada lector: ninguno puede superar el límite y, como los intentos
+ * sobran, todos deben haberlo alcanzado. Termina con código 1 si alguna de las dos cosas falla.
+ *
+ * Usa una base H2 propia (target/h2db/concurrencia) que se recrea en cada corrida.
+ *
+ * Propiedades de sistema (opcionales):
+ *   biblioteca.concurrencia.lectores    lectores (50 por defecto)
+ *   biblioteca.concurrencia.pendientes  préstamos PENDIENTES por lector (8)
+ *   biblioteca.concurrencia.altas       altas EN_CURSO intentadas por lector (4)
+ *   biblioteca.concurrencia.reasignaciones préstamos EN_CURSO reasignados a cada lector (2)
+ *   biblioteca.concurrencia.importados  préstamos EN_CURSO importados por lector (2), en archivos
+ *                                       de LECTORES_POR_ARCHIVO lectores
+ *   biblioteca.concurrencia.hilos       hilos concurrentes (16)
+ *   biblioteca.concurrencia.rondas      veces que se repite la prueba con datos nuevos (3)
+ *
+ * Uso: java edu.udelar.pap.util.PruebaConcurrenciaPrestamos
+ */
+public class PruebaConcurrenciaPrestamos {
+
+    private static final String PREFIJO = "biblioteca.concurrencia.";
+    private static final String ARCHIVO_BASE = "./target/h2db/concurrencia";
+    /** Préstamos por aprobación en lote */
+    private static final int TAMANO_LOTE = 5;
+    /** Lectores por archivo importado */
+    private static final int LECTORES_POR_ARCHIVO = 10;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("db", "h2");
+        if (System.getProperty(HibernateUtil.PROPIEDAD_URL) == null) {
+            for (String sufijo : new String[] { ".mv.db", ".trace.db" }) {
+                new File(ARCHIVO_BASE + sufijo).delete();
+            }
+            // Con muchos hilos sobre el mismo lector la espera por el bloqueo supera el segundo por defecto
+            System.setProperty(HibernateUtil.PROPIEDAD_URL,
+                "jdbc:h2:" + ARCHIVO_BASE + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=30000");
+        }
+
+        int lectores = leerEntero("lectores", 50);
+        int pendientes = leerEntero("pendientes", 8);
+        int altas = leerEntero("altas", 4);
+        int reasignaciones = leerEntero("reasignaciones", 2);
+        int importados = leerEntero("importados", 2);
+        int hilos = leerEntero("hilos", 16);
+        int rondas = leerEntero("rondas", 3);
+
+        PrintStream consola = System.out;
+        consola.println("=== PRUEBA DE CONCURRENCIA: LÍMITE DE PRÉSTAMOS ACTIVOS ===");
+        consola.printf("%d lectores, %d pendientes, %d altas EN_CURSO, %d reasignaciones y %d importados por lector, " +
+            "%d hilos, %d rondas%n", lectores, pendientes, altas, reasignaciones, importados, hilos, rondas);
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        boolean correcto = true;
+        try {
+            PrestamoService servicio = new PrestamoService();
+            ImportacionService importacion = new ImportacionService();
+            // Los rechazos por límite son el resultado esperado: no se registran (después de crear
+            // el servicio, que inicializa la configuración de logging con niveles por paquete)
+            List<Logger> silenciados = new ArrayList<>();
+            for (String nombre : Collections.list(LogManager.getLogManager().getLoggerNames())) {
+                if (nombre.startsWith("edu.udelar.pap")) {
+                    Logger logger = Logger.getLogger(nombre);
+                    logger.setLevel(Level.OFF);
+                    silenciados.add(logger);
+                }
+            }
+            for (int ronda = 1; ronda <= rondas; ronda++) {
+                correcto &= ejecutarRonda(consola, servicio, importacion, ronda, lectores, pendientes, altas,
+                    reasignaciones, importados, hilos);
+            }
+        } finally {
+            System.setOut(consola);
+            HibernateUtil.getSessionFactory().close();
+        }
+        consola.println(correcto ? "✓ El límite se respetó en todas las rondas" : "✗ Se violó el límite de préstamos activos");
+        System.exit(correcto ? 0 : 1);
+    }
+
+    private static boolean ejecutarRonda(PrintStream consola, PrestamoService servicio, ImportacionService importacion,
+                                         int ronda, int cantidadLectores, int pendientesPorLector, int altasPorLector,
+                                         int reasignacionesPorLector, int importadosPorLector, int hilos) throws Exception {
+        Datos datos = insertarDatos(ronda, cantidadLectores, pendientesPorLector, cantidadLectores * reasignacionesPorLector);
+        LocalDate devolucion = LocalDate.now().plusDays(14);
+
+        // Todas las operaciones mezcladas, para que cada lector reciba pedidos de varios hilos a la vez
+        List<Runnable> tareas = new ArrayList<>();
+        AtomicInteger aceptadas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        Map<String, AtomicInteger> errores = new ConcurrentHashMap<>();
+        List<Long> paraLotes = new ArrayList<>();
+        for (int i = 0; i < datos.pendientes.size(); i++) {
+            Long prestamoId = datos.pendientes.get(i);
+            switch (i % 4) {
+                case 0:
+                    paraLotes.add(prestamoId);
+                    break;
+                case 1:
+                    tareas.add(() -> {
+                        if (servicio.aprobarPrestamo(prestamoId)) {
+                            aceptadas.incrementAndGet();
+                        }
+                    });
+                    break;
+                case 2:
+                    tareas.add(() -> {
+                        if (servicio.cambiarEstadoPrestamo(prestamoId, EstadoPrestamo.EN_CURSO)) {
+                            aceptadas.incrementAndGet();
+                        }
+                    });
+                    break;
+                default:
+                    tareas.add(() -> {
+                        if (servicio.actualizarPrestamoCompleto(prestamoId, null, null, null, null, EstadoPrestamo.EN_CURSO)) {
+                            aceptadas.incrementAndGet();
+                        }
+                    });
+                    break;
+            }
+        }
+        // Cada préstamo del donante (EN_CURSO) se reasigna a uno de los lectores, sin cambiar su estado
+        for (int i = 0; i < datos.delDonante.size(); i++) {
+            Long prestamoId = datos.delDonante.get(i);
+            Lector destino = datos.entidadesLector.get(i % datos.entidadesLector.size());
+            tareas.add(() -> {
+                if (servicio.actualizarPrestamoCompleto(prestamoId, destino, null, null, null, null)) {
+                    aceptadas.incrementAndGet();
+                }
+            });
+        }
+        Collections.shuffle(paraLotes, new Random(ronda));
+        for (int desde = 0; desde < paraLotes.size(); desde += TAMANO_LOTE) {
+            List<Long> lote = new ArrayList<>(paraLotes.subList(desde, Math.min(paraLotes.size(), desde + TAMANO_LOTE)));
+            tareas.add(() -> {
+                for (PrestamoService.ResultadoOperacion resultado :
+                        servicio.aplicarOperacionMasiva(PrestamoService.OperacionMasiva.APROBAR, lote)) {
+                    (resultado.isExito() ? aceptadas : rechazadas).incrementAndGet();
+                }
+            });
+        }
+        for (Long lectorId : datos.lectores) {
+            for (int i = 0; i < altasPorLector; i++) {
+                tareas.add(() -> {
+                    servicio.crearPrestamo(lectorId, datos.bibliotecarioId, datos.materialId, devolucion, EstadoPrestamo.EN_CURSO);
+                    aceptadas.incrementAndGet();
+                });
+            }
+        }
+        // Archivos de préstamos EN_CURSO para grupos de lectores, importados mientras corren las altas
+        for (int desde = 0; desde < datos.lectores.size(); desde += LECTORES_POR_ARCHIVO) {
+            StringBuilder csv = new StringBuilder("lectorId,bibliotecarioId,materialId,fechaEstimadaDevolucion,estado\n");
+            for (Long lectorId : datos.lectores.subList(desde, Math.min(datos.lectores.size(), desde + LECTORES_POR_ARCHIVO))) {
+                for (int i = 0; i < importadosPorLector; i++) {
+                    csv.append(lectorId).append(',').append(datos.bibliotecarioId).append(',').append(datos.materialId)
+                        .append(',').append(devolucion).append(",EN_CURSO\n");
+                }
+            }
+            tareas.add(() -> {
+                try (FilasImportacion filas = new FilasImportacion(new StringReader(csv.toString()), FilasImportacion.Formato.CSV)) {
+                    ImportacionService.ResultadoImportacion resultado =
+                        importacion.importar(ImportacionService.TipoImportacion.PRESTAMOS, filas, null);
+                    aceptadas.addAndGet(resultado.getImportadas());
+                    rechazadas.addAndGet(resultado.getRechazadas());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        Collections.shuffle(tareas, new Random(ronda * 31L));
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> pendientes = new ArrayList<>();
+        for (Runnable tarea : tareas) {
+            pendientes.add(ejecutor.submit(() -> {
+                largada.await();
+                try {
+                    tarea.run();
+                } catch (IllegalStateException e) {
+                    // Rechazo de negocio (límite alcanzado o préstamo ya aprobado)
+                    rechazadas.incrementAndGet();
+                } catch (RuntimeException e) {
+                    errores.computeIfAbsent(e.getClass().getSimpleName(), k -> new AtomicInteger()).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> pendiente : pendientes) {
+            pendiente.get();
+        }
+        long duracion = System.nanoTime() - inicio;
+        ejecutor.shutdown();
+        ejecutor.awaitTermination(1, TimeUnit.MINUTES);
+
+        Map<Long, Long> activos = contarActivos(datos.lectores);
+        int excedidos = 0;
+        int incompletos = 0;
+        for (Long lectorId : datos.lectores) {
+            long cantidad = activos.getOrDefault(lectorId, 0L);
+            if (cantidad > PrestamoService.MAXIMO_PRESTAMOS_ACTIVOS) {
+                excedidos++;
+            } else if (cantidad < PrestamoService.MAXIMO_PRESTAMOS_ACTIVOS) {
+                incompletos++;
+            }
+        }
+        consola.printf("Ronda %d: %d operaciones en %.2f s, %d aceptadas, %d rechazadas, errores %s%n",
+            ronda, tareas.size(), duracion / 1e9, aceptadas.get(), rechazadas.get(), errores);
+        consola.printf("         lectores por encima del límite: %d, por debajo: %d (de %d)%n",
+            excedidos, incompletos, datos.lectores.size());
+        return excedidos == 0 && incompletos == 0 && errores.isEmpty();
+    }
+
+    private static Map<Long, Long> contarActivos(List<Long> lectorIds) {
+        Map<Long, Long> activos = new HashMap<>();
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            for (Object[] fila : session.createQuery(
+                    "SELECT p.lector.id, COUNT(p) FROM Prestamo p " +
+                    "WHERE p.lector.id IN :lectorIds AND p.estado = :estado GROUP BY p.lector.id", Object[].class)
+                    .setParameter("lectorIds", lectorIds)
+                    .setParameter("estado", EstadoPrestamo.EN_CURSO)
+                    .list()) {
+                activos.put((Long) fila[0], ((Number) fila[1]).longValue());
+            }
+        }
+        return activos;
+    }
+
+    /**
+     * Ids generados al insertar los datos de una ronda
+     */
+    private static final class Datos {
+        Long bibliotecarioId;
+        Long materialId;
+        final List<Long> lectores = new ArrayList<>();
+        final List<Lector> entidadesLector = new ArrayList<>();
+        final List<Long> pendientes = new ArrayList<>();
+        /** Préstamos EN_CURSO del lector donante, que se reasignan durante la prueba */
+        final List<Long> delDonante = new ArrayList<>();
+    }
+
+    private static Datos insertarDatos(int ronda, int cantidadLectores, int pendientesPorLector, int prestamosDonante) {
+        Datos datos = new Datos();
+        LocalDate hoy = LocalDate.now();
+        Zona[] zonas = Zona.values();
+        // Session y no StatelessSession: Hibernate 6.4 no inicializa la columna @Version en los
+        // insert de StatelessSession con ids IDENTITY
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Transaction tx = session.beginTransaction();
+
+            Bibliotecario bibliotecario = new Bibliotecario();
+            bibliotecario.setNombre("Bibliotecario Concurrencia " + ronda);
+            bibliotecario.setEmail("bibliotecario" + ronda + "@concurrencia.local");
+            bibliotecario.setPassword("-");
+            bibliotecario.setNumeroEmpleado("CONC-" + ronda);
+            session.persist(bibliotecario);
+            datos.bibliotecarioId = bibliotecario.getId();
+
+            Libro libro = new Libro();
+            libro.setTitulo("Libro Concurrencia " + ronda);
+            libro.setPaginas(100);
+            libro.setDonante("Donante");
+            libro.setFechaIngreso(hoy);
+            session.persist(libro);
+            datos.materialId = libro.getId();
+
+            for (int i = 0; i < cantidadLectores; i++) {
+                Lector lector = new Lector();
+                lector.setNombre("Lector Concurrencia " + ronda + "-" + i);
+                lector.setEmail("lector" + ronda + "-" + i + "@concurrencia.local");
+                lector.setPassword("-");
+                lector.setDireccion("Calle Concurrencia 1234");
+                lector.setFechaRegistro(hoy);
+                lector.setEstado(EstadoLector.ACTIVO);
+                lector.setZona(zonas[i % zonas.length]);
+                session.persist(lector);
+                datos.lectores.add(lector.getId());
+                datos.entidadesLector.add(lector);
+
+                for (int j = 0; j < pendientesPorLector; j++) {
+                    Prestamo prestamo = new Prestamo();
+                    prestamo.setLector(lector);
+                    prestamo.setBibliotecario(bibliotecario);
+                    prestamo.setMaterial(libro);
+                    prestamo.setFechaSolicitud(hoy);
+                    prestamo.setFechaEstimadaDevolucion(hoy.plusDays(14));
+                    prestamo.setEstado(EstadoPrestamo.PENDIENTE);
+                    session.persist(prestamo);
+                    datos.pendientes.add(prestamo.getId());
+                }
+            }
+
+            // El donante supera el límite a propósito: sus préstamos solo sirven para reasignarlos
+            Lector donante = new Lector();
+            donante.setNombre("Lector Donante " + ronda);
+            donante.setEmail("donante" + ronda + "@concurrencia.local");
+            donante.setPassword("-");
+            donante.setDireccion("Calle Concurrencia 1234");
+            donante.setFechaRegistro(hoy);
+            donante.setEstado(EstadoLector.ACTIVO);
+            donante.setZona(zonas[0]);
+            session.persist(donante);
+            for (int j = 0; j < prestamosDonante; j++) {
+                Prestamo prestamo = new Prestamo();
+                prestamo.setLector(donante);
+                prestamo.setBibliotecario(bibliotecario);
+                prestamo.setMaterial(libro);
+                prestamo.setFechaSolicitud(hoy);
+                prestamo.setFechaEstimadaDevolucion(hoy.plusDays(14));
+                prestamo.setEstado(EstadoPrestamo.EN_CURSO);
+                session.persist(prestamo);
+                datos.delDonante.add(prestamo.getId());
+            }
+            tx.commit();
+        }
+        return datos;
+    }
+
+    private static int leerEntero(String nombre, int porDefecto) {
+        String valor = System.getProperty(PREFIJO + nombre);
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        return Integer.parseInt(valor.trim());
+    }
+}
@@ -0,0 +1,341 @@
+package edu.udelar.pap.util;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de latencia y volumen por ruta HTTP, operación SOAP y método de servicio
+ * Cada serie acumula cantidad, errores, suma y máximo de duración y un histograma de
+ * buckets fijos, todo con LongAdder: registrar una medición no toma locks ni reserva memoria
+ * (salvo la primera vez que aparece la serie).
+ * Los percentiles p50/p95/p99 se estiman interpolando dentro del bucket correspondiente.
+ *
+ * Se exporta en formato de texto de Prometheus (histogramas con _bucket/_sum/_count) y como
+ * JSON con los percentiles ya calculados; ver el handler /metrics de IntegratedServer.
+ */
+public final class RegistroMetricas {
+
+    private static final RegistroMetricas INSTANCE = new RegistroMetricas();
+
+    /** Series distintas admitidas por tipo; el resto se acumula en la serie "otras" */
+    public static final int MAXIMO_SERIES = 500;
+
+    /** Límites superiores de los buckets, en milisegundos (el último bucket es +Inf) */
+    static final double[] LIMITES_MS = {
+        0.5, 1, 2, 3, 5, 7.5, 10, 15, 20, 30, 50, 75, 100, 150, 200, 300, 500, 750,
+        1000, 1500, 2000, 3000, 5000, 10000, 30000
+    };
+
+    /**
+     * Qué se mide, con el nombre de la métrica y de sus etiquetas
+     */
+    public enum Tipo {
+        HTTP("biblioteca_http", "Peticiones HTTP", "metodo", "ruta"),
+        SOAP("biblioteca_soap", "Operaciones SOAP", "servicio", "operacion"),
+        SERVICIO("biblioteca_servicio", "Métodos de servicio", "metodo");
+
+        private final String prefijo;
+        private final String descripcion;
+        private final String[] etiquetas;
+
+        Tipo(String prefijo, String descripcion, String... etiquetas) {
+            this.prefijo = prefijo;
+            this.descripcion = descripcion;
+            this.etiquetas = etiquetas;
+        }
+    }
+
+    /**
+     * Operación medida que devuelve un resultado
+     */
+    @FunctionalInterface
+    public interface Operacion<T, E extends Exception> {
+        T ejecutar() throws E;
+    }
+
+    /**
+     * Operación medida sin resultado
+     */
+    @FunctionalInterface
+    public interface Accion<E extends Exception> {
+        void ejecutar() throws E;
+    }
+
+    /**
+     * Serie de una combinación de etiquetas
+     */
+    public static final class Serie {
+        private final String[] valores;
+        private final LongAdder cantidad = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final LongAdder sumaNanos = new LongAdder();
+        private final LongAccumulator maximoNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] buckets = new LongAdder[LIMITES_MS.length + 1];
+
+        Serie(String[] valores) {
+            this.valores = valores;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void registrar(long nanos, boolean error) {
+            double ms = nanos / 1_000_000.0;
+            int bucket = 0;
+            while (bucket < LIMITES_MS.length && ms > LIMITES_MS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            cantidad.increment();
+            sumaNanos.add(nanos);
+            maximoNanos.accumulate(nanos);
+            if (error) {
+                errores.increment();
+            }
+        }
+
+        public String[] getValores() {
+            return valores.clone();
+        }
+
+        public long getCantidad() {
+            return cantidad.sum();
+        }
+
+        public long getErrores() {
+            return errores.sum();
+        }
+
+        public double getPromedioMs() {
+            long n = cantidad.sum();
+            return n == 0 ? 0.0 : sumaNanos.sum() / (double) n / 1_000_000.0;
+        }
+
+        public double getMaximoMs() {
+            return maximoNanos.get() / 1_000_000.0;
+        }
+
+        /**
+         * Percentil estimado a partir del histograma
+         * @param q Fracción entre 0 y 1 (0.95 = p95)
+         */
+        public double percentilMs(double q) {
+            long[] conteos = conteos();
+            long total = 0;
+            for (long c : conteos) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0.0;
+            }
+            double objetivo = q * total;
+            long acumulado = 0;
+            for (int i = 0; i < conteos.length; i++) {
+                if (conteos[i] > 0 && acumulado + conteos[i] >= objetivo) {
+                    if (i == LIMITES_MS.length) {
+                        // Por encima del último límite solo se conoce el máximo
+                        return getMaximoMs();
+                    }
+                    double desde = i == 0 ? 0.0 : LIMITES_MS[i - 1];
+                    double estimado = desde + (LIMITES_MS[i] - desde) * ((objetivo - acumulado) / conteos[i]);
+                    return Math.min(estimado, getMaximoMs());
+                }
+                acumulado += conteos[i];
+            }
+            return getMaximoMs();
+        }
+
+        private long[] conteos() {
+            long[] conteos = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                conteos[i] = buckets[i].sum();
+            }
+            return conteos;
+        }
+    }
+
+    private final Map<Tipo, ConcurrentHashMap<String, Serie>> series = new EnumMap<>(Tipo.class);
+
+    private RegistroMetricas() {
+        for (Tipo tipo : Tipo.values()) {
+            series.put(tipo, new ConcurrentHashMap<>());
+        }
+    }
+
+    public static RegistroMetricas getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registra una medición ya tomada
+     * @param valores Valores de las etiquetas del tipo, en el mismo orden
+     */
+    public void registrar(Tipo tipo, long nanos, boolean error, String... valores) {
+        serie(tipo, valores).registrar(nanos, error);
+    }
+
+    /**
+     * Ejecuta una operación midiendo su duración; una excepción cuenta como error y se relanza
+     */
+    public <T, E extends Exception> T medir(Tipo tipo, String nombre, Operacion<T, E> operacion) throws E {
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            T resultado = operacion.ejecutar();
+            error = false;
+            return resultado;
+        } finally {
+            registrar(tipo, System.nanoTime() - inicio, error, nombre);
+        }
+    }
+
+    /**
+     * Ejecuta una operación sin resultado midiendo su duración
+     */
+    public <E extends Exception> void medirAccion(Tipo tipo, String nombre, Accion<E> accion) throws E {
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            accion.ejecutar();
+            error = false;
+        } finally {
+            registrar(tipo, System.nanoTime() - inicio, error, nombre);
+        }
+    }
+
+    /**
+     * @return Series de un tipo, ordenadas por sus etiquetas
+     */
+    public List<Serie> obtenerSeries(Tipo tipo) {
+        List<Serie> resultado = new ArrayList<>(series.get(tipo).values());
+        resultado.sort((a, b) -> String.join(" ", a.valores).compareTo(String.join(" ", b.valores)));
+        return resultado;
+    }
+
+    /**
+     * Descarta todas las mediciones
+     */
+    public void reiniciar() {
+        for (ConcurrentHashMap<String, Serie> mapa : series.values()) {
+            mapa.clear();
+        }
+    }
+
+    private Serie serie(Tipo tipo, String[] valores) {
+        ConcurrentHashMap<String, Serie> mapa = series.get(tipo);
+        String clave = valores.length == 1 ? valores[0] : String.join("\u0000", valores);
+        Serie serie = mapa.get(clave);
+        if (serie != null) {
+            return serie;
+        }
+        if (mapa.size() >= MAXIMO_SERIES) {
+            // Evita que rutas arbitrarias hagan crecer el registro sin límite
+            String[] otras = new String[valores.length];
+            java.util.Arrays.fill(otras, "otras");
+            return mapa.computeIfAbsent(String.join("\u0000", otras), k -> new Serie(otras));
+        }
+        return mapa.computeIfAbsent(clave, k -> new Serie(valores.clone()));
+    }
+
+    /**
+     * Escribe todas las series en formato de texto de Prometheus (duraciones en segundos)
+     */
+    public void escribirPrometheus(StringBuilder out) {
+        for (Tipo tipo : Tipo.values()) {
+            List<Serie> lista = obtenerSeries(tipo);
+            String duracion = tipo.prefijo + "_duracion_segundos";
+            out.append("# HELP ").append(duracion).append(' ').append(tipo.descripcion).append(": duración\n");
+            out.append("# TYPE ").append(duracion).append(" histogram\n");
+            for (Serie serie : lista) {
+                String etiquetas = etiquetas(tipo, serie);
+                long[] conteos = serie.conteos();
+                long acumulado = 0;
+                for (int i = 0; i < conteos.length; i++) {
+                    acumulado += conteos[i];
+                    String le = i < LIMITES_MS.length ? formatear(LIMITES_MS[i] / 1000.0) : "+Inf";
+                    out.append(duracion).append("_bucket{").append(etiquetas).append(",le=\"").append(le).append("\"} ")
+                       .append(acumulado).append('\n');
+                }
+                out.append(duracion).append("_sum{").append(etiquetas).append("} ")
+                   .append(formatear(serie.sumaNanos.sum() / 1_000_000_000.0)).append('\n');
+                out.append(duracion).append("_count{").append(etiquetas).append("} ").append(acumulado).append('\n');
+            }
+            String errores = tipo.prefijo + "_errores_total";
+            out.append("# HELP ").append(errores).append(' ').append(tipo.descripcion).append(": terminadas con error\n");
+            out.append("# TYPE ").append(errores).append(" counter\n");
+            for (Serie serie : lista) {
+                out.append(errores).append('{').append(etiquetas(tipo, serie)).append("} ").append(serie.getErrores()).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Serializa todas las series en el formato JSON usado por los publishers
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        boolean primerTipo = true;
+        for (Tipo tipo : Tipo.values()) {
+            if (!primerTipo) {
+                json.append(", ");
+            }
+            primerTipo = false;
+            json.append('"').append(tipo.name().toLowerCase(Locale.ROOT)).append("\": [");
+            boolean primera = true;
+            for (Serie serie : obtenerSeries(tipo)) {
+                if (!primera) {
+                    json.append(", ");
+                }
+                primera = false;
+                json.append('{');
+                for (int i = 0; i < tipo.etiquetas.length; i++) {
+                    json.append('"').append(tipo.etiquetas[i]).append("\": \"")
+                        .append(JsonUtil.escapar(serie.valores[i])).append("\", ");
+                }
+                long cantidad = serie.getCantidad();
+                long errores = serie.getErrores();
+                json.append(String.format(Locale.ROOT,
+                    "\"cantidad\": %d, \"errores\": %d, \"tasaError\": %.4f, \"promedioMs\": %.3f, " +
+                    "\"p50Ms\": %.3f, \"p95Ms\": %.3f, \"p99Ms\": %.3f, \"maximoMs\": %.3f}",
+                    cantidad, errores, cantidad == 0 ? 0.0 : errores / (double) cantidad, serie.getPromedioMs(),
+                    serie.percentilMs(0.50), serie.percentilMs(0.95), serie.percentilMs(0.99), serie.getMaximoMs()));
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    private static String etiquetas(Tipo tipo, Serie serie) {
+        StringBuilder etiquetas = new StringBuilder();
+        for (int i = 0; i < tipo.etiquetas.length; i++) {
+            if (i > 0) {
+                etiquetas.append(',');
+            }
+            etiquetas.append(tipo.etiquetas[i]).append("=\"").append(escaparEtiqueta(serie.valores[i])).append('"');
+        }
+        return etiquetas.toString();
+    }
+
+    /**
+     * Número en el formato de Prometheus (sin notación regional)
+     */
+    public static String formatear(double valor) {
+        if (valor == Math.rint(valor) && Math.abs(valor) < 1e15) {
+            return Long.toString((long) valor);
+        }
+        return String.format(Locale.ROOT, "%.6f", valor).replaceAll("0+$", "");
+    }
+
+    /**
+     * Escapa un valor de etiqueta de Prometheus
+     */
+    public static String escaparEtiqueta(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -2,6 +2,8 @@ package edu.udelar.pap.webservice;
 
 import edu.udelar.pap.publisher.PublisherFactory;
 import edu.udelar.pap.publisher.BibliotecarioPublisher;
+import edu.udelar.pap.exception.ServicioSaturadoException;
+import edu.udelar.pap.util.JsonUtil;
 import jakarta.jws.WebService;
 
 /**
@@ -24,7 +26,12 @@ public class BibliotecarioWebServiceImpl implements BibliotecarioWebService {
     
     @Override
     public String crearBibliotecario(String nombre, String apellido, String email, String numeroEmpleado, String password) {
-        return publisher.crearBibliotecario(nombre, apellido, email, numeroEmpleado, password);
+        try {
+            return publisher.crearBibliotecario(nombre, apellido, email, numeroEmpleado, password);
+        } catch (ServicioSaturadoException e) {
+            // Pool de BCrypt lleno: se informa en la respuesta en lugar de un SOAP fault
+            return JsonUtil.saturado(e);
+        }
     }
     
     @Override
@@ -49,7 +56,12 @@ public class BibliotecarioWebServiceImpl implements BibliotecarioWebService {
     
     @Override
     public String autenticar(String email, String password) {
-        return publisher.autenticar(email, password);
+        try {
+            return publisher.autenticar(email, password);
+        } catch (ServicioSaturadoException e) {
+            // Pool de BCrypt lleno: se informa en la respuesta en lugar de un SOAP fault
+            return JsonUtil.saturado(e);
+        }
     }
     
     @Override
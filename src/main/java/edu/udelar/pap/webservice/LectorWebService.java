@@ -94,6 +94,17 @@ public interface LectorWebService {
         @WebParam(name = "nuevaZona") String nuevaZona
     );
     
+    /**
+     * Obtiene una página de lectores (paginación por cursor)
+     * Para la primera página cursor va vacío; las siguientes usan el siguienteCursor devuelto
+     */
+    @WebMethod(operationName = "obtenerPaginaLectores")
+    String obtenerPaginaLectores(
+        @WebParam(name = "orden") String orden,
+        @WebParam(name = "cursor") String cursor,
+        @WebParam(name = "limite") Integer limite
+    );
+    
     /**
      * Obtiene el estado del servicio
      */
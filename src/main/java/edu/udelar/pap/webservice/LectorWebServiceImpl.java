@@ -2,6 +2,8 @@ package edu.udelar.pap.webservice;
 
 import edu.udelar.pap.publisher.PublisherFactory;
 import edu.udelar.pap.publisher.LectorPublisher;
+import edu.udelar.pap.exception.ServicioSaturadoException;
+import edu.udelar.pap.util.JsonUtil;
 import jakarta.jws.WebService;
 
 /**
@@ -25,7 +27,12 @@ public class LectorWebServiceImpl implements LectorWebService {
     @Override
     public String crearLector(String nombre, String apellido, String email, String fechaNacimiento, 
                              String direccion, String zona, String password) {
-        return publisher.crearLector(nombre, apellido, email, fechaNacimiento, direccion, zona, password);
+        try {
+            return publisher.crearLector(nombre, apellido, email, fechaNacimiento, direccion, zona, password);
+        } catch (ServicioSaturadoException e) {
+            // Pool de BCrypt lleno: se informa en la respuesta en lugar de un SOAP fault
+            return JsonUtil.saturado(e);
+        }
     }
     
     @Override
@@ -55,7 +62,12 @@ public class LectorWebServiceImpl implements LectorWebService {
     
     @Override
     public String autenticar(String email, String password) {
-        return publisher.autenticar(email, password);
+        try {
+            return publisher.autenticar(email, password);
+        } catch (ServicioSaturadoException e) {
+            // Pool de BCrypt lleno: se informa en la respuesta en lugar de un SOAP fault
+            return JsonUtil.saturado(e);
+        }
     }
     
     @Override
@@ -68,6 +80,11 @@ public class LectorWebServiceImpl implements LectorWebService {
         return publisher.cambiarZonaLector(lectorId, nuevaZona);
     }
     
+    @Override
+    public String obtenerPaginaLectores(String orden, String cursor, Integer limite) {
+        return publisher.obtenerPaginaLectores(orden, cursor, limite);
+    }
+    
     @Override
     public String obtenerEstado() {
         return publisher.obtenerEstado();
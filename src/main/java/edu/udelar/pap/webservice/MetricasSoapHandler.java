@@ -0,0 +1,97 @@
+package edu.udelar.pap.webservice;
+
+import edu.udelar.pap.util.RegistroMetricas;
+import jakarta.xml.soap.SOAPBody;
+import jakarta.xml.soap.SOAPException;
+import jakarta.xml.ws.handler.MessageContext;
+import jakarta.xml.ws.handler.soap.SOAPHandler;
+import jakarta.xml.ws.handler.soap.SOAPMessageContext;
+
+import javax.xml.namespace.QName;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Handler SOAP que mide cada operación en RegistroMetricas (servicio y operación)
+ * Toma el tiempo al recibir la petición y lo registra al cerrar el intercambio; una
+ * respuesta SOAP Fault cuenta como error. El runtime atiende cada petición en un solo
+ * hilo, por eso el inicio se guarda en un ThreadLocal.
+ */
+public class MetricasSoapHandler implements SOAPHandler<SOAPMessageContext> {
+
+    private static final ThreadLocal<Medicion> EN_CURSO = new ThreadLocal<>();
+
+    private final String servicio;
+
+    private static final class Medicion {
+        private final long inicio = System.nanoTime();
+        private final String operacion;
+        private boolean error;
+
+        Medicion(String operacion) {
+            this.operacion = operacion;
+        }
+    }
+
+    /**
+     * @param servicio Nombre con el que se etiquetan las métricas (p. ej. PrestamoWS)
+     */
+    public MetricasSoapHandler(String servicio) {
+        this.servicio = servicio;
+    }
+
+    @Override
+    public boolean handleMessage(SOAPMessageContext context) {
+        if (!Boolean.TRUE.equals(context.get(MessageContext.MESSAGE_OUTBOUND_PROPERTY))) {
+            EN_CURSO.set(new Medicion(operacion(context)));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean handleFault(SOAPMessageContext context) {
+        Medicion medicion = EN_CURSO.get();
+        if (medicion != null) {
+            medicion.error = true;
+        }
+        return true;
+    }
+
+    @Override
+    public void close(MessageContext context) {
+        Medicion medicion = EN_CURSO.get();
+        if (medicion == null) {
+            return;
+        }
+        EN_CURSO.remove();
+        RegistroMetricas.getInstance().registrar(RegistroMetricas.Tipo.SOAP,
+            System.nanoTime() - medicion.inicio, medicion.error, servicio, medicion.operacion);
+    }
+
+    @Override
+    public Set<QName> getHeaders() {
+        return Collections.emptySet();
+    }
+
+    // La operación del WSDL o, si el runtime no la informa, el primer elemento del Body
+    private static String operacion(SOAPMessageContext context) {
+        Object operacion = context.get(MessageContext.WSDL_OPERATION);
+        if (operacion instanceof QName) {
+            return ((QName) operacion).getLocalPart();
+        }
+        try {
+            SOAPBody body = context.getMessage().getSOAPBody();
+            Iterator<?> elementos = body.getChildElements();
+            while (elementos.hasNext()) {
+                Object elemento = elementos.next();
+                if (elemento instanceof jakarta.xml.soap.SOAPElement) {
+                    return ((jakarta.xml.soap.SOAPElement) elemento).getElementName().getLocalName();
+                }
+            }
+        } catch (SOAPException e) {
+            // Se agrupa como desconocida
+        }
+        return "desconocida";
+    }
+}
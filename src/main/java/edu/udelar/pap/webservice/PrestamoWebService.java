@@ -5,6 +5,8 @@ import jakarta.jws.WebParam;
 import jakarta.jws.WebService;
 import jakarta.jws.soap.SOAPBinding;
 
+import java.util.List;
+
 /**
  * Web Service para gestión de préstamos
  * Genera automáticamente WSDL con JAX-WS
@@ -56,6 +58,16 @@ public interface PrestamoWebService {
     @WebMethod(operationName = "obtenerCantidadPrestamosVencidos")
     String obtenerCantidadPrestamosVencidos();
     
+    /**
+     * Obtiene los préstamos vencidos, los más atrasados primero
+     * limite y lectorId son opcionales (sin lectorId = todos los lectores)
+     */
+    @WebMethod(operationName = "obtenerPrestamosVencidos")
+    String obtenerPrestamosVencidos(
+        @WebParam(name = "limite") Integer limite,
+        @WebParam(name = "lectorId") Long lectorId
+    );
+    
     /**
      * Obtiene información de un préstamo por ID
      */
@@ -89,6 +101,31 @@ public interface PrestamoWebService {
         @WebParam(name = "prestamoId") Long prestamoId
     );
     
+    /**
+     * Aprueba varios préstamos pendientes en una sola transacción (hasta 1000)
+     * Devuelve el resultado de cada ID; los rechazados no impiden aprobar los demás
+     */
+    @WebMethod(operationName = "aprobarPrestamos")
+    String aprobarPrestamos(
+        @WebParam(name = "prestamoId") List<Long> prestamoIds
+    );
+    
+    /**
+     * Marca como devueltos varios préstamos en una sola transacción (hasta 1000)
+     */
+    @WebMethod(operationName = "devolverPrestamos")
+    String devolverPrestamos(
+        @WebParam(name = "prestamoId") List<Long> prestamoIds
+    );
+    
+    /**
+     * Cancela varios préstamos pendientes en una sola transacción (hasta 1000)
+     */
+    @WebMethod(operationName = "cancelarPrestamos")
+    String cancelarPrestamos(
+        @WebParam(name = "prestamoId") List<Long> prestamoIds
+    );
+    
     /**
      * Verifica si un préstamo está vencido
      */
@@ -97,6 +134,17 @@ public interface PrestamoWebService {
         @WebParam(name = "prestamoId") Long prestamoId
     );
     
+    /**
+     * Obtiene una página de préstamos (paginación por cursor)
+     * Para la primera página cursor va vacío; las siguientes usan el siguienteCursor devuelto
+     */
+    @WebMethod(operationName = "obtenerPaginaPrestamos")
+    String obtenerPaginaPrestamos(
+        @WebParam(name = "orden") String orden,
+        @WebParam(name = "cursor") String cursor,
+        @WebParam(name = "limite") Integer limite
+    );
+    
     /**
      * Obtiene el estado del servicio
      */
@@ -4,6 +4,8 @@ import edu.udelar.pap.publisher.PublisherFactory;
 import edu.udelar.pap.publisher.PrestamoPublisher;
 import jakarta.jws.WebService;
 
+import java.util.List;
+
 /**
  * Implementación del Web Service para gestión de préstamos
  * Utiliza las clases Publisher para la lógica de negocio
@@ -47,6 +49,11 @@ public class PrestamoWebServiceImpl implements PrestamoWebService {
         return publisher.obtenerCantidadPrestamosVencidos();
     }
     
+    @Override
+    public String obtenerPrestamosVencidos(Integer limite, Long lectorId) {
+        return publisher.obtenerPrestamosVencidos(limite, lectorId);
+    }
+    
     @Override
     public String obtenerInfoPrestamo(Long id) {
         return publisher.obtenerInfoPrestamo(id);
@@ -67,11 +74,31 @@ public class PrestamoWebServiceImpl implements PrestamoWebService {
         return publisher.cancelarPrestamo(prestamoId);
     }
     
+    @Override
+    public String aprobarPrestamos(List<Long> prestamoIds) {
+        return publisher.aprobarPrestamos(prestamoIds);
+    }
+    
+    @Override
+    public String devolverPrestamos(List<Long> prestamoIds) {
+        return publisher.devolverPrestamos(prestamoIds);
+    }
+    
+    @Override
+    public String cancelarPrestamos(List<Long> prestamoIds) {
+        return publisher.cancelarPrestamos(prestamoIds);
+    }
+    
     @Override
     public String verificarPrestamoVencido(Long prestamoId) {
         return publisher.verificarPrestamoVencido(prestamoId);
     }
     
+    @Override
+    public String obtenerPaginaPrestamos(String orden, String cursor, Integer limite) {
+        return publisher.obtenerPaginaPrestamos(orden, cursor, limite);
+    }
+    
     @Override
     public String obtenerEstado() {
         return publisher.obtenerEstado();
@@ -0,0 +1,21 @@
+-- Esquema inicial: tablas y restricciones tal como las creaba hbm2ddl.auto=update
+-- En bases creadas con update esta versión se registra como línea base sin ejecutarse
+
+create table usuarios (id bigint not null auto_increment, email varchar(255) not null, nombre varchar(255) not null, password varchar(255) not null, primary key (id)) engine=InnoDB;
+create table lectores (fechaRegistro date not null, id bigint not null, direccion varchar(255) not null, estado enum ('ACTIVO','SUSPENDIDO') not null, zona enum ('BIBLIOTECA_CENTRAL','SUCURSAL_ESTE','SUCURSAL_OESTE','BIBLIOTECA_INFANTIL','ARCHIVO_GENERAL') not null, primary key (id)) engine=InnoDB;
+create table bibliotecarios (id bigint not null, numeroEmpleado varchar(255) not null, primary key (id)) engine=InnoDB;
+create table donaciones_material (fechaIngreso date not null, id bigint not null auto_increment, donante VARCHAR(255) DEFAULT 'Anónimo' not null, primary key (id)) engine=InnoDB;
+create table libros (paginas integer not null, id bigint not null, titulo varchar(255) not null, primary key (id)) engine=InnoDB;
+create table articulos_especiales (peso float(53) not null, id bigint not null, descripcion varchar(255) not null, dimensiones varchar(255) not null, primary key (id)) engine=InnoDB;
+create table prestamos (fechaEstimadaDevolucion date not null, fechaSolicitud date not null, bibliotecario_id bigint not null, id bigint not null auto_increment, lector_id bigint not null, material_id bigint not null, estado enum ('PENDIENTE','EN_CURSO','DEVUELTO') not null, primary key (id)) engine=InnoDB;
+
+alter table bibliotecarios add constraint UK_pjqvlbhtust3uf7si5ip5ya35 unique (numeroEmpleado);
+alter table usuarios add constraint UK_kfsp0s1tflm1cwlj8idhqsad0 unique (email);
+
+alter table articulos_especiales add constraint FKnjy9mx7aip7vydlyw4vh28xc8 foreign key (id) references donaciones_material (id);
+alter table bibliotecarios add constraint FK5bu1a7i9jsvub5mqpqync1tlb foreign key (id) references usuarios (id);
+alter table lectores add constraint FKsh9x1ydakd9c9li817sb08gnn foreign key (id) references usuarios (id);
+alter table libros add constraint FKjm2r25f0a5w1e2iq2o0g2rmui foreign key (id) references donaciones_material (id);
+alter table prestamos add constraint FK7vfn6j01ogpbr7124dhy9hrcc foreign key (bibliotecario_id) references bibliotecarios (id);
+alter table prestamos add constraint FK9itxr8gs0fuu1dxbrxeww74hc foreign key (lector_id) references lectores (id);
+alter table prestamos add constraint FKnfein62xyi05cg8n1be50538a foreign key (material_id) references donaciones_material (id);
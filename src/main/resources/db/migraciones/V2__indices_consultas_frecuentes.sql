@@ -0,0 +1,17 @@
+-- Índices para los filtros de las consultas frecuentes de PrestamoService y LectorService
+
+-- Vencidos y conteos por estado: estado = ? AND fechaEstimadaDevolucion < ?
+create index idx_prestamos_estado_devolucion on prestamos (estado, fechaEstimadaDevolucion);
+-- Límite de préstamos activos e historial por lector: lector_id = ? AND estado = ?
+create index idx_prestamos_lector_estado on prestamos (lector_id, estado);
+-- Disponibilidad de un material: material_id = ? AND estado <> 'DEVUELTO'
+create index idx_prestamos_material_estado on prestamos (material_id, estado);
+-- Préstamos gestionados por un bibliotecario, más recientes primero
+create index idx_prestamos_bibliotecario_solicitud on prestamos (bibliotecario_id, fechaSolicitud);
+-- Listado paginado por fecha de solicitud (orden por defecto)
+create index idx_prestamos_solicitud on prestamos (fechaSolicitud);
+
+-- Lectores filtrados por estado
+create index idx_lectores_estado on lectores (estado);
+-- Listados de lectores y bibliotecarios ordenados por nombre (también la paginación por cursor)
+create index idx_usuarios_nombre on usuarios (nombre);
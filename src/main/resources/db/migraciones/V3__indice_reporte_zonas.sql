@@ -0,0 +1,3 @@
+-- Reporte por zona con rango de fechas: el filtro por fechaSolicitud y el agrupamiento
+-- por (lector, estado) se resuelven solo con el índice, sin leer las filas de préstamos
+create index idx_prestamos_solicitud_lector_estado on prestamos (fechaSolicitud, lector_id, estado);
@@ -0,0 +1,4 @@
+-- Columnas de versión para el control de concurrencia optimista (@Version en Prestamo y Usuario)
+-- Las filas existentes empiezan en 0; Lector y Bibliotecario usan la de usuarios (herencia JOINED)
+alter table prestamos add column version bigint default 0 not null;
+alter table usuarios add column version bigint default 0 not null;
@@ -0,0 +1,6 @@
+-- Email en minúsculas y sin espacios para buscar usuarios sin distinguir mayúsculas (login, importación)
+-- MigradorEsquema verifica antes que no haya dos usuarios cuyo email solo difiera en mayúsculas o espacios:
+-- el índice único no se podría crear y hay que unificar esas cuentas a mano
+alter table usuarios add column email_normalizado varchar(255);
+update usuarios set email_normalizado = lower(trim(email));
+create unique index idx_usuarios_email_normalizado on usuarios (email_normalizado);
@@ -1768,6 +1768,8 @@ const BibliotecaSPA = {
                                    value="${fechaDevolucionInput}" required>
                         </div>
                         
+                        <input type="hidden" id="editVersion" value="${prestamo.version != null ? prestamo.version : ''}">
+                        
                         <div class="form-group">
                             <label for="editEstado">Estado: *</label>
                             <select id="editEstado" class="form-control" required>
@@ -1847,6 +1849,11 @@ const BibliotecaSPA = {
             params.append('materialId', formData.materialId);
             params.append('fechaDevolucion', formData.fechaDevolucion);
             params.append('estado', formData.estado);
+            // Versión leída al abrir el formulario: si otro usuario cambió el préstamo, el servidor responde CONFLICTO_CONCURRENCIA
+            const version = $('#editVersion').val();
+            if (version) {
+                params.append('version', version);
+            }
             
             console.log('📤 Parámetros a enviar:', params.toString());
             
@@ -1870,6 +1877,11 @@ const BibliotecaSPA = {
                 // Recargar la tabla de préstamos
                 this.loadPrestamosGestionData();
                 this.loadPrestamosGestionStats();
+            } else if (response && response.error === 'CONFLICTO_CONCURRENCIA') {
+                // Otro usuario modificó el préstamo: se recargan los datos en lugar de pisar su cambio
+                this.showAlert('⚠️ ' + response.message, 'warning');
+                ModalManager.close('modal-edit-prestamo-' + idPrestamo);
+                this.loadPrestamosGestionData();
             } else {
                 const mensaje = response.message || response.error || 'Error desconocido al actualizar préstamo';
                 console.error('❌ Error al actualizar:', mensaje);
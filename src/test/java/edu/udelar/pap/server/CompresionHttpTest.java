@@ -0,0 +1,36 @@
+package edu.udelar.pap.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class CompresionHttpTest {
+
+    @Test
+    void gzipRechazadoExplicitamenteNoLoHabilitaElComodin() {
+        assertNull(CompresionHttp.elegir("gzip;q=0, *;q=1"));
+        assertNull(CompresionHttp.elegir("*;q=1, gzip;q=0"));
+    }
+
+    @Test
+    void gzipRechazadoCaeEnDeflateAceptado() {
+        assertEquals(CompresionHttp.DEFLATE, CompresionHttp.elegir("gzip;q=0, deflate, *"));
+    }
+
+    @Test
+    void comodinHabilitaGzipSiNoEstaNombrado() {
+        assertEquals(CompresionHttp.GZIP, CompresionHttp.elegir("*"));
+        assertEquals(CompresionHttp.GZIP, CompresionHttp.elegir("br, *;q=0.5"));
+        assertNull(CompresionHttp.elegir("*;q=0"));
+    }
+
+    @Test
+    void codificacionesExplicitas() {
+        assertEquals(CompresionHttp.GZIP, CompresionHttp.elegir("gzip, deflate, br"));
+        assertEquals(CompresionHttp.GZIP, CompresionHttp.elegir("x-gzip"));
+        assertEquals(CompresionHttp.DEFLATE, CompresionHttp.elegir("deflate"));
+        assertNull(CompresionHttp.elegir("identity"));
+        assertNull(CompresionHttp.elegir(null));
+    }
+}